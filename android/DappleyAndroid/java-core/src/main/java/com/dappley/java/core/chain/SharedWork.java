@@ -0,0 +1,96 @@
+package com.dappley.java.core.chain;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs a task for each index, on the calling thread and up to {@code parallelism} workers started on an executor.
+ * <p>Indexes are taken one at a time from a shared counter, so all of them are done by the calling thread if the
+ * executor has no free thread or rejects workers. After a failure the indexes left are skipped.</p>
+ */
+class SharedWork implements Runnable {
+    private final int count;
+    private final Task task;
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    private final CountDownLatch undone;
+    private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+    private SharedWork(int count, Task task) {
+        this.count = count;
+        this.task = task;
+        this.undone = new CountDownLatch(count);
+    }
+
+    /**
+     * Run task for indexes from 0 to count - 1 and wait until all are done.
+     * @param count       number of indexes
+     * @param executor    runs workers, null to run on the calling thread only
+     * @param parallelism max number of workers
+     * @param task        task of an index, results written by it are visible after return
+     */
+    static void run(int count, Executor executor, int parallelism, Task task) {
+        int workerCount = executor == null ? 0 : Math.min(parallelism, count - 1);
+        if (workerCount <= 0) {
+            for (int i = 0; i < count; i++) {
+                task.run(i);
+            }
+            return;
+        }
+        SharedWork work = new SharedWork(count, task);
+        for (int i = 0; i < workerCount; i++) {
+            try {
+                executor.execute(work);
+            } catch (RejectedExecutionException e) {
+                // the calling thread does the indexes left
+                break;
+            }
+        }
+        work.run();
+        work.await();
+    }
+
+    @Override
+    public void run() {
+        int index;
+        while ((index = nextIndex.getAndIncrement()) < count) {
+            try {
+                if (error.get() == null) {
+                    task.run(index);
+                }
+            } catch (Throwable e) {
+                error.compareAndSet(null, e);
+            } finally {
+                undone.countDown();
+            }
+        }
+    }
+
+    /**
+     * Wait until every index taken by a worker is done.
+     */
+    private void await() {
+        try {
+            undone.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for workers", e);
+        }
+        Throwable e = error.get();
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        if (e != null) {
+            throw new IllegalStateException("Worker failed", e);
+        }
+    }
+
+    /**
+     * Work of one index.
+     */
+    interface Task {
+        void run(int index);
+    }
+}
@@ -0,0 +1,86 @@
+package com.dappley.java.core.chain;
+
+import com.dappley.java.core.crypto.DigestEngine;
+import com.dappley.java.core.po.Transaction;
+import com.dappley.java.core.po.TxInput;
+import com.dappley.java.core.po.TxOutput;
+import com.dappley.java.core.util.ByteArraySink;
+import com.dappley.java.core.util.TransactionEncoder;
+import org.spongycastle.util.Memoable;
+
+import java.util.List;
+
+/**
+ * Hashes signed by each input of a transaction.
+ * <p>The hash of an input is the id hash of the trimmed transaction, where inputs have no public key and no
+ * signature, except the signed one whose public key is the public key hash of the referenced utxo.</p>
+ * <p>The trimmed transaction is serialized once, and the digest state after each input is kept. So the hash of an
+ * input only digests its public key hash and the bytes after it, instead of serializing the whole transaction again
+ * for each input. Digests run on the SHA-256 {@link DigestEngine} of current thread, which continues from the kept
+ * state, so hashes of different inputs can be computed by different threads.</p>
+ */
+public class SignatureHashes {
+    private final byte[] trimmedBytes;
+    private final int[] inputEnds;
+    private final Memoable[] prefixStates;
+
+    /**
+     * @param transaction transaction to be signed or verified, its signatures and public keys are ignored
+     */
+    public SignatureHashes(Transaction transaction) {
+        List<TxInput> txInputs = transaction.getTxInputs();
+        int inputCount = txInputs == null ? 0 : txInputs.size();
+        ByteArraySink sink = new ByteArraySink(TransactionEncoder.size(transaction, false));
+        inputEnds = new int[inputCount];
+        for (int i = 0; i < inputCount; i++) {
+            TxInput txInput = txInputs.get(i);
+            sink.put(txInput.getTxId());
+            sink.putInt(txInput.getVout());
+            inputEnds[i] = sink.size();
+        }
+        List<TxOutput> txOutputs = transaction.getTxOutputs();
+        if (txOutputs != null) {
+            for (TxOutput txOutput : txOutputs) {
+                TransactionEncoder.writeOutput(txOutput, sink);
+            }
+        }
+        TransactionEncoder.writeFees(transaction, sink);
+        trimmedBytes = sink.toByteArray();
+
+        prefixStates = new Memoable[inputCount];
+        DigestEngine engine = DigestEngine.sha256();
+        engine.reset();
+        int start = 0;
+        for (int i = 0; i < inputCount; i++) {
+            engine.update(trimmedBytes, start, inputEnds[i] - start);
+            prefixStates[i] = engine.saveState();
+            start = inputEnds[i];
+        }
+        engine.reset();
+    }
+
+    /**
+     * Returns the number of inputs.
+     * @return int input count
+     */
+    public int size() {
+        return inputEnds.length;
+    }
+
+    /**
+     * Returns the hash signed by an input.
+     * @param index         input index
+     * @param publicKeyHash public key hash of the utxo referenced by the input
+     * @return byte[] SHA-256 hash
+     */
+    public byte[] hash(int index, byte[] publicKeyHash) {
+        DigestEngine engine = DigestEngine.sha256().restoreState(prefixStates[index]);
+        if (publicKeyHash != null) {
+            engine.update(publicKeyHash);
+        }
+        engine.update(trimmedBytes, inputEnds[index], trimmedBytes.length - inputEnds[index]);
+        byte[] hash = new byte[engine.getDigestSize()];
+        engine.doFinal(hash, 0);
+        return hash;
+    }
+}
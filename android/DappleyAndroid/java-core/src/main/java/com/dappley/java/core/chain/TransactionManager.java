@@ -1,6 +1,5 @@
 package com.dappley.java.core.chain;
 
-import com.dappley.java.core.crypto.ShaDigest;
 import com.dappley.java.core.po.Transaction;
 import com.dappley.java.core.po.TxInput;
 import com.dappley.java.core.po.TxOutput;
@@ -17,6 +16,19 @@ import java.util.Map;
  * Utils to handle transaction datas.
  */
 public class TransactionManager {
+    private static volatile TransactionSigner signer = new TransactionSigner();
+
+    /**
+     * Set the signer of transaction inputs, for example one signing in parallel on an executor.
+     * Default signer signs inputs on the calling thread.
+     * @param signer transaction signer
+     */
+    public static void setSigner(TransactionSigner signer) {
+        if (signer == null) {
+            return;
+        }
+        TransactionManager.signer = signer;
+    }
 
     /**
      * Create a new transaction
@@ -232,44 +244,10 @@ public class TransactionManager {
 
         // no need to validate inputs
 
-        // get a trimedCopy of old transaction
-        Transaction transactionCopy = transaction.trimedCopy();
-
         byte[] privKeyBytes = HashUtil.fromECDSAPrivateKey(privateKey);
 
         // calculate sign value
-        buildSignValue(transaction, utxoMap, transactionCopy, privKeyBytes);
-    }
-
-    /**
-     * calculate transaction input list's sign value
-     * @param transaction     origin transaction
-     * @param utxoMap         previous utxos
-     * @param transactionCopy copied transaction (for assemble sign value)
-     * @param privKeyBytes    user's private key bytes
-     */
-    private static void buildSignValue(Transaction transaction, Map<String, Utxo> utxoMap, Transaction transactionCopy, byte[] privKeyBytes) {
-        List<TxInput> txCopyInputs = transactionCopy.getTxInputs();
-        TxInput txCopyInput = null;
-        byte[] oldPubKey = null;
-        for (int i = 0; i < txCopyInputs.size(); i++) {
-            txCopyInput = txCopyInputs.get(i);
-            oldPubKey = txCopyInput.getPublicKey();
-            Utxo utxo = utxoMap.get(HexUtil.toHex(txCopyInput.getTxId()) + "-" + txCopyInput.getVout());
-            // temporarily add pubKeyHash to pubKey property
-            txCopyInput.setPublicKey(utxo.getPublicKeyHash());
-
-            // get deepClone's hash value
-            byte[] txCopyHash = transactionCopy.hash();
-
-            // recover old pubKey
-            txCopyInput.setPublicKey(oldPubKey);
-
-            byte[] signature = HashUtil.secp256k1Sign(txCopyHash, privKeyBytes);
-
-            // Update original transaction data with vin's signature.
-            transaction.getTxInputs().get(i).setSignature(signature);
-        }
+        signer.sign(transaction, privKeyBytes, utxoMap);
     }
 
     /**
@@ -300,17 +278,22 @@ public class TransactionManager {
 
     /**
      * Returns the hash value of transaction list
-     * <p>Combine all hash of each transaction and calculate a SHA256 digest for result.</p>
+     * <p>Combine all hash of each transaction and calculate a SHA256 digest for result.
+     * Hashes are fed into the digest one by one instead of being concatenated.</p>
      * @param transactions transaction list of block
      * @return byte[] hash value
      */
     public static byte[] hashTransactions(List<Transaction> transactions) {
-        byte[] txHash = new byte[0];
-        for (Transaction transaction : transactions) {
-            txHash = ByteUtil.concat(txHash, transaction.hash());
+        // transaction hashes use the same engine, so they are finished before the block digest starts
+        byte[][] hashes = new byte[transactions.size()][];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = transactions.get(i).hash();
+        }
+        DigestSink digestSink = DigestSink.sha256();
+        for (byte[] hash : hashes) {
+            digestSink.put(hash);
         }
-        txHash = ShaDigest.sha256(txHash);
-        return txHash;
+        return digestSink.digest();
     }
 
 }
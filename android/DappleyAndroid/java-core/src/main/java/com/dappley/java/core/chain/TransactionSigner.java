@@ -0,0 +1,74 @@
+package com.dappley.java.core.chain;
+
+import com.dappley.java.core.crypto.CryptoProvider;
+import com.dappley.java.core.crypto.Secp256k1;
+import com.dappley.java.core.po.Transaction;
+import com.dappley.java.core.po.TxInput;
+import com.dappley.java.core.po.Utxo;
+import com.dappley.java.core.util.HexUtil;
+import com.dappley.java.core.util.ObjectUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Signs all inputs of a transaction with one private key.
+ * <p>Hashes of inputs are built by {@link SignatureHashes}. Without an executor inputs are signed one by one on the
+ * calling thread. With an executor, up to {@code parallelism} workers are started on it and the calling thread signs
+ * as well, taking inputs one at a time, so signing finishes even if the executor has no free thread.</p>
+ */
+public class TransactionSigner {
+    private final Executor executor;
+    private final int parallelism;
+
+    /**
+     * Signer signing inputs on the calling thread.
+     */
+    public TransactionSigner() {
+        this(null, 0);
+    }
+
+    /**
+     * @param executor    runs workers signing inputs, null to sign on the calling thread only
+     * @param parallelism max number of workers started on executor for a transaction
+     */
+    public TransactionSigner(Executor executor, int parallelism) {
+        this.executor = executor;
+        this.parallelism = Math.max(0, parallelism);
+    }
+
+    /**
+     * Sign inputs of transaction and set their signatures.
+     * <p>Signatures are set after all inputs are signed, so the transaction is unchanged if signing fails.</p>
+     * @param transaction  transaction with inputs and outputs
+     * @param privKeyBytes private key bytes
+     * @param utxoMap      utxos referenced by inputs, in format of {@link TransactionManager#getPrevUtxos(List)}
+     */
+    public void sign(Transaction transaction, byte[] privKeyBytes, Map<String, Utxo> utxoMap) {
+        List<TxInput> txInputs = transaction.getTxInputs();
+        if (ObjectUtils.isEmpty(txInputs)) {
+            return;
+        }
+        int inputCount = txInputs.size();
+        byte[][] publicKeyHashes = new byte[inputCount][];
+        for (int i = 0; i < inputCount; i++) {
+            TxInput txInput = txInputs.get(i);
+            Utxo utxo = utxoMap.get(HexUtil.toHex(txInput.getTxId()) + "-" + txInput.getVout());
+            if (utxo == null) {
+                throw new IllegalArgumentException("Utxo of input " + i + " not found");
+            }
+            publicKeyHashes[i] = utxo.getPublicKeyHash();
+        }
+        SignatureHashes signatureHashes = new SignatureHashes(transaction);
+        byte[][] signatures = new byte[inputCount][];
+
+        CryptoProvider.Signer signer = Secp256k1.getProvider().newSigner(privKeyBytes);
+        SharedWork.run(inputCount, executor, parallelism,
+                i -> signatures[i] = signer.sign(signatureHashes.hash(i, publicKeyHashes[i])));
+
+        for (int i = 0; i < inputCount; i++) {
+            txInputs.get(i).setSignature(signatures[i]);
+        }
+    }
+}
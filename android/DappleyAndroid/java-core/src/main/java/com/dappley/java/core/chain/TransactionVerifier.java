@@ -0,0 +1,223 @@
+package com.dappley.java.core.chain;
+
+import com.dappley.java.core.crypto.CryptoProvider;
+import com.dappley.java.core.crypto.Secp256k1;
+import com.dappley.java.core.po.Block;
+import com.dappley.java.core.po.Transaction;
+import com.dappley.java.core.po.TxInput;
+import com.dappley.java.core.po.Utxo;
+import com.dappley.java.core.util.HashUtil;
+import com.dappley.java.core.util.HexUtil;
+import com.dappley.java.core.util.ObjectUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.spongycastle.math.ec.ECPoint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Verifies signatures of transaction inputs.
+ * <p>The hash of each input is rebuilt by {@link SignatureHashes}, the same way inputs are signed. Without a utxo map
+ * the signed public key hash is the user public key hash of the input's public key, which the referenced utxo must
+ * have for the input to be spendable.</p>
+ * <p>Inputs of all transactions are verified one by one on the calling thread, or by up to {@code parallelism} workers
+ * of an executor together with the calling thread. Verifiers of the crypto provider are cached by public key, so
+ * inputs signed by the same key share one decoding and the data the verifier computed from the key.
+ * At most {@code maxCachedKeys} verifiers are kept, the least recently used one is dropped first.</p>
+ * <p>Coinbase and reward transactions have no signatures, they are not checked.</p>
+ */
+@Slf4j
+public class TransactionVerifier {
+    private static final int DEFAULT_MAX_CACHED_KEYS = 1024;
+
+    private final Executor executor;
+    private final int parallelism;
+    private volatile int maxCachedKeys = DEFAULT_MAX_CACHED_KEYS;
+    private final LinkedHashMap<String, CryptoProvider.Verifier> verifiers = new LinkedHashMap<String, CryptoProvider.Verifier>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CryptoProvider.Verifier> eldest) {
+            return size() > maxCachedKeys;
+        }
+    };
+
+    /**
+     * Verifier verifying inputs on the calling thread.
+     */
+    public TransactionVerifier() {
+        this(null, 0);
+    }
+
+    /**
+     * @param executor    runs workers verifying inputs, null to verify on the calling thread only
+     * @param parallelism max number of workers started on executor for a verification
+     */
+    public TransactionVerifier(Executor executor, int parallelism) {
+        this.executor = executor;
+        this.parallelism = Math.max(0, parallelism);
+    }
+
+    /**
+     * Set the max number of public key verifiers kept. Default value is 1024.
+     * @param maxCachedKeys key count
+     */
+    public void setMaxCachedKeys(int maxCachedKeys) {
+        if (maxCachedKeys < 0) {
+            return;
+        }
+        this.maxCachedKeys = maxCachedKeys;
+        synchronized (verifiers) {
+            Iterator<String> iterator = verifiers.keySet().iterator();
+            while (verifiers.size() > maxCachedKeys && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns if all inputs of transaction are correctly signed.
+     * @param transaction transaction
+     * @return boolean true/false
+     */
+    public boolean verify(Transaction transaction) {
+        return verifyTransactions(Collections.singletonList(transaction), null).isEmpty();
+    }
+
+    /**
+     * Returns if all inputs of transaction are correctly signed for the utxos they refer to.
+     * @param transaction transaction
+     * @param utxoMap     utxos referenced by inputs, in format of {@link TransactionManager#getPrevUtxos(List)}
+     * @return boolean true/false, false if a utxo is not found
+     */
+    public boolean verify(Transaction transaction, Map<String, Utxo> utxoMap) {
+        return verifyTransactions(Collections.singletonList(transaction), utxoMap).isEmpty();
+    }
+
+    /**
+     * Returns if all transactions in block are correctly signed.
+     * <p>Signature of the block itself is not checked.</p>
+     * @param block block
+     * @return boolean true/false
+     */
+    public boolean verify(Block block) {
+        List<Transaction> transactions = block.getTransactions();
+        return transactions == null || verifyTransactions(transactions, null).isEmpty();
+    }
+
+    /**
+     * Verify inputs of all transactions together.
+     * @param transactions transaction list
+     * @param utxoMap      utxos referenced by inputs, null to check against public keys of inputs
+     * @return List<Transaction> transactions with an input not correctly signed, empty if all are valid
+     */
+    public List<Transaction> verifyTransactions(List<Transaction> transactions, Map<String, Utxo> utxoMap) {
+        List<SignatureHashes> hashesList = new ArrayList<>(transactions.size());
+        List<TxInput> inputs = new ArrayList<>();
+        // transaction and input index of each input in inputs
+        List<int[]> positions = new ArrayList<>();
+        for (int t = 0; t < transactions.size(); t++) {
+            Transaction transaction = transactions.get(t);
+            if (!isSigned(transaction)) {
+                hashesList.add(null);
+                continue;
+            }
+            hashesList.add(new SignatureHashes(transaction));
+            List<TxInput> txInputs = transaction.getTxInputs();
+            for (int i = 0; i < txInputs.size(); i++) {
+                inputs.add(txInputs.get(i));
+                positions.add(new int[]{t, i});
+            }
+        }
+
+        boolean[] valid = new boolean[inputs.size()];
+        SharedWork.run(inputs.size(), executor, parallelism, index -> {
+            int[] position = positions.get(index);
+            valid[index] = verifyInput(hashesList.get(position[0]), position[1], inputs.get(index), utxoMap);
+        });
+
+        List<Transaction> invalid = new ArrayList<>();
+        for (int index = 0; index < valid.length; index++) {
+            Transaction transaction = transactions.get(positions.get(index)[0]);
+            if (!valid[index] && (invalid.isEmpty() || invalid.get(invalid.size() - 1) != transaction)) {
+                invalid.add(transaction);
+            }
+        }
+        return invalid;
+    }
+
+    private boolean verifyInput(SignatureHashes signatureHashes, int index, TxInput txInput, Map<String, Utxo> utxoMap) {
+        byte[] signature = txInput.getSignature();
+        byte[] publicKey = txInput.getPublicKey();
+        if (signature == null || signature.length != 65 || publicKey == null || publicKey.length == 0) {
+            return false;
+        }
+        byte[] publicKeyHash;
+        if (utxoMap == null) {
+            publicKeyHash = HashUtil.getUserPubKeyHash(publicKey);
+        } else {
+            Utxo utxo = utxoMap.get(HexUtil.toHex(txInput.getTxId()) + "-" + txInput.getVout());
+            if (utxo == null) {
+                return false;
+            }
+            publicKeyHash = utxo.getPublicKeyHash();
+        }
+        CryptoProvider.Verifier verifier = getVerifier(publicKey);
+        return verifier != null && verifier.verify(signatureHashes.hash(index, publicKeyHash), signature);
+    }
+
+    /**
+     * Returns the verifier of public key bytes of an input, which are coordinates without the encoding prefix and
+     * leading zeros, or null if they are not a point of the curve.
+     */
+    private CryptoProvider.Verifier getVerifier(byte[] publicKey) {
+        String key = HexUtil.toHex(publicKey);
+        CryptoProvider.Verifier verifier;
+        synchronized (verifiers) {
+            verifier = verifiers.get(key);
+        }
+        if (verifier != null) {
+            return verifier;
+        }
+        if (publicKey.length > 64) {
+            return null;
+        }
+        byte[] encoded = new byte[65];
+        encoded[0] = 0x04;
+        System.arraycopy(publicKey, 0, encoded, 65 - publicKey.length, publicKey.length);
+        ECPoint point;
+        try {
+            point = Secp256k1.CURVE.getCurve().decodePoint(encoded);
+        } catch (IllegalArgumentException e) {
+            log.debug("invalid public key " + key + ": " + e.getMessage());
+            return null;
+        }
+        CryptoProvider provider = Secp256k1.getProvider();
+        if (maxCachedKeys == 0) {
+            // a verifier context is not worth building for one signature
+            return (data, sign) -> provider.verify(data, sign, point);
+        }
+        // built outside the lock, a key verified by several workers at once may be built more than once
+        verifier = provider.newVerifier(point);
+        synchronized (verifiers) {
+            verifiers.put(key, verifier);
+        }
+        return verifier;
+    }
+
+    /**
+     * Returns if inputs of transaction should be signed.
+     */
+    private static boolean isSigned(Transaction transaction) {
+        if (ObjectUtils.isEmpty(transaction.getTxInputs()) || transaction.isCoinbase()) {
+            return false;
+        }
+        int type = transaction.getType();
+        return type != Transaction.TxTypeGasReward && type != Transaction.TxTypeGasChange
+                && type != Transaction.TxTypeReward;
+    }
+}
@@ -0,0 +1,71 @@
+package com.dappley.java.core.crypto;
+
+import org.spongycastle.math.ec.ECPoint;
+
+/**
+ * Signing and verification on the curve of {@link Secp256k1}.
+ * <p>The provider used by {@link Secp256k1} is set with {@link Secp256k1#setProvider(CryptoProvider)}.
+ * Implementations must give the same signatures and verification results as {@link SpongyCryptoProvider}.</p>
+ * <p>Signers and verifiers are contexts of one key, they may keep data computed from the key, so reusing them for
+ * several signatures is cheaper than the one time methods. They can be used by several threads.</p>
+ */
+public abstract class CryptoProvider {
+
+    /**
+     * Returns a signer of a private key.
+     * @param privateKey private key bytes
+     * @return Signer signer
+     */
+    public abstract Signer newSigner(byte[] privateKey);
+
+    /**
+     * Returns a verifier of a public key.
+     * @param publicKey public key point
+     * @return Verifier verifier
+     */
+    public abstract Verifier newVerifier(ECPoint publicKey);
+
+    /**
+     * Returns a recoverable signature of data.
+     * @param data       32 bytes hash
+     * @param privateKey private key bytes
+     * @return byte[] r, s and recovery id
+     */
+    public byte[] sign(byte[] data, byte[] privateKey) {
+        return newSigner(privateKey).sign(data);
+    }
+
+    /**
+     * Verify signature of data.
+     * @param data      32 bytes hash
+     * @param sign      65 bytes signature
+     * @param publicKey public key point
+     * @return boolean if the signature is valid
+     */
+    public boolean verify(byte[] data, byte[] sign, ECPoint publicKey) {
+        return newVerifier(publicKey).verify(data, sign);
+    }
+
+    /**
+     * Signer of a private key.
+     */
+    public interface Signer {
+        /**
+         * @param data 32 bytes hash
+         * @return byte[] r, s and recovery id
+         */
+        byte[] sign(byte[] data);
+    }
+
+    /**
+     * Verifier of a public key.
+     */
+    public interface Verifier {
+        /**
+         * @param data 32 bytes hash
+         * @param sign 65 bytes signature
+         * @return boolean if the signature is valid
+         */
+        boolean verify(byte[] data, byte[] sign);
+    }
+}
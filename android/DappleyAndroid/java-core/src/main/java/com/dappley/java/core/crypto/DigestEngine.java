@@ -0,0 +1,176 @@
+package com.dappley.java.core.crypto;
+
+import org.spongycastle.crypto.Digest;
+import org.spongycastle.crypto.digests.RIPEMD160Digest;
+import org.spongycastle.crypto.digests.SHA256Digest;
+import org.spongycastle.crypto.digests.SHA3Digest;
+import org.spongycastle.util.Memoable;
+
+/**
+ * Reusable message digest of current thread.
+ * <p>Each thread has one engine per algorithm, created on first use and reset after each result, so hashing creates
+ * no digest objects. Results can be written into arrays of the caller, then no array is created at all.</p>
+ * <p>An engine is confined to its thread and must not be shared. Data of a digest has to be finished by
+ * {@link #doFinal(byte[], int)} before the same engine is used for another one, including calls of
+ * {@link ShaDigest}, {@link Sha3Digest}, {@link RipemdDigest} and {@link com.dappley.java.core.util.DigestSink}
+ * which use these engines too.</p>
+ */
+public final class DigestEngine {
+    private static final ThreadLocal<DigestEngine> SHA256 = new ThreadLocal<DigestEngine>() {
+        @Override
+        protected DigestEngine initialValue() {
+            return new DigestEngine(new SHA256Digest());
+        }
+    };
+    private static final ThreadLocal<DigestEngine> SHA3_256 = new ThreadLocal<DigestEngine>() {
+        @Override
+        protected DigestEngine initialValue() {
+            return new DigestEngine(new SHA3Digest(256));
+        }
+    };
+    private static final ThreadLocal<DigestEngine> RIPEMD160 = new ThreadLocal<DigestEngine>() {
+        @Override
+        protected DigestEngine initialValue() {
+            return new DigestEngine(new RIPEMD160Digest());
+        }
+    };
+
+    private final Digest digest;
+
+    private DigestEngine(Digest digest) {
+        this.digest = digest;
+    }
+
+    /**
+     * Returns the SHA-256 engine of current thread.
+     * @return DigestEngine engine
+     */
+    public static DigestEngine sha256() {
+        return SHA256.get();
+    }
+
+    /**
+     * Returns the SHA3-256 engine of current thread.
+     * @return DigestEngine engine
+     */
+    public static DigestEngine sha3256() {
+        return SHA3_256.get();
+    }
+
+    /**
+     * Returns the RIPEMD-160 engine of current thread.
+     * @return DigestEngine engine
+     */
+    public static DigestEngine ripemd160() {
+        return RIPEMD160.get();
+    }
+
+    /**
+     * Returns the length of digest.
+     * @return int byte count
+     */
+    public int getDigestSize() {
+        return digest.getDigestSize();
+    }
+
+    /**
+     * Add a byte to digest.
+     * @param in data
+     * @return DigestEngine this engine
+     */
+    public DigestEngine update(byte in) {
+        digest.update(in);
+        return this;
+    }
+
+    /**
+     * Add data to digest.
+     * @param in     data
+     * @param offset start index in data
+     * @param length byte count
+     * @return DigestEngine this engine
+     */
+    public DigestEngine update(byte[] in, int offset, int length) {
+        digest.update(in, offset, length);
+        return this;
+    }
+
+    /**
+     * Add data to digest.
+     * @param in data
+     * @return DigestEngine this engine
+     */
+    public DigestEngine update(byte[] in) {
+        digest.update(in, 0, in.length);
+        return this;
+    }
+
+    /**
+     * Write digest of added data into an array and reset the engine.
+     * @param out    destination array, with {@link #getDigestSize()} bytes from offset
+     * @param offset start index in destination
+     * @return int byte count written
+     */
+    public int doFinal(byte[] out, int offset) {
+        return digest.doFinal(out, offset);
+    }
+
+    /**
+     * Write digest of data into an array, discarding data added before.
+     * @param in        data
+     * @param offset    start index in data
+     * @param length    byte count
+     * @param out       destination array
+     * @param outOffset start index in destination
+     * @return int byte count written
+     */
+    public int digest(byte[] in, int offset, int length, byte[] out, int outOffset) {
+        // bytes left by a failed call are discarded
+        digest.reset();
+        digest.update(in, offset, length);
+        return digest.doFinal(out, outOffset);
+    }
+
+    /**
+     * Returns digest of data, discarding data added before.
+     * @param in data
+     * @return byte[] digest
+     */
+    public byte[] digest(byte[] in) {
+        byte[] result = new byte[digest.getDigestSize()];
+        digest(in, 0, in.length, result, 0);
+        return result;
+    }
+
+    /**
+     * Returns a copy of the state after data added so far, which can be restored into engines of any thread.
+     * <p>Only SHA-256 engines keep states.</p>
+     * @return Memoable state, not changed by the engine afterwards
+     */
+    public Memoable saveState() {
+        if (!(digest instanceof Memoable)) {
+            throw new UnsupportedOperationException(digest.getAlgorithmName() + " state cannot be saved");
+        }
+        return ((Memoable) digest).copy();
+    }
+
+    /**
+     * Discard added data and continue from a saved state, the state itself is not changed.
+     * @param state state saved by an engine of the same algorithm
+     * @return DigestEngine this engine
+     */
+    public DigestEngine restoreState(Memoable state) {
+        if (!(digest instanceof Memoable)) {
+            throw new UnsupportedOperationException(digest.getAlgorithmName() + " state cannot be restored");
+        }
+        ((Memoable) digest).reset(state);
+        return this;
+    }
+
+    /**
+     * Discard added data.
+     */
+    public void reset() {
+        digest.reset();
+    }
+}
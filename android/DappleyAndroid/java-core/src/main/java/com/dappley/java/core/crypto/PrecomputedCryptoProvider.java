@@ -0,0 +1,70 @@
+package com.dappley.java.core.crypto;
+
+import org.spongycastle.crypto.params.ECPublicKeyParameters;
+import org.spongycastle.math.ec.ECMultiplier;
+import org.spongycastle.math.ec.ECPoint;
+import org.spongycastle.math.ec.FixedPointCombMultiplier;
+import org.spongycastle.math.ec.FixedPointUtil;
+
+import java.math.BigInteger;
+
+/**
+ * Crypto provider keeping precomputed multiples of public keys in verifiers.
+ * <p>A verifier builds a comb table of its public key once. Then u1 * G and u2 * Q of a verification are both computed
+ * by fixed point comb multiplication, G having a table built by {@link Secp256k1}, instead of one interleaved wNAF
+ * multiplication with about 256 doublings. It pays off when a verifier is reused, for example for inputs signed by
+ * the same key. One time verifications and signing are the same as {@link SpongyCryptoProvider}.</p>
+ * <p>The curve has no efficiently computable endomorphism, so scalars are not split as in GLV multiplication.</p>
+ */
+public class PrecomputedCryptoProvider extends SpongyCryptoProvider {
+    /**
+     * Comb width of public key tables, a table has 2^width points
+     */
+    private static final int KEY_COMB_WIDTH = 8;
+
+    @Override
+    public Verifier newVerifier(ECPoint publicKey) {
+        return new TableVerifier(publicKey);
+    }
+
+    @Override
+    public boolean verify(byte[] data, byte[] sign, ECPoint publicKey) {
+        // a table costs more than one verification
+        return super.newVerifier(publicKey).verify(data, sign);
+    }
+
+    private static class TableVerifier implements Verifier {
+        private final ECPoint publicKey;
+
+        TableVerifier(ECPoint publicKey) {
+            // validated and normalized as ECDSASigner does
+            this.publicKey = new ECPublicKeyParameters(publicKey, Secp256k1.CURVE).getQ();
+            FixedPointUtil.precompute(this.publicKey, KEY_COMB_WIDTH);
+        }
+
+        @Override
+        public boolean verify(byte[] data, byte[] sign) {
+            checkVerifyInput(data, sign);
+            Secp256k1.ECDSASignature signature = Secp256k1.ECDSASignature.fromBytes(sign);
+            BigInteger n = Secp256k1.CURVE.getN();
+            BigInteger r = signature.r;
+            BigInteger s = signature.s;
+            if (r.signum() <= 0 || r.compareTo(n) >= 0 || s.signum() <= 0 || s.compareTo(n) >= 0) {
+                return false;
+            }
+            // data has the bit length of n, so it is used without truncation
+            BigInteger e = new BigInteger(1, data);
+            BigInteger c = s.modInverse(n);
+            BigInteger u1 = e.multiply(c).mod(n);
+            BigInteger u2 = r.multiply(c).mod(n);
+
+            ECMultiplier multiplier = new FixedPointCombMultiplier();
+            ECPoint point = multiplier.multiply(Secp256k1.CURVE.getG(), u1)
+                    .add(multiplier.multiply(publicKey, u2)).normalize();
+            if (point.isInfinity()) {
+                return false;
+            }
+            return point.getAffineXCoord().toBigInteger().mod(n).equals(r);
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package com.dappley.java.core.crypto;
 
 import org.spongycastle.jcajce.provider.digest.RIPEMD128;
-import org.spongycastle.jcajce.provider.digest.RIPEMD160;
 import org.spongycastle.jcajce.provider.digest.RIPEMD256;
 import org.spongycastle.jcajce.provider.digest.RIPEMD320;
 import org.spongycastle.util.encoders.Hex;
@@ -38,8 +37,7 @@ public class RipemdDigest {
      * @return byte[] Message digest
      */
     public static byte[] ripemd160(byte[] data) {
-        RIPEMD160.Digest digest = new RIPEMD160.Digest();
-        return digest.digest(data);
+        return DigestEngine.ripemd160().digest(data);
     }
 
     /**
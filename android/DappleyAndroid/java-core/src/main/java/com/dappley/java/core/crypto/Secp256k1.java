@@ -7,15 +7,11 @@ import org.spongycastle.asn1.DLSequence;
 import org.spongycastle.asn1.x9.X9ECParameters;
 import org.spongycastle.asn1.x9.X9IntegerConverter;
 import org.spongycastle.crypto.AsymmetricCipherKeyPair;
-import org.spongycastle.crypto.digests.SHA256Digest;
 import org.spongycastle.crypto.ec.CustomNamedCurves;
 import org.spongycastle.crypto.generators.ECKeyPairGenerator;
 import org.spongycastle.crypto.params.ECDomainParameters;
 import org.spongycastle.crypto.params.ECKeyGenerationParameters;
 import org.spongycastle.crypto.params.ECPrivateKeyParameters;
-import org.spongycastle.crypto.params.ECPublicKeyParameters;
-import org.spongycastle.crypto.signers.ECDSASigner;
-import org.spongycastle.crypto.signers.HMacDSAKCalculator;
 import org.spongycastle.math.ec.ECAlgorithms;
 import org.spongycastle.math.ec.ECPoint;
 import org.spongycastle.math.ec.FixedPointCombMultiplier;
@@ -29,13 +25,17 @@ import java.math.BigInteger;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 
+/**
+ * Curve parameters and ECDSA of dappley keys.
+ * <p>Despite the class name, keys are on the secp256r1 curve (NIST P-256), the curve used by dappley nodes.</p>
+ */
 public class Secp256k1 {
 
-    // The parameters of the secp256k1 curve that Bitcoin uses.
+    // The parameters of the secp256r1 curve that dappley uses.
     private static final X9ECParameters CURVE_PARAMS = CustomNamedCurves.getByName("secp256r1");
 
     /**
-     * The parameters of the secp256k1 curve that Bitcoin uses.
+     * The parameters of the secp256r1 curve that dappley uses.
      */
     public static final ECDomainParameters CURVE;
 
@@ -47,7 +47,7 @@ public class Secp256k1 {
 
     static {
 
-        // Tell Bouncy Castle to precompute data that's needed during secp256k1 calculations. Increasing the width
+        // Tell Bouncy Castle to precompute data that's needed during secp256r1 calculations. Increasing the width
         // number makes calculations faster, but at a cost of extra memory usage and with decreasing returns. 12 was
         // picked after consulting with the BC team.
         FixedPointUtil.precompute(CURVE_PARAMS.getG(), 12);
@@ -56,6 +56,27 @@ public class Secp256k1 {
         HALF_CURVE_ORDER = CURVE_PARAMS.getN().shiftRight(1);
     }
 
+    private static volatile CryptoProvider provider = new PrecomputedCryptoProvider();
+
+    /**
+     * Returns the crypto provider signing and verifying.
+     * @return CryptoProvider provider
+     */
+    public static CryptoProvider getProvider() {
+        return provider;
+    }
+
+    /**
+     * Set the crypto provider signing and verifying. Default provider is {@link PrecomputedCryptoProvider}.
+     * @param provider crypto provider
+     */
+    public static void setProvider(CryptoProvider provider) {
+        if (provider == null) {
+            return;
+        }
+        Secp256k1.provider = provider;
+    }
+
     public static byte[] GenerateECKey() {
         ECKeyPairGenerator generator = new ECKeyPairGenerator();
         ECKeyGenerationParameters keygenParams = new ECKeyGenerationParameters(CURVE, SecureRandomUtils.secureRandom());
@@ -155,56 +176,30 @@ public class Secp256k1 {
     }
 
 
+    /**
+     * Returns a recoverable signature of data, by the crypto provider.
+     * @param data       32 bytes hash
+     * @param privateKey private key bytes
+     * @return byte[] r, s and recovery id
+     */
     public static byte[] Sign(byte[] data, byte[] privateKey) {
-        if (data.length != 32) {
-            throw new IllegalArgumentException("Expected 32 byte input to ECDSA signature, not " + data.length);
-        }
-        ECDSASigner signer = new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()));
-        ECPrivateKeyParameters privKey = new ECPrivateKeyParameters(new BigInteger(1, privateKey), CURVE);
-        signer.init(true, privKey);
-        BigInteger[] components = signer.generateSignature(data);
-
-        ECDSASignature signature = new ECDSASignature(components[0], components[1]).toCanonicalised();
-
-        // Now we have to work backwards to figure out the recId needed to recover the signature.
-        int recId = -1;
-        byte[] pubkey = PublicFromPrivateKey(privateKey);
-        for (int i = 0; i < 4; i++) {
-            byte[] k = recoverPubBytesFromSignature(i, signature, data);
-            if (k != null && Arrays.equals(k, pubkey)) {
-                recId = i;
-                break;
-            }
-        }
-        if (recId == -1) {
-            throw new RuntimeException("Could not construct a recoverable key. This should never happen.");
-        }
-        signature.v = (byte) (recId + 27);
-
-        return signature.toByteArray();
-
+        return provider.sign(data, privateKey);
     }
 
     public static boolean Verify(byte[] data, byte[] sign, byte[] pub) {
-        if (data.length != 32) {
-            throw new IllegalArgumentException("Expected 32 byte input to ECDSA verify, not " + data.length);
-        }
-        if (sign.length != 65) {
-            throw new IllegalArgumentException("Expected 65 byte input of signature to ECDSA verify, not " + sign.length);
-        }
-
-        ECDSASignature signature = ECDSASignature.fromBytes(sign);
+        return Verify(data, sign, CURVE.getCurve().decodePoint(pub));
+    }
 
-        ECDSASigner signer = new ECDSASigner();
-        ECPublicKeyParameters params = new ECPublicKeyParameters(CURVE.getCurve().decodePoint(pub), CURVE);
-        signer.init(false, params);
-        try {
-            return signer.verifySignature(data, signature.r, signature.s);
-        } catch (NullPointerException npe) {
-            // Bouncy Castle contains a bug that can cause NPEs given specially crafted signatures.
-            // Those signatures are inherently invalid/attack sigs so we just fail them here rather than crash the thread.
-            return false;
-        }
+    /**
+     * Verify signature with a decoded public key, by the crypto provider.
+     * <p>Precomputed multiples are kept in the point, so verifications reusing the same point are faster.</p>
+     * @param data      32 bytes hash
+     * @param sign      65 bytes signature
+     * @param publicKey public key point
+     * @return boolean if the signature is valid
+     */
+    public static boolean Verify(byte[] data, byte[] sign, ECPoint publicKey) {
+        return provider.verify(data, sign, publicKey);
     }
 
     /**
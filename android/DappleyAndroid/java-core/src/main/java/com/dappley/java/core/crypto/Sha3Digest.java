@@ -26,8 +26,7 @@ public class Sha3Digest {
      * @return byte[] Message digest
      */
     public static byte[] sha3256(byte[] data) {
-        SHA3.Digest256 digest = new SHA3.Digest256();
-        return digest.digest(data);
+        return DigestEngine.sha3256().digest(data);
     }
 
     /**
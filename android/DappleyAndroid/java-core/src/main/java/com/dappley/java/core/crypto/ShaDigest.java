@@ -1,6 +1,5 @@
 package com.dappley.java.core.crypto;
 
-import org.spongycastle.jcajce.provider.digest.SHA256;
 import org.spongycastle.jcajce.provider.digest.SHA512;
 
 /**
@@ -16,8 +15,7 @@ public class ShaDigest {
      * @return byte[] Message digest
      */
     public static byte[] sha256(byte[] data) {
-        SHA256.Digest digest = new SHA256.Digest();
-        return digest.digest(data);
+        return DigestEngine.sha256().digest(data);
     }
 
     /**
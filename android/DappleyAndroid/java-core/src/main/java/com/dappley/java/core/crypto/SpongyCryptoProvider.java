@@ -0,0 +1,127 @@
+package com.dappley.java.core.crypto;
+
+import org.spongycastle.crypto.digests.SHA256Digest;
+import org.spongycastle.crypto.params.ECPublicKeyParameters;
+import org.spongycastle.crypto.signers.ECDSASigner;
+import org.spongycastle.crypto.signers.HMacDSAKCalculator;
+import org.spongycastle.math.ec.ECMultiplier;
+import org.spongycastle.math.ec.ECPoint;
+import org.spongycastle.math.ec.FixedPointCombMultiplier;
+
+import java.math.BigInteger;
+
+/**
+ * Crypto provider with generic spongycastle algorithms.
+ * <p>Signatures are generated as {@link ECDSASigner} with a deterministic k does, and verified by {@link ECDSASigner}.
+ * This is the reference of results of other providers.</p>
+ */
+public class SpongyCryptoProvider extends CryptoProvider {
+
+    /**
+     * Returns a signer of private key.
+     * <p>The nonce point R is kept while signing, and the recovery id is taken from it directly: the parity of its y
+     * coordinate, and whether its x coordinate was reduced by the curve order to get r. When s is canonicalised to -s,
+     * the parity is flipped, as -R is the point that recovers the public key then. This avoids computing the public key
+     * and trying up to four recoveries.</p>
+     * @param privateKey private key bytes
+     * @return Signer signer
+     */
+    @Override
+    public Signer newSigner(byte[] privateKey) {
+        return new KeySigner(new BigInteger(1, privateKey));
+    }
+
+    @Override
+    public Verifier newVerifier(ECPoint publicKey) {
+        return new KeyVerifier(publicKey);
+    }
+
+    /**
+     * Check sizes of verified data and signature.
+     * @param data 32 bytes hash
+     * @param sign 65 bytes signature
+     */
+    protected static void checkVerifyInput(byte[] data, byte[] sign) {
+        if (data.length != 32) {
+            throw new IllegalArgumentException("Expected 32 byte input to ECDSA verify, not " + data.length);
+        }
+        if (sign.length != 65) {
+            throw new IllegalArgumentException("Expected 65 byte input of signature to ECDSA verify, not " + sign.length);
+        }
+    }
+
+    /**
+     * Signer keeping only the private key. ECDSA signing has no per key data worth precomputing: the nonce point
+     * k * G is new for each message, and the comb table of G it's computed with is shared by all keys, see
+     * {@link Secp256k1}. The rest is a few modular operations on d, which needs no preparation.
+     */
+    private static class KeySigner implements Signer {
+        private final BigInteger d;
+
+        KeySigner(BigInteger d) {
+            this.d = d;
+        }
+
+        @Override
+        public byte[] sign(byte[] data) {
+            if (data.length != 32) {
+                throw new IllegalArgumentException("Expected 32 byte input to ECDSA signature, not " + data.length);
+            }
+            BigInteger n = Secp256k1.CURVE.getN();
+            // data has the bit length of n, so it is used without truncation
+            BigInteger e = new BigInteger(1, data);
+            HMacDSAKCalculator kCalculator = new HMacDSAKCalculator(new SHA256Digest());
+            kCalculator.init(n, d, data);
+            ECMultiplier multiplier = new FixedPointCombMultiplier();
+
+            BigInteger r;
+            BigInteger s;
+            int recId;
+            do {
+                BigInteger k;
+                ECPoint point;
+                BigInteger x;
+                do {
+                    k = kCalculator.nextK();
+                    point = multiplier.multiply(Secp256k1.CURVE.getG(), k).normalize();
+                    x = point.getAffineXCoord().toBigInteger();
+                    r = x.mod(n);
+                } while (r.signum() == 0);
+                recId = (point.getAffineYCoord().testBitZero() ? 1 : 0) | (x.compareTo(n) >= 0 ? 2 : 0);
+                s = k.modInverse(n).multiply(e.add(d.multiply(r))).mod(n);
+            } while (s.signum() == 0);
+
+            if (s.compareTo(Secp256k1.HALF_CURVE_ORDER) > 0) {
+                s = n.subtract(s);
+                recId ^= 1;
+            }
+            Secp256k1.ECDSASignature signature = new Secp256k1.ECDSASignature(r, s);
+            signature.v = (byte) (recId + 27);
+            return signature.toByteArray();
+        }
+    }
+
+    private static class KeyVerifier implements Verifier {
+        private final ECPublicKeyParameters params;
+
+        KeyVerifier(ECPoint publicKey) {
+            this.params = new ECPublicKeyParameters(publicKey, Secp256k1.CURVE);
+        }
+
+        @Override
+        public boolean verify(byte[] data, byte[] sign) {
+            checkVerifyInput(data, sign);
+            Secp256k1.ECDSASignature signature = Secp256k1.ECDSASignature.fromBytes(sign);
+
+            ECDSASigner signer = new ECDSASigner();
+            signer.init(false, params);
+            try {
+                return signer.verifySignature(data, signature.r, signature.s);
+            } catch (NullPointerException npe) {
+                // Bouncy Castle contains a bug that can cause NPEs given specially crafted signatures.
+                // Those signatures are inherently invalid/attack sigs so we just fail them here rather than crash the thread.
+                return false;
+            }
+        }
+    }
+}
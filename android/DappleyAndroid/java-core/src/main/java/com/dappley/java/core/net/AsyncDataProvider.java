@@ -0,0 +1,72 @@
+package com.dappley.java.core.net;
+
+import com.dappley.java.core.po.Block;
+import com.dappley.java.core.po.ContractQueryResult;
+import com.dappley.java.core.po.Transaction;
+import com.dappley.java.core.po.Utxo;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking blockchain data provider interface.
+ * <p>Failed requests complete the future exceptionally.</p>
+ * @see DataProvider
+ * @see RemoteAsyncDataProvider
+ */
+public interface AsyncDataProvider {
+
+    /**
+     * Returns all unspent balance list.(utxo list)
+     * @param address wallet address
+     * @return CompletableFuture<List<Utxo>>
+     */
+    CompletableFuture<List<Utxo>> getUtxos(String address);
+
+    /**
+     * Returns Block info by the hash value
+     * @param hash block's hash
+     * @return CompletableFuture<Block> block data
+     */
+    CompletableFuture<Block> getBlockByHash(String hash);
+
+    /**
+     * Returns several Blocks after start hash in number of count.
+     * @param startHashs hash list, the first one is the chain' tail.
+     * @param count      the total back num
+     * @return CompletableFuture<List<Block>> block list
+     * @see DataProvider#getBlocks(List, int)
+     */
+    CompletableFuture<List<Block>> getBlocks(List<String> startHashs, int count);
+
+    /**
+     * Returns the balance of current address.
+     * @param address wallet address
+     * @return CompletableFuture<BigInteger> wallet balance
+     */
+    CompletableFuture<BigInteger> getBalance(String address);
+
+    /**
+     * Returns the gas consumption of current contract.
+     * @param transaction
+     * @return CompletableFuture<BigInteger> gas consumption
+     */
+    CompletableFuture<BigInteger> estimateGas(Transaction transaction);
+
+    /**
+     * Returns current gas price
+     * @return CompletableFuture<BigInteger> gas price
+     */
+    CompletableFuture<BigInteger> getGasPrice();
+
+    /**
+     * Returns data storage query result from blockchain
+     * @param contractAddress contract address
+     * @param key             storage key
+     * @param value           storage value
+     * @return CompletableFuture<ContractQueryResult>
+     * @see DataProvider#contractQuery(String, String, String)
+     */
+    CompletableFuture<ContractQueryResult> contractQuery(String contractAddress, String key, String value);
+}
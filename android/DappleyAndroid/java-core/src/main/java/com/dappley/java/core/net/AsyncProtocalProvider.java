@@ -0,0 +1,84 @@
+package com.dappley.java.core.net;
+
+import com.dappley.java.core.po.BlockChainInfo;
+import com.dappley.java.core.po.ContractQueryResult;
+import com.dappley.java.core.po.SendTxResult;
+import com.dappley.java.core.po.ServerNode;
+import com.dappley.java.core.protobuf.BlockProto;
+import com.dappley.java.core.protobuf.TransactionProto;
+import com.dappley.java.core.protobuf.UtxoProto;
+import com.google.protobuf.ByteString;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking interfaces of protocal provider. Communicates with remote chain server.
+ * <p>Each method returns immediately with a future, so a large number of requests can overlap on one connection.</p>
+ * <p>Failed requests complete the future exceptionally. Cancelling a future cancels its request.</p>
+ * @see ProtocalProvider
+ */
+public interface AsyncProtocalProvider {
+
+    /**
+     * Initialize provider
+     * @param serverNodes
+     */
+    void init(ServerNode[] serverNodes);
+
+    CompletableFuture<String> getVersion();
+
+    CompletableFuture<Long> getBalance(String address);
+
+    CompletableFuture<BlockChainInfo> getBlockchainInfo();
+
+    CompletableFuture<List<UtxoProto.Utxo>> getUtxo(String address);
+
+    CompletableFuture<List<BlockProto.Block>> getBlocks(List<ByteString> startHashs, int count);
+
+    CompletableFuture<BlockProto.Block> getBlockByHash(ByteString byteHash);
+
+    CompletableFuture<BlockProto.Block> getBlockByHeight(long height);
+
+    CompletableFuture<SendTxResult> sendTransaction(TransactionProto.Transaction transaction);
+
+    /**
+     * Send several transactions in one request.
+     * @param transactions transaction list
+     * @return CompletableFuture<List<SendTxResult>> result of each transaction, in the same order of transactions
+     */
+    CompletableFuture<List<SendTxResult>> sendBatchTransaction(List<TransactionProto.Transaction> transactions);
+
+    /**
+     * Receive new transactions of server's transaction pool.
+     * <p>The returned future completes when the server ends the stream. Cancel it to stop receiving.</p>
+     * @param consumer called for each new transaction
+     * @return CompletableFuture<Void>
+     */
+    CompletableFuture<Void> getNewTransaction(Consumer<TransactionProto.Transaction> consumer);
+
+    /**
+     * Receive messages of subscribed topics.
+     * <p>The returned future completes when the server ends the stream. Cancel it to stop receiving.</p>
+     * @param topics   topic list
+     * @param consumer called for each message data
+     * @return CompletableFuture<Void>
+     */
+    CompletableFuture<Void> subscribe(List<String> topics, Consumer<String> consumer);
+
+    CompletableFuture<List<TransactionProto.Transaction>> getAllTransactionsFromTxPool();
+
+    CompletableFuture<BlockProto.Block> getLastIrreversibleBlock();
+
+    CompletableFuture<ByteString> estimateGas(TransactionProto.Transaction transaction);
+
+    CompletableFuture<ByteString> getGasPrice();
+
+    CompletableFuture<ContractQueryResult> contractQuery(String contractAddress, String key, String value);
+
+    /**
+     * Release connections held by provider. The provider should not be used after closed.
+     */
+    void close();
+}
@@ -0,0 +1,111 @@
+package com.dappley.java.core.net;
+
+import com.dappley.java.core.po.BatchQueryResult;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a query on each of several addresses, with at most {@code parallelism} of them running at the same time.
+ * <p>Queries run on a pool shared by all batches, so a batch creates no threads. The pool has at most 16 threads,
+ * which are stopped after being idle for 60 seconds. Each batch starts at most {@code parallelism} workers,
+ * which take addresses one by one until all are queried, workers over the pool size wait for a free thread.
+ * A single address is queried in the caller's thread.</p>
+ * <p>A failed address doesn't fail the others, its error is recorded in the result.</p>
+ * <p>Only classes of Java 7 are used, so that it runs on Android versions without java.util.function.</p>
+ */
+@Slf4j
+class BatchQuery {
+    /**
+     * max number of queries of all batches running at the same time
+     */
+    private static final int MAX_THREADS = 16;
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS,
+            60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+        Thread thread = new Thread(runnable, "batch-query");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Query all addresses and wait for the results.
+     * @param addresses   queried addresses, duplicated ones are queried once
+     * @param parallelism max number of running queries
+     * @param query       reads the value of an address
+     * @return BatchQueryResult<T> partial result if interrupted
+     */
+    static <T> BatchQueryResult<T> run(Collection<String> addresses, int parallelism, Query<T> query) {
+        BatchQueryResult<T> result = new BatchQueryResult<>();
+        if (addresses == null || addresses.isEmpty()) {
+            return result;
+        }
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(addresses));
+        if (distinct.size() == 1) {
+            // nothing to run in parallel, the caller's thread is used
+            String address = distinct.get(0);
+            try {
+                result.getValues().put(address, query.get(address));
+            } catch (RuntimeException e) {
+                log.debug("query of " + address + " failed: " + e.getMessage());
+                result.getErrors().put(address, String.valueOf(e.getMessage()));
+            }
+            return result;
+        }
+        List<FutureTask<T>> futures = new ArrayList<>(distinct.size());
+        for (String address : distinct) {
+            futures.add(new FutureTask<>(() -> query.get(address)));
+        }
+        AtomicInteger nextIndex = new AtomicInteger();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Runnable worker = () -> {
+            int index;
+            while (!cancelled.get() && (index = nextIndex.getAndIncrement()) < distinct.size()) {
+                // any failure completes the task, so that the caller is not blocked
+                futures.get(index).run();
+            }
+        };
+        for (int i = Math.min(parallelism, distinct.size()); i > 0; i--) {
+            EXECUTOR.execute(worker);
+        }
+        for (int i = 0; i < distinct.size(); i++) {
+            String address = distinct.get(i);
+            try {
+                result.getValues().put(address, futures.get(i).get());
+            } catch (ExecutionException e) {
+                log.debug("query of " + address + " failed: " + e.getCause().getMessage());
+                result.getErrors().put(address, String.valueOf(e.getCause().getMessage()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // running queries are finished by workers, no more addresses are taken
+                cancelled.set(true);
+                for (int j = i; j < distinct.size(); j++) {
+                    result.getErrors().put(distinct.get(j), "interrupted");
+                }
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the value of an address.
+     * @param <T> value type
+     */
+    interface Query<T> {
+        T get(String address);
+    }
+}
@@ -0,0 +1,216 @@
+package com.dappley.java.core.net;
+
+import com.dappley.java.core.po.SendTxResult;
+import com.dappley.java.core.po.Transaction;
+import com.dappley.java.core.protobuf.TransactionProto;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A sender which collects signed transactions and sends them with RpcSendBatchTransaction.
+ * <p>Queued transactions are sent when the queue reaches {@code maxBatchSize},
+ * or when the first queued transaction has waited for {@code lingerMillis}.
+ * Each caller gets the result of its own transaction.</p>
+ * <p>Batches are sent without blocking, so several batches can be in flight at the same time.</p>
+ */
+@Slf4j
+public class BatchTransactionSender {
+    private static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    private static final long DEFAULT_LINGER_MILLIS = 20;
+
+    private AsyncProtocalProvider protocalProvider;
+    private ScheduledExecutorService scheduler;
+    private boolean ownScheduler;
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private long lingerMillis = DEFAULT_LINGER_MILLIS;
+
+    private List<PendingTransaction> queue = new ArrayList<>();
+    private ScheduledFuture<?> lingerFuture;
+    private boolean closed;
+    private long batchCount;
+
+    public BatchTransactionSender(AsyncProtocalProvider protocalProvider) {
+        this(protocalProvider, Executors.newSingleThreadScheduledExecutor());
+        this.ownScheduler = true;
+    }
+
+    /**
+     * @param protocalProvider provider used to send batches
+     * @param scheduler        executes linger timers
+     */
+    public BatchTransactionSender(AsyncProtocalProvider protocalProvider, ScheduledExecutorService scheduler) {
+        this.protocalProvider = protocalProvider;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Set the max number of transactions in one batch.
+     * @param maxBatchSize transaction count
+     */
+    public synchronized void setMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            return;
+        }
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Set the max waiting time of a queued transaction.
+     * @param lingerMillis value in milliseconds
+     */
+    public synchronized void setLingerMillis(long lingerMillis) {
+        if (lingerMillis < 0) {
+            return;
+        }
+        this.lingerMillis = lingerMillis;
+    }
+
+    /**
+     * Queue a signed transaction.
+     * @param transaction
+     * @return CompletableFuture<SendTxResult> result of this transaction
+     */
+    public CompletableFuture<SendTxResult> sendTransaction(Transaction transaction) {
+        return sendTransaction(transaction.toProto());
+    }
+
+    /**
+     * Queue a signed transaction.
+     * @param transaction
+     * @return CompletableFuture<SendTxResult> result of this transaction
+     */
+    public CompletableFuture<SendTxResult> sendTransaction(TransactionProto.Transaction transaction) {
+        CompletableFuture<SendTxResult> future = new CompletableFuture<>();
+        List<PendingTransaction> batch = null;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("transaction sender has been closed.");
+            }
+            queue.add(new PendingTransaction(transaction, future));
+            if (queue.size() >= maxBatchSize) {
+                batch = drain();
+            } else if (lingerFuture == null) {
+                lingerFuture = scheduler.schedule(this::flush, lingerMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (batch != null) {
+            send(batch);
+        }
+        return future;
+    }
+
+    /**
+     * Send all queued transactions now.
+     */
+    public void flush() {
+        List<PendingTransaction> batch;
+        synchronized (this) {
+            batch = drain();
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    /**
+     * Send queued transactions and stop accepting new ones.
+     * <p>Results of sent batches are still delivered after closed.</p>
+     */
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        flush();
+        if (ownScheduler) {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * Returns the number of sent batches.
+     * @return long batch count
+     */
+    public synchronized long getBatchCount() {
+        return batchCount;
+    }
+
+    private List<PendingTransaction> drain() {
+        if (lingerFuture != null) {
+            lingerFuture.cancel(false);
+            lingerFuture = null;
+        }
+        List<PendingTransaction> batch = queue;
+        if (!batch.isEmpty()) {
+            queue = new ArrayList<>();
+            batchCount++;
+        }
+        return batch;
+    }
+
+    private void send(List<PendingTransaction> batch) {
+        List<TransactionProto.Transaction> transactions = new ArrayList<>(batch.size());
+        for (PendingTransaction pending : batch) {
+            transactions.add(pending.transaction);
+        }
+        log.debug("send batch of " + transactions.size() + " transactions");
+        CompletableFuture<List<SendTxResult>> future;
+        try {
+            future = protocalProvider.sendBatchTransaction(transactions);
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        future.whenComplete((results, e) -> {
+            boolean matched = e == null && results != null && results.size() == batch.size();
+            int completed = 0;
+            try {
+                for (; matched && completed < batch.size(); completed++) {
+                    batch.get(completed).future.complete(results.get(completed));
+                }
+            } finally {
+                // no caller is left waiting, even if results don't match the batch
+                if (completed < batch.size()) {
+                    String msg;
+                    if (e != null) {
+                        msg = e.getMessage();
+                    } else if (!matched) {
+                        msg = "batch of " + batch.size() + " transactions got " + (results == null ? 0 : results.size()) + " results";
+                        log.warn(msg);
+                    } else {
+                        msg = "batch result is not delivered";
+                    }
+                    for (int i = completed; i < batch.size(); i++) {
+                        batch.get(i).future.complete(errorResult(msg));
+                    }
+                }
+            }
+        });
+    }
+
+    private static SendTxResult errorResult(String msg) {
+        SendTxResult sendTxResult = new SendTxResult();
+        sendTxResult.setCode(SendTxResult.CODE_ERROR_EXCEPTION);
+        sendTxResult.setMsg(msg);
+        return sendTxResult;
+    }
+
+    private static class PendingTransaction {
+        private final TransactionProto.Transaction transaction;
+        private final CompletableFuture<SendTxResult> future;
+
+        private PendingTransaction(TransactionProto.Transaction transaction, CompletableFuture<SendTxResult> future) {
+            this.transaction = transaction;
+            this.future = future;
+        }
+    }
+}
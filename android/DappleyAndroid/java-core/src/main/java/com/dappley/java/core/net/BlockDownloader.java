@@ -0,0 +1,275 @@
+package com.dappley.java.core.net;
+
+import com.dappley.java.core.po.Block;
+import com.dappley.java.core.po.BlockDownloadMetrics;
+import com.dappley.java.core.protobuf.BlockProto;
+import com.dappley.java.core.util.HexUtil;
+import com.google.protobuf.ByteString;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Downloads a long range of blocks by height in parallel, used to catch up with the chain on first synchronization.
+ * <p>Heights are split into ranges of {@code rangeSize} blocks. Ranges are fetched by {@code parallelism} workers
+ * and handed to the handler strictly in height order. RpcGetBlocks pages follow a known block hash only, so a worker
+ * gets the first block of its range by RpcGetBlockByHeight, then the rest by RpcGetBlocks pages after it.
+ * At most {@code maxBufferedRanges} ranges are downloading or waiting for the handler, so memory use is bounded
+ * however long the range is.</p>
+ * <p>Each block must be linked to the previous one. The download stops when a block is not linked,
+ * for example the chain was forked while downloading, and the rest is left to normal synchronization.</p>
+ */
+@Slf4j
+public class BlockDownloader {
+    private static final int DEFAULT_PARALLELISM = 4;
+    private static final int DEFAULT_RANGE_SIZE = 50;
+    private static final int DEFAULT_MAX_RETRIES = 2;
+
+    private ProtocalProvider protocalProvider;
+    private int parallelism = DEFAULT_PARALLELISM;
+    private int rangeSize = DEFAULT_RANGE_SIZE;
+    private int maxBufferedRanges = DEFAULT_PARALLELISM * 2;
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+    private volatile boolean cancelled;
+
+    /**
+     * @param protocalProvider provider used to fetch blocks, its channel pool should have several channels for parallel download
+     */
+    public BlockDownloader(ProtocalProvider protocalProvider) {
+        this.protocalProvider = protocalProvider;
+    }
+
+    /**
+     * Set the number of ranges downloaded at the same time. Buffered ranges are at least twice of it.
+     * @param parallelism worker count
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            return;
+        }
+        this.parallelism = parallelism;
+        this.maxBufferedRanges = Math.max(maxBufferedRanges, parallelism * 2);
+    }
+
+    /**
+     * Set the number of blocks in each range.
+     * @param rangeSize block count
+     */
+    public void setRangeSize(int rangeSize) {
+        if (rangeSize <= 0) {
+            return;
+        }
+        this.rangeSize = rangeSize;
+    }
+
+    /**
+     * Set the max number of ranges kept in memory.
+     * @param maxBufferedRanges range count, not less than parallelism
+     */
+    public void setMaxBufferedRanges(int maxBufferedRanges) {
+        if (maxBufferedRanges < parallelism) {
+            return;
+        }
+        this.maxBufferedRanges = maxBufferedRanges;
+    }
+
+    /**
+     * Set how many times a failed block request is retried before the download fails.
+     * @param maxRetries retry count
+     */
+    public void setMaxRetries(int maxRetries) {
+        if (maxRetries < 0) {
+            return;
+        }
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * Stop the running download and all later ones of this downloader. Blocks already handed to the handler are kept.
+     * <p>A cancelled downloader doesn't download any more, so a cancel arriving between downloads is not lost.</p>
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Download blocks from fromHeight to toHeight, both included.
+     * <p>Blocks are handed to the handler in height order on the calling thread. Nothing is downloaded after
+     * {@link #cancel()}.</p>
+     * @param fromHeight first height
+     * @param toHeight   last height
+     * @param parentHash hash of the block at fromHeight - 1, which the first block must be linked to. Null if not checked.
+     * @param handler    persists downloaded blocks
+     * @return BlockDownloadMetrics
+     */
+    public BlockDownloadMetrics download(long fromHeight, long toHeight, String parentHash, BlockHandler handler) {
+        BlockDownloadMetrics metrics = new BlockDownloadMetrics();
+        metrics.setFromHeight(fromHeight);
+        metrics.setToHeight(toHeight);
+        long startTime = System.currentTimeMillis();
+        AtomicLong retryCount = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "block-download");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Deque<Future<List<Block>>> window = new ArrayDeque<>();
+        long nextHeight = fromHeight;
+        String lastHash = parentHash;
+        boolean linked = true;
+        try {
+            while (!cancelled && linked && (nextHeight <= toHeight || !window.isEmpty())) {
+                // keep the window full
+                while (nextHeight <= toHeight && window.size() < maxBufferedRanges) {
+                    long start = nextHeight;
+                    long end = Math.min(toHeight, start + rangeSize - 1);
+                    window.add(executor.submit(() -> fetchRange(start, end, retryCount)));
+                    nextHeight = end + 1;
+                }
+                List<Block> blocks = getRange(window.poll());
+                if (blocks == null) {
+                    break;
+                }
+                int linkedCount = countLinked(blocks, lastHash);
+                if (linkedCount < blocks.size()) {
+                    log.warn("block at height " + (blocks.get(0).getHeader().getHeight() + linkedCount) + " is not linked, stop downloading");
+                    blocks = blocks.subList(0, linkedCount);
+                    linked = false;
+                }
+                if (!blocks.isEmpty()) {
+                    handler.onBlocks(blocks);
+                    lastHash = HexUtil.toHex(blocks.get(blocks.size() - 1).getHeader().getHash());
+                    metrics.setBlockCount(metrics.getBlockCount() + blocks.size());
+                }
+                metrics.setRangeCount(metrics.getRangeCount() + 1);
+            }
+        } finally {
+            for (Future<List<Block>> future : window) {
+                future.cancel(true);
+            }
+            executor.shutdownNow();
+            metrics.setRetryCount(retryCount.get());
+            metrics.setElapsedMillis(System.currentTimeMillis() - startTime);
+        }
+        metrics.setComplete(metrics.getBlockCount() == toHeight - fromHeight + 1);
+        log.info(String.format("downloaded %d blocks in %dms, %.1f blocks per second", metrics.getBlockCount(), metrics.getElapsedMillis(),
+                metrics.getBlocksPerSecond()));
+        return metrics;
+    }
+
+    /**
+     * Wait for a range to finish.
+     * @param future range download
+     * @return List<Block> null if interrupted
+     */
+    private List<Block> getRange(Future<List<Block>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("block download failed", e.getCause());
+        }
+    }
+
+    private List<Block> fetchRange(long start, long end, AtomicLong retryCount) {
+        List<Block> blocks = new ArrayList<>((int) (end - start + 1));
+        if (cancelled || Thread.currentThread().isInterrupted()) {
+            return blocks;
+        }
+        Block block = fetchBlock(start, retryCount);
+        blocks.add(block);
+        long height = start;
+        while (height < end) {
+            if (cancelled || Thread.currentThread().isInterrupted()) {
+                return blocks;
+            }
+            ByteString hash = ByteString.copyFrom(block.getHeader().getHash());
+            List<BlockProto.Block> page = fetchPage(hash, (int) (end - height), retryCount);
+            if (page.isEmpty()) {
+                throw new IllegalStateException("block at height " + (height + 1) + " is not found");
+            }
+            // a page may be shorter than asked, the next one follows its last block
+            for (int i = 0; i < page.size() && height < end; i++) {
+                block = new Block(page.get(i));
+                blocks.add(block);
+                height++;
+            }
+        }
+        return blocks;
+    }
+
+    private Block fetchBlock(long height, AtomicLong retryCount) {
+        BlockProto.Block block = withRetries("block at height " + height, retryCount, () -> protocalProvider.getBlockByHeight(height));
+        if (block.getHeader().getHash().isEmpty()) {
+            throw new IllegalStateException("block at height " + height + " is not found");
+        }
+        return new Block(block);
+    }
+
+    private List<BlockProto.Block> fetchPage(ByteString startHash, int count, AtomicLong retryCount) {
+        List<BlockProto.Block> page = withRetries("blocks after " + HexUtil.toHex(startHash), retryCount,
+                () -> protocalProvider.getBlocks(Collections.singletonList(startHash), count));
+        return page == null ? Collections.<BlockProto.Block>emptyList() : page;
+    }
+
+    private <T> T withRetries(String target, AtomicLong retryCount, Request<T> request) {
+        for (int i = 0; ; i++) {
+            try {
+                return request.send();
+            } catch (RuntimeException e) {
+                if (i >= maxRetries || cancelled || Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                retryCount.incrementAndGet();
+                log.debug("retry " + target + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the number of leading blocks linked to the previous one.
+     * @param blocks     blocks in height order
+     * @param parentHash hash of the block before, null if not checked
+     * @return int linked block count
+     */
+    private static int countLinked(List<Block> blocks, String parentHash) {
+        String previousHash = parentHash;
+        for (int i = 0; i < blocks.size(); i++) {
+            Block block = blocks.get(i);
+            if (previousHash != null && !previousHash.equals(HexUtil.toHex(block.getHeader().getPreviousHash()))) {
+                return i;
+            }
+            previousHash = HexUtil.toHex(block.getHeader().getHash());
+        }
+        return blocks.size();
+    }
+
+    private interface Request<T> {
+        T send();
+    }
+
+    /**
+     * Receives downloaded blocks in height order.
+     */
+    public interface BlockHandler {
+        /**
+         * Called for each downloaded range
+         * @param blocks continuous blocks in height order
+         */
+        void onBlocks(List<Block> blocks);
+    }
+}
@@ -0,0 +1,276 @@
+package com.dappley.java.core.net;
+
+import com.dappley.java.core.po.BlockSyncMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Push based block synchronization on the RpcSubscribe stream.
+ * <p>Each message of subscribed topics means the chain has changed. It triggers the synchronize task at once,
+ * instead of waiting for next polling period.
+ * Requests arrived during a running task are merged into one following run.</p>
+ * <p>When the stream is broken, the synchronize task runs once to catch up and falls back to polling,
+ * while the stream is reconnected with increasing delay.
+ * A slow polling keeps running while the stream is connected in case that some messages are lost.</p>
+ * <p>The stream counts as connected from its first message, a subscription that fails or never delivers is not.
+ * Until then the fallback polling keeps running.</p>
+ * <p>All synchronize runs are executed on the given scheduler.</p>
+ */
+@Slf4j
+public class BlockSyncStream {
+    /**
+     * topic published by chain node when new block is appended
+     */
+    public static final List<String> DEFAULT_TOPICS = Collections.singletonList("block");
+    private static final long DEFAULT_POLL_PERIOD_MILLIS = 10_000;
+    private static final long DEFAULT_IDLE_SYNC_MILLIS = 60_000;
+    private static final long DEFAULT_MIN_RECONNECT_MILLIS = 1_000;
+    private static final long DEFAULT_MAX_RECONNECT_MILLIS = 60_000;
+
+    private AsyncProtocalProvider protocalProvider;
+    private Runnable syncTask;
+    private ScheduledExecutorService scheduler;
+    private List<String> topics = DEFAULT_TOPICS;
+    private long pollPeriodMillis = DEFAULT_POLL_PERIOD_MILLIS;
+    private long idleSyncMillis = DEFAULT_IDLE_SYNC_MILLIS;
+    private long minReconnectMillis = DEFAULT_MIN_RECONNECT_MILLIS;
+    private long maxReconnectMillis = DEFAULT_MAX_RECONNECT_MILLIS;
+
+    private volatile boolean started;
+    private volatile boolean connected;
+    private volatile CompletableFuture<Void> stream;
+    private ScheduledFuture<?> pollFuture;
+    private ScheduledFuture<?> reconnectFuture;
+    private long reconnectDelay;
+
+    private final AtomicBoolean syncScheduled = new AtomicBoolean();
+    /**
+     * request time of the earliest waiting synchronize request, 0 means no request
+     */
+    private final AtomicLong pendingSince = new AtomicLong();
+    private final AtomicLong eventCount = new AtomicLong();
+    private final AtomicLong pollCount = new AtomicLong();
+    private final AtomicLong reconnectCount = new AtomicLong();
+    private volatile long lastEventTime;
+    private long syncCount;
+    private long lastSyncTime;
+    private long lastLagMillis;
+    private long maxLagMillis;
+    private long totalLagMillis;
+
+    /**
+     * @param protocalProvider provider used to subscribe
+     * @param syncTask         synchronizes blocks from node
+     * @param scheduler        executes synchronize runs, polling and reconnection
+     */
+    public BlockSyncStream(AsyncProtocalProvider protocalProvider, Runnable syncTask, ScheduledExecutorService scheduler) {
+        this.protocalProvider = protocalProvider;
+        this.syncTask = syncTask;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Set subscribed topics. Takes effect before start.
+     * @param topics topic list
+     */
+    public void setTopics(List<String> topics) {
+        if (topics == null || topics.isEmpty()) {
+            return;
+        }
+        this.topics = topics;
+    }
+
+    /**
+     * Set the polling period used while the stream is broken. Takes effect before start.
+     * @param pollPeriodMillis value in milliseconds
+     */
+    public void setPollPeriodMillis(long pollPeriodMillis) {
+        if (pollPeriodMillis <= 0) {
+            return;
+        }
+        this.pollPeriodMillis = pollPeriodMillis;
+    }
+
+    /**
+     * Set the max time without synchronize run while the stream is connected.
+     * @param idleSyncMillis value in milliseconds
+     */
+    public void setIdleSyncMillis(long idleSyncMillis) {
+        if (idleSyncMillis <= 0) {
+            return;
+        }
+        this.idleSyncMillis = idleSyncMillis;
+    }
+
+    /**
+     * Set the delay range of reconnection. The delay is doubled after each failure.
+     * @param minReconnectMillis first delay in milliseconds
+     * @param maxReconnectMillis max delay in milliseconds
+     */
+    public void setReconnectMillis(long minReconnectMillis, long maxReconnectMillis) {
+        if (minReconnectMillis <= 0 || maxReconnectMillis < minReconnectMillis) {
+            return;
+        }
+        this.minReconnectMillis = minReconnectMillis;
+        this.maxReconnectMillis = maxReconnectMillis;
+    }
+
+    /**
+     * Subscribe the stream and start fallback polling. The first synchronize run starts at once.
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        reconnectDelay = minReconnectMillis;
+        pollFuture = scheduler.scheduleAtFixedRate(this::poll, pollPeriodMillis, pollPeriodMillis, TimeUnit.MILLISECONDS);
+        connect();
+    }
+
+    /**
+     * Cancel the stream and all scheduled works. A running synchronize task is not interrupted.
+     */
+    public synchronized void stop() {
+        if (!started) {
+            return;
+        }
+        started = false;
+        connected = false;
+        if (pollFuture != null) {
+            pollFuture.cancel(false);
+        }
+        if (reconnectFuture != null) {
+            reconnectFuture.cancel(false);
+        }
+        CompletableFuture<Void> stream = this.stream;
+        if (stream != null) {
+            stream.cancel(true);
+        }
+    }
+
+    /**
+     * Returns if the stream is connected now.
+     * @return boolean true/false
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Returns a snapshot of current metrics.
+     * @return BlockSyncMetrics
+     */
+    public synchronized BlockSyncMetrics getMetrics() {
+        BlockSyncMetrics metrics = new BlockSyncMetrics();
+        metrics.setConnected(connected);
+        metrics.setEventCount(eventCount.get());
+        metrics.setPollCount(pollCount.get());
+        metrics.setReconnectCount(reconnectCount.get());
+        metrics.setLastEventTime(lastEventTime);
+        metrics.setSyncCount(syncCount);
+        metrics.setLastSyncTime(lastSyncTime);
+        metrics.setLastLagMillis(lastLagMillis);
+        metrics.setMaxLagMillis(maxLagMillis);
+        metrics.setAverageLagMillis(syncCount == 0 ? 0 : totalLagMillis / syncCount);
+        return metrics;
+    }
+
+    /**
+     * Request a synchronize run. Requests are merged while a run is waiting.
+     */
+    public void requestSync() {
+        pendingSince.compareAndSet(0, System.currentTimeMillis());
+        if (syncScheduled.compareAndSet(false, true)) {
+            scheduler.execute(this::runSync);
+        }
+    }
+
+    private void runSync() {
+        // clear flag first, so that requests arrived during this run schedule another one
+        syncScheduled.set(false);
+        long since = pendingSince.getAndSet(0);
+        if (since == 0) {
+            return;
+        }
+        try {
+            syncTask.run();
+        } catch (RuntimeException e) {
+            log.error("sync task error", e);
+        }
+        recordSync(since, System.currentTimeMillis());
+    }
+
+    private synchronized void recordSync(long since, long now) {
+        syncCount++;
+        lastSyncTime = now;
+        lastLagMillis = now - since;
+        maxLagMillis = Math.max(maxLagMillis, lastLagMillis);
+        totalLagMillis += lastLagMillis;
+    }
+
+    private void poll() {
+        long lastSync;
+        synchronized (this) {
+            lastSync = lastSyncTime;
+        }
+        if (connected && System.currentTimeMillis() - lastSync < idleSyncMillis) {
+            return;
+        }
+        pollCount.incrementAndGet();
+        requestSync();
+    }
+
+    private synchronized void connect() {
+        if (!started) {
+            return;
+        }
+        // catch up with blocks produced before subscription
+        requestSync();
+        CompletableFuture<Void> stream = protocalProvider.subscribe(topics, this::onEvent);
+        this.stream = stream;
+        stream.whenComplete((result, e) -> onDisconnected(stream, e));
+        log.debug("block stream subscribed");
+    }
+
+    private void onEvent(String data) {
+        eventCount.incrementAndGet();
+        lastEventTime = System.currentTimeMillis();
+        if (!connected) {
+            synchronized (this) {
+                if (started && !connected) {
+                    // stream is healthy again
+                    connected = true;
+                    reconnectDelay = minReconnectMillis;
+                    log.debug("block stream connected");
+                }
+            }
+        }
+        requestSync();
+    }
+
+    private synchronized void onDisconnected(CompletableFuture<Void> stream, Throwable e) {
+        if (!started || stream != this.stream) {
+            return;
+        }
+        connected = false;
+        log.warn("block stream disconnected, reconnect in " + reconnectDelay + "ms: " + (e == null ? "completed" : e.getMessage()));
+        // fall back to polling until reconnected
+        requestSync();
+        reconnectFuture = scheduler.schedule(this::reconnect, reconnectDelay, TimeUnit.MILLISECONDS);
+        reconnectDelay = Math.min(reconnectDelay * 2, maxReconnectMillis);
+    }
+
+    private void reconnect() {
+        reconnectCount.incrementAndGet();
+        connect();
+    }
+}
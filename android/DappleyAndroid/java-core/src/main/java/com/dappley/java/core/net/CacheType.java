@@ -0,0 +1,19 @@
+package com.dappley.java.core.net;
+
+/**
+ * Kinds of chain-level reads cached by {@link CachedDataProvider}.
+ */
+public enum CacheType {
+    /**
+     * current gas price
+     */
+    GAS_PRICE,
+    /**
+     * contract storage query result
+     */
+    CONTRACT_QUERY,
+    /**
+     * tail info of block chain
+     */
+    BLOCKCHAIN_INFO
+}
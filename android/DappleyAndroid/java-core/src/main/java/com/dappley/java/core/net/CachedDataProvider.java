@@ -0,0 +1,307 @@
+package com.dappley.java.core.net;
+
+import com.dappley.java.core.po.BatchQueryResult;
+import com.dappley.java.core.po.Block;
+import com.dappley.java.core.po.BlockChainInfo;
+import com.dappley.java.core.po.CacheStats;
+import com.dappley.java.core.po.ContractQueryResult;
+import com.dappley.java.core.po.Transaction;
+import com.dappley.java.core.po.Utxo;
+import com.dappley.java.core.util.SingleFlight;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A DataProvider which caches chain-level reads of another provider.
+ * <p>Gas price, contract queries and blockchain info change at most once per block.
+ * Each of them is cached for its own time to live, see {@link CacheType}.
+ * Once a new tail block hash is seen, all cached values except blockchain info are dropped.
+ * The tail is either pushed by {@link #onNewBlock(String)}, or checked before other values are read, by a blockchain
+ * info read which is cached for its own time to live. So values are reused until a new block arrives, seen with a
+ * delay of blockchain info's time to live at most.</p>
+ * <p>Contract query results are copied for each caller, since they are mutable.</p>
+ * <p>The cache holds at most {@code maxEntries} values, the least recently used one is evicted first.
+ * Utxos, balances, blocks and gas estimations are always read from the underlying provider. A gas estimation is of a
+ * transaction with its own inputs and signatures, so identical ones are rarely asked again.</p>
+ */
+@Slf4j
+public class CachedDataProvider implements DataProvider {
+    private static final int DEFAULT_MAX_ENTRIES = 256;
+    private static final long DEFAULT_GAS_PRICE_TTL_MILLIS = 30_000;
+    private static final long DEFAULT_CONTRACT_QUERY_TTL_MILLIS = 10_000;
+    private static final long DEFAULT_BLOCKCHAIN_INFO_TTL_MILLIS = 1_000;
+
+    private DataProvider dataProvider;
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+    private final long[] ttlMillis = new long[CacheType.values().length];
+    private final long[] hitCounts = new long[CacheType.values().length];
+    private final long[] missCounts = new long[CacheType.values().length];
+    private final long[] evictionCounts = new long[CacheType.values().length];
+    private final long[] invalidationCounts = new long[CacheType.values().length];
+    private final LinkedHashMap<CacheKey, CacheEntry> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private String tailBlockHash;
+    private volatile boolean checkTail = true;
+
+    public CachedDataProvider(DataProvider dataProvider) {
+        this.dataProvider = dataProvider;
+        ttlMillis[CacheType.GAS_PRICE.ordinal()] = DEFAULT_GAS_PRICE_TTL_MILLIS;
+        ttlMillis[CacheType.CONTRACT_QUERY.ordinal()] = DEFAULT_CONTRACT_QUERY_TTL_MILLIS;
+        ttlMillis[CacheType.BLOCKCHAIN_INFO.ordinal()] = DEFAULT_BLOCKCHAIN_INFO_TTL_MILLIS;
+    }
+
+    /**
+     * Set the max number of cached values.
+     * @param maxEntries value count
+     */
+    public synchronized void setMaxEntries(int maxEntries) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        this.maxEntries = maxEntries;
+        evictOverflow();
+    }
+
+    /**
+     * Set how long values of a type are cached.
+     * @param cacheType type of values
+     * @param ttlMillis value in milliseconds, 0 disables caching of this type
+     */
+    public synchronized void setTtlMillis(CacheType cacheType, long ttlMillis) {
+        if (ttlMillis < 0) {
+            return;
+        }
+        this.ttlMillis[cacheType.ordinal()] = ttlMillis;
+    }
+
+    /**
+     * Set if the tail block is checked by a cached blockchain info read before other values are read.
+     * Default value is true. It can be disabled when {@link #onNewBlock(String)} is called by a block synchronizer.
+     * <p>No check is done while caching of blockchain info is disabled, since each check would be a request.</p>
+     * @param checkTail true/false
+     */
+    public void setCheckTail(boolean checkTail) {
+        this.checkTail = checkTail;
+    }
+
+    /**
+     * Notify that a block is appended to the chain. Cached values are dropped if the tail hash changed.
+     * @param tailBlockHash hash of the new tail block
+     */
+    public void onNewBlock(String tailBlockHash) {
+        synchronized (this) {
+            if (tailBlockHash == null || tailBlockHash.equals(this.tailBlockHash)) {
+                return;
+            }
+            boolean first = this.tailBlockHash == null;
+            this.tailBlockHash = tailBlockHash;
+            if (first) {
+                return;
+            }
+            Iterator<Map.Entry<CacheKey, CacheEntry>> iterator = cache.entrySet().iterator();
+            while (iterator.hasNext()) {
+                CacheType cacheType = iterator.next().getKey().getCacheType();
+                if (cacheType != CacheType.BLOCKCHAIN_INFO) {
+                    invalidationCounts[cacheType.ordinal()]++;
+                    iterator.remove();
+                }
+            }
+        }
+        log.debug("cache invalidated by new block " + tailBlockHash);
+    }
+
+    /**
+     * Drop all cached values.
+     */
+    public synchronized void invalidateAll() {
+        for (CacheKey cacheKey : cache.keySet()) {
+            invalidationCounts[cacheKey.getCacheType().ordinal()]++;
+        }
+        cache.clear();
+    }
+
+    /**
+     * Returns counters of a type of values.
+     * @param cacheType type of values
+     * @return CacheStats
+     */
+    public synchronized CacheStats getStats(CacheType cacheType) {
+        int index = cacheType.ordinal();
+        CacheStats stats = new CacheStats();
+        stats.setHitCount(hitCounts[index]);
+        stats.setMissCount(missCounts[index]);
+        stats.setEvictionCount(evictionCounts[index]);
+        stats.setInvalidationCount(invalidationCounts[index]);
+        int size = 0;
+        for (CacheKey cacheKey : cache.keySet()) {
+            if (cacheKey.getCacheType() == cacheType) {
+                size++;
+            }
+        }
+        stats.setSize(size);
+        return stats;
+    }
+
+    @Override
+    public List<Utxo> getUtxos(String address) {
+        return dataProvider.getUtxos(address);
+    }
+
+    @Override
+    public Block getBlockByHash(String hash) {
+        return dataProvider.getBlockByHash(hash);
+    }
+
+    @Override
+    public List<Block> getBlocks(List<String> startHashs, int count) {
+        return dataProvider.getBlocks(startHashs, count);
+    }
+
+    @Override
+    public BlockChainInfo getBlockchainInfo() {
+        return get(CacheType.BLOCKCHAIN_INFO, CacheType.BLOCKCHAIN_INFO, () -> {
+            BlockChainInfo blockChainInfo = dataProvider.getBlockchainInfo();
+            if (blockChainInfo != null) {
+                onNewBlock(blockChainInfo.getTailBlockHash());
+            }
+            return blockChainInfo;
+        });
+    }
+
+    @Override
+    public BigInteger getBalance(String address) {
+        return dataProvider.getBalance(address);
+    }
+
+    @Override
+    public BatchQueryResult<List<Utxo>> getUtxos(Collection<String> addresses) {
+        return dataProvider.getUtxos(addresses);
+    }
+
+    @Override
+    public BatchQueryResult<BigInteger> getBalances(Collection<String> addresses) {
+        return dataProvider.getBalances(addresses);
+    }
+
+    @Override
+    public BigInteger estimateGas(Transaction transaction) {
+        // not cached, each estimation is of a newly signed transaction
+        return dataProvider.estimateGas(transaction);
+    }
+
+    @Override
+    public BigInteger getGasPrice() {
+        return get(CacheType.GAS_PRICE, CacheType.GAS_PRICE, dataProvider::getGasPrice);
+    }
+
+    @Override
+    public ContractQueryResult contractQuery(String contractAddress, String key, String value) {
+        ContractQueryResult result = get(CacheType.CONTRACT_QUERY, Arrays.asList(contractAddress, key, value),
+                () -> dataProvider.contractQuery(contractAddress, key, value));
+        if (result == null) {
+            return null;
+        }
+        // the cached instance is not handed out, callers may modify their results
+        ContractQueryResult copy = new ContractQueryResult();
+        copy.setResultKey(result.getResultKey());
+        copy.setResultValue(result.getResultValue());
+        return copy;
+    }
+
+    /**
+     * Returns cached value if it's not expired, otherwise load and cache it.
+     * <p>Null values are not cached.</p>
+     * @param cacheType type of value
+     * @param key       key of value inside the type
+     * @param loader    reads value from the underlying provider
+     * @return T value
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T get(CacheType cacheType, Object key, SingleFlight.Loader<T> loader) {
+        int index = cacheType.ordinal();
+        CacheKey cacheKey = new CacheKey(cacheType, key);
+        if (cacheType != CacheType.BLOCKCHAIN_INFO) {
+            checkTail();
+        }
+        boolean disabled;
+        synchronized (this) {
+            disabled = ttlMillis[index] == 0;
+            CacheEntry entry = disabled ? null : cache.get(cacheKey);
+            if (entry != null && entry.expireTime > System.currentTimeMillis()) {
+                hitCounts[index]++;
+                return (T) entry.value;
+            }
+            missCounts[index]++;
+        }
+        if (disabled) {
+            return loader.load();
+        }
+        // load outside the lock, so that reads of other values are not blocked
+        String loadTailHash = getTailBlockHash();
+        T value = loader.load();
+        if (value == null) {
+            return null;
+        }
+        synchronized (this) {
+            // don't cache values read before a new block, unless it's blockchain info itself
+            boolean stale = cacheType != CacheType.BLOCKCHAIN_INFO && loadTailHash != null && !loadTailHash.equals(tailBlockHash);
+            if (!stale) {
+                cache.put(cacheKey, new CacheEntry(value, System.currentTimeMillis() + ttlMillis[index]));
+                evictOverflow();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Read blockchain info through the cache, which drops other values if the tail changed.
+     */
+    private void checkTail() {
+        synchronized (this) {
+            if (!checkTail || ttlMillis[CacheType.BLOCKCHAIN_INFO.ordinal()] == 0) {
+                return;
+            }
+        }
+        try {
+            getBlockchainInfo();
+        } catch (RuntimeException e) {
+            // cached values are still served, the tail is checked again by next read
+            log.debug("check tail block failed", e);
+        }
+    }
+
+    private synchronized String getTailBlockHash() {
+        return tailBlockHash;
+    }
+
+    private void evictOverflow() {
+        Iterator<CacheKey> iterator = cache.keySet().iterator();
+        while (cache.size() > maxEntries && iterator.hasNext()) {
+            evictionCounts[iterator.next().getCacheType().ordinal()]++;
+            iterator.remove();
+        }
+    }
+
+    @Data
+    private static class CacheKey {
+        private final CacheType cacheType;
+        private final Object key;
+    }
+
+    private static class CacheEntry {
+        private final Object value;
+        private final long expireTime;
+
+        private CacheEntry(Object value, long expireTime) {
+            this.value = value;
+            this.expireTime = expireTime;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.dappley.java.core.net;
+
+import io.grpc.Status;
+
+/**
+ * Circuit breaker of a server node.
+ * <p>The circuit opens when the node fails failureThreshold requests in a row, or at once when it's unavailable.
+ * Requests are not sent to an open node while other nodes are available.
+ * After openMillis, or when a health probe succeeds, it becomes half open and one trial request is let through,
+ * other requests are not sent to the node until the trial finishes. Its result closes the circuit, or opens it again.
+ * A trial which never finishes, such as one selected but not sent, is given up after openMillis.</p>
+ * <p>Only failures caused by the node count, such as UNAVAILABLE or DEADLINE_EXCEEDED.
+ * Errors of invalid requests show the node is working.</p>
+ */
+class CircuitBreaker {
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openUntil;
+    private boolean trialRunning;
+    private long trialStart;
+
+    CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Returns if a status is a failure of the node.
+     * @param code status code of a finished request
+     * @return boolean true/false
+     */
+    static boolean isNodeFailure(Status.Code code) {
+        switch (code) {
+            case UNAVAILABLE:
+            case DEADLINE_EXCEEDED:
+            case RESOURCE_EXHAUSTED:
+            case INTERNAL:
+            case UNKNOWN:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns if a request can be sent to the node now, without taking the trial of a half open circuit.
+     * @param now current time in milliseconds
+     * @return boolean true/false
+     */
+    synchronized boolean allowRequest(long now) {
+        if (state == State.OPEN && now >= openUntil) {
+            state = State.HALF_OPEN;
+        }
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                return !trialRunning || now - trialStart >= openMillis;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns if a request can be sent to the node now. The request takes the trial of a half open circuit,
+     * until its result is recorded.
+     * @param now current time in milliseconds
+     * @return boolean true/false
+     */
+    synchronized boolean tryAcquire(long now) {
+        if (!allowRequest(now)) {
+            return false;
+        }
+        if (state == State.HALF_OPEN) {
+            trialRunning = true;
+            trialStart = now;
+        }
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        state = State.CLOSED;
+        trialRunning = false;
+    }
+
+    /**
+     * Record a request cancelled by client, which shows nothing of the node.
+     */
+    synchronized void onCancelled() {
+        trialRunning = false;
+    }
+
+    /**
+     * Record a failure of the node.
+     * @param now         current time in milliseconds
+     * @param unavailable if the node cannot be connected, the circuit opens at once
+     * @return boolean true if the circuit is opened by this failure
+     */
+    synchronized boolean onFailure(long now, boolean unavailable) {
+        consecutiveFailures++;
+        trialRunning = false;
+        if (state == State.HALF_OPEN || unavailable || consecutiveFailures >= failureThreshold) {
+            boolean opened = state != State.OPEN;
+            open(now);
+            return opened;
+        }
+        return false;
+    }
+
+    synchronized void open(long now) {
+        state = State.OPEN;
+        openUntil = now + openMillis;
+        trialRunning = false;
+    }
+
+    /**
+     * Let a trial request through before the open period ends, used when a health probe succeeds.
+     */
+    synchronized void halfOpen() {
+        if (state == State.OPEN) {
+            state = State.HALF_OPEN;
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+}
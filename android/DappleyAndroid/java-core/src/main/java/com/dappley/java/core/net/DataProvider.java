@@ -1,11 +1,14 @@
 package com.dappley.java.core.net;
 
+import com.dappley.java.core.po.BatchQueryResult;
 import com.dappley.java.core.po.Block;
+import com.dappley.java.core.po.BlockChainInfo;
 import com.dappley.java.core.po.ContractQueryResult;
 import com.dappley.java.core.po.Transaction;
 import com.dappley.java.core.po.Utxo;
 
 import java.math.BigInteger;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -38,6 +41,12 @@ public interface DataProvider {
      */
     List<Block> getBlocks(List<String> startHashs, int count);
 
+    /**
+     * Returns the tail info of block chain.
+     * @return BlockChainInfo
+     */
+    BlockChainInfo getBlockchainInfo();
+
     /**
      * Returns the balance of current address.
      * @param address wallet address
@@ -45,6 +54,22 @@ public interface DataProvider {
      */
     BigInteger getBalance(String address);
 
+    /**
+     * Returns utxo lists of several addresses.
+     * <p>Addresses are queried at the same time. A failed address has an error in the result instead of failing the others.</p>
+     * @param addresses wallet addresses
+     * @return BatchQueryResult<List<Utxo>> utxo list of each address
+     */
+    BatchQueryResult<List<Utxo>> getUtxos(Collection<String> addresses);
+
+    /**
+     * Returns balances of several addresses.
+     * <p>Addresses are queried at the same time. A failed address has an error in the result instead of failing the others.</p>
+     * @param addresses wallet addresses
+     * @return BatchQueryResult<BigInteger> balance of each address
+     */
+    BatchQueryResult<BigInteger> getBalances(Collection<String> addresses);
+
     /**
      * Returns the gas consumption of current contract.
      * @param transaction
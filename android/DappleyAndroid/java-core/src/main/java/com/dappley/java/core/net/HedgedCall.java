@@ -0,0 +1,213 @@
+package com.dappley.java.core.net;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import io.grpc.Channel;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A read request which is sent to a second server node if the first one doesn't answer in time.
+ * <p>The first successful response completes the call and the other request is cancelled.
+ * A failed request only fails the call when no other request is running.
+ * If the first request fails for a node failure before the delay, the second one is sent at once.</p>
+ * @param <R> response type
+ */
+@Slf4j
+class HedgedCall<R> {
+    private static ScheduledExecutorService timer;
+
+    private final RpcChannelPool channelPool;
+    private final HedgingPolicy policy;
+    private final Attempt<R> call;
+    private final SettableFuture<R> result = SettableFuture.create();
+    private final List<ListenableFuture<R>> attempts = new ArrayList<>(2);
+    private ScheduledFuture<?> hedgeFuture;
+    private int running;
+    private boolean hedged;
+    private Throwable failure;
+    private boolean done;
+
+    private HedgedCall(RpcChannelPool channelPool, HedgingPolicy policy, Attempt<R> call) {
+        this.channelPool = channelPool;
+        this.policy = policy;
+        this.call = call;
+    }
+
+    /**
+     * Send a hedged request. Cancelling the returned future cancels all sent requests.
+     * @param channelPool pool choosing nodes
+     * @param policy      hedging policy
+     * @param call        sends the request on the given channel
+     * @return ListenableFuture<R> the first successful response
+     */
+    static <R> ListenableFuture<R> start(RpcChannelPool channelPool, HedgingPolicy policy, Attempt<R> call) {
+        HedgedCall<R> hedgedCall = new HedgedCall<>(channelPool, policy, call);
+        hedgedCall.start();
+        return hedgedCall.result;
+    }
+
+    private void start() {
+        NodeChannel primary = channelPool.selectNode(null);
+        result.addListener(this::cancelAll, MoreExecutors.directExecutor());
+        send(primary, primary, false);
+        long delayMillis = policy.getDelayMillis();
+        if (delayMillis < 0) {
+            return;
+        }
+        synchronized (this) {
+            if (!done && !hedged) {
+                hedgeFuture = getTimer().schedule(() -> hedge(primary), delayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Send the second request, once, when the delay passed or the first request failed.
+     * @param primary node of the first request
+     */
+    private void hedge(NodeChannel primary) {
+        synchronized (this) {
+            if (done || hedged) {
+                return;
+            }
+            hedged = true;
+            // counted before sending, so that a failure of the first request meanwhile doesn't fail the call
+            running++;
+            if (hedgeFuture != null) {
+                hedgeFuture.cancel(false);
+            }
+        }
+        NodeChannel node = null;
+        try {
+            node = channelPool.selectNode(primary);
+        } catch (IllegalStateException e) {
+            // pool closed
+        }
+        if (node == null) {
+            onFailure(null, null);
+            return;
+        }
+        log.debug("hedge request to " + node.getServerNode().getHost() + ":" + node.getServerNode().getPort());
+        send(node, null, true);
+    }
+
+    /**
+     * @param node    node to send to
+     * @param primary node, if it's the first request
+     * @param counted if the request is already counted as running
+     */
+    private void send(NodeChannel node, NodeChannel primary, boolean counted) {
+        synchronized (this) {
+            if (done) {
+                return;
+            }
+            if (!counted) {
+                running++;
+            }
+        }
+        long start = System.nanoTime();
+        ListenableFuture<R> attempt;
+        try {
+            attempt = call.send(node.getChannel());
+        } catch (RuntimeException e) {
+            onFailure(e, primary);
+            return;
+        }
+        boolean cancel;
+        synchronized (this) {
+            attempts.add(attempt);
+            cancel = done;
+        }
+        if (cancel) {
+            attempt.cancel(true);
+            return;
+        }
+        Futures.addCallback(attempt, new FutureCallback<R>() {
+            @Override
+            public void onSuccess(R response) {
+                policy.recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                synchronized (HedgedCall.this) {
+                    done = true;
+                }
+                result.set(response);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                HedgedCall.this.onFailure(t, primary);
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    /**
+     * @param t       failure of a request, null if the second request couldn't be sent
+     * @param primary node, if the first request failed
+     */
+    private void onFailure(Throwable t, NodeChannel primary) {
+        boolean hedgeNow = false;
+        synchronized (this) {
+            running--;
+            if (t != null) {
+                failure = t;
+            }
+            if (done || running > 0) {
+                return;
+            }
+            if (primary != null && !hedged && CircuitBreaker.isNodeFailure(Status.fromThrowable(t).getCode())) {
+                // the node failed before the delay, don't wait for it
+                hedgeNow = true;
+            } else {
+                done = true;
+            }
+        }
+        if (hedgeNow) {
+            hedge(primary);
+            return;
+        }
+        result.setException(failure);
+    }
+
+    private void cancelAll() {
+        List<ListenableFuture<R>> sent;
+        synchronized (this) {
+            done = true;
+            if (hedgeFuture != null) {
+                hedgeFuture.cancel(false);
+            }
+            sent = new ArrayList<>(attempts);
+        }
+        for (ListenableFuture<R> attempt : sent) {
+            attempt.cancel(true);
+        }
+    }
+
+    private static synchronized ScheduledExecutorService getTimer() {
+        if (timer == null) {
+            timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "rpc-hedging");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return timer;
+    }
+
+    /**
+     * Sends one attempt of the request.
+     * @param <R> response type
+     */
+    interface Attempt<R> {
+        ListenableFuture<R> send(Channel channel);
+    }
+}
@@ -0,0 +1,78 @@
+package com.dappley.java.core.net;
+
+/**
+ * Policy of hedged read requests.
+ * <p>If a read request hasn't been answered after the hedging delay, the same request is sent to another server node.
+ * The first response is used and the other request is cancelled.</p>
+ * <p>The delay is either fixed, or a percentile of latency of recent requests.
+ * A percentile of 95 means about 5 percent of requests are hedged when all nodes behave the same.</p>
+ * <p>Only idempotent reads are hedged: getUtxo, getBlockByHash and getBlockchainInfo.</p>
+ */
+public class HedgingPolicy {
+    private static final int WINDOW_SIZE = 1000;
+    private static final int MIN_SAMPLES = 20;
+
+    private final long delayMillis;
+    private final double percentile;
+    private final LatencyRecorder recorder;
+
+    private HedgingPolicy(long delayMillis, double percentile) {
+        this.delayMillis = delayMillis;
+        this.percentile = percentile;
+        this.recorder = percentile > 0 ? new LatencyRecorder(WINDOW_SIZE) : null;
+    }
+
+    /**
+     * Hedge requests after a fixed delay.
+     * @param delayMillis value in milliseconds
+     * @return HedgingPolicy
+     */
+    public static HedgingPolicy fixedDelay(long delayMillis) {
+        if (delayMillis < 0) {
+            throw new IllegalArgumentException("delayMillis cannot be negative.");
+        }
+        return new HedgingPolicy(delayMillis, 0);
+    }
+
+    /**
+     * Hedge requests after the given percentile of recent latency.
+     * <p>Requests are not hedged until there are enough latency samples.</p>
+     * @param percentile     value between 0 and 100, for example 95, the same scale as
+     *                       {@link com.dappley.java.core.po.RpcMethodMetrics#getLatencyPercentileMillis(double)}
+     * @param minDelayMillis the delay is never less than this value in milliseconds
+     * @return HedgingPolicy
+     */
+    public static HedgingPolicy percentile(double percentile, long minDelayMillis) {
+        if (percentile <= 0 || percentile >= 100) {
+            throw new IllegalArgumentException("percentile should be between 0 and 100.");
+        }
+        if (minDelayMillis < 0) {
+            throw new IllegalArgumentException("minDelayMillis cannot be negative.");
+        }
+        return new HedgingPolicy(minDelayMillis, percentile);
+    }
+
+    /**
+     * Returns the delay before sending a hedged request.
+     * @return long value in milliseconds, -1 if the request should not be hedged
+     */
+    public long getDelayMillis() {
+        if (recorder == null) {
+            return delayMillis;
+        }
+        if (recorder.getCount() < MIN_SAMPLES) {
+            return -1;
+        }
+        return Math.max(recorder.percentile(percentile), delayMillis);
+    }
+
+    /**
+     * Record latency of a finished request.
+     * @param latencyMillis value in milliseconds
+     */
+    void recordLatency(long latencyMillis) {
+        if (recorder != null) {
+            recorder.record(latencyMillis);
+        }
+    }
+}
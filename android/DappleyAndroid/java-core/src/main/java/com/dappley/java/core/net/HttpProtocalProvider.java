@@ -0,0 +1,391 @@
+package com.dappley.java.core.net;
+
+import com.dappley.java.core.po.BlockChainInfo;
+import com.dappley.java.core.po.ContractQueryResult;
+import com.dappley.java.core.po.SendTxResult;
+import com.dappley.java.core.po.ServerNode;
+import com.dappley.java.core.protobuf.BlockProto;
+import com.dappley.java.core.protobuf.RpcProto;
+import com.dappley.java.core.protobuf.RpcServiceGrpc;
+import com.dappley.java.core.protobuf.TransactionProto;
+import com.dappley.java.core.protobuf.UtxoProto;
+import com.dappley.java.core.util.ProtoJsonUtil;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Message;
+import com.google.protobuf.MessageOrBuilder;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.protobuf.StatusProto;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Implementation of ProtocalProvider on HTTP protocal, for nodes behind HTTP-only gateways.
+ * <p>Each rpc method is posted as JSON to {@code /rpcpb.RpcService/<method>} in proto3 JSON format,
+ * the same way gRPC-JSON transcoding gateways expose gRPC services.
+ * Errors are returned with a non-200 status and a {@code {"code": ..., "message": ..., "details": [...]}} body,
+ * and thrown as StatusRuntimeException like RpcProtocalProvider, details of rpc messages included.</p>
+ * <p>Connections are kept alive and reused by requests to the same node. Response bodies are decoded
+ * from the connection stream while they are received, without buffering the whole body.
+ * Concurrent requests are sent on separate persistent connections, at most {@code maxConnections} of them at the same time,
+ * so that each connection is kept in the keep-alive cache after use rather than closed.</p>
+ * <p>Requests are sent to server nodes by turns.</p>
+ */
+@Slf4j
+public class HttpProtocalProvider implements ProtocalProvider {
+    private static final String CONTENT_TYPE = "application/json";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    /**
+     * idle connections kept by keep-alive cache for each node by default, see http.maxConnections
+     */
+    private static final int DEFAULT_MAX_CONNECTIONS = 5;
+
+    static {
+        // status details, such as SendTransactionStatus of batch transactions, are rpc messages packed in Any
+        ProtoJsonUtil.registerTypes(RpcProto.getDescriptor());
+    }
+
+    /**
+     * timeout seconds of each HTTP request
+     */
+    private int timeout = 15;
+    private ServerNode[] serverNodes;
+    private final AtomicInteger nextNode = new AtomicInteger();
+    private volatile Semaphore connectionPermits = new Semaphore(DEFAULT_MAX_CONNECTIONS);
+    private RetryPolicy retryPolicy;
+
+    @Override
+    public void init(ServerNode[] serverNodes) {
+        if (serverNodes == null || serverNodes.length == 0) {
+            throw new IllegalArgumentException("serverNodes cannot be empty.");
+        }
+        this.serverNodes = serverNodes;
+    }
+
+    /**
+     * Set HTTP request timeout, used for both connecting and waiting for response data.
+     * @param timeout value in seconds
+     */
+    public void setRequestTimeoutSeconds(int timeout) {
+        if (timeout <= 0) {
+            return;
+        }
+        this.timeout = timeout;
+    }
+
+    /**
+     * Set the max number of requests sent at the same time. Default value is 5.
+     * <p>It should not exceed the idle connections kept by keep-alive cache (http.maxConnections system property),
+     * otherwise extra connections are closed after each request.</p>
+     * @param maxConnections connection count
+     */
+    public void setMaxConnections(int maxConnections) {
+        if (maxConnections <= 0) {
+            return;
+        }
+        this.connectionPermits = new Semaphore(maxConnections);
+    }
+
+    /**
+     * Set policy of retrying failed reads. Requests are not retried by default.
+     * @param retryPolicy RetryPolicy, null disables retrying
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    @Override
+    public void close() {
+        // idle connections are closed by keep-alive cache after keep-alive timeout
+        serverNodes = null;
+    }
+
+    /**
+     * Send an idempotent read request, retried if there is a retry policy.
+     * @param call sends request and returns response
+     * @return R response
+     */
+    private <R> R read(RetryPolicy.Request<R> call) {
+        RetryPolicy retryPolicy = this.retryPolicy;
+        if (retryPolicy == null) {
+            return call.send();
+        }
+        return retryPolicy.call(call);
+    }
+
+    /**
+     * Post request to the next server node and decode response into builder.
+     * @param method          rpc method
+     * @param request         request message
+     * @param responseBuilder builder of response message
+     * @return B responseBuilder
+     */
+    private <B extends Message.Builder> B post(MethodDescriptor<?, ?> method, MessageOrBuilder request, B responseBuilder) {
+        ServerNode[] serverNodes = this.serverNodes;
+        if (serverNodes == null) {
+            throw new IllegalStateException("HttpProtocalProvider.init should be called first.");
+        }
+        ServerNode serverNode = serverNodes[(nextNode.getAndIncrement() & Integer.MAX_VALUE) % serverNodes.length];
+        Semaphore permits = this.connectionPermits;
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Status.CANCELLED.withCause(e).asRuntimeException();
+        }
+        try {
+            return exchange(serverNode, method, request, responseBuilder);
+        } catch (SocketTimeoutException e) {
+            throw Status.DEADLINE_EXCEEDED.withDescription(e.getMessage()).withCause(e).asRuntimeException();
+        } catch (MalformedJsonException | IllegalStateException | IllegalArgumentException e) {
+            throw Status.INTERNAL.withDescription("invalid response: " + e.getMessage()).withCause(e).asRuntimeException();
+        } catch (IOException e) {
+            throw Status.UNAVAILABLE.withDescription(e.getMessage()).withCause(e).asRuntimeException();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private <B extends Message.Builder> B exchange(ServerNode serverNode, MethodDescriptor<?, ?> method,
+                                                   MessageOrBuilder request, B responseBuilder) throws IOException {
+        URL url = new URL("http", serverNode.getHost(), serverNode.getPort(), "/" + method.getFullMethodName());
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setConnectTimeout(timeout * 1000);
+        connection.setReadTimeout(timeout * 1000);
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", CONTENT_TYPE);
+        connection.setRequestProperty("Accept", CONTENT_TYPE);
+        // requests are small, body is buffered by connection and sent with headers in one write
+        try (OutputStream out = connection.getOutputStream()) {
+            JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, UTF_8));
+            ProtoJsonUtil.write(writer, request);
+            writer.flush();
+        }
+        int responseCode = connection.getResponseCode();
+        if (responseCode != HttpURLConnection.HTTP_OK) {
+            throw toStatusException(responseCode, connection.getErrorStream());
+        }
+        // connection is not disconnected, it returns to keep-alive cache when the body is read to the end and closed
+        try (InputStream in = connection.getInputStream()) {
+            ProtoJsonUtil.merge(new JsonReader(new InputStreamReader(in, UTF_8)), responseBuilder);
+            drain(in);
+        }
+        return responseBuilder;
+    }
+
+    /**
+     * Convert error response into StatusRuntimeException.
+     * <p>Status is read from the body if there is one, otherwise it's mapped from HTTP status
+     * in the way gRPC clients treat responses of HTTP proxies.</p>
+     */
+    private static StatusRuntimeException toStatusException(int responseCode, InputStream errorStream) throws IOException {
+        com.google.rpc.Status.Builder status = com.google.rpc.Status.newBuilder();
+        if (errorStream != null) {
+            try (InputStream in = errorStream) {
+                ProtoJsonUtil.merge(new JsonReader(new InputStreamReader(in, UTF_8)), status);
+                drain(in);
+            } catch (MalformedJsonException | IllegalStateException | IllegalArgumentException e) {
+                log.debug("error response is not a status: " + e.getMessage());
+            }
+        }
+        if (status.getCode() == Status.Code.OK.value()) {
+            status.setCode(fromHttpStatus(responseCode).value());
+        }
+        if (status.getMessage().isEmpty()) {
+            status.setMessage("HTTP status " + responseCode);
+        }
+        return StatusProto.toStatusRuntimeException(status.build());
+    }
+
+    private static Status.Code fromHttpStatus(int responseCode) {
+        switch (responseCode) {
+            case HttpURLConnection.HTTP_BAD_REQUEST:
+                return Status.Code.INTERNAL;
+            case HttpURLConnection.HTTP_UNAUTHORIZED:
+                return Status.Code.UNAUTHENTICATED;
+            case HttpURLConnection.HTTP_FORBIDDEN:
+                return Status.Code.PERMISSION_DENIED;
+            case HttpURLConnection.HTTP_NOT_FOUND:
+                return Status.Code.UNIMPLEMENTED;
+            case 429:
+            case HttpURLConnection.HTTP_BAD_GATEWAY:
+            case HttpURLConnection.HTTP_UNAVAILABLE:
+            case HttpURLConnection.HTTP_GATEWAY_TIMEOUT:
+                return Status.Code.UNAVAILABLE;
+            default:
+                return Status.Code.UNKNOWN;
+        }
+    }
+
+    /**
+     * Read the rest of stream, so that the connection can be reused.
+     */
+    private static void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[256];
+        while (in.read(buffer) != -1) {
+            // discard trailing data
+        }
+    }
+
+    @Override
+    public String getVersion() {
+        RpcProto.GetVersionRequest request = RpcProto.GetVersionRequest.newBuilder()
+                .build();
+        RpcProto.GetVersionResponse response = read(() -> post(RpcServiceGrpc.getRpcGetVersionMethod(), request,
+                RpcProto.GetVersionResponse.newBuilder()).build());
+
+        String message = "[protocal version:" + response.getProtoVersion() + "] [server version: " + response.getServerVersion() + "]";
+        log.debug("getVersion: " + message);
+        return message;
+    }
+
+    @Override
+    public long getBalance(String address) {
+        RpcProto.GetBalanceRequest request = RpcProto.GetBalanceRequest.newBuilder()
+                .setAddress(address)
+                .build();
+        RpcProto.GetBalanceResponse response = read(() -> post(RpcServiceGrpc.getRpcGetBalanceMethod(), request,
+                RpcProto.GetBalanceResponse.newBuilder()).build());
+
+        log.debug("getBalance: " + response.getAmount());
+        return response.getAmount();
+    }
+
+    @Override
+    public BlockChainInfo getBlockchainInfo() {
+        RpcProto.GetBlockchainInfoRequest request = RpcProto.GetBlockchainInfoRequest.newBuilder()
+                .build();
+        RpcProto.GetBlockchainInfoResponse response = read(() -> post(RpcServiceGrpc.getRpcGetBlockchainInfoMethod(), request,
+                RpcProto.GetBlockchainInfoResponse.newBuilder()).build());
+
+        log.debug("getBlockchainInfo: " + response.toString());
+        return RpcProtocalProvider.toBlockChainInfo(response);
+    }
+
+    @Override
+    public List<UtxoProto.Utxo> getUtxo(String address) {
+        RpcProto.GetUTXORequest request = RpcProto.GetUTXORequest.newBuilder()
+                .setAddress(address)
+                .build();
+        RpcProto.GetUTXOResponse response = read(() -> post(RpcServiceGrpc.getRpcGetUTXOMethod(), request,
+                RpcProto.GetUTXOResponse.newBuilder()).build());
+
+        return response.getUtxosList();
+    }
+
+    @Override
+    public List<BlockProto.Block> getBlocks(List<ByteString> startHashs, int count) {
+        RpcProto.GetBlocksRequest request = RpcProto.GetBlocksRequest.newBuilder()
+                .addAllStartBlockHashes(startHashs)
+                .setMaxCount(count)
+                .build();
+        RpcProto.GetBlocksResponse response = read(() -> post(RpcServiceGrpc.getRpcGetBlocksMethod(), request,
+                RpcProto.GetBlocksResponse.newBuilder()).build());
+
+        log.debug("getBlocks blockCount" + response.getBlocksCount());
+        return response.getBlocksList();
+    }
+
+    @Override
+    public BlockProto.Block getBlockByHash(ByteString byteHash) {
+        RpcProto.GetBlockByHashRequest request = RpcProto.GetBlockByHashRequest.newBuilder()
+                .setHash(byteHash)
+                .build();
+        RpcProto.GetBlockByHashResponse response = read(() -> post(RpcServiceGrpc.getRpcGetBlockByHashMethod(), request,
+                RpcProto.GetBlockByHashResponse.newBuilder()).build());
+
+        return response.getBlock();
+    }
+
+    @Override
+    public BlockProto.Block getBlockByHeight(long height) {
+        RpcProto.GetBlockByHeightRequest request = RpcProto.GetBlockByHeightRequest.newBuilder()
+                .setHeight(height)
+                .build();
+        RpcProto.GetBlockByHeightResponse response = read(() -> post(RpcServiceGrpc.getRpcGetBlockByHeightMethod(), request,
+                RpcProto.GetBlockByHeightResponse.newBuilder()).build());
+
+        return response.getBlock();
+    }
+
+    @Override
+    public SendTxResult sendTransaction(TransactionProto.Transaction transaction) {
+        RpcProto.SendTransactionRequest request = RpcProto.SendTransactionRequest.newBuilder()
+                .setTransaction(transaction)
+                .build();
+        SendTxResult sendTxResult = new SendTxResult();
+        try {
+            RpcProto.SendTransactionResponse response = post(RpcServiceGrpc.getRpcSendTransactionMethod(), request,
+                    RpcProto.SendTransactionResponse.newBuilder()).build();
+
+            sendTxResult.setCode(SendTxResult.CODE_SUCCESS);
+            sendTxResult.setGeneratedContractAddress(response.getGeneratedContractAddress());
+        } catch (Exception e) {
+            sendTxResult.setCode(SendTxResult.CODE_ERROR_EXCEPTION);
+            sendTxResult.setMsg(e.getMessage());
+            log.error(e.getMessage());
+        }
+        return sendTxResult;
+    }
+
+    @Override
+    public List<SendTxResult> sendBatchTransaction(List<TransactionProto.Transaction> transactions) {
+        RpcProto.SendBatchTransactionRequest request = RpcProto.SendBatchTransactionRequest.newBuilder()
+                .addAllTransactions(transactions)
+                .build();
+        try {
+            post(RpcServiceGrpc.getRpcSendBatchTransactionMethod(), request, RpcProto.SendBatchTransactionResponse.newBuilder());
+
+            return RpcProtocalProvider.toBatchResults(transactions, null);
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return RpcProtocalProvider.toBatchResults(transactions, e);
+        }
+    }
+
+    @Override
+    public ByteString estimateGas(TransactionProto.Transaction transaction) {
+        RpcProto.EstimateGasRequest request = RpcProto.EstimateGasRequest.newBuilder()
+                .setTransaction(transaction)
+                .build();
+        RpcProto.EstimateGasResponse response = read(() -> post(RpcServiceGrpc.getRpcEstimateGasMethod(), request,
+                RpcProto.EstimateGasResponse.newBuilder()).build());
+
+        return response.getGasCount();
+    }
+
+    @Override
+    public ByteString getGasPrice() {
+        RpcProto.GasPriceRequest request = RpcProto.GasPriceRequest.newBuilder()
+                .build();
+        RpcProto.GasPriceResponse response = read(() -> post(RpcServiceGrpc.getRpcGasPriceMethod(), request,
+                RpcProto.GasPriceResponse.newBuilder()).build());
+        return response.getGasPrice();
+    }
+
+    @Override
+    public ContractQueryResult contractQuery(String contractAddress, String key, String value) {
+        RpcProto.ContractQueryRequest request = RpcProtocalProvider.toContractQueryRequest(contractAddress, key, value);
+        RpcProto.ContractQueryResponse response = read(() -> post(RpcServiceGrpc.getRpcContractQueryMethod(), request,
+                RpcProto.ContractQueryResponse.newBuilder()).build());
+
+        return RpcProtocalProvider.toContractQueryResult(response);
+    }
+}
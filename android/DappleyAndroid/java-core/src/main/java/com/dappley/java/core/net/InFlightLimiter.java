@@ -0,0 +1,84 @@
+package com.dappley.java.core.net;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the number of requests running at the same time without blocking callers.
+ * <p>Tasks over the limit wait in a queue and are started by {@link #release()} of finished ones.</p>
+ * <p>Queued tasks are started by one draining thread at a time. A task which releases its permit at once, e.g. a
+ * cancelled one, only leaves a note for the draining loop, so the stack doesn't grow with the queue.</p>
+ */
+class InFlightLimiter {
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger drainRequests = new AtomicInteger();
+    private volatile int maxInFlight;
+
+    InFlightLimiter(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        drain();
+    }
+
+    /**
+     * Run the task now if there is a free permit, otherwise queue it.
+     * <p>The task owns a permit while running and must call {@link #release()} once its request finished.</p>
+     * @param task request starter
+     */
+    void submit(Runnable task) {
+        pending.offer(task);
+        drain();
+    }
+
+    /**
+     * Return a permit and start queued tasks.
+     */
+    void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    int getPending() {
+        return pending.size();
+    }
+
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0) {
+            // another call is draining, it loops once more for this request
+            return;
+        }
+        int missed = 1;
+        do {
+            startPending();
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void startPending() {
+        while (!pending.isEmpty()) {
+            int current = inFlight.get();
+            if (current >= maxInFlight) {
+                return;
+            }
+            if (!inFlight.compareAndSet(current, current + 1)) {
+                continue;
+            }
+            Runnable task = pending.poll();
+            if (task == null) {
+                // taken by another thread, return the permit and check again
+                inFlight.decrementAndGet();
+                continue;
+            }
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.dappley.java.core.net;
+
+import com.dappley.java.core.po.RpcMethodMetrics;
+import com.dappley.java.core.po.ServerNode;
+import io.grpc.Status;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A RpcMetricsRegistry keeping counters and latency histograms in memory, for each method of each server node.
+ * <p>Exporters read them with {@link #getMetrics()}, which returns a snapshot without blocking running calls.</p>
+ */
+public class InMemoryRpcMetricsRegistry implements RpcMetricsRegistry {
+    private static final long[] DEFAULT_LATENCY_BUCKET_MILLIS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1_000, 2_000, 5_000, 10_000, 30_000};
+
+    private final long[] latencyBucketMillis;
+    private final ConcurrentMap<List<Object>, MethodStats> stats = new ConcurrentHashMap<>();
+
+    public InMemoryRpcMetricsRegistry() {
+        this(DEFAULT_LATENCY_BUCKET_MILLIS);
+    }
+
+    /**
+     * @param latencyBucketMillis upper bounds of latency buckets in milliseconds, in increase order
+     */
+    public InMemoryRpcMetricsRegistry(long[] latencyBucketMillis) {
+        for (int i = 1; i < latencyBucketMillis.length; i++) {
+            if (latencyBucketMillis[i] <= latencyBucketMillis[i - 1]) {
+                throw new IllegalArgumentException("latency buckets should be in increase order.");
+            }
+        }
+        this.latencyBucketMillis = latencyBucketMillis.clone();
+    }
+
+    @Override
+    public void recordCall(ServerNode serverNode, String method, Status.Code code, long latencyNanos, long requestBytes, long responseBytes) {
+        List<Object> key = Arrays.asList(serverNode, method);
+        MethodStats methodStats = stats.get(key);
+        if (methodStats == null) {
+            MethodStats created = new MethodStats(serverNode, method);
+            methodStats = stats.putIfAbsent(key, created);
+            if (methodStats == null) {
+                methodStats = created;
+            }
+        }
+        methodStats.record(code, latencyNanos, requestBytes, responseBytes);
+    }
+
+    /**
+     * Returns metrics of all methods called on all nodes.
+     * @return List<RpcMethodMetrics>
+     */
+    public List<RpcMethodMetrics> getMetrics() {
+        List<RpcMethodMetrics> metricsList = new ArrayList<>(stats.size());
+        for (MethodStats methodStats : stats.values()) {
+            metricsList.add(methodStats.snapshot());
+        }
+        return metricsList;
+    }
+
+    /**
+     * Returns metrics of a method on a node.
+     * @param serverNode server node
+     * @param method     full gRPC method name
+     * @return RpcMethodMetrics null if the method has not been called on the node
+     */
+    public RpcMethodMetrics getMetrics(ServerNode serverNode, String method) {
+        MethodStats methodStats = stats.get(Arrays.asList(serverNode, method));
+        return methodStats == null ? null : methodStats.snapshot();
+    }
+
+    /**
+     * Clear all metrics.
+     */
+    public void reset() {
+        stats.clear();
+    }
+
+    private int bucketOf(long latencyNanos) {
+        int index = Arrays.binarySearch(latencyBucketMillis, (latencyNanos + 999_999) / 1_000_000);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private class MethodStats {
+        private final ServerNode serverNode;
+        private final String method;
+        private final AtomicLong callCount = new AtomicLong();
+        private final AtomicLongArray statusCounts = new AtomicLongArray(Status.Code.values().length);
+        private final AtomicLongArray latencyBucketCounts = new AtomicLongArray(latencyBucketMillis.length + 1);
+        private final AtomicLong latencyNanos = new AtomicLong();
+        private final AtomicLong requestBytes = new AtomicLong();
+        private final AtomicLong responseBytes = new AtomicLong();
+        private final AtomicLong maxResponseBytes = new AtomicLong();
+
+        MethodStats(ServerNode serverNode, String method) {
+            this.serverNode = serverNode;
+            this.method = method;
+        }
+
+        void record(Status.Code code, long latencyNanos, long requestBytes, long responseBytes) {
+            callCount.incrementAndGet();
+            statusCounts.incrementAndGet(code.ordinal());
+            latencyBucketCounts.incrementAndGet(bucketOf(latencyNanos));
+            this.latencyNanos.addAndGet(latencyNanos);
+            this.requestBytes.addAndGet(requestBytes);
+            this.responseBytes.addAndGet(responseBytes);
+            long max = maxResponseBytes.get();
+            while (responseBytes > max && !maxResponseBytes.compareAndSet(max, responseBytes)) {
+                max = maxResponseBytes.get();
+            }
+        }
+
+        RpcMethodMetrics snapshot() {
+            RpcMethodMetrics metrics = new RpcMethodMetrics();
+            metrics.setServerNode(serverNode);
+            metrics.setMethod(method);
+            metrics.setCallCount(callCount.get());
+            Map<String, Long> counts = new LinkedHashMap<>();
+            long errorCount = 0;
+            for (Status.Code code : Status.Code.values()) {
+                long count = statusCounts.get(code.ordinal());
+                if (count == 0) {
+                    continue;
+                }
+                counts.put(code.name(), count);
+                if (code != Status.Code.OK) {
+                    errorCount += count;
+                }
+            }
+            metrics.setStatusCounts(counts);
+            metrics.setErrorCount(errorCount);
+            metrics.setTimeoutCount(statusCounts.get(Status.Code.DEADLINE_EXCEEDED.ordinal()));
+            long[] buckets = new long[latencyBucketCounts.length()];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = latencyBucketCounts.get(i);
+            }
+            metrics.setLatencyBucketMillis(latencyBucketMillis.clone());
+            metrics.setLatencyBucketCounts(buckets);
+            metrics.setTotalLatencyMillis(latencyNanos.get() / 1e6);
+            metrics.setRequestBytes(requestBytes.get());
+            metrics.setResponseBytes(responseBytes.get());
+            metrics.setMaxResponseBytes(maxResponseBytes.get());
+            return metrics;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.dappley.java.core.net;
+
+import java.util.Arrays;
+
+/**
+ * Keeps latency of the latest requests and computes percentiles of them.
+ * <p>Old samples are overwritten once the window is full, so percentiles follow recent node behaviour.</p>
+ */
+class LatencyRecorder {
+    private final long[] samples;
+    private int count;
+    private int next;
+
+    LatencyRecorder(int windowSize) {
+        this.samples = new long[windowSize];
+    }
+
+    synchronized void record(long latencyMillis) {
+        samples[next] = latencyMillis;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    /**
+     * Returns the number of kept samples.
+     * @return int sample count
+     */
+    synchronized int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the latency under which the given percentage of kept samples are.
+     * @param percentile value between 0 and 100, for example 95
+     * @return long latency in milliseconds, -1 if there is no sample
+     */
+    long percentile(double percentile) {
+        long[] sorted;
+        synchronized (this) {
+            if (count == 0) {
+                return -1;
+            }
+            sorted = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * sorted.length / 100) - 1;
+        return sorted[Math.min(Math.max(index, 0), sorted.length - 1)];
+    }
+}
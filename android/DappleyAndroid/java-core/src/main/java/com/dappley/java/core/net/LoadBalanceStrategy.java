@@ -0,0 +1,24 @@
+package com.dappley.java.core.net;
+
+/**
+ * Define strategies choosing a server node for each request.
+ * <p>Nodes ejected by health checking are skipped unless all nodes are ejected.</p>
+ */
+public enum LoadBalanceStrategy {
+    /**
+     * Send all requests to the first available node. Other nodes are used as failover.
+     */
+    PICK_FIRST,
+    /**
+     * Send requests to available nodes in turn.
+     */
+    ROUND_ROBIN,
+    /**
+     * Send request to the node with the least running requests.
+     */
+    LEAST_OUTSTANDING,
+    /**
+     * Choose the better of two random nodes, by moving average latency weighted with running requests.
+     */
+    EWMA_LATENCY
+}
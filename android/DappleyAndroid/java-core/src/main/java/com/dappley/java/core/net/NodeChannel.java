@@ -0,0 +1,266 @@
+package com.dappley.java.core.net;
+
+import com.dappley.java.core.po.ServerNode;
+import com.dappley.java.core.po.ServerNodeStatus;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ConnectivityState;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Channels connected to a single server node, with request statistics used by load balancing.
+ * <p>Every request on these channels is tracked by an interceptor,
+ * which counts running requests, keeps a moving average of latency and reports results to the node's circuit breaker.</p>
+ */
+@Slf4j
+class NodeChannel {
+    private static final double EWMA_ALPHA = 0.3;
+    private static final int SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    private final ServerNode serverNode;
+    private final int keepAliveSeconds;
+    private final int idleTimeoutSeconds;
+    private final AtomicReferenceArray<ManagedChannel> channels;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicLong callCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private double ewmaLatencyMillis = -1;
+    private volatile long ejectedUntil;
+    private volatile long lastUsedTime;
+    private final long ejectMillis;
+    private final CircuitBreaker circuitBreaker;
+    private final RpcMetricsInterceptor metricsInterceptor;
+    private boolean closed;
+
+    private final ClientInterceptor tracker = new ClientInterceptor() {
+        @Override
+        public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+            return new ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT>(next.newCall(method, callOptions)) {
+                @Override
+                public void start(Listener<RespT> responseListener, Metadata headers) {
+                    long start = System.nanoTime();
+                    outstanding.incrementAndGet();
+                    try {
+                        super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT>(responseListener) {
+                            @Override
+                            public void onClose(Status status, Metadata trailers) {
+                                onCallClosed(status, System.nanoTime() - start);
+                                super.onClose(status, trailers);
+                            }
+                        }, headers);
+                    } catch (RuntimeException e) {
+                        outstanding.decrementAndGet();
+                        throw e;
+                    }
+                }
+            };
+        }
+    };
+
+    NodeChannel(ServerNode serverNode, int channelCount, int keepAliveSeconds, int idleTimeoutSeconds, long ejectMillis,
+                int failureThreshold, RpcMetricsRegistry metricsRegistry) {
+        this.serverNode = serverNode;
+        this.channels = new AtomicReferenceArray<>(channelCount);
+        this.keepAliveSeconds = keepAliveSeconds;
+        this.idleTimeoutSeconds = idleTimeoutSeconds;
+        this.ejectMillis = ejectMillis;
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, ejectMillis);
+        this.metricsInterceptor = metricsRegistry == null ? null : new RpcMetricsInterceptor(serverNode, metricsRegistry);
+    }
+
+    ServerNode getServerNode() {
+        return serverNode;
+    }
+
+    /**
+     * Returns a channel of this node for a request. Channels are picked in turn.
+     * @return ManagedChannel
+     */
+    ManagedChannel getChannel() {
+        lastUsedTime = System.currentTimeMillis();
+        int index = (next.getAndIncrement() & Integer.MAX_VALUE) % channels.length();
+        ManagedChannel channel = channels.get(index);
+        if (channel == null || channel.isShutdown()) {
+            channel = openChannel(index);
+        }
+        return channel;
+    }
+
+    /**
+     * Returns a connected channel for a health probe, without creating one.
+     * <p>A probe is a call, which keeps the channel from going idle. So a node is only probed while requests used it
+     * within the idle timeout, after that its channels are left to release their connections.</p>
+     * @param now current time in milliseconds
+     * @return ManagedChannel null if the node should not be probed
+     */
+    ManagedChannel getProbeChannel(long now) {
+        if (now - lastUsedTime >= TimeUnit.SECONDS.toMillis(idleTimeoutSeconds)) {
+            return null;
+        }
+        for (int i = 0; i < channels.length(); i++) {
+            ManagedChannel channel = channels.get(i);
+            if (channel == null || channel.isShutdown()) {
+                continue;
+            }
+            ConnectivityState state = channel.getState(false);
+            if (state != ConnectivityState.IDLE && state != ConnectivityState.SHUTDOWN) {
+                return channel;
+            }
+        }
+        return null;
+    }
+
+    int getOutstanding() {
+        return outstanding.get();
+    }
+
+    synchronized double getEwmaLatencyMillis() {
+        return ewmaLatencyMillis;
+    }
+
+    /**
+     * Returns if the node can receive requests now.
+     * @param now current time in milliseconds
+     * @return boolean true/false
+     */
+    boolean isAvailable(long now) {
+        return now >= ejectedUntil && circuitBreaker.allowRequest(now);
+    }
+
+    /**
+     * Returns if a selected request can be sent to the node now, taking the only trial of a half open circuit.
+     * @param now current time in milliseconds
+     * @return boolean true/false
+     */
+    boolean tryAcquire(long now) {
+        return now >= ejectedUntil && circuitBreaker.tryAcquire(now);
+    }
+
+    /**
+     * Stop sending requests to this node for a while.
+     * @param now     current time in milliseconds
+     * @param failure if the node is ejected for failure, its circuit is opened for ejectMillis, or until a health probe
+     *                succeeds before that. Otherwise the node is skipped for ejectMillis.
+     */
+    void eject(long now, boolean failure) {
+        if (isAvailable(now)) {
+            log.warn("node " + serverNode.getHost() + ":" + serverNode.getPort() + " ejected for " + (failure ? "failure" : "slowness"));
+        }
+        if (failure) {
+            circuitBreaker.open(now);
+        } else {
+            ejectedUntil = now + ejectMillis;
+        }
+    }
+
+    /**
+     * Called when a health probe succeeds.
+     */
+    void onProbeSuccess() {
+        circuitBreaker.halfOpen();
+    }
+
+    ServerNodeStatus getStatus(long now) {
+        ServerNodeStatus status = new ServerNodeStatus();
+        status.setServerNode(serverNode);
+        status.setOutstanding(outstanding.get());
+        status.setCallCount(callCount.get());
+        status.setFailureCount(failureCount.get());
+        status.setEwmaLatencyMillis(getEwmaLatencyMillis());
+        status.setEjected(!isAvailable(now));
+        status.setCircuitState(circuitBreaker.getState().name());
+        return status;
+    }
+
+    /**
+     * Shutdown channels of this node.
+     */
+    void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        ManagedChannel[] opened = new ManagedChannel[channels.length()];
+        for (int i = 0; i < opened.length; i++) {
+            opened[i] = channels.getAndSet(i, null);
+            if (opened[i] != null) {
+                opened[i].shutdown();
+            }
+        }
+        try {
+            for (ManagedChannel channel : opened) {
+                if (channel != null && !channel.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    channel.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized ManagedChannel openChannel(int index) {
+        if (closed) {
+            throw new IllegalStateException("channel pool has been closed.");
+        }
+        ManagedChannel channel = channels.get(index);
+        if (channel != null && !channel.isShutdown()) {
+            return channel;
+        }
+        RpcChannelBuilder channelBuilder = new RpcChannelBuilder().newChannel(serverNode)
+                .keepAlive(keepAliveSeconds)
+                .idleTimeout(idleTimeoutSeconds)
+                .intercept(tracker);
+        if (metricsInterceptor != null) {
+            channelBuilder.intercept(metricsInterceptor);
+        }
+        channel = channelBuilder.build();
+        channels.set(index, channel);
+        log.debug("channel " + index + " of " + serverNode.getHost() + ":" + serverNode.getPort() + " created");
+        return channel;
+    }
+
+    private void onCallClosed(Status status, long elapsedNanos) {
+        outstanding.decrementAndGet();
+        callCount.incrementAndGet();
+        Status.Code code = status.getCode();
+        if (code == Status.Code.CANCELLED) {
+            // cancelled by client, latency is unknown
+            circuitBreaker.onCancelled();
+            return;
+        }
+        if (!CircuitBreaker.isNodeFailure(code)) {
+            circuitBreaker.onSuccess();
+        } else {
+            failureCount.incrementAndGet();
+            if (circuitBreaker.onFailure(System.currentTimeMillis(), code == Status.Code.UNAVAILABLE)) {
+                log.warn("circuit of node " + serverNode.getHost() + ":" + serverNode.getPort() + " opened for " + code);
+            }
+            if (code == Status.Code.UNAVAILABLE) {
+                // failed before reaching the node, latency is unknown
+                return;
+            }
+        }
+        updateLatency(elapsedNanos / 1e6);
+    }
+
+    private synchronized void updateLatency(double latencyMillis) {
+        if (ewmaLatencyMillis < 0) {
+            ewmaLatencyMillis = latencyMillis;
+        } else {
+            ewmaLatencyMillis = EWMA_ALPHA * latencyMillis + (1 - EWMA_ALPHA) * ewmaLatencyMillis;
+        }
+    }
+}
@@ -38,9 +38,21 @@ public interface ProtocalProvider {
 
     SendTxResult sendTransaction(TransactionProto.Transaction transaction);
 
+    /**
+     * Send several transactions in one request.
+     * @param transactions transaction list
+     * @return List<SendTxResult> result of each transaction, in the same order of transactions
+     */
+    List<SendTxResult> sendBatchTransaction(List<TransactionProto.Transaction> transactions);
+
     ByteString estimateGas(TransactionProto.Transaction transaction);
 
     ByteString getGasPrice();
 
     ContractQueryResult contractQuery(String contractAddress, String key, String value);
+
+    /**
+     * Release connections held by provider. The provider should not be used after closed.
+     */
+    void close();
 }
@@ -8,9 +8,14 @@ import com.dappley.java.core.po.ServerNode;
 public class ProtocalProviderBuilder {
     private RemoteDataProvider.RemoteProtocalType type;
     private ServerNode[] serverNodes;
+    private int channelPoolSize;
+    private LoadBalanceStrategy loadBalanceStrategy;
+    private RpcMetricsRegistry metricsRegistry;
+    private RetryPolicy retryPolicy;
+    private HedgingPolicy hedgingPolicy;
 
     /**
-     * Register of RemoteProtocalType. RemoteProtocalType.RPC is supported now.
+     * Register of RemoteProtocalType. RemoteProtocalType.HTTP is supported by build() only.
      * @param type RemoteProtocalType
      * @return ProtocalProviderBuilder
      */
@@ -29,6 +34,63 @@ public class ProtocalProviderBuilder {
         return this;
     }
 
+    /**
+     * Set the number of channels of each server node, or the max number of connections of http protocal
+     * @param channelPoolSize channel count
+     * @return ProtocalProviderBuilder
+     * @see RpcChannelPool#setPoolSize(int)
+     * @see HttpProtocalProvider#setMaxConnections(int)
+     */
+    public ProtocalProviderBuilder setChannelPoolSize(int channelPoolSize) {
+        this.channelPoolSize = channelPoolSize;
+        return this;
+    }
+
+    /**
+     * Set the strategy choosing server node for each request, supported by rpc protocal only
+     * @param loadBalanceStrategy LoadBalanceStrategy
+     * @return ProtocalProviderBuilder
+     * @see RpcChannelPool#setLoadBalanceStrategy(LoadBalanceStrategy)
+     */
+    public ProtocalProviderBuilder setLoadBalanceStrategy(LoadBalanceStrategy loadBalanceStrategy) {
+        this.loadBalanceStrategy = loadBalanceStrategy;
+        return this;
+    }
+
+    /**
+     * Set the registry receiving metrics of every rpc call, supported by rpc protocal only
+     * @param metricsRegistry RpcMetricsRegistry
+     * @return ProtocalProviderBuilder
+     * @see RpcChannelPool#setMetricsRegistry(RpcMetricsRegistry)
+     */
+    public ProtocalProviderBuilder setMetricsRegistry(RpcMetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+        return this;
+    }
+
+    /**
+     * Set policy of retrying failed reads of ProtocalProvider
+     * @param retryPolicy RetryPolicy
+     * @return ProtocalProviderBuilder
+     * @see RpcProtocalProvider#setRetryPolicy(RetryPolicy)
+     */
+    public ProtocalProviderBuilder setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    /**
+     * Set policy of hedging reads, supported by rpc protocal only
+     * @param hedgingPolicy HedgingPolicy
+     * @return ProtocalProviderBuilder
+     * @see RpcProtocalProvider#setHedgingPolicy(HedgingPolicy)
+     * @see RpcAsyncProtocalProvider#setHedgingPolicy(HedgingPolicy)
+     */
+    public ProtocalProviderBuilder setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy;
+        return this;
+    }
+
     /**
      * Build a ProtocalProvider
      * @return ProtocalProvider
@@ -36,11 +98,55 @@ public class ProtocalProviderBuilder {
     public ProtocalProvider build() {
         ProtocalProvider protocalProvider;
         if (type == RemoteDataProvider.RemoteProtocalType.RPC) {
-            protocalProvider = new RpcProtocalProvider();
-            protocalProvider.init(serverNodes);
+            RpcProtocalProvider rpcProtocalProvider = new RpcProtocalProvider();
+            rpcProtocalProvider.init(serverNodes);
+            configure(rpcProtocalProvider.getChannelPool());
+            rpcProtocalProvider.setRetryPolicy(retryPolicy);
+            rpcProtocalProvider.setHedgingPolicy(hedgingPolicy);
+            protocalProvider = rpcProtocalProvider;
+        } else if (type == RemoteDataProvider.RemoteProtocalType.HTTP) {
+            // nodes are used by turns and no metrics are recorded, options of rpc are not ignored silently
+            if (hedgingPolicy != null) {
+                throw new IllegalArgumentException("hedging is not supported by http protocal.");
+            }
+            if (loadBalanceStrategy != null) {
+                throw new IllegalArgumentException("load balance strategy is not supported by http protocal.");
+            }
+            if (metricsRegistry != null) {
+                throw new IllegalArgumentException("metrics registry is not supported by http protocal.");
+            }
+            HttpProtocalProvider httpProtocalProvider = new HttpProtocalProvider();
+            httpProtocalProvider.init(serverNodes);
+            httpProtocalProvider.setMaxConnections(channelPoolSize);
+            httpProtocalProvider.setRetryPolicy(retryPolicy);
+            protocalProvider = httpProtocalProvider;
+        } else {
+            throw new IllegalArgumentException("only rpc and http protocal are supported now.");
+        }
+        return protocalProvider;
+    }
+
+    /**
+     * Build an AsyncProtocalProvider
+     * @return AsyncProtocalProvider
+     */
+    public AsyncProtocalProvider buildAsync() {
+        AsyncProtocalProvider protocalProvider;
+        if (type == RemoteDataProvider.RemoteProtocalType.RPC) {
+            RpcAsyncProtocalProvider rpcProtocalProvider = new RpcAsyncProtocalProvider();
+            rpcProtocalProvider.init(serverNodes);
+            configure(rpcProtocalProvider.getChannelPool());
+            rpcProtocalProvider.setHedgingPolicy(hedgingPolicy);
+            protocalProvider = rpcProtocalProvider;
         } else {
             throw new IllegalArgumentException("only rpc protocal is supported now.");
         }
         return protocalProvider;
     }
+
+    private void configure(RpcChannelPool channelPool) {
+        channelPool.setPoolSize(channelPoolSize);
+        channelPool.setLoadBalanceStrategy(loadBalanceStrategy);
+        channelPool.setMetricsRegistry(metricsRegistry);
+    }
 }
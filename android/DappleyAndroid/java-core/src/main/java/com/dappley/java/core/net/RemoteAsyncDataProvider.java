@@ -0,0 +1,74 @@
+package com.dappley.java.core.net;
+
+import com.dappley.java.core.po.Block;
+import com.dappley.java.core.po.ContractQueryResult;
+import com.dappley.java.core.po.Transaction;
+import com.dappley.java.core.po.Utxo;
+import com.dappley.java.core.util.HexUtil;
+import com.dappley.java.core.util.ObjectUtils;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Provide block chain datas from online block node without blocking.
+ */
+public class RemoteAsyncDataProvider implements AsyncDataProvider {
+    private AsyncProtocalProvider protocalProvider;
+
+    public RemoteAsyncDataProvider(AsyncProtocalProvider protocalProvider) {
+        this.protocalProvider = protocalProvider;
+    }
+
+    @Override
+    public CompletableFuture<List<Utxo>> getUtxos(String address) {
+        return protocalProvider.getUtxo(address)
+                .thenApply(RemoteDataProvider::toUtxos);
+    }
+
+    @Override
+    public CompletableFuture<Block> getBlockByHash(String hash) {
+        return protocalProvider.getBlockByHash(HexUtil.toByteString(hash))
+                .thenApply(Block::new);
+    }
+
+    @Override
+    public CompletableFuture<List<Block>> getBlocks(List<String> startHashs, int count) {
+        if (startHashs == null || count <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return protocalProvider.getBlocks(RemoteDataProvider.toByteHashes(startHashs), count)
+                .thenApply(RemoteDataProvider::toBlocks);
+    }
+
+    @Override
+    public CompletableFuture<BigInteger> getBalance(String address) {
+        if (ObjectUtils.isEmpty(address)) {
+            return CompletableFuture.completedFuture(BigInteger.ZERO);
+        }
+        // compute from getUtxo method
+        return protocalProvider.getUtxo(address)
+                .thenApply(RemoteDataProvider::sumAmount);
+    }
+
+    @Override
+    public CompletableFuture<BigInteger> estimateGas(Transaction transaction) {
+        if (transaction == null) {
+            return CompletableFuture.completedFuture(BigInteger.ZERO);
+        }
+        return protocalProvider.estimateGas(transaction.toProto())
+                .thenApply(RemoteDataProvider::toBigInteger);
+    }
+
+    @Override
+    public CompletableFuture<BigInteger> getGasPrice() {
+        return protocalProvider.getGasPrice()
+                .thenApply(RemoteDataProvider::toBigInteger);
+    }
+
+    @Override
+    public CompletableFuture<ContractQueryResult> contractQuery(String contractAddress, String key, String value) {
+        return protocalProvider.contractQuery(contractAddress, key, value);
+    }
+}
@@ -1,6 +1,8 @@
 package com.dappley.java.core.net;
 
+import com.dappley.java.core.po.BatchQueryResult;
 import com.dappley.java.core.po.Block;
+import com.dappley.java.core.po.BlockChainInfo;
 import com.dappley.java.core.po.ContractQueryResult;
 import com.dappley.java.core.po.Transaction;
 import com.dappley.java.core.po.Utxo;
@@ -13,33 +15,39 @@ import com.google.protobuf.ByteString;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
  * Provide block chain datas from online block node.
  */
 public class RemoteDataProvider implements DataProvider {
+    private static final int DEFAULT_BATCH_PARALLELISM = 8;
+
     private ProtocalProvider protocalProvider;
+    private int batchParallelism = DEFAULT_BATCH_PARALLELISM;
 
     public RemoteDataProvider(ProtocalProvider protocalProvider) {
         this.protocalProvider = protocalProvider;
     }
 
+    /**
+     * Set the max number of requests sent at the same time by batch queries.
+     * Reads of all batch queries share 16 threads, so at most 16 of them run at the same time. Default value is 8.
+     * @param batchParallelism request count
+     */
+    public void setBatchParallelism(int batchParallelism) {
+        if (batchParallelism <= 0) {
+            return;
+        }
+        this.batchParallelism = batchParallelism;
+    }
+
     @Override
     public List<Utxo> getUtxos(String address) {
         try {
             List<UtxoProto.Utxo> utxoList = protocalProvider.getUtxo(address);
-            if (utxoList == null) {
-                return null;
-            }
-            // format data
-            List<Utxo> utxos = new ArrayList<>(utxoList.size());
-            Utxo utxo;
-            for (UtxoProto.Utxo u : utxoList) {
-                utxo = new Utxo(u);
-                utxos.add(utxo);
-            }
-            return utxos;
+            return toUtxos(utxoList);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -49,7 +57,7 @@ public class RemoteDataProvider implements DataProvider {
     @Override
     public Block getBlockByHash(String hash) {
         try {
-            BlockProto.Block blockProto = protocalProvider.getBlockByHash(ByteString.copyFrom(HexUtil.toBytes(hash)));
+            BlockProto.Block blockProto = protocalProvider.getBlockByHash(HexUtil.toByteString(hash));
             // format data
             return new Block(blockProto);
         } catch (Exception e) {
@@ -64,48 +72,45 @@ public class RemoteDataProvider implements DataProvider {
             return null;
         }
         try {
-            // format data
-            List<ByteString> startHashStrings = new ArrayList<>(startHashs.size());
-            ByteString byteString;
-            for (String hash : startHashs) {
-                byteString = ByteString.copyFrom(HexUtil.toBytes(hash));
-                startHashStrings.add(byteString);
-            }
-            List<BlockProto.Block> blockList = protocalProvider.getBlocks(startHashStrings, count);
-            if (blockList == null) {
-                return null;
-            }
-            List<Block> blocks = new ArrayList<>(blockList.size());
-            Block block;
-            for (BlockProto.Block b : blockList) {
-                block = new Block(b);
-                blocks.add(block);
-            }
-            return blocks;
+            List<BlockProto.Block> blockList = protocalProvider.getBlocks(toByteHashes(startHashs), count);
+            return toBlocks(blockList);
         } catch (Exception e) {
             e.printStackTrace();
         }
         return null;
     }
 
+    @Override
+    public BlockChainInfo getBlockchainInfo() {
+        return protocalProvider.getBlockchainInfo();
+    }
+
     @Override
     public BigInteger getBalance(String address) {
-        BigInteger balance = BigInteger.ZERO;
         if (ObjectUtils.isEmpty(address)) {
-            return balance;
+            return BigInteger.ZERO;
         }
         // compute from getUtxo method
         List<UtxoProto.Utxo> utxos = protocalProvider.getUtxo(address);
-        if (ObjectUtils.isEmpty(utxos)) {
-            return balance;
-        }
-        for (UtxoProto.Utxo utxo : utxos) {
-            if (utxo == null || utxo.getAmount() == null || utxo.getAmount().size() == 0) {
-                continue;
-            }
-            balance = balance.add(new BigInteger(1, utxo.getAmount().toByteArray()));
-        }
-        return balance;
+        return sumAmount(utxos);
+    }
+
+    @Override
+    public BatchQueryResult<List<Utxo>> getUtxos(Collection<String> addresses) {
+        return BatchQuery.run(addresses, batchParallelism, address -> toUtxos(protocalProvider.getUtxo(address)));
+    }
+
+    /**
+     * Returns balances of several addresses.
+     * <p>Only the total is needed, so it's read with RpcGetBalance instead of downloading utxos.</p>
+     * @param addresses wallet addresses
+     * @return BatchQueryResult<BigInteger> balance of each address
+     */
+    @Override
+    public BatchQueryResult<BigInteger> getBalances(Collection<String> addresses) {
+        return BatchQuery.run(addresses, batchParallelism, address -> ObjectUtils.isEmpty(address)
+                ? BigInteger.ZERO
+                : BigInteger.valueOf(protocalProvider.getBalance(address)));
     }
 
     @Override
@@ -115,21 +120,13 @@ public class RemoteDataProvider implements DataProvider {
         }
         TransactionProto.Transaction tx = transaction.toProto();
         ByteString count = protocalProvider.estimateGas(tx);
-        BigInteger gasCount = BigInteger.ZERO;
-        if (count != null && count.size() > 0) {
-            gasCount = new BigInteger(1, count.toByteArray());
-        }
-        return gasCount;
+        return toBigInteger(count);
     }
 
     @Override
     public BigInteger getGasPrice() {
         ByteString price = protocalProvider.getGasPrice();
-        BigInteger gasPrice = BigInteger.ZERO;
-        if (price != null && price.size() > 0) {
-            gasPrice = new BigInteger(1, price.toByteArray());
-        }
-        return gasPrice;
+        return toBigInteger(price);
     }
 
     @Override
@@ -138,6 +135,88 @@ public class RemoteDataProvider implements DataProvider {
         return result;
     }
 
+    /**
+     * Format utxo list
+     * @param utxoList proto utxo list
+     * @return List<Utxo> null if utxoList is null
+     */
+    static List<Utxo> toUtxos(List<UtxoProto.Utxo> utxoList) {
+        if (utxoList == null) {
+            return null;
+        }
+        List<Utxo> utxos = new ArrayList<>(utxoList.size());
+        Utxo utxo;
+        for (UtxoProto.Utxo u : utxoList) {
+            utxo = new Utxo(u);
+            utxos.add(utxo);
+        }
+        return utxos;
+    }
+
+    /**
+     * Format block list
+     * @param blockList proto block list
+     * @return List<Block> null if blockList is null
+     */
+    static List<Block> toBlocks(List<BlockProto.Block> blockList) {
+        if (blockList == null) {
+            return null;
+        }
+        List<Block> blocks = new ArrayList<>(blockList.size());
+        Block block;
+        for (BlockProto.Block b : blockList) {
+            block = new Block(b);
+            blocks.add(block);
+        }
+        return blocks;
+    }
+
+    /**
+     * Convert hex hash list into byte strings
+     * @param hashs hex hash list
+     * @return List<ByteString>
+     */
+    static List<ByteString> toByteHashes(List<String> hashs) {
+        List<ByteString> byteHashes = new ArrayList<>(hashs.size());
+        ByteString byteString;
+        for (String hash : hashs) {
+            byteString = HexUtil.toByteString(hash);
+            byteHashes.add(byteString);
+        }
+        return byteHashes;
+    }
+
+    /**
+     * Returns the total amount of utxos
+     * @param utxos proto utxo list
+     * @return BigInteger zero if utxos is empty
+     */
+    static BigInteger sumAmount(List<UtxoProto.Utxo> utxos) {
+        BigInteger balance = BigInteger.ZERO;
+        if (ObjectUtils.isEmpty(utxos)) {
+            return balance;
+        }
+        for (UtxoProto.Utxo utxo : utxos) {
+            if (utxo == null || utxo.getAmount() == null || utxo.getAmount().size() == 0) {
+                continue;
+            }
+            balance = balance.add(new BigInteger(1, utxo.getAmount().toByteArray()));
+        }
+        return balance;
+    }
+
+    /**
+     * Convert unsigned bytes into BigInteger
+     * @param value byte string
+     * @return BigInteger zero if value is empty
+     */
+    static BigInteger toBigInteger(ByteString value) {
+        if (value == null || value.size() == 0) {
+            return BigInteger.ZERO;
+        }
+        return new BigInteger(1, value.toByteArray());
+    }
+
     /**
      * Define types of network protocal supported.
      */
@@ -0,0 +1,187 @@
+package com.dappley.java.core.net;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Policy of retrying failed idempotent requests.
+ * <p>A request failed with a retryable status is sent again after an exponential backoff with full jitter,
+ * until it succeeds or reaches the max attempts. The next attempt is sent to the node chosen by load balance strategy,
+ * which skips nodes whose circuit is open.</p>
+ * <p>Retries are limited by a budget shared by all requests, so that retries don't overload nodes during an outage.
+ * Each failure takes one token and each success gives back tokenRatio tokens.
+ * Requests are not retried while less than half of the tokens are left.</p>
+ * <p>Transactions are never retried, because they are not idempotent.</p>
+ */
+@Slf4j
+public class RetryPolicy {
+    private static final double BACKOFF_MULTIPLIER = 2;
+    private static final int DEFAULT_MAX_TOKENS = 10;
+    private static final double DEFAULT_TOKEN_RATIO = 0.1;
+    /**
+     * tokens are kept in thousandths to count fractional ratio
+     */
+    private static final int TOKEN_SCALE = 1000;
+    private static final Random RANDOM = new Random();
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private volatile Set<Status.Code> retryableCodes = EnumSet.of(Status.Code.UNAVAILABLE);
+    private volatile int maxTokens = DEFAULT_MAX_TOKENS * TOKEN_SCALE;
+    private volatile int tokenRatio = (int) (DEFAULT_TOKEN_RATIO * TOKEN_SCALE);
+    private final AtomicLong tokens = new AtomicLong(DEFAULT_MAX_TOKENS * TOKEN_SCALE);
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong throttledCount = new AtomicLong();
+
+    private RetryPolicy(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Retry with exponential backoff. The backoff doubles after each attempt, and a random value below it is used.
+     * @param maxAttempts          max number of attempts including the first one
+     * @param initialBackoffMillis backoff before the first retry in milliseconds
+     * @param maxBackoffMillis     backoff never exceeds this value in milliseconds
+     * @return RetryPolicy
+     */
+    public static RetryPolicy exponentialBackoff(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts should be at least 1.");
+        }
+        if (initialBackoffMillis < 0 || maxBackoffMillis < initialBackoffMillis) {
+            throw new IllegalArgumentException("backoff should be between 0 and maxBackoffMillis.");
+        }
+        return new RetryPolicy(maxAttempts, initialBackoffMillis, maxBackoffMillis);
+    }
+
+    /**
+     * Set status codes which are retried. Default value is UNAVAILABLE.
+     * @param codes retryable status codes
+     */
+    public void setRetryableCodes(Status.Code... codes) {
+        if (codes == null || codes.length == 0) {
+            return;
+        }
+        this.retryableCodes = EnumSet.copyOf(Arrays.asList(codes));
+    }
+
+    /**
+     * Set the retry budget. Default value is 10 tokens and 0.1 token ratio.
+     * @param maxTokens  max number of tokens
+     * @param tokenRatio tokens given back by each success
+     */
+    public void setRetryBudget(int maxTokens, double tokenRatio) {
+        if (maxTokens <= 0 || tokenRatio <= 0) {
+            return;
+        }
+        this.maxTokens = maxTokens * TOKEN_SCALE;
+        this.tokenRatio = (int) (tokenRatio * TOKEN_SCALE);
+        this.tokens.set(this.maxTokens);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Returns the number of sent retries.
+     * @return long retry count
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * Returns the number of retries given up because the budget ran out.
+     * @return long retry count
+     */
+    public long getThrottledCount() {
+        return throttledCount.get();
+    }
+
+    /**
+     * Called when a request succeeds.
+     */
+    void onSuccess() {
+        int max = maxTokens;
+        int ratio = tokenRatio;
+        long value;
+        do {
+            value = tokens.get();
+        } while (!tokens.compareAndSet(value, Math.min(max, value + ratio)));
+    }
+
+    /**
+     * Called when an attempt fails. Returns the backoff before the next attempt.
+     * @param attempt number of finished attempts, starting from 1
+     * @param code    status code of the failure
+     * @return long backoff in milliseconds, -1 if the request should not be retried
+     */
+    long onFailure(int attempt, Status.Code code) {
+        if (!retryableCodes.contains(code)) {
+            return -1;
+        }
+        long value;
+        long left;
+        do {
+            value = tokens.get();
+            left = Math.max(0, value - TOKEN_SCALE);
+        } while (!tokens.compareAndSet(value, left));
+        if (attempt >= maxAttempts) {
+            return -1;
+        }
+        if (left <= maxTokens / 2) {
+            throttledCount.incrementAndGet();
+            return -1;
+        }
+        retryCount.incrementAndGet();
+        double backoff = Math.min(maxBackoffMillis, initialBackoffMillis * Math.pow(BACKOFF_MULTIPLIER, attempt - 1));
+        return (long) (RANDOM.nextDouble() * backoff);
+    }
+
+    /**
+     * Send an idempotent request, and send it again after backoff when it fails with a retryable status.
+     * @param call sends request and returns response
+     * @return R response
+     */
+    <R> R call(Request<R> call) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                R response = call.send();
+                onSuccess();
+                return response;
+            } catch (StatusRuntimeException e) {
+                long backoffMillis = onFailure(attempt, e.getStatus().getCode());
+                if (backoffMillis < 0) {
+                    throw e;
+                }
+                log.debug("retry after " + backoffMillis + "ms: " + e.getMessage());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw Status.CANCELLED.withCause(interrupted).asRuntimeException();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends a request and returns its response.
+     * @param <R> response type
+     */
+    interface Request<R> {
+        R send();
+    }
+}
@@ -0,0 +1,410 @@
+package com.dappley.java.core.net;
+
+import com.dappley.java.core.po.BlockChainInfo;
+import com.dappley.java.core.po.ContractQueryResult;
+import com.dappley.java.core.po.SendTxResult;
+import com.dappley.java.core.po.ServerNode;
+import com.dappley.java.core.protobuf.*;
+import com.dappley.java.core.util.Asserts;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.protobuf.ByteString;
+import io.grpc.Channel;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Implementation of AsyncProtocalProvider on RPC protocal.
+ * <p>Unary requests are sent with future stubs over a shared {@link RpcChannelPool}.
+ * At most {@code maxInFlightRequests} of them run at the same time, the others wait in a queue without blocking the caller.</p>
+ * <p>Streaming requests use async stubs. They are long-lived, so they have no deadline and are not counted as in-flight.</p>
+ */
+@Slf4j
+public class RpcAsyncProtocalProvider implements AsyncProtocalProvider {
+    private static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 64;
+    /**
+     * timeout seconds of each RPC request
+     */
+    private int timeout = 15;
+    private RpcChannelPool channelPool;
+    private HedgingPolicy hedgingPolicy;
+    private final InFlightLimiter limiter = new InFlightLimiter(DEFAULT_MAX_IN_FLIGHT_REQUESTS);
+
+    @Override
+    public void init(ServerNode[] serverNodes) {
+        this.channelPool = new RpcChannelPool(serverNodes);
+    }
+
+    /**
+     * Set RPC request timeout
+     * @param timeout value in seconds
+     */
+    public void setRequestTimeoutSeconds(int timeout) {
+        if (timeout <= 0) {
+            return;
+        }
+        this.timeout = timeout;
+    }
+
+    /**
+     * Set the max number of unary requests running at the same time.
+     * @param maxInFlightRequests request count
+     */
+    public void setMaxInFlightRequests(int maxInFlightRequests) {
+        if (maxInFlightRequests <= 0) {
+            return;
+        }
+        limiter.setMaxInFlight(maxInFlightRequests);
+    }
+
+    /**
+     * Set policy of hedged read requests. Reads are not hedged by default.
+     * <p>A hedged read takes one in-flight slot however many nodes it is sent to.</p>
+     * @param hedgingPolicy HedgingPolicy, null disables hedging
+     */
+    public void setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy;
+    }
+
+    /**
+     * Returns the number of unary requests waiting for a free slot.
+     * @return int request count
+     */
+    public int getPendingRequests() {
+        return limiter.getPending();
+    }
+
+    /**
+     * Returns the channel pool shared by all requests of this provider.
+     * <p>Pool options should be set before the first request.</p>
+     * @return RpcChannelPool
+     */
+    public RpcChannelPool getChannelPool() {
+        Asserts.providerInit(channelPool);
+        return channelPool;
+    }
+
+    @Override
+    public void close() {
+        if (channelPool != null) {
+            channelPool.close();
+        }
+    }
+
+    /**
+     * Returns new future stub with timeout value on a pooled channel
+     * @return RpcServiceGrpc.RpcServiceFutureStub
+     */
+    private RpcServiceGrpc.RpcServiceFutureStub getFutureStub() {
+        return getFutureStub(channelPool.getChannel());
+    }
+
+    private RpcServiceGrpc.RpcServiceFutureStub getFutureStub(Channel channel) {
+        return RpcServiceGrpc.newFutureStub(channel).withDeadlineAfter(this.timeout, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public CompletableFuture<String> getVersion() {
+        RpcProto.GetVersionRequest request = RpcProto.GetVersionRequest.newBuilder()
+                .build();
+        return unary(stub -> stub.rpcGetVersion(request),
+                response -> "[protocal version:" + response.getProtoVersion() + "] [server version: " + response.getServerVersion() + "]");
+    }
+
+    @Override
+    public CompletableFuture<Long> getBalance(String address) {
+        RpcProto.GetBalanceRequest request = RpcProto.GetBalanceRequest.newBuilder()
+                .setAddress(address)
+                .build();
+        return unary(stub -> stub.rpcGetBalance(request), RpcProto.GetBalanceResponse::getAmount);
+    }
+
+    @Override
+    public CompletableFuture<BlockChainInfo> getBlockchainInfo() {
+        RpcProto.GetBlockchainInfoRequest request = RpcProto.GetBlockchainInfoRequest.newBuilder()
+                .build();
+        return hedgedUnary(stub -> stub.rpcGetBlockchainInfo(request), RpcProtocalProvider::toBlockChainInfo);
+    }
+
+    @Override
+    public CompletableFuture<List<UtxoProto.Utxo>> getUtxo(String address) {
+        RpcProto.GetUTXORequest request = RpcProto.GetUTXORequest.newBuilder()
+                .setAddress(address)
+                .build();
+        return hedgedUnary(stub -> stub.rpcGetUTXO(request), RpcProto.GetUTXOResponse::getUtxosList);
+    }
+
+    @Override
+    public CompletableFuture<List<BlockProto.Block>> getBlocks(List<ByteString> startHashs, int count) {
+        RpcProto.GetBlocksRequest request = RpcProto.GetBlocksRequest.newBuilder()
+                .addAllStartBlockHashes(startHashs)
+                .setMaxCount(count)
+                .build();
+        return unary(stub -> stub.rpcGetBlocks(request), RpcProto.GetBlocksResponse::getBlocksList);
+    }
+
+    @Override
+    public CompletableFuture<BlockProto.Block> getBlockByHash(ByteString byteHash) {
+        RpcProto.GetBlockByHashRequest request = RpcProto.GetBlockByHashRequest.newBuilder()
+                .setHash(byteHash)
+                .build();
+        return hedgedUnary(stub -> stub.rpcGetBlockByHash(request), RpcProto.GetBlockByHashResponse::getBlock);
+    }
+
+    @Override
+    public CompletableFuture<BlockProto.Block> getBlockByHeight(long height) {
+        RpcProto.GetBlockByHeightRequest request = RpcProto.GetBlockByHeightRequest.newBuilder()
+                .setHeight(height)
+                .build();
+        return unary(stub -> stub.rpcGetBlockByHeight(request), RpcProto.GetBlockByHeightResponse::getBlock);
+    }
+
+    @Override
+    public CompletableFuture<SendTxResult> sendTransaction(TransactionProto.Transaction transaction) {
+        RpcProto.SendTransactionRequest request = RpcProto.SendTransactionRequest.newBuilder()
+                .setTransaction(transaction)
+                .build();
+        return unary(stub -> stub.rpcSendTransaction(request), response -> {
+            SendTxResult sendTxResult = new SendTxResult();
+            sendTxResult.setCode(SendTxResult.CODE_SUCCESS);
+            sendTxResult.setGeneratedContractAddress(response.getGeneratedContractAddress());
+            return sendTxResult;
+        }, RpcAsyncProtocalProvider::toErrorResult);
+    }
+
+    @Override
+    public CompletableFuture<List<SendTxResult>> sendBatchTransaction(List<TransactionProto.Transaction> transactions) {
+        RpcProto.SendBatchTransactionRequest request = RpcProto.SendBatchTransactionRequest.newBuilder()
+                .addAllTransactions(transactions)
+                .build();
+        return unary(stub -> stub.rpcSendBatchTransaction(request),
+                response -> RpcProtocalProvider.toBatchResults(transactions, null),
+                e -> {
+                    log.error(e.getMessage());
+                    return RpcProtocalProvider.toBatchResults(transactions, e);
+                });
+    }
+
+    @Override
+    public CompletableFuture<Void> getNewTransaction(Consumer<TransactionProto.Transaction> consumer) {
+        RpcProto.GetNewTransactionRequest request = RpcProto.GetNewTransactionRequest.newBuilder()
+                .build();
+        return serverStream((stub, observer) -> stub.rpcGetNewTransaction(request, observer),
+                (RpcProto.GetNewTransactionResponse response) -> consumer.accept(response.getTransaction()));
+    }
+
+    @Override
+    public CompletableFuture<Void> subscribe(List<String> topics, Consumer<String> consumer) {
+        RpcProto.SubscribeRequest request = RpcProto.SubscribeRequest.newBuilder()
+                .addAllTopics(topics)
+                .build();
+        return serverStream((stub, observer) -> stub.rpcSubscribe(request, observer),
+                (RpcProto.SubscribeResponse response) -> consumer.accept(response.getData()));
+    }
+
+    @Override
+    public CompletableFuture<List<TransactionProto.Transaction>> getAllTransactionsFromTxPool() {
+        RpcProto.GetAllTransactionsRequest request = RpcProto.GetAllTransactionsRequest.newBuilder()
+                .build();
+        return unary(stub -> stub.rpcGetAllTransactionsFromTxPool(request), RpcProto.GetAllTransactionsResponse::getTransactionsList);
+    }
+
+    @Override
+    public CompletableFuture<BlockProto.Block> getLastIrreversibleBlock() {
+        RpcProto.GetLastIrreversibleBlockRequest request = RpcProto.GetLastIrreversibleBlockRequest.newBuilder()
+                .build();
+        return unary(stub -> stub.rpcGetLastIrreversibleBlock(request), RpcProto.GetLastIrreversibleBlockResponse::getBlock);
+    }
+
+    @Override
+    public CompletableFuture<ByteString> estimateGas(TransactionProto.Transaction transaction) {
+        RpcProto.EstimateGasRequest request = RpcProto.EstimateGasRequest.newBuilder()
+                .setTransaction(transaction)
+                .build();
+        return unary(stub -> stub.rpcEstimateGas(request), RpcProto.EstimateGasResponse::getGasCount);
+    }
+
+    @Override
+    public CompletableFuture<ByteString> getGasPrice() {
+        RpcProto.GasPriceRequest request = RpcProto.GasPriceRequest.newBuilder()
+                .build();
+        return unary(stub -> stub.rpcGasPrice(request), RpcProto.GasPriceResponse::getGasPrice);
+    }
+
+    @Override
+    public CompletableFuture<ContractQueryResult> contractQuery(String contractAddress, String key, String value) {
+        RpcProto.ContractQueryRequest request = RpcProtocalProvider.toContractQueryRequest(contractAddress, key, value);
+        return unary(stub -> stub.rpcContractQuery(request), RpcProtocalProvider::toContractQueryResult);
+    }
+
+    /**
+     * Start a unary request. The future completes exceptionally if request failed.
+     * @param call      sends request on the given stub
+     * @param converter converts response into result
+     * @return CompletableFuture<T> result
+     */
+    private <R, T> CompletableFuture<T> unary(Function<RpcServiceGrpc.RpcServiceFutureStub, ListenableFuture<R>> call, Function<R, T> converter) {
+        return unary(call, converter, null);
+    }
+
+    /**
+     * Start a unary request when there is a free slot and convert its response.
+     * @param call      sends request on the given stub
+     * @param converter converts response into result
+     * @param fallback  converts failure into result, the future completes exceptionally if it is null
+     * @return CompletableFuture<T> result
+     */
+    private <R, T> CompletableFuture<T> unary(Function<RpcServiceGrpc.RpcServiceFutureStub, ListenableFuture<R>> call, Function<R, T> converter,
+                                              Function<Throwable, T> fallback) {
+        return submit(() -> call.apply(getFutureStub()), converter, fallback);
+    }
+
+    /**
+     * Start an idempotent read request, hedged if there is a hedging policy.
+     * @param call      sends request on the given stub
+     * @param converter converts response into result
+     * @return CompletableFuture<T> result
+     */
+    private <R, T> CompletableFuture<T> hedgedUnary(Function<RpcServiceGrpc.RpcServiceFutureStub, ListenableFuture<R>> call, Function<R, T> converter) {
+        HedgingPolicy hedgingPolicy = this.hedgingPolicy;
+        if (hedgingPolicy == null) {
+            return unary(call, converter);
+        }
+        return submit(() -> HedgedCall.start(channelPool, hedgingPolicy, (Channel channel) -> call.apply(getFutureStub(channel))), converter, null);
+    }
+
+    private <R, T> CompletableFuture<T> submit(Supplier<ListenableFuture<R>> call, Function<R, T> converter, Function<Throwable, T> fallback) {
+        Asserts.providerInit(channelPool);
+        CompletableFuture<T> future = new CompletableFuture<>();
+        limiter.submit(() -> start(call, converter, fallback, future));
+        return future;
+    }
+
+    private <R, T> void start(Supplier<ListenableFuture<R>> call, Function<R, T> converter,
+                              Function<Throwable, T> fallback, CompletableFuture<T> future) {
+        if (future.isDone()) {
+            // cancelled while waiting
+            limiter.release();
+            return;
+        }
+        ListenableFuture<R> response;
+        try {
+            response = call.get();
+        } catch (RuntimeException e) {
+            try {
+                fail(future, e, fallback);
+            } finally {
+                limiter.release();
+            }
+            return;
+        }
+        future.whenComplete((result, e) -> {
+            if (future.isCancelled()) {
+                response.cancel(true);
+            }
+        });
+        Futures.addCallback(response, new FutureCallback<R>() {
+            @Override
+            public void onSuccess(R result) {
+                // the caller gets its result before queued requests are started on this thread
+                try {
+                    future.complete(converter.apply(result));
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    limiter.release();
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                try {
+                    if (!future.isCancelled()) {
+                        fail(future, t, fallback);
+                    }
+                } finally {
+                    limiter.release();
+                }
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    private static <T> void fail(CompletableFuture<T> future, Throwable e, Function<Throwable, T> fallback) {
+        if (fallback == null) {
+            future.completeExceptionally(e);
+        } else {
+            future.complete(fallback.apply(e));
+        }
+    }
+
+    /**
+     * Start a server streaming request.
+     * @param call     sends request on the given stub
+     * @param consumer called for each response
+     * @return CompletableFuture<Void> completed with the stream
+     */
+    private <R> CompletableFuture<Void> serverStream(BiConsumer<RpcServiceGrpc.RpcServiceStub, StreamObserver<R>> call, Consumer<R> consumer) {
+        Asserts.providerInit(channelPool);
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        // request type is not used by server streaming calls
+        ClientResponseObserver<Object, R> observer = new ClientResponseObserver<Object, R>() {
+            @Override
+            public void beforeStart(ClientCallStreamObserver<Object> requestStream) {
+                future.whenComplete((result, e) -> {
+                    if (e != null) {
+                        requestStream.cancel("cancelled by client", e);
+                    }
+                });
+            }
+
+            @Override
+            public void onNext(R value) {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    consumer.accept(value);
+                } catch (RuntimeException e) {
+                    log.error("stream consumer error", e);
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                future.completeExceptionally(t);
+            }
+
+            @Override
+            public void onCompleted() {
+                future.complete(null);
+            }
+        };
+        try {
+            call.accept(RpcServiceGrpc.newStub(channelPool.getChannel()), observer);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private static SendTxResult toErrorResult(Throwable e) {
+        SendTxResult sendTxResult = new SendTxResult();
+        sendTxResult.setCode(SendTxResult.CODE_ERROR_EXCEPTION);
+        sendTxResult.setMsg(e.getMessage());
+        log.error(e.getMessage());
+        return sendTxResult;
+    }
+}
@@ -1,6 +1,7 @@
 package com.dappley.java.core.net;
 
 import com.dappley.java.core.po.ServerNode;
+import io.grpc.ClientInterceptor;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
 import io.grpc.NameResolver;
@@ -37,6 +38,62 @@ public class RpcChannelBuilder {
         return this;
     }
 
+    /**
+     * Create a new channel connected to a single node
+     * @param serverNode host address
+     * @return RpcChannelBuilder
+     */
+    public RpcChannelBuilder newChannel(ServerNode serverNode) {
+        channelBuilder = ManagedChannelBuilder.forAddress(serverNode.getHost(), serverNode.getPort())
+                .maxInboundMessageSize(MAX_CHANNEL_BYTES)
+                .usePlaintext();
+        return this;
+    }
+
+    /**
+     * Set the gRPC load balancing policy among nodes of channel, such as "pick_first" or "round_robin".
+     * <p>The policy balances new calls between connections only.
+     * RpcChannelPool provides strategies based on node latency and running requests.</p>
+     * @param policy policy name
+     * @return RpcChannelBuilder
+     * @see RpcChannelPool#setLoadBalanceStrategy(LoadBalanceStrategy)
+     */
+    public RpcChannelBuilder loadBalancingPolicy(String policy) {
+        channelBuilder.defaultLoadBalancingPolicy(policy);
+        return this;
+    }
+
+    /**
+     * Add interceptors to all calls of channel
+     * @param interceptors
+     * @return RpcChannelBuilder
+     */
+    public RpcChannelBuilder intercept(ClientInterceptor... interceptors) {
+        channelBuilder.intercept(interceptors);
+        return this;
+    }
+
+    /**
+     * Send keepalive pings to hold the connection open, even when there is no running call.
+     * @param keepAliveSeconds ping interval in seconds
+     * @return RpcChannelBuilder
+     */
+    public RpcChannelBuilder keepAlive(int keepAliveSeconds) {
+        channelBuilder.keepAliveTime(keepAliveSeconds, TimeUnit.SECONDS)
+                .keepAliveWithoutCalls(true);
+        return this;
+    }
+
+    /**
+     * Release the connection after channel has no calls for a while. It reconnects on the next call.
+     * @param idleTimeoutSeconds idle time in seconds
+     * @return RpcChannelBuilder
+     */
+    public RpcChannelBuilder idleTimeout(int idleTimeoutSeconds) {
+        channelBuilder.idleTimeout(idleTimeoutSeconds, TimeUnit.SECONDS);
+        return this;
+    }
+
     /**
      * Return a instance of ManagedChannel
      * @return ManagedChannel
@@ -0,0 +1,403 @@
+package com.dappley.java.core.net;
+
+import com.dappley.java.core.po.ServerNode;
+import com.dappley.java.core.po.ServerNodeStatus;
+import com.dappley.java.core.protobuf.RpcProto;
+import com.dappley.java.core.protobuf.RpcServiceGrpc;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.ManagedChannel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of long-lived rpc channels shared by all requests of a provider.
+ * <p>Each server node has its own channels, which are connected lazily on first use and reused until {@link #close()} is called.
+ * Each channel keeps its connection alive with keepalive pings and releases it after an idle period.
+ * A released channel reconnects automatically on the next request.</p>
+ * <p>A node is chosen for each request by {@link LoadBalanceStrategy}. With several nodes, each node is probed with
+ * RpcGetVersion periodically while it has a connected channel used by requests within the idle timeout, so probes
+ * neither open channels nor keep unused ones connected.
+ * A node is ejected for a while if its circuit breaker is open, or if its latency is much higher than the best node.</p>
+ * <p>gRPC multiplexes concurrent calls over one HTTP/2 connection, so a single channel per node is enough for most cases.
+ * A bigger pool spreads heavy traffic over several connections.</p>
+ */
+@Slf4j
+public class RpcChannelPool {
+    private static final int DEFAULT_POOL_SIZE = 1;
+    private static final int DEFAULT_KEEP_ALIVE_SECONDS = 60;
+    private static final int DEFAULT_IDLE_TIMEOUT_SECONDS = 300;
+    private static final long DEFAULT_HEALTH_CHECK_MILLIS = 10_000;
+    private static final long DEFAULT_PROBE_TIMEOUT_MILLIS = 3_000;
+    private static final long DEFAULT_EJECT_MILLIS = 30_000;
+    private static final double DEFAULT_SLOW_NODE_FACTOR = 3;
+    private static final long DEFAULT_SLOW_NODE_MIN_MILLIS = 50;
+    private static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    private static final Random RANDOM = new Random();
+
+    private ServerNode[] serverNodes;
+    private int poolSize = DEFAULT_POOL_SIZE;
+    private int keepAliveSeconds = DEFAULT_KEEP_ALIVE_SECONDS;
+    private int idleTimeoutSeconds = DEFAULT_IDLE_TIMEOUT_SECONDS;
+    private volatile LoadBalanceStrategy strategy = LoadBalanceStrategy.PICK_FIRST;
+    private long healthCheckMillis = DEFAULT_HEALTH_CHECK_MILLIS;
+    private long probeTimeoutMillis = DEFAULT_PROBE_TIMEOUT_MILLIS;
+    private long ejectMillis = DEFAULT_EJECT_MILLIS;
+    private double slowNodeFactor = DEFAULT_SLOW_NODE_FACTOR;
+    private long slowNodeMinMillis = DEFAULT_SLOW_NODE_MIN_MILLIS;
+    private int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+    private RpcMetricsRegistry metricsRegistry;
+    private volatile NodeChannel[] nodes;
+    private ScheduledExecutorService healthChecker;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile boolean closed;
+
+    public RpcChannelPool(ServerNode[] serverNodes) {
+        this.serverNodes = serverNodes;
+    }
+
+    /**
+     * Set the number of channels of each node. Takes effect before the first request.
+     * @param poolSize channel count
+     */
+    public void setPoolSize(int poolSize) {
+        if (poolSize <= 0) {
+            return;
+        }
+        this.poolSize = poolSize;
+    }
+
+    /**
+     * Set the interval of keepalive pings. Takes effect on channels created afterwards.
+     * @param keepAliveSeconds value in seconds
+     */
+    public void setKeepAliveSeconds(int keepAliveSeconds) {
+        if (keepAliveSeconds <= 0) {
+            return;
+        }
+        this.keepAliveSeconds = keepAliveSeconds;
+    }
+
+    /**
+     * Set the idle time after which a channel releases its connection. Takes effect on channels created afterwards.
+     * @param idleTimeoutSeconds value in seconds
+     */
+    public void setIdleTimeoutSeconds(int idleTimeoutSeconds) {
+        if (idleTimeoutSeconds <= 0) {
+            return;
+        }
+        this.idleTimeoutSeconds = idleTimeoutSeconds;
+    }
+
+    /**
+     * Set the strategy choosing node for each request. Default value is PICK_FIRST.
+     * @param strategy LoadBalanceStrategy
+     */
+    public void setLoadBalanceStrategy(LoadBalanceStrategy strategy) {
+        if (strategy == null) {
+            return;
+        }
+        this.strategy = strategy;
+    }
+
+    /**
+     * Set the interval of node health probing. Takes effect before the first request.
+     * @param healthCheckMillis value in milliseconds, 0 disables probing
+     */
+    public void setHealthCheckMillis(long healthCheckMillis) {
+        if (healthCheckMillis < 0) {
+            return;
+        }
+        this.healthCheckMillis = healthCheckMillis;
+    }
+
+    /**
+     * Set the timeout of each health probe.
+     * @param probeTimeoutMillis value in milliseconds
+     */
+    public void setProbeTimeoutMillis(long probeTimeoutMillis) {
+        if (probeTimeoutMillis <= 0) {
+            return;
+        }
+        this.probeTimeoutMillis = probeTimeoutMillis;
+    }
+
+    /**
+     * Set how long an unhealthy node is ejected. Takes effect before the first request.
+     * @param ejectMillis value in milliseconds
+     */
+    public void setEjectMillis(long ejectMillis) {
+        if (ejectMillis <= 0) {
+            return;
+        }
+        this.ejectMillis = ejectMillis;
+    }
+
+    /**
+     * Set the number of failures in a row which open the circuit of a node. Takes effect before the first request.
+     * <p>An unavailable node opens its circuit at once. The circuit stays open for ejectMillis.</p>
+     * @param failureThreshold failure count
+     * @see #setEjectMillis(long)
+     */
+    public void setFailureThreshold(int failureThreshold) {
+        if (failureThreshold <= 0) {
+            return;
+        }
+        this.failureThreshold = failureThreshold;
+    }
+
+    /**
+     * Set when a node is treated as slow and ejected.
+     * @param slowNodeFactor    the node's average latency is higher than the best node's by this factor
+     * @param slowNodeMinMillis and the node's average latency is higher than this value in milliseconds
+     */
+    public void setSlowNodeThreshold(double slowNodeFactor, long slowNodeMinMillis) {
+        if (slowNodeFactor <= 1 || slowNodeMinMillis < 0) {
+            return;
+        }
+        this.slowNodeFactor = slowNodeFactor;
+        this.slowNodeMinMillis = slowNodeMinMillis;
+    }
+
+    /**
+     * Set the registry receiving metrics of every call, including health probes. Takes effect before the first request.
+     * @param metricsRegistry RpcMetricsRegistry, null disables metrics
+     * @see InMemoryRpcMetricsRegistry
+     */
+    public void setMetricsRegistry(RpcMetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    /**
+     * Returns a channel of the node chosen by load balance strategy.
+     * @return ManagedChannel
+     */
+    public ManagedChannel getChannel() {
+        return selectNode(null).getChannel();
+    }
+
+    /**
+     * Choose a node by load balance strategy.
+     * @param exclude node which should not be chosen, null if any node can be chosen
+     * @return NodeChannel chosen node, null if there is no other node than the excluded one
+     */
+    NodeChannel selectNode(NodeChannel exclude) {
+        if (closed) {
+            throw new IllegalStateException("channel pool has been closed.");
+        }
+        NodeChannel[] nodes = getNodes();
+        if (exclude == null && nodes.length == 1) {
+            return nodes[0];
+        }
+        return select(nodes, exclude);
+    }
+
+    /**
+     * Returns runtime status of each node.
+     * @return List<ServerNodeStatus>
+     */
+    public List<ServerNodeStatus> getNodeStatus() {
+        NodeChannel[] nodes = getNodes();
+        long now = System.currentTimeMillis();
+        List<ServerNodeStatus> statusList = new ArrayList<>(nodes.length);
+        for (NodeChannel node : nodes) {
+            statusList.add(node.getStatus(now));
+        }
+        return statusList;
+    }
+
+    /**
+     * Returns if the pool has been closed.
+     * @return boolean true/false
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Shutdown all channels and wait for their termination.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        if (nodes == null) {
+            return;
+        }
+        for (NodeChannel node : nodes) {
+            node.close();
+        }
+        log.debug("channel pool closed");
+    }
+
+    private NodeChannel[] getNodes() {
+        NodeChannel[] nodes = this.nodes;
+        if (nodes == null) {
+            synchronized (this) {
+                nodes = this.nodes;
+                if (nodes == null) {
+                    nodes = new NodeChannel[serverNodes.length];
+                    for (int i = 0; i < serverNodes.length; i++) {
+                        nodes[i] = new NodeChannel(serverNodes[i], poolSize, keepAliveSeconds, idleTimeoutSeconds, ejectMillis, failureThreshold, metricsRegistry);
+                    }
+                    this.nodes = nodes;
+                    startHealthCheck();
+                }
+            }
+        }
+        return nodes;
+    }
+
+    private NodeChannel select(NodeChannel[] nodes, NodeChannel exclude) {
+        long now = System.currentTimeMillis();
+        List<NodeChannel> candidates = new ArrayList<>(nodes.length);
+        for (NodeChannel node : nodes) {
+            if (node != exclude && node.isAvailable(now)) {
+                candidates.add(node);
+            }
+        }
+        // the trial of a half open node may be taken by another request meanwhile, then another node is chosen
+        while (!candidates.isEmpty()) {
+            NodeChannel node = choose(candidates, exclude);
+            if (node.tryAcquire(now)) {
+                return node;
+            }
+            candidates.remove(node);
+        }
+        // all nodes are ejected, try all of them
+        for (NodeChannel node : nodes) {
+            if (node != exclude) {
+                candidates.add(node);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        return choose(candidates, exclude);
+    }
+
+    private NodeChannel choose(List<NodeChannel> candidates, NodeChannel exclude) {
+        int size = candidates.size();
+        // choosing another node for the same request doesn't take a turn of rotation
+        int turn = exclude == null ? next.getAndIncrement() : next.get();
+        switch (strategy) {
+            case ROUND_ROBIN:
+                return candidates.get((turn & Integer.MAX_VALUE) % size);
+            case LEAST_OUTSTANDING:
+                // start from different position to spread ties
+                int start = (turn & Integer.MAX_VALUE) % size;
+                NodeChannel least = null;
+                for (int i = 0; i < size; i++) {
+                    NodeChannel node = candidates.get((start + i) % size);
+                    if (least == null || node.getOutstanding() < least.getOutstanding()) {
+                        least = node;
+                    }
+                }
+                return least;
+            case EWMA_LATENCY:
+                if (size == 1) {
+                    return candidates.get(0);
+                }
+                // power of two choices
+                int first = RANDOM.nextInt(size);
+                int second = RANDOM.nextInt(size - 1);
+                if (second >= first) {
+                    second++;
+                }
+                NodeChannel a = candidates.get(first);
+                NodeChannel b = candidates.get(second);
+                return cost(a) <= cost(b) ? a : b;
+            case PICK_FIRST:
+            default:
+                return candidates.get(0);
+        }
+    }
+
+    /**
+     * Cost of sending a request to node. Nodes without latency sample have no cost so that they are tried soon.
+     * @param node
+     * @return double cost value
+     */
+    private static double cost(NodeChannel node) {
+        double latency = Math.max(node.getEwmaLatencyMillis(), 0);
+        return latency * (node.getOutstanding() + 1);
+    }
+
+    private void startHealthCheck() {
+        if (serverNodes.length <= 1 || healthCheckMillis == 0) {
+            return;
+        }
+        healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rpc-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, healthCheckMillis, healthCheckMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Eject slow nodes by latency of finished requests, then probe nodes in use.
+     */
+    private void checkHealth() {
+        NodeChannel[] nodes = this.nodes;
+        if (closed || nodes == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        double best = -1;
+        for (NodeChannel node : nodes) {
+            double latency = node.getEwmaLatencyMillis();
+            if (latency >= 0 && node.isAvailable(now) && (best < 0 || latency < best)) {
+                best = latency;
+            }
+        }
+        if (best >= 0) {
+            for (NodeChannel node : nodes) {
+                double latency = node.getEwmaLatencyMillis();
+                if (latency > best * slowNodeFactor && latency > slowNodeMinMillis) {
+                    node.eject(now, false);
+                }
+            }
+        }
+        RpcProto.GetVersionRequest request = RpcProto.GetVersionRequest.newBuilder().build();
+        for (NodeChannel node : nodes) {
+            ManagedChannel channel = node.getProbeChannel(now);
+            if (channel == null) {
+                continue;
+            }
+            try {
+                Futures.addCallback(RpcServiceGrpc.newFutureStub(channel)
+                                .withDeadlineAfter(probeTimeoutMillis, TimeUnit.MILLISECONDS)
+                                .rpcGetVersion(request),
+                        new FutureCallback<RpcProto.GetVersionResponse>() {
+                            @Override
+                            public void onSuccess(RpcProto.GetVersionResponse result) {
+                                node.onProbeSuccess();
+                            }
+
+                            @Override
+                            public void onFailure(Throwable t) {
+                                if (!(t instanceof CancellationException) && !closed) {
+                                    node.eject(System.currentTimeMillis(), true);
+                                }
+                            }
+                        }, MoreExecutors.directExecutor());
+            } catch (RuntimeException e) {
+                log.error("health probe error", e);
+            }
+        }
+    }
+}
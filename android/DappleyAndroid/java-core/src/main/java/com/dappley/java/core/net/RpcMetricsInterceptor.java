@@ -0,0 +1,75 @@
+package com.dappley.java.core.net;
+
+import com.dappley.java.core.po.ServerNode;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ClientStreamTracer;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client interceptor measuring each call of a server node, and reporting it to a {@link RpcMetricsRegistry}.
+ * <p>Latency is measured from call start to close. Message sizes are bytes on the wire, reported by the transport
+ * through a stream tracer when messages are framed and deframed, so messages are never measured again.</p>
+ * <p>It's installed on pooled channels by {@link RpcChannelPool#setMetricsRegistry(RpcMetricsRegistry)}.</p>
+ */
+public class RpcMetricsInterceptor implements ClientInterceptor {
+    private final ServerNode serverNode;
+    private final RpcMetricsRegistry registry;
+
+    /**
+     * @param serverNode node which the intercepted channel is connected to
+     * @param registry   receives metrics of finished calls
+     */
+    public RpcMetricsInterceptor(ServerNode serverNode, RpcMetricsRegistry registry) {
+        this.serverNode = serverNode;
+        this.registry = registry;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+        AtomicLong requestBytes = new AtomicLong();
+        AtomicLong responseBytes = new AtomicLong();
+        ClientStreamTracer.Factory tracerFactory = new ClientStreamTracer.Factory() {
+            @Override
+            public ClientStreamTracer newClientStreamTracer(ClientStreamTracer.StreamInfo info, Metadata headers) {
+                return new ClientStreamTracer() {
+                    @Override
+                    public void outboundWireSize(long bytes) {
+                        requestBytes.addAndGet(bytes);
+                    }
+
+                    @Override
+                    public void inboundWireSize(long bytes) {
+                        responseBytes.addAndGet(bytes);
+                    }
+                };
+            }
+        };
+        ClientCall<ReqT, RespT> call = next.newCall(method, callOptions.withStreamTracerFactory(tracerFactory));
+        return new ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT>(call) {
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                long start = System.nanoTime();
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT>(responseListener) {
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        try {
+                            registry.recordCall(serverNode, method.getFullMethodName(), status.getCode(), System.nanoTime() - start,
+                                    requestBytes.get(), responseBytes.get());
+                        } finally {
+                            super.onClose(status, trailers);
+                        }
+                    }
+                }, headers);
+            }
+        };
+    }
+}
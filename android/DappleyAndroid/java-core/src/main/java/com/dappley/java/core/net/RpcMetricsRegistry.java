@@ -0,0 +1,23 @@
+package com.dappley.java.core.net;
+
+import com.dappley.java.core.po.ServerNode;
+import io.grpc.Status;
+
+/**
+ * Receives statistics of finished rpc calls from {@link RpcMetricsInterceptor}.
+ * <p>Implementations may aggregate them in memory like {@link InMemoryRpcMetricsRegistry},
+ * or forward them to a monitoring system.</p>
+ * <p>Methods are called on gRPC threads when each call closes, so they should be thread-safe and return quickly.</p>
+ */
+public interface RpcMetricsRegistry {
+    /**
+     * Record a finished call.
+     * @param serverNode    node which served the call
+     * @param method        full gRPC method name, such as "rpcpb.RpcService/RpcGetVersion"
+     * @param code          status code of the call, OK if succeeded
+     * @param latencyNanos  time from call start to close in nanoseconds
+     * @param requestBytes  wire size of all request messages
+     * @param responseBytes wire size of all response messages
+     */
+    void recordCall(ServerNode serverNode, String method, Status.Code code, long latencyNanos, long requestBytes, long responseBytes);
+}
@@ -5,11 +5,21 @@ import com.dappley.java.core.po.ContractQueryResult;
 import com.dappley.java.core.po.SendTxResult;
 import com.dappley.java.core.po.ServerNode;
 import com.dappley.java.core.protobuf.*;
+import com.dappley.java.core.util.Asserts;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.protobuf.Any;
 import com.google.protobuf.ByteString;
-import io.grpc.ManagedChannel;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.grpc.Channel;
+import io.grpc.Status;
+import io.grpc.protobuf.StatusProto;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -21,11 +31,13 @@ public class RpcProtocalProvider implements ProtocalProvider {
      * timeout seconds of each RPC request
      */
     private int timeout = 15;
-    private ServerNode[] serverNodes;
+    private RpcChannelPool channelPool;
+    private HedgingPolicy hedgingPolicy;
+    private RetryPolicy retryPolicy;
 
     @Override
     public void init(ServerNode[] serverNodes) {
-        this.serverNodes = serverNodes;
+        this.channelPool = new RpcChannelPool(serverNodes);
     }
 
     /**
@@ -40,44 +52,88 @@ public class RpcProtocalProvider implements ProtocalProvider {
     }
 
     /**
-     * Initialize rpc channel
+     * Set policy of hedged read requests. Reads are not hedged by default.
+     * @param hedgingPolicy HedgingPolicy, null disables hedging
      */
-    private ManagedChannel openChannel() {
-        RpcChannelBuilder channelBuilder = new RpcChannelBuilder().newChannel(serverNodes);
-        ManagedChannel channel = channelBuilder.build();
-        return channel;
+    public void setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy;
     }
 
     /**
-     * Close rpc connection
-     * @param channel
+     * Set policy of retrying failed reads. Requests are not retried by default.
+     * @param retryPolicy RetryPolicy, null disables retrying
      */
-    private void shutdownChannel(ManagedChannel channel) {
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Returns the channel pool shared by all requests of this provider.
+     * <p>Pool options should be set before the first request.</p>
+     * @return RpcChannelPool
+     */
+    public RpcChannelPool getChannelPool() {
+        Asserts.providerInit(channelPool);
+        return channelPool;
+    }
+
+    @Override
+    public void close() {
+        if (channelPool != null) {
+            channelPool.close();
+        }
+    }
+
+    /**
+     * Returns new blocking stub with timeout value on a pooled channel
+     * @return RpcServiceGrpc.RpcServiceBlockingStub
+     */
+    private RpcServiceGrpc.RpcServiceBlockingStub getBlockingStub() {
+        Asserts.providerInit(channelPool);
+        return RpcServiceGrpc.newBlockingStub(channelPool.getChannel()).withDeadlineAfter(this.timeout, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Send an idempotent read request, hedged if there is a hedging policy.
+     * @param call sends request on the given stub
+     * @return R response
+     */
+    private <R> R hedgedCall(StubCall<R> call) {
+        Asserts.providerInit(channelPool);
+        ListenableFuture<R> future = HedgedCall.start(channelPool, hedgingPolicy, (Channel channel) ->
+                call.send(RpcServiceGrpc.newFutureStub(channel).withDeadlineAfter(this.timeout, TimeUnit.SECONDS)));
         try {
-            if (channel != null) {
-                channel.shutdown().awaitTermination(this.timeout, TimeUnit.SECONDS);
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
             }
+            throw Status.fromThrowable(e.getCause()).asRuntimeException();
         } catch (InterruptedException e) {
-            e.printStackTrace();
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw Status.CANCELLED.withCause(e).asRuntimeException();
         }
     }
 
     /**
-     * Returns new blocking stub with timeout value
-     * @param channel
-     * @return
+     * Send an idempotent read request, retried if there is a retry policy.
+     * @param call sends request and returns response
+     * @return R response
      */
-    private RpcServiceGrpc.RpcServiceBlockingStub getBlockingStub(ManagedChannel channel) {
-        return RpcServiceGrpc.newBlockingStub(channel).withDeadlineAfter(this.timeout, TimeUnit.SECONDS);
+    private <R> R read(RetryPolicy.Request<R> call) {
+        RetryPolicy retryPolicy = this.retryPolicy;
+        if (retryPolicy == null) {
+            return call.send();
+        }
+        return retryPolicy.call(call);
     }
 
     @Override
     public String getVersion() {
-        ManagedChannel channel = openChannel();
         RpcProto.GetVersionRequest request = RpcProto.GetVersionRequest.newBuilder()
                 .build();
-        RpcProto.GetVersionResponse response = getBlockingStub(channel).rpcGetVersion(request);
-        shutdownChannel(channel);
+        RpcProto.GetVersionResponse response = read(() -> getBlockingStub().rpcGetVersion(request));
 
         String message = "[protocal version:" + response.getProtoVersion() + "] [server version: " + response.getServerVersion() + "]";
         log.debug("getVersion: " + message);
@@ -86,12 +142,10 @@ public class RpcProtocalProvider implements ProtocalProvider {
 
     @Override
     public long getBalance(String address) {
-        ManagedChannel channel = openChannel();
         RpcProto.GetBalanceRequest request = RpcProto.GetBalanceRequest.newBuilder()
                 .setAddress(address)
                 .build();
-        RpcProto.GetBalanceResponse response = getBlockingStub(channel).rpcGetBalance(request);
-        shutdownChannel(channel);
+        RpcProto.GetBalanceResponse response = read(() -> getBlockingStub().rpcGetBalance(request));
 
         log.debug("getBalance: " + response.getAmount());
         return response.getAmount();
@@ -99,28 +153,24 @@ public class RpcProtocalProvider implements ProtocalProvider {
 
     @Override
     public BlockChainInfo getBlockchainInfo() {
-        ManagedChannel channel = openChannel();
         RpcProto.GetBlockchainInfoRequest request = RpcProto.GetBlockchainInfoRequest.newBuilder()
                 .build();
-        RpcProto.GetBlockchainInfoResponse response = getBlockingStub(channel).rpcGetBlockchainInfo(request);
-        shutdownChannel(channel);
+        RpcProto.GetBlockchainInfoResponse response = read(() -> hedgingPolicy == null
+                ? getBlockingStub().rpcGetBlockchainInfo(request)
+                : hedgedCall(stub -> stub.rpcGetBlockchainInfo(request)));
 
-        BlockChainInfo blockChainInfo = new BlockChainInfo();
-        blockChainInfo.setTailBlockHash(response.getTailBlockHash());
-        blockChainInfo.setBlockHeight(response.getBlockHeight());
-        blockChainInfo.setProducers(response.getProducersList());
         log.debug("getBlockchainInfo: " + response.toString());
-        return blockChainInfo;
+        return toBlockChainInfo(response);
     }
 
     @Override
     public List<UtxoProto.Utxo> getUtxo(String address) {
-        ManagedChannel channel = openChannel();
         RpcProto.GetUTXORequest request = RpcProto.GetUTXORequest.newBuilder()
                 .setAddress(address)
                 .build();
-        RpcProto.GetUTXOResponse response = getBlockingStub(channel).rpcGetUTXO(request);
-        shutdownChannel(channel);
+        RpcProto.GetUTXOResponse response = read(() -> hedgingPolicy == null
+                ? getBlockingStub().rpcGetUTXO(request)
+                : hedgedCall(stub -> stub.rpcGetUTXO(request)));
 
         List<UtxoProto.Utxo> utxos = response.getUtxosList();
         return utxos;
@@ -128,13 +178,11 @@ public class RpcProtocalProvider implements ProtocalProvider {
 
     @Override
     public List<BlockProto.Block> getBlocks(List<ByteString> startHashs, int count) {
-        ManagedChannel channel = openChannel();
         RpcProto.GetBlocksRequest request = RpcProto.GetBlocksRequest.newBuilder()
                 .addAllStartBlockHashes(startHashs)
                 .setMaxCount(count)
                 .build();
-        RpcProto.GetBlocksResponse response = getBlockingStub(channel).rpcGetBlocks(request);
-        shutdownChannel(channel);
+        RpcProto.GetBlocksResponse response = read(() -> getBlockingStub().rpcGetBlocks(request));
 
         log.debug("getBlocks blockCount" + response.getBlocksCount());
         return response.getBlocksList();
@@ -142,12 +190,12 @@ public class RpcProtocalProvider implements ProtocalProvider {
 
     @Override
     public BlockProto.Block getBlockByHash(ByteString byteHash) {
-        ManagedChannel channel = openChannel();
         RpcProto.GetBlockByHashRequest request = RpcProto.GetBlockByHashRequest.newBuilder()
                 .setHash(byteHash)
                 .build();
-        RpcProto.GetBlockByHashResponse response = getBlockingStub(channel).rpcGetBlockByHash(request);
-        shutdownChannel(channel);
+        RpcProto.GetBlockByHashResponse response = read(() -> hedgingPolicy == null
+                ? getBlockingStub().rpcGetBlockByHash(request)
+                : hedgedCall(stub -> stub.rpcGetBlockByHash(request)));
 
         BlockProto.Block block = response.getBlock();
         return block;
@@ -155,12 +203,10 @@ public class RpcProtocalProvider implements ProtocalProvider {
 
     @Override
     public BlockProto.Block getBlockByHeight(long height) {
-        ManagedChannel channel = openChannel();
         RpcProto.GetBlockByHeightRequest request = RpcProto.GetBlockByHeightRequest.newBuilder()
                 .setHeight(height)
                 .build();
-        RpcProto.GetBlockByHeightResponse response = getBlockingStub(channel).rpcGetBlockByHeight(request);
-        shutdownChannel(channel);
+        RpcProto.GetBlockByHeightResponse response = read(() -> getBlockingStub().rpcGetBlockByHeight(request));
 
         BlockProto.Block block = response.getBlock();
         return block;
@@ -168,14 +214,12 @@ public class RpcProtocalProvider implements ProtocalProvider {
 
     @Override
     public SendTxResult sendTransaction(TransactionProto.Transaction transaction) {
-        ManagedChannel channel = openChannel();
         RpcProto.SendTransactionRequest request = RpcProto.SendTransactionRequest.newBuilder()
                 .setTransaction(transaction)
                 .build();
         SendTxResult sendTxResult = new SendTxResult();
         try {
-            RpcProto.SendTransactionResponse response = getBlockingStub(channel).rpcSendTransaction(request);
-            shutdownChannel(channel);
+            RpcProto.SendTransactionResponse response = getBlockingStub().rpcSendTransaction(request);
 
             sendTxResult.setCode(SendTxResult.CODE_SUCCESS);
             sendTxResult.setGeneratedContractAddress(response.getGeneratedContractAddress());
@@ -187,14 +231,27 @@ public class RpcProtocalProvider implements ProtocalProvider {
         return sendTxResult;
     }
 
+    @Override
+    public List<SendTxResult> sendBatchTransaction(List<TransactionProto.Transaction> transactions) {
+        RpcProto.SendBatchTransactionRequest request = RpcProto.SendBatchTransactionRequest.newBuilder()
+                .addAllTransactions(transactions)
+                .build();
+        try {
+            getBlockingStub().rpcSendBatchTransaction(request);
+
+            return toBatchResults(transactions, null);
+        } catch (Exception e) {
+            log.error(e.getMessage());
+            return toBatchResults(transactions, e);
+        }
+    }
+
     @Override
     public ByteString estimateGas(TransactionProto.Transaction transaction) {
-        ManagedChannel channel = openChannel();
         RpcProto.EstimateGasRequest request = RpcProto.EstimateGasRequest.newBuilder()
                 .setTransaction(transaction)
                 .build();
-        RpcProto.EstimateGasResponse response = getBlockingStub(channel).rpcEstimateGas(request);
-        shutdownChannel(channel);
+        RpcProto.EstimateGasResponse response = read(() -> getBlockingStub().rpcEstimateGas(request));
 
         ByteString gasCount = response.getGasCount();
         return gasCount;
@@ -202,18 +259,81 @@ public class RpcProtocalProvider implements ProtocalProvider {
 
     @Override
     public ByteString getGasPrice() {
-        ManagedChannel channel = openChannel();
         RpcProto.GasPriceRequest request = RpcProto.GasPriceRequest.newBuilder()
                 .build();
-        RpcProto.GasPriceResponse response = getBlockingStub(channel).rpcGasPrice(request);
-        shutdownChannel(channel);
+        RpcProto.GasPriceResponse response = read(() -> getBlockingStub().rpcGasPrice(request));
         ByteString gasPrice = response.getGasPrice();
         return gasPrice;
     }
 
     @Override
     public ContractQueryResult contractQuery(String contractAddress, String key, String value) {
-        ManagedChannel channel = openChannel();
+        RpcProto.ContractQueryRequest request = toContractQueryRequest(contractAddress, key, value);
+        RpcProto.ContractQueryResponse response = read(() -> getBlockingStub().rpcContractQuery(request));
+
+        return toContractQueryResult(response);
+    }
+
+    /**
+     * Map result of batch request to each transaction.
+     * <p>Node returns an error status for the batch if any transaction is invalid,
+     * with a SendTransactionStatus detail for each transaction.
+     * If there is no status of a transaction, the whole request is treated as failed for it.</p>
+     * @param transactions sent transactions
+     * @param error        error of batch request, null if succeed
+     * @return List<SendTxResult> result of each transaction
+     */
+    static List<SendTxResult> toBatchResults(List<TransactionProto.Transaction> transactions, Throwable error) {
+        List<SendTxResult> results = new ArrayList<>(transactions.size());
+        if (error == null) {
+            for (int i = 0; i < transactions.size(); i++) {
+                SendTxResult sendTxResult = new SendTxResult();
+                sendTxResult.setCode(SendTxResult.CODE_SUCCESS);
+                results.add(sendTxResult);
+            }
+            return results;
+        }
+        Map<ByteString, RpcProto.SendTransactionStatus> statusMap = new HashMap<>();
+        com.google.rpc.Status status = StatusProto.fromThrowable(error);
+        if (status != null) {
+            for (Any detail : status.getDetailsList()) {
+                if (!detail.is(RpcProto.SendTransactionStatus.class)) {
+                    continue;
+                }
+                try {
+                    RpcProto.SendTransactionStatus txStatus = detail.unpack(RpcProto.SendTransactionStatus.class);
+                    statusMap.put(txStatus.getTxid(), txStatus);
+                } catch (InvalidProtocolBufferException e) {
+                    log.error("invalid transaction status", e);
+                }
+            }
+        }
+        for (TransactionProto.Transaction transaction : transactions) {
+            SendTxResult sendTxResult = new SendTxResult();
+            RpcProto.SendTransactionStatus txStatus = statusMap.get(transaction.getId());
+            if (txStatus == null) {
+                sendTxResult.setCode(SendTxResult.CODE_ERROR_EXCEPTION);
+                sendTxResult.setMsg(error.getMessage());
+            } else if (txStatus.getCode() == Status.Code.OK.value()) {
+                sendTxResult.setCode(SendTxResult.CODE_SUCCESS);
+            } else {
+                sendTxResult.setCode(SendTxResult.CODE_ERROR_REJECTED);
+                sendTxResult.setMsg(Status.fromCodeValue(txStatus.getCode()).getCode() + ": " + txStatus.getMessage());
+            }
+            results.add(sendTxResult);
+        }
+        return results;
+    }
+
+    static BlockChainInfo toBlockChainInfo(RpcProto.GetBlockchainInfoResponse response) {
+        BlockChainInfo blockChainInfo = new BlockChainInfo();
+        blockChainInfo.setTailBlockHash(response.getTailBlockHash());
+        blockChainInfo.setBlockHeight(response.getBlockHeight());
+        blockChainInfo.setProducers(response.getProducersList());
+        return blockChainInfo;
+    }
+
+    static RpcProto.ContractQueryRequest toContractQueryRequest(String contractAddress, String key, String value) {
         RpcProto.ContractQueryRequest.Builder builder = RpcProto.ContractQueryRequest.newBuilder();
         builder.setContractAddr(contractAddress);
         if (key != null) {
@@ -222,13 +342,21 @@ public class RpcProtocalProvider implements ProtocalProvider {
         if (value != null) {
             builder.setValue(value);
         }
-        RpcProto.ContractQueryRequest request = builder.build();
-        RpcProto.ContractQueryResponse response = getBlockingStub(channel).rpcContractQuery(request);
-        shutdownChannel(channel);
+        return builder.build();
+    }
 
+    static ContractQueryResult toContractQueryResult(RpcProto.ContractQueryResponse response) {
         ContractQueryResult result = new ContractQueryResult();
         result.setResultKey(response.getKey());
         result.setResultValue(response.getValue());
         return result;
     }
+
+    /**
+     * Sends a request on the given stub.
+     * @param <R> response type
+     */
+    private interface StubCall<R> {
+        ListenableFuture<R> send(RpcServiceGrpc.RpcServiceFutureStub stub);
+    }
 }
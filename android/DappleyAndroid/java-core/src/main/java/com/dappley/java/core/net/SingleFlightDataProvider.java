@@ -0,0 +1,169 @@
+package com.dappley.java.core.net;
+
+import com.dappley.java.core.po.BatchQueryResult;
+import com.dappley.java.core.po.Block;
+import com.dappley.java.core.po.BlockChainInfo;
+import com.dappley.java.core.po.ContractQueryResult;
+import com.dappley.java.core.po.Transaction;
+import com.dappley.java.core.po.Utxo;
+import com.dappley.java.core.util.SingleFlight;
+import com.google.protobuf.ByteString;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A DataProvider which shares one running request among concurrent callers of the same read.
+ * <p>For example, if several threads read utxos of the same address at the same time,
+ * only one rpcGetUTXO is sent and all of them get its result.</p>
+ * <p>Batch reads of utxos and balances are split by address, so each address shares a running read
+ * of the same address, either from a batch or a single read. Addresses without a running read are read
+ * one by one from the underlying batch methods, at most {@code batchParallelism} of them at the same time.</p>
+ * <p>Each caller gets its own copy of returned lists, elements inside are shared.
+ * Null keys are not shared.</p>
+ */
+public class SingleFlightDataProvider implements DataProvider {
+    private static final int DEFAULT_BATCH_PARALLELISM = 8;
+
+    private DataProvider dataProvider;
+    private int batchParallelism = DEFAULT_BATCH_PARALLELISM;
+    private final SingleFlight<String, List<Utxo>> utxoFlight = new SingleFlight<>();
+    private final SingleFlight<String, BigInteger> balanceFlight = new SingleFlight<>();
+    private final SingleFlight<String, Block> blockFlight = new SingleFlight<>();
+    private final SingleFlight<List<Object>, List<Block>> blocksFlight = new SingleFlight<>();
+    private final SingleFlight<String, BlockChainInfo> blockChainInfoFlight = new SingleFlight<>();
+    private final SingleFlight<ByteString, BigInteger> estimateGasFlight = new SingleFlight<>();
+    private final SingleFlight<String, BigInteger> gasPriceFlight = new SingleFlight<>();
+    private final SingleFlight<List<String>, ContractQueryResult> contractQueryFlight = new SingleFlight<>();
+
+    public SingleFlightDataProvider(DataProvider dataProvider) {
+        this.dataProvider = dataProvider;
+    }
+
+    /**
+     * Set the max number of addresses read at the same time by one batch query.
+     * Reads of all batch queries share 16 threads, so at most 16 of them run at the same time. Default value is 8.
+     * @param batchParallelism read count
+     */
+    public void setBatchParallelism(int batchParallelism) {
+        if (batchParallelism <= 0) {
+            return;
+        }
+        this.batchParallelism = batchParallelism;
+    }
+
+    /**
+     * Returns the number of requests sent to the underlying provider.
+     * @return long request count
+     */
+    public long getLoadCount() {
+        return utxoFlight.getLoadCount() + balanceFlight.getLoadCount() + blockFlight.getLoadCount() + blocksFlight.getLoadCount()
+                + blockChainInfoFlight.getLoadCount() + estimateGasFlight.getLoadCount() + gasPriceFlight.getLoadCount()
+                + contractQueryFlight.getLoadCount();
+    }
+
+    /**
+     * Returns the number of calls served by another caller's request.
+     * @return long call count
+     */
+    public long getSharedCount() {
+        return utxoFlight.getSharedCount() + balanceFlight.getSharedCount() + blockFlight.getSharedCount() + blocksFlight.getSharedCount()
+                + blockChainInfoFlight.getSharedCount() + estimateGasFlight.getSharedCount() + gasPriceFlight.getSharedCount()
+                + contractQueryFlight.getSharedCount();
+    }
+
+    @Override
+    public List<Utxo> getUtxos(String address) {
+        if (address == null) {
+            return dataProvider.getUtxos(address);
+        }
+        return copy(utxoFlight.execute(address, () -> dataProvider.getUtxos(address)));
+    }
+
+    @Override
+    public Block getBlockByHash(String hash) {
+        if (hash == null) {
+            return dataProvider.getBlockByHash(null);
+        }
+        return blockFlight.execute(hash, () -> dataProvider.getBlockByHash(hash));
+    }
+
+    @Override
+    public List<Block> getBlocks(List<String> startHashs, int count) {
+        if (startHashs == null) {
+            return dataProvider.getBlocks(null, count);
+        }
+        List<Object> key = Arrays.asList(new ArrayList<>(startHashs), count);
+        return copy(blocksFlight.execute(key, () -> dataProvider.getBlocks(startHashs, count)));
+    }
+
+    @Override
+    public BlockChainInfo getBlockchainInfo() {
+        return blockChainInfoFlight.execute("", dataProvider::getBlockchainInfo);
+    }
+
+    @Override
+    public BigInteger getBalance(String address) {
+        if (address == null) {
+            return dataProvider.getBalance(null);
+        }
+        return balanceFlight.execute(address, () -> dataProvider.getBalance(address));
+    }
+
+    @Override
+    public BatchQueryResult<List<Utxo>> getUtxos(Collection<String> addresses) {
+        return BatchQuery.run(addresses, batchParallelism, address -> {
+            if (address == null) {
+                return valueOf(dataProvider.getUtxos(Collections.singletonList(null)), null);
+            }
+            return copy(utxoFlight.execute(address, () -> valueOf(dataProvider.getUtxos(Collections.singletonList(address)), address)));
+        });
+    }
+
+    @Override
+    public BatchQueryResult<BigInteger> getBalances(Collection<String> addresses) {
+        return BatchQuery.run(addresses, batchParallelism, address -> {
+            if (address == null) {
+                return valueOf(dataProvider.getBalances(Collections.singletonList(null)), null);
+            }
+            return balanceFlight.execute(address, () -> valueOf(dataProvider.getBalances(Collections.singletonList(address)), address));
+        });
+    }
+
+    @Override
+    public BigInteger estimateGas(Transaction transaction) {
+        if (transaction == null) {
+            return dataProvider.estimateGas(null);
+        }
+        return estimateGasFlight.execute(transaction.toProto().toByteString(), () -> dataProvider.estimateGas(transaction));
+    }
+
+    @Override
+    public BigInteger getGasPrice() {
+        return gasPriceFlight.execute("", dataProvider::getGasPrice);
+    }
+
+    @Override
+    public ContractQueryResult contractQuery(String contractAddress, String key, String value) {
+        return contractQueryFlight.execute(Arrays.asList(contractAddress, key, value), () -> dataProvider.contractQuery(contractAddress, key, value));
+    }
+
+    /**
+     * Returns the value of an address in a batch result, or throws its error.
+     */
+    private static <T> T valueOf(BatchQueryResult<T> result, String address) {
+        String error = result.getErrors().get(address);
+        if (error != null) {
+            throw new IllegalStateException(error);
+        }
+        return result.getValues().get(address);
+    }
+
+    private static <T> List<T> copy(List<T> list) {
+        return list == null ? null : new ArrayList<>(list);
+    }
+}
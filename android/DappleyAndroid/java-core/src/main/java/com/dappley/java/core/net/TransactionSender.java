@@ -4,6 +4,9 @@ import com.dappley.java.core.po.SendTxResult;
 import com.dappley.java.core.po.Transaction;
 import com.dappley.java.core.protobuf.TransactionProto;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * A sender of transaction. Send transaction datas to a neighbor node.
  */
@@ -24,4 +27,18 @@ public class TransactionSender {
         return protocalProvider.sendTransaction(tx);
     }
 
+    /**
+     * Send several transactions in one request
+     * @param transactions
+     * @return List<SendTxResult> result of each transaction, in the same order of transactions
+     * @see BatchTransactionSender
+     */
+    public List<SendTxResult> sendBatchTransaction(List<Transaction> transactions) {
+        List<TransactionProto.Transaction> txs = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            txs.add(transaction.toProto());
+        }
+        return protocalProvider.sendBatchTransaction(txs);
+    }
+
 }
@@ -0,0 +1,31 @@
+package com.dappley.java.core.po;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Result of a query on several addresses
+ * <p>Each address has either a value or an error, in the order of requested addresses.
+ * Duplicated addresses are queried once.</p>
+ */
+@Data
+public class BatchQueryResult<T> {
+    /**
+     * values of succeeded addresses
+     */
+    private Map<String, T> values = new LinkedHashMap<>();
+    /**
+     * error messages of failed addresses
+     */
+    private Map<String, String> errors = new LinkedHashMap<>();
+
+    /**
+     * Returns if all addresses succeeded.
+     * @return boolean true/false
+     */
+    public boolean isComplete() {
+        return errors.isEmpty();
+    }
+}
@@ -2,9 +2,13 @@ package com.dappley.java.core.po;
 
 import com.dappley.java.core.protobuf.BlockProto;
 import com.dappley.java.core.protobuf.TransactionProto;
-import com.dappley.java.core.util.SerializeUtil;
-import com.google.protobuf.ByteString;
+import com.dappley.java.core.util.RecordCodec;
+import com.google.protobuf.UnsafeByteOperations;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -13,6 +17,8 @@ import java.util.List;
  * Block object.
  * <p>Can be Transformed by BlockProto.Block.</p>
  * <p>Mainly used in java sdk.</p>
+ * <p>Transactions of a block parsed from protobuf are decoded on first access of {@link #getTransactions()},
+ * so reading only the header does not copy transaction data.</p>
  */
 @Data
 public class Block {
@@ -28,6 +34,13 @@ public class Block {
      * Previous Block hash value
      */
     private byte[] parentHash;
+    /**
+     * Undecoded transactions of a parsed block, cleared once transactions are decoded
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient List<TransactionProto.Transaction> transactionProtos;
 
     public Block() {
     }
@@ -46,7 +59,7 @@ public class Block {
      * @return Block object
      */
     public static Block parseBytes(byte[] bytes) {
-        return SerializeUtil.decode(bytes, Block.class);
+        return RecordCodec.decodeBlock(bytes);
     }
 
     /**
@@ -58,13 +71,10 @@ public class Block {
             this.setHeader(new BlockHeader(block.getHeader()));
         }
 
-        List<TransactionProto.Transaction> transactionsList = block.getTransactionsList();
-        if (transactionsList != null) {
-            List<Transaction> transactions = new ArrayList<>(transactionsList.size());
-            for (TransactionProto.Transaction ts : transactionsList) {
-                transactions.add(new Transaction(ts));
-            }
-            this.setTransactions(transactions);
+        // decoded when used
+        synchronized (this) {
+            this.transactions = null;
+            this.transactionProtos = block.getTransactionsList();
         }
 
         this.setParentHash(block.getParentHash() == null ? null : block.getParentHash().toByteArray());
@@ -72,6 +82,7 @@ public class Block {
 
     /**
      * Convert to BlockProto.Block
+     * <p>Byte arrays are wrapped without copying, and undecoded transactions are reused as they are.</p>
      * @return BlockProto.Block
      */
     public BlockProto.Block toProto() {
@@ -81,7 +92,16 @@ public class Block {
         BlockProto.Block.Builder builder = BlockProto.Block.newBuilder();
         builder.setHeader(this.getHeader().toProto());
 
-        List<Transaction> transactions = this.getTransactions();
+        List<TransactionProto.Transaction> transactionProtos;
+        List<Transaction> transactions;
+        synchronized (this) {
+            transactionProtos = this.transactionProtos;
+            transactions = this.transactions;
+        }
+        if (transactionProtos != null) {
+            // not decoded, reuse the parsed protobuf
+            builder.addAllTransactions(transactionProtos);
+        }
         if (transactions != null) {
             TransactionProto.Transaction transactionProto;
             for (Transaction transaction : transactions) {
@@ -93,18 +113,52 @@ public class Block {
             }
         }
         if (this.getParentHash() != null) {
-            builder.setParentHash(ByteString.copyFrom(this.getParentHash()));
+            builder.setParentHash(UnsafeByteOperations.unsafeWrap(this.getParentHash()));
         }
         return builder.build();
     }
 
+    /**
+     * Returns transactions of this block, decoded from protobuf at the first call.
+     * @return List<Transaction>
+     */
+    public synchronized List<Transaction> getTransactions() {
+        if (transactionProtos != null) {
+            List<Transaction> transactions = new ArrayList<>(transactionProtos.size());
+            for (TransactionProto.Transaction ts : transactionProtos) {
+                transactions.add(new Transaction(ts));
+            }
+            this.transactions = transactions;
+            this.transactionProtos = null;
+        }
+        return transactions;
+    }
+
+    public synchronized void setTransactions(List<Transaction> transactions) {
+        this.transactions = transactions;
+        this.transactionProtos = null;
+    }
+
+    /**
+     * Returns the number of transactions without decoding them.
+     * @return int transaction count
+     */
+    public synchronized int getTransactionCount() {
+        if (transactionProtos != null) {
+            return transactionProtos.size();
+        }
+        return transactions == null ? 0 : transactions.size();
+    }
+
     /**
      * Add a transaction info into block object.
      * @param transaction transaction info
      */
     public void addTransaction(Transaction transaction) {
+        List<Transaction> transactions = getTransactions();
         if (transactions == null) {
             transactions = new ArrayList<>();
+            setTransactions(transactions);
         }
         transactions.add(transaction);
     }
@@ -114,7 +168,7 @@ public class Block {
      * @return byte[] array
      */
     public byte[] toByteArray() {
-        return SerializeUtil.encode(this);
+        return RecordCodec.encodeBlock(this);
     }
 
 }
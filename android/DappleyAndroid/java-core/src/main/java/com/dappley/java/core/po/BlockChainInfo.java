@@ -28,8 +28,12 @@ public class BlockChainInfo {
         return SerializeUtil.decode(bytes, BlockChainInfo.class);
     }
 
+    public void setTailBlockHash(String tailBlockHash) {
+        this.tailBlockHash = tailBlockHash;
+    }
+
     public void setTailBlockHash(ByteString byteString) {
-        this.tailBlockHash = HexUtil.toHex(byteString.toByteArray());
+        this.tailBlockHash = HexUtil.toHex(byteString);
     }
 
     /**
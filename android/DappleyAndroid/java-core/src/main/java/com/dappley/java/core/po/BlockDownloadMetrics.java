@@ -0,0 +1,46 @@
+package com.dappley.java.core.po;
+
+import lombok.Data;
+
+/**
+ * Result of a parallel block download
+ */
+@Data
+public class BlockDownloadMetrics {
+    /**
+     * first requested height
+     */
+    private long fromHeight;
+    /**
+     * last requested height
+     */
+    private long toHeight;
+    /**
+     * number of blocks handed to the handler in order
+     */
+    private long blockCount;
+    /**
+     * number of downloaded height ranges
+     */
+    private long rangeCount;
+    /**
+     * number of retried block requests
+     */
+    private long retryCount;
+    /**
+     * time of the whole download in milliseconds
+     */
+    private long elapsedMillis;
+    /**
+     * if all requested blocks are downloaded and linked to each other
+     */
+    private boolean complete;
+
+    /**
+     * Returns download throughput.
+     * @return double blocks per second
+     */
+    public double getBlocksPerSecond() {
+        return elapsedMillis == 0 ? 0 : blockCount * 1000.0 / elapsedMillis;
+    }
+}
@@ -1,7 +1,7 @@
 package com.dappley.java.core.po;
 
 import com.dappley.java.core.protobuf.BlockProto;
-import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 import lombok.Data;
 
 /**
@@ -56,15 +56,15 @@ public class BlockHeader {
     public BlockProto.BlockHeader toProto() {
         BlockProto.BlockHeader.Builder builder = BlockProto.BlockHeader.newBuilder();
         if (this.getHash() != null) {
-            builder.setHash(ByteString.copyFrom(this.getHash()));
+            builder.setHash(UnsafeByteOperations.unsafeWrap(this.getHash()));
         }
         if (this.getPreviousHash() != null) {
-            builder.setPreviousHash(ByteString.copyFrom(this.getPreviousHash()));
+            builder.setPreviousHash(UnsafeByteOperations.unsafeWrap(this.getPreviousHash()));
         }
         builder.setNonce(this.getNonce());
         builder.setTimestamp(this.getTimestamp());
         if (this.getSignature() != null) {
-            builder.setSignature(ByteString.copyFrom(this.getSignature()));
+            builder.setSignature(UnsafeByteOperations.unsafeWrap(this.getSignature()));
         }
         builder.setHeight(this.getHeight());
         return builder.build();
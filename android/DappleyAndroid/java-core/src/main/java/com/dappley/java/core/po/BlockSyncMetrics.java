@@ -0,0 +1,50 @@
+package com.dappley.java.core.po;
+
+import lombok.Data;
+
+/**
+ * Snapshot of block synchronization metrics
+ */
+@Data
+public class BlockSyncMetrics {
+    /**
+     * if the push stream is connected now
+     */
+    private boolean connected;
+    /**
+     * number of events received from push stream
+     */
+    private long eventCount;
+    /**
+     * number of finished synchronize runs
+     */
+    private long syncCount;
+    /**
+     * number of synchronize runs requested by fallback polling
+     */
+    private long pollCount;
+    /**
+     * number of stream reconnections
+     */
+    private long reconnectCount;
+    /**
+     * time of the last received event in milliseconds
+     */
+    private long lastEventTime;
+    /**
+     * time of the last finished synchronize run in milliseconds
+     */
+    private long lastSyncTime;
+    /**
+     * time from request to finish of the last synchronize run in milliseconds
+     */
+    private long lastLagMillis;
+    /**
+     * max time from request to finish of synchronize runs in milliseconds
+     */
+    private long maxLagMillis;
+    /**
+     * average time from request to finish of synchronize runs in milliseconds
+     */
+    private long averageLagMillis;
+}
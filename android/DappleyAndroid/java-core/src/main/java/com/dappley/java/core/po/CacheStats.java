@@ -0,0 +1,39 @@
+package com.dappley.java.core.po;
+
+import lombok.Data;
+
+/**
+ * Snapshot of cache counters
+ */
+@Data
+public class CacheStats {
+    /**
+     * number of reads served from cache
+     */
+    private long hitCount;
+    /**
+     * number of reads sent to the underlying provider
+     */
+    private long missCount;
+    /**
+     * number of entries removed because the cache was full
+     */
+    private long evictionCount;
+    /**
+     * number of entries removed because a new block arrived
+     */
+    private long invalidationCount;
+    /**
+     * number of entries in cache now
+     */
+    private int size;
+
+    /**
+     * Returns the ratio of reads served from cache.
+     * @return double value between 0 and 1
+     */
+    public double getHitRate() {
+        long total = hitCount + missCount;
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+}
@@ -0,0 +1,89 @@
+package com.dappley.java.core.po;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Snapshot of rpc call statistics of one method on one server node
+ */
+@Data
+public class RpcMethodMetrics {
+    private ServerNode serverNode;
+    /**
+     * full gRPC method name
+     */
+    private String method;
+    /**
+     * number of finished calls
+     */
+    private long callCount;
+    /**
+     * number of calls which are not OK
+     */
+    private long errorCount;
+    /**
+     * number of calls closed with DEADLINE_EXCEEDED
+     */
+    private long timeoutCount;
+    /**
+     * number of calls of each status code name
+     */
+    private Map<String, Long> statusCounts;
+    /**
+     * upper bounds of latency buckets in milliseconds, the last bucket has no upper bound
+     */
+    private long[] latencyBucketMillis;
+    /**
+     * number of calls in each latency bucket, one more element than latencyBucketMillis
+     */
+    private long[] latencyBucketCounts;
+    /**
+     * sum of latency of all calls in milliseconds
+     */
+    private double totalLatencyMillis;
+    /**
+     * sum of request sizes on the wire
+     */
+    private long requestBytes;
+    /**
+     * sum of response sizes on the wire
+     */
+    private long responseBytes;
+    /**
+     * largest response size of a single call
+     */
+    private long maxResponseBytes;
+
+    /**
+     * Returns the average latency.
+     * @return double value in milliseconds
+     */
+    public double getAverageLatencyMillis() {
+        return callCount == 0 ? 0 : totalLatencyMillis / callCount;
+    }
+
+    /**
+     * Returns the upper bound of the bucket containing the given percentile of latency.
+     * @param percentile value between 0 and 100
+     * @return long value in milliseconds, Long.MAX_VALUE if it's in the last bucket, 0 if there is no call
+     */
+    public long getLatencyPercentileMillis(double percentile) {
+        long total = 0;
+        for (long count : latencyBucketCounts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < latencyBucketMillis.length; i++) {
+            seen += latencyBucketCounts[i];
+            if (seen >= rank) {
+                return latencyBucketMillis[i];
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+}
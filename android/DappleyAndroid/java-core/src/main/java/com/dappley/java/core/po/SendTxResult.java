@@ -23,6 +23,10 @@ public class SendTxResult {
      * Balance is not enough
      */
     public static final int CODE_ERROR_BALANCE = -3;
+    /**
+     * Transaction was rejected by node
+     */
+    public static final int CODE_ERROR_REJECTED = -4;
     /**
      * Request status
      */
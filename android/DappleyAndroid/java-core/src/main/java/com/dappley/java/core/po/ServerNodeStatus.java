@@ -0,0 +1,35 @@
+package com.dappley.java.core.po;
+
+import lombok.Data;
+
+/**
+ * Runtime status of a server node
+ */
+@Data
+public class ServerNodeStatus {
+    private ServerNode serverNode;
+    /**
+     * number of running requests
+     */
+    private int outstanding;
+    /**
+     * number of finished requests, including health probes
+     */
+    private long callCount;
+    /**
+     * number of failed requests
+     */
+    private long failureCount;
+    /**
+     * exponentially weighted moving average of latency in milliseconds, -1 if no request has finished
+     */
+    private double ewmaLatencyMillis;
+    /**
+     * if the node is ejected by health checking now
+     */
+    private boolean ejected;
+    /**
+     * state of the node's circuit breaker: CLOSED, OPEN or HALF_OPEN
+     */
+    private String circuitState;
+}
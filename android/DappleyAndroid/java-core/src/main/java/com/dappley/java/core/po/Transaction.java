@@ -1,18 +1,21 @@
 package com.dappley.java.core.po;
 
-import com.dappley.java.core.crypto.ShaDigest;
 import com.dappley.java.core.protobuf.TransactionBaseProto;
 import com.dappley.java.core.protobuf.TransactionProto;
 import com.dappley.java.core.util.ByteUtil;
 import com.dappley.java.core.util.ObjectUtils;
-import com.google.protobuf.ByteString;
+import com.dappley.java.core.util.TransactionEncoder;
+import com.google.protobuf.UnsafeByteOperations;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.Serializable;
 import java.math.BigInteger;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -21,6 +24,11 @@ import java.util.List;
 @Data
 @Slf4j
 public class Transaction implements Serializable {
+    /**
+     * Kept at the value computed before memoized hashes, so that records serialized before stay readable
+     */
+    private static final long serialVersionUID = 1813255686165035437L;
+
     public static final int TxTypeDefault = 0;
     public static final int TxTypeNormal = 1;
     public static final int TxTypeContract = 2;
@@ -36,6 +44,27 @@ public class Transaction implements Serializable {
     private BigInteger gasLimit;
     private BigInteger gasPrice;
     private int type;
+    /**
+     * Count of field changes, checked by the memoized hashes
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient int modCount;
+    /**
+     * Memoized hash with signatures
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient volatile HashMemo hashMemo;
+    /**
+     * Memoized hash without signatures, the transaction id
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient volatile HashMemo idMemo;
 
     public Transaction() {
     }
@@ -86,12 +115,13 @@ public class Transaction implements Serializable {
 
     /**
      * Convert to TransactionProto.Transaction
+     * <p>Byte arrays are wrapped without copying, so they should not be modified while the result is in use.</p>
      * @return TransactionProto.Transaction
      */
     public TransactionProto.Transaction toProto() {
         TransactionProto.Transaction.Builder builder = TransactionProto.Transaction.newBuilder();
         if (this.getId() != null) {
-            builder.setId(ByteString.copyFrom(this.getId()));
+            builder.setId(UnsafeByteOperations.unsafeWrap(this.getId()));
         }
 
         List<TxInput> txInputs = this.getTxInputs();
@@ -108,18 +138,48 @@ public class Transaction implements Serializable {
             }
         }
         if (this.getTip() != null) {
-            builder.setTip(ByteString.copyFrom(ByteUtil.bigInteger2Bytes(this.getTip())));
+            builder.setTip(UnsafeByteOperations.unsafeWrap(ByteUtil.bigInteger2Bytes(this.getTip())));
         }
         if (this.getGasLimit() != null) {
-            builder.setGasLimit(ByteString.copyFrom(ByteUtil.bigInteger2Bytes(this.getGasLimit())));
+            builder.setGasLimit(UnsafeByteOperations.unsafeWrap(ByteUtil.bigInteger2Bytes(this.getGasLimit())));
         }
         if (this.getGasPrice() != null) {
-            builder.setGasPrice(ByteString.copyFrom(ByteUtil.bigInteger2Bytes(this.getGasPrice())));
+            builder.setGasPrice(UnsafeByteOperations.unsafeWrap(ByteUtil.bigInteger2Bytes(this.getGasPrice())));
         }
         builder.setType(this.getType());
         return builder.build();
     }
 
+    public void setTxInputs(List<TxInput> txInputs) {
+        this.txInputs = txInputs;
+        modCount++;
+    }
+
+    public void setTxOutputs(List<TxOutput> txOutputs) {
+        this.txOutputs = txOutputs;
+        modCount++;
+    }
+
+    public void setTip(BigInteger tip) {
+        this.tip = tip;
+        modCount++;
+    }
+
+    public void setGasLimit(BigInteger gasLimit) {
+        this.gasLimit = gasLimit;
+        modCount++;
+    }
+
+    public void setGasPrice(BigInteger gasPrice) {
+        this.gasPrice = gasPrice;
+        modCount++;
+    }
+
+    public void setType(int type) {
+        this.type = type;
+        modCount++;
+    }
+
     /**
      * Add a TxInput into Transaction
      * @param txInput
@@ -129,6 +189,7 @@ public class Transaction implements Serializable {
             txInputs = new ArrayList<>();
         }
         txInputs.add(txInput);
+        modCount++;
     }
 
     /**
@@ -140,6 +201,7 @@ public class Transaction implements Serializable {
             txOutputs = new ArrayList<>();
         }
         txOutputs.add(txOutput);
+        modCount++;
     }
 
     /**
@@ -207,74 +269,43 @@ public class Transaction implements Serializable {
 
     /**
      * Returns hash of this object.
-     * <p>First use serialize method to convert this one to a byte array.</p>
-     * <p>Then call sha256 hash digest to get a hash value.</p>
+     * <p>Fields in serialized format are fed into a sha256 digest directly, without building the byte array.
+     * Id is not a part of serialized data.</p>
+     * <p>The hash is computed once and reused until a setter of this transaction or of its inputs and outputs is
+     * called, or the input and output lists change. Byte arrays modified in place are not detected, they should be
+     * replaced with setters instead.</p>
      * @return byte[]
      */
     public byte[] hash() {
-        byte[] oldId = this.getId();
-        // clear id property
-        this.setId(ByteUtil.EMPTY_BYTE);
-
-        // serialize the new transaction oject
-        byte[] serialized = serialize();
-        // get sha256 hash
-        byte[] hash = ShaDigest.sha256(serialized);
-        this.setId(oldId);
-        return hash;
+        HashMemo memo = hashMemo;
+        if (memo == null || !memo.matches(this)) {
+            memo = new HashMemo(this, true);
+            hashMemo = memo;
+        }
+        return memo.hash.clone();
     }
 
+    /**
+     * Returns SHA-256 hash of this object without signatures, which is the transaction id.
+     * <p>Memoized the same way as {@link #hash()}.</p>
+     * @return byte[]
+     */
     public byte[] generateId() {
-        return ShaDigest.sha256(this.getGenerateIdBytes());
+        HashMemo memo = idMemo;
+        if (memo == null || !memo.matches(this)) {
+            memo = new HashMemo(this, false);
+            idMemo = memo;
+        }
+        return memo.hash.clone();
     }
 
     /**
      * Serialize Transaction object in promissory format
+     * <p>Signatures of inputs are not included.</p>
      * @return byte[] serialized data
      */
     public byte[] getGenerateIdBytes() {
-        // serialize transaction
-        List<byte[]> bytesList = new LinkedList<>();
-
-        // add vin
-        List<TxInput> txInputs = this.getTxInputs();
-        if (txInputs != null) {
-            for (TxInput txInput : txInputs) {
-                // txid
-                bytesList.add(txInput.getTxId() == null ? null : txInput.getTxId());
-                // vout
-                bytesList.add(ByteUtil.int2Bytes(txInput.getVout()));
-                // pubkey
-                bytesList.add(txInput.getPublicKey() == null ? null : txInput.getPublicKey());
-            }
-        }
-
-        // add vout
-        List<TxOutput> txOutputs = this.getTxOutputs();
-        if (txOutputs != null) {
-            for (TxOutput txOutput : txOutputs) {
-                // value
-                bytesList.add(txOutput.getValue() == null ? null : txOutput.getValue());
-                // pubKeyHash
-                bytesList.add(txOutput.getPublicKeyHash() == null ? null : txOutput.getPublicKeyHash());
-                bytesList.add(txOutput.getContract() == null ? null : ByteUtil.string2Bytes(txOutput.getContract()));
-            }
-        }
-        // add tip
-        if (this.getTip() != null) {
-            bytesList.add(ByteUtil.bigInteger2Bytes(this.getTip()));
-        }
-
-        if (this.getGasLimit() != null) {
-            bytesList.add(ByteUtil.bigInteger2Bytes(this.getGasLimit()));
-        }
-        if (this.getGasPrice() != null) {
-            bytesList.add(ByteUtil.bigInteger2Bytes(this.getGasPrice()));
-        }
-        if (this.getType() > TxTypeDefault) {
-            bytesList.add(ByteUtil.int2Bytes(this.getType()));
-        }
-        return ByteUtil.joinBytes(bytesList);
+        return TransactionEncoder.idBytes(this);
     }
 
     /**
@@ -282,50 +313,7 @@ public class Transaction implements Serializable {
      * @return byte[] serialized data
      */
     public byte[] serialize() {
-        // serialize transaction
-        List<byte[]> bytesList = new LinkedList<>();
-
-        // add vin
-        List<TxInput> txInputs = this.getTxInputs();
-        if (txInputs != null) {
-            for (TxInput txInput : txInputs) {
-                // txid
-                bytesList.add(txInput.getTxId() == null ? null : txInput.getTxId());
-                // vout
-                bytesList.add(ByteUtil.int2Bytes(txInput.getVout()));
-                // pubkey
-                bytesList.add(txInput.getPublicKey() == null ? null : txInput.getPublicKey());
-                // signature
-                bytesList.add(txInput.getSignature() == null ? null : txInput.getSignature());
-            }
-        }
-
-        // add vout
-        List<TxOutput> txOutputs = this.getTxOutputs();
-        if (txOutputs != null) {
-            for (TxOutput txOutput : txOutputs) {
-                // value
-                bytesList.add(txOutput.getValue() == null ? null : txOutput.getValue());
-                // pubKeyHash
-                bytesList.add(txOutput.getPublicKeyHash() == null ? null : txOutput.getPublicKeyHash());
-                bytesList.add(txOutput.getContract() == null ? null : ByteUtil.string2Bytes(txOutput.getContract()));
-            }
-        }
-        // add tip
-        if (this.getTip() != null) {
-            bytesList.add(ByteUtil.bigInteger2Bytes(this.getTip()));
-        }
-
-        if (this.getGasLimit() != null) {
-            bytesList.add(ByteUtil.bigInteger2Bytes(this.getGasLimit()));
-        }
-        if (this.getGasPrice() != null) {
-            bytesList.add(ByteUtil.bigInteger2Bytes(this.getGasPrice()));
-        }
-        if (this.getType() > TxTypeDefault) {
-            bytesList.add(ByteUtil.int2Bytes(this.getType()));
-        }
-        return ByteUtil.joinBytes(bytesList);
+        return TransactionEncoder.serialize(this);
     }
 
     /**
@@ -359,4 +347,72 @@ public class Transaction implements Serializable {
         }
         return true;
     }
+
+    /**
+     * Hash of a transaction with the state it was computed from.
+     * <p>Immutable, so it can be shared between threads without locking.</p>
+     */
+    private static final class HashMemo {
+        private final int modCount;
+        private final List<TxInput> txInputs;
+        private final List<TxOutput> txOutputs;
+        private final Object[] elements;
+        private final int[] elementModCounts;
+        private final byte[] hash;
+
+        /**
+         * Records the state of transaction before hashing, so that a concurrent change makes it stale.
+         */
+        HashMemo(Transaction transaction, boolean withSignature) {
+            this.modCount = transaction.modCount;
+            this.txInputs = transaction.txInputs;
+            this.txOutputs = transaction.txOutputs;
+            this.elements = new Object[(txInputs == null ? 0 : txInputs.size())
+                    + (txOutputs == null ? 0 : txOutputs.size())];
+            this.elementModCounts = new int[elements.length];
+            int i = 0;
+            if (txInputs != null) {
+                for (TxInput txInput : txInputs) {
+                    elements[i] = txInput;
+                    elementModCounts[i++] = txInput.modCount;
+                }
+            }
+            if (txOutputs != null) {
+                for (TxOutput txOutput : txOutputs) {
+                    elements[i] = txOutput;
+                    elementModCounts[i++] = txOutput.modCount;
+                }
+            }
+            this.hash = TransactionEncoder.hash(transaction, withSignature);
+        }
+
+        /**
+         * Returns if transaction is unchanged since this hash was computed.
+         */
+        boolean matches(Transaction transaction) {
+            if (transaction.modCount != modCount || transaction.txInputs != txInputs
+                    || transaction.txOutputs != txOutputs) {
+                return false;
+            }
+            if ((txInputs == null ? 0 : txInputs.size()) + (txOutputs == null ? 0 : txOutputs.size()) != elements.length) {
+                return false;
+            }
+            int i = 0;
+            if (txInputs != null) {
+                for (TxInput txInput : txInputs) {
+                    if (txInput != elements[i] || txInput.modCount != elementModCounts[i++]) {
+                        return false;
+                    }
+                }
+            }
+            if (txOutputs != null) {
+                for (TxOutput txOutput : txOutputs) {
+                    if (txOutput != elements[i] || txOutput.modCount != elementModCounts[i++]) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
 }
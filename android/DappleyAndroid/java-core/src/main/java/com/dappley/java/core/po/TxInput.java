@@ -1,8 +1,12 @@
 package com.dappley.java.core.po;
 
 import com.dappley.java.core.protobuf.TransactionBaseProto;
-import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.io.Serializable;
 
@@ -11,14 +15,45 @@ import java.io.Serializable;
  */
 @Data
 public class TxInput implements Serializable {
+    /**
+     * Kept at the value computed before memoized hashes, so that records serialized before stay readable
+     */
+    private static final long serialVersionUID = 7219317266548690400L;
     private byte[] txId;
     private int vout;
     private byte[] signature;
     private byte[] publicKey;
+    /**
+     * Count of field changes, checked by the memoized hash of the enclosing transaction
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    transient int modCount;
 
     public TxInput() {
     }
 
+    public void setTxId(byte[] txId) {
+        this.txId = txId;
+        modCount++;
+    }
+
+    public void setVout(int vout) {
+        this.vout = vout;
+        modCount++;
+    }
+
+    public void setSignature(byte[] signature) {
+        this.signature = signature;
+        modCount++;
+    }
+
+    public void setPublicKey(byte[] publicKey) {
+        this.publicKey = publicKey;
+        modCount++;
+    }
+
     /**
      * Constructor with TransactionProto.TXInput
      * @param txInput
@@ -45,14 +80,14 @@ public class TxInput implements Serializable {
     public TransactionBaseProto.TXInput toProto() {
         TransactionBaseProto.TXInput.Builder builder = TransactionBaseProto.TXInput.newBuilder();
         if (this.getTxId() != null) {
-            builder.setTxid(ByteString.copyFrom(this.getTxId()));
+            builder.setTxid(UnsafeByteOperations.unsafeWrap(this.getTxId()));
         }
         builder.setVout(this.getVout());
         if (this.getSignature() != null) {
-            builder.setSignature(ByteString.copyFrom(this.getSignature()));
+            builder.setSignature(UnsafeByteOperations.unsafeWrap(this.getSignature()));
         }
         if (this.getPublicKey() != null) {
-            builder.setPublicKey(ByteString.copyFrom(this.getPublicKey()));
+            builder.setPublicKey(UnsafeByteOperations.unsafeWrap(this.getPublicKey()));
         }
         return builder.build();
     }
@@ -2,8 +2,12 @@ package com.dappley.java.core.po;
 
 import com.dappley.java.core.protobuf.TransactionBaseProto;
 import com.dappley.java.core.protobuf.TransactionProto;
-import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.io.Serializable;
 
@@ -12,13 +16,39 @@ import java.io.Serializable;
  */
 @Data
 public class TxOutput implements Serializable {
+    /**
+     * Kept at the value computed before memoized hashes, so that records serialized before stay readable
+     */
+    private static final long serialVersionUID = 4231362601223686629L;
     private byte[] value;
     private byte[] publicKeyHash;
     private String contract;
+    /**
+     * Count of field changes, checked by the memoized hash of the enclosing transaction
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    transient int modCount;
 
     public TxOutput() {
     }
 
+    public void setValue(byte[] value) {
+        this.value = value;
+        modCount++;
+    }
+
+    public void setPublicKeyHash(byte[] publicKeyHash) {
+        this.publicKeyHash = publicKeyHash;
+        modCount++;
+    }
+
+    public void setContract(String contract) {
+        this.contract = contract;
+        modCount++;
+    }
+
     /**
      * Constructor with TransactionProto.TXOutput
      * @param txOutput
@@ -44,10 +74,10 @@ public class TxOutput implements Serializable {
     public TransactionBaseProto.TXOutput toProto() {
         TransactionBaseProto.TXOutput.Builder builder = TransactionBaseProto.TXOutput.newBuilder();
         if (this.getValue() != null) {
-            builder.setValue(ByteString.copyFrom(this.getValue()));
+            builder.setValue(UnsafeByteOperations.unsafeWrap(this.getValue()));
         }
         if (this.getPublicKeyHash() != null) {
-            builder.setPublicKeyHash(ByteString.copyFrom(this.getPublicKeyHash()));
+            builder.setPublicKeyHash(UnsafeByteOperations.unsafeWrap(this.getPublicKeyHash()));
         }
         builder.setContract(this.getContract() == null ? "" : this.getContract());
         return builder.build();
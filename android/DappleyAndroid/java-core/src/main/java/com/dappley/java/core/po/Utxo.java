@@ -3,8 +3,8 @@ package com.dappley.java.core.po;
 import com.dappley.java.core.protobuf.RpcProto;
 import com.dappley.java.core.protobuf.UtxoProto;
 import com.dappley.java.core.util.ByteUtil;
-import com.dappley.java.core.util.SerializeUtil;
-import com.google.protobuf.ByteString;
+import com.dappley.java.core.util.RecordCodec;
+import com.google.protobuf.UnsafeByteOperations;
 import lombok.Data;
 
 import java.math.BigInteger;
@@ -36,7 +36,7 @@ public class Utxo {
      * @return Utxo object
      */
     public static Utxo parseBytes(byte[] bytes) {
-        return SerializeUtil.decode(bytes, Utxo.class);
+        return RecordCodec.decodeUtxo(bytes);
     }
 
     /**
@@ -60,14 +60,14 @@ public class Utxo {
      */
     public UtxoProto.Utxo toProto() {
         UtxoProto.Utxo.Builder builder = UtxoProto.Utxo.newBuilder();
-        builder.setAmount(ByteString.copyFrom(ByteUtil.bigInteger2Bytes(this.getAmount())));
-        builder.setPublicKeyHash(ByteString.copyFrom(this.getTxId()));
-        builder.setTxid(ByteString.copyFrom(this.getTxId()));
+        builder.setAmount(UnsafeByteOperations.unsafeWrap(ByteUtil.bigInteger2Bytes(this.getAmount())));
+        builder.setPublicKeyHash(UnsafeByteOperations.unsafeWrap(this.getTxId()));
+        builder.setTxid(UnsafeByteOperations.unsafeWrap(this.getTxId()));
         builder.setTxIndex(this.getVoutIndex());
         return builder.build();
     }
 
     public byte[] toByteArray() {
-        return SerializeUtil.encode(this);
+        return RecordCodec.encodeUtxo(this);
     }
 }
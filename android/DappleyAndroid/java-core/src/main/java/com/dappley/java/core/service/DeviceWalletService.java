@@ -1,5 +1,6 @@
 package com.dappley.java.core.service;
 
+import com.dappley.java.core.chain.SignatureHashes;
 import com.dappley.java.core.chain.TransactionManager;
 import com.dappley.java.core.po.DeviceInput;
 import com.dappley.java.core.po.DeviceResult;
@@ -8,14 +9,15 @@ import com.dappley.java.core.po.TxInput;
 import com.dappley.java.core.po.TxOutput;
 import com.dappley.java.core.po.Utxo;
 import com.dappley.java.core.util.AddressUtil;
+import com.dappley.java.core.util.ByteArraySink;
 import com.dappley.java.core.util.ByteUtil;
 import com.dappley.java.core.util.HashUtil;
 import com.dappley.java.core.util.HexUtil;
 import com.dappley.java.core.util.ObjectUtils;
+import com.dappley.java.core.util.TransactionEncoder;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -167,20 +169,13 @@ public class DeviceWalletService {
 
     private void buildSignValue(Transaction transaction, Map<String, Utxo> utxoMap, Transaction transactionCopy) {
         List<TxInput> txCopyInputs = transactionCopy.getTxInputs();
-        TxInput txCopyInput = null;
-        byte[] oldPubKey = null;
+        // hashes of all inputs from one serialization of the transaction
+        SignatureHashes signatureHashes = new SignatureHashes(transactionCopy);
         for (int i = 0; i < txCopyInputs.size(); i++) {
-            txCopyInput = txCopyInputs.get(i);
-            oldPubKey = txCopyInput.getPublicKey();
+            TxInput txCopyInput = txCopyInputs.get(i);
             Utxo utxo = utxoMap.get(HexUtil.toHex(txCopyInput.getTxId()) + "-" + txCopyInput.getVout());
-            // temporarily add pubKeyHash to pubKey property
-            txCopyInput.setPublicKey(utxo.getPublicKeyHash());
 
-            // get deepClone's hash value
-            byte[] txCopyHash = transactionCopy.generateId();
-
-            // recover old pubKey
-            txCopyInput.setPublicKey(oldPubKey);
+            byte[] txCopyHash = signatureHashes.hash(i, utxo.getPublicKeyHash());
 
             DeviceResult deviceResult = deviceService.signBytes(txCopyHash);
 
@@ -243,18 +238,13 @@ public class DeviceWalletService {
             }
         }
 
+        // hashes of other inputs, with device data filled into the contract
+        SignatureHashes signatureHashes = new SignatureHashes(transactionCopy);
         for (; index < txCopyInputs.size(); index++) {
             txCopyInput = txCopyInputs.get(index);
-            oldPubKey = txCopyInput.getPublicKey();
             Utxo utxo = utxoMap.get(HexUtil.toHex(txCopyInput.getTxId()) + "-" + txCopyInput.getVout());
-            // temporarily add pubKeyHash to pubKey property
-            txCopyInput.setPublicKey(utxo.getPublicKeyHash());
 
-            // get deepClone's hash value
-            byte[] txCopyHash = transactionCopy.generateId();
-
-            // recover old pubKey
-            txCopyInput.setPublicKey(oldPubKey);
+            byte[] txCopyHash = signatureHashes.hash(index, utxo.getPublicKeyHash());
 
             DeviceResult deviceResult = deviceService.signBytes(txCopyHash);
 
@@ -265,21 +255,11 @@ public class DeviceWalletService {
 
     private List<DeviceInput>  buildDeviceInputs(Transaction transaction) {
         List<DeviceInput> inputs = new ArrayList<>();
-        // serialize transaction
-        List<byte[]> bytesList = new LinkedList<>();
+        // serialize transaction, fixed data are cut at each device data placeholder of contract
+        ByteArraySink sink = new ByteArraySink(TransactionEncoder.size(transaction, false));
 
         // add vin
-        List<TxInput> txInputs = transaction.getTxInputs();
-        if (txInputs != null) {
-            for (TxInput txInput : txInputs) {
-                // txid
-                bytesList.add(txInput.getTxId() == null ? null : txInput.getTxId());
-                // vout
-                bytesList.add(ByteUtil.int2Bytes(txInput.getVout()));
-                // pubkey
-                bytesList.add(txInput.getPublicKey() == null ? null : txInput.getPublicKey());
-            }
-        }
+        TransactionEncoder.writeInputs(transaction.getTxInputs(), false, sink);
 
         // add vout
         List<TxOutput> txOutputs = transaction.getTxOutputs();
@@ -288,57 +268,39 @@ public class DeviceWalletService {
             if (transaction.getType() == Transaction.TxTypeContract) {
                 startIndex = 1;
                 TxOutput contractOutput = txOutputs.get(0);
-                bytesList.add(contractOutput.getValue() == null ? null : contractOutput.getValue());
-                // pubKeyHash
-                bytesList.add(contractOutput.getPublicKeyHash() == null ? null : contractOutput.getPublicKeyHash());
+                // value and pubKeyHash
+                TransactionEncoder.writeOutputHead(contractOutput, sink);
                 Pattern p = Pattern.compile("(.*?)(\\{\\})(.*)");
                 String text = contractOutput.getContract();
                 Matcher m = p.matcher(text);
                 int paramIndex = 0;
                 while (m.find()) {
-                    bytesList.add(ByteUtil.string2Bytes(m.group(1)));
-                    DeviceInput fixedInput = new DeviceInput(DeviceInput.INPUT_DATA_FIXED, ByteUtil.joinBytes(bytesList));
+                    sink.putUtf8(m.group(1));
+                    DeviceInput fixedInput = new DeviceInput(DeviceInput.INPUT_DATA_FIXED, sink.toByteArray());
                     inputs.add(fixedInput);
                     byte[] paramBytes = new byte[2];
                     paramBytes[0] = (byte)(paramIndex & 0xFF);
                     paramBytes[1] = (byte)((paramIndex & 0xFF00) >> 8);
                     DeviceInput deviceInput = new DeviceInput(DeviceInput.INPUT_DATA_DEVICE, paramBytes);
                     inputs.add(deviceInput);
-                    // Create new buffer
-                    bytesList = new LinkedList<>();
+                    // Reuse buffer
+                    sink.reset();
 
                     text = m.group(3);
                     m = p.matcher(text);
                     paramIndex++;
                 }
-                bytesList.add(ByteUtil.string2Bytes(text));
+                sink.putUtf8(text);
             }
 
             for (; startIndex < txOutputs.size(); startIndex++) {
-                TxOutput txOutput = txOutputs.get(startIndex);
-                // value
-                bytesList.add(txOutput.getValue() == null ? null : txOutput.getValue());
-                // pubKeyHash
-                bytesList.add(txOutput.getPublicKeyHash() == null ? null : txOutput.getPublicKeyHash());
-                bytesList.add(txOutput.getContract() == null ? null : ByteUtil.string2Bytes(txOutput.getContract()));
+                TransactionEncoder.writeOutput(txOutputs.get(startIndex), sink);
             }
         }
-        // add tip
-        if (transaction.getTip() != null) {
-            bytesList.add(ByteUtil.bigInteger2Bytes(transaction.getTip()));
-        }
-
-        if (transaction.getGasLimit() != null) {
-            bytesList.add(ByteUtil.bigInteger2Bytes(transaction.getGasLimit()));
-        }
-        if (transaction.getGasPrice() != null) {
-            bytesList.add(ByteUtil.bigInteger2Bytes(transaction.getGasPrice()));
-        }
-        if (transaction.getType() > Transaction.TxTypeDefault) {
-            bytesList.add(ByteUtil.int2Bytes(transaction.getType()));
-        }
+        // add tip, gas and type
+        TransactionEncoder.writeFees(transaction, sink);
 
-        DeviceInput fixedInput = new DeviceInput(DeviceInput.INPUT_DATA_FIXED, ByteUtil.joinBytes(bytesList));
+        DeviceInput fixedInput = new DeviceInput(DeviceInput.INPUT_DATA_FIXED, sink.toByteArray());
         inputs.add(fixedInput);
 
         return inputs;
@@ -71,10 +71,9 @@ public class AddressUtil {
      * @return String address
      */
     public static String getAddressFromPubKeyHash(byte[] pubKeyHash) {
-        // get the checksum of pubKeyHash
-        byte[] checksum = HashUtil.getPubKeyHashChecksum(pubKeyHash, Constant.ADDRESS_CHECKSUM_LENGTH);
-        // append the checksum to pubKeyHash's tail
-        byte[] fullPayload = ByteUtil.concat(pubKeyHash, checksum);
+        // append the checksum of pubKeyHash to its tail
+        byte[] fullPayload = Arrays.copyOf(pubKeyHash, pubKeyHash.length + Constant.ADDRESS_CHECKSUM_LENGTH);
+        HashUtil.writePubKeyHashChecksum(pubKeyHash, fullPayload, pubKeyHash.length, Constant.ADDRESS_CHECKSUM_LENGTH);
         // use Base58 encode method to get the encodes byte array
         byte[] address = Base58.encodeBytes(fullPayload);
         // return encoded String as a wallet address
@@ -99,13 +98,8 @@ public class AddressUtil {
         if (fullPayload == null || fullPayload.length < Constant.ADDRESS_CHECKSUM_LENGTH) {
             return false;
         }
-        byte[] actualChecksum = ByteUtil.slice(fullPayload, fullPayload.length - Constant.ADDRESS_CHECKSUM_LENGTH
-                , Constant.ADDRESS_CHECKSUM_LENGTH);
-        // get pubKeyHash data
-        byte[] pubKeyHash = ByteUtil.slice(fullPayload, 0, fullPayload.length - Constant.ADDRESS_CHECKSUM_LENGTH);
-        // get the checksum of pubKeyHash
-        byte[] checksum = HashUtil.getPubKeyHashChecksum(pubKeyHash, Constant.ADDRESS_CHECKSUM_LENGTH);
-        return Arrays.equals(actualChecksum, checksum);
+        // compare the tail with the checksum of pubKeyHash data
+        return HashUtil.matchesPubKeyHashChecksum(fullPayload, Constant.ADDRESS_CHECKSUM_LENGTH);
     }
 
     /**
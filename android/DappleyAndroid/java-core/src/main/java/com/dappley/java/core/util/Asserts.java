@@ -1,5 +1,6 @@
 package com.dappley.java.core.util;
 
+import com.dappley.java.core.net.RpcChannelPool;
 import io.grpc.ManagedChannel;
 
 /**
@@ -28,4 +29,15 @@ public class Asserts {
             throw new IllegalStateException("channel is not opened.");
         }
     }
+
+    /**
+     * Assert channel pool of provider has been initialized
+     * @param channelPool RPC protocol channel pool
+     * @throws IllegalStateException
+     */
+    public static void providerInit(RpcChannelPool channelPool) {
+        if (channelPool == null) {
+            throw new IllegalStateException("RpcProtocalProvider.init should be called first.");
+        }
+    }
 }
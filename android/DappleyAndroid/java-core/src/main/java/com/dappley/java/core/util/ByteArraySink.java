@@ -0,0 +1,83 @@
+package com.dappley.java.core.util;
+
+import java.util.Arrays;
+
+/**
+ * Byte sink writing into an array.
+ * <p>Create it with the exact size of the data, then {@link #toByteArray()} returns the array without copying.
+ * The array grows if more bytes are written.</p>
+ */
+public class ByteArraySink extends ByteSink {
+    private byte[] buffer;
+    private int size;
+    /**
+     * if the buffer was returned by toByteArray, a new one is used for later writes
+     */
+    private boolean shared;
+
+    /**
+     * Constructor
+     * @param capacity initial capacity, usually the exact size of written data
+     */
+    public ByteArraySink(int capacity) {
+        buffer = new byte[Math.max(capacity, 0)];
+    }
+
+    @Override
+    public void put(byte b) {
+        ensure(1);
+        buffer[size++] = b;
+    }
+
+    @Override
+    public void put(byte[] bytes, int offset, int length) {
+        ensure(length);
+        System.arraycopy(bytes, offset, buffer, size, length);
+        size += length;
+    }
+
+    @Override
+    public void putInt(int value) {
+        ensure(4);
+        buffer[size++] = (byte) (value >>> 24);
+        buffer[size++] = (byte) (value >>> 16);
+        buffer[size++] = (byte) (value >>> 8);
+        buffer[size++] = (byte) value;
+    }
+
+    /**
+     * Returns the number of written bytes.
+     * @return int byte count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Clear written bytes and keep the capacity.
+     */
+    public void reset() {
+        size = 0;
+    }
+
+    /**
+     * Returns written bytes. The buffer itself is returned if it's full.
+     * @return byte[] written bytes
+     */
+    public byte[] toByteArray() {
+        if (size == buffer.length) {
+            shared = true;
+            return buffer;
+        }
+        return Arrays.copyOf(buffer, size);
+    }
+
+    private void ensure(int count) {
+        if (shared) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length, size + count));
+            shared = false;
+        } else if (size + count > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + count));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.dappley.java.core.util;
+
+import java.math.BigInteger;
+
+/**
+ * Destination of serialized bytes.
+ * <p>Fields are written straight into the sink in the same format as {@link ByteUtil},
+ * so no array is created for each field.</p>
+ */
+public abstract class ByteSink {
+
+    /**
+     * Write one byte.
+     * @param b byte value
+     */
+    public abstract void put(byte b);
+
+    /**
+     * Write part of a byte array.
+     * @param bytes  source array
+     * @param offset start index
+     * @param length byte count
+     */
+    public abstract void put(byte[] bytes, int offset, int length);
+
+    /**
+     * Write a byte array, nothing is written if it's null.
+     * @param bytes source array
+     */
+    public void put(byte[] bytes) {
+        if (bytes != null) {
+            put(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Write int in big-endian order, same as {@link ByteUtil#int2Bytes(int)}.
+     * @param value int value
+     */
+    public void putInt(int value) {
+        put((byte) (value >>> 24));
+        put((byte) (value >>> 16));
+        put((byte) (value >>> 8));
+        put((byte) value);
+    }
+
+    /**
+     * Write BigInteger without leading zeros, same as {@link ByteUtil#bigInteger2Bytes(BigInteger)}.
+     * <p>Values fitting in a long are written without creating an array.</p>
+     * @param value BigInteger value
+     */
+    public void putBigInteger(BigInteger value) {
+        if (value.signum() >= 0 && value.bitLength() < Long.SIZE) {
+            long longValue = value.longValue();
+            for (int shift = (bigIntegerSize(value) - 1) * 8; shift >= 0; shift -= 8) {
+                put((byte) (longValue >>> shift));
+            }
+            return;
+        }
+        byte[] bytes = value.toByteArray();
+        int index = 0;
+        while (index < bytes.length && bytes[index] == 0) {
+            index++;
+        }
+        put(bytes, index, bytes.length - index);
+    }
+
+    /**
+     * Write String in UTF-8, same as {@link ByteUtil#string2Bytes(String)}.
+     * @param value String value
+     */
+    public void putUtf8(String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                put((byte) c);
+            } else if (c < 0x800) {
+                put((byte) (0xC0 | c >> 6));
+                put((byte) (0x80 | c & 0x3F));
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    put((byte) (0xF0 | codePoint >> 18));
+                    put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                    put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                    put((byte) (0x80 | codePoint & 0x3F));
+                } else {
+                    // malformed surrogate is replaced as String.getBytes does
+                    put((byte) '?');
+                }
+            } else {
+                put((byte) (0xE0 | c >> 12));
+                put((byte) (0x80 | c >> 6 & 0x3F));
+                put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes written by {@link #putBigInteger(BigInteger)}.
+     * @param value BigInteger value
+     * @return int byte count
+     */
+    public static int bigIntegerSize(BigInteger value) {
+        if (value.signum() < 0) {
+            return value.bitLength() / 8 + 1;
+        }
+        return (value.bitLength() + 7) / 8;
+    }
+
+    /**
+     * Returns the number of bytes written by {@link #putUtf8(String)}.
+     * @param value String value
+     * @return int byte count
+     */
+    public static int utf8Size(String value) {
+        int length = value.length();
+        int size = length;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                size += 1;
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    // 4 bytes for 2 chars
+                    size += 2;
+                    i++;
+                }
+            } else {
+                size += 2;
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,83 @@
+package com.dappley.java.core.util;
+
+import com.dappley.java.core.crypto.DigestEngine;
+
+/**
+ * Byte sink feeding written bytes into a message digest, so data is hashed without being serialized first.
+ * <p>Bytes go into a {@link DigestEngine} of current thread, so a sink creates no digest object. A digest has to be
+ * finished before the engine is used by anything else, including another sink of the same algorithm.
+ * The engine is reset after each result, so the sink can be reused. It's not thread safe.</p>
+ */
+public class DigestSink extends ByteSink {
+    private final DigestEngine engine;
+
+    /**
+     * Constructor
+     * @param engine digest engine of current thread, its added data is discarded
+     */
+    public DigestSink(DigestEngine engine) {
+        this.engine = engine;
+        // bytes left by a failed call are discarded
+        engine.reset();
+    }
+
+    /**
+     * Returns a SHA-256 sink of current thread, same as {@link com.dappley.java.core.crypto.ShaDigest#sha256(byte[])}.
+     * @return DigestSink sink
+     */
+    public static DigestSink sha256() {
+        return new DigestSink(DigestEngine.sha256());
+    }
+
+    /**
+     * Returns a SHA3-256 sink of current thread, same as {@link com.dappley.java.core.crypto.Sha3Digest#sha3256(byte[])}.
+     * @return DigestSink sink
+     */
+    public static DigestSink sha3256() {
+        return new DigestSink(DigestEngine.sha3256());
+    }
+
+    @Override
+    public void put(byte b) {
+        engine.update(b);
+    }
+
+    @Override
+    public void put(byte[] bytes, int offset, int length) {
+        engine.update(bytes, offset, length);
+    }
+
+    /**
+     * Returns the length of digest.
+     * @return int byte count
+     */
+    public int getDigestSize() {
+        return engine.getDigestSize();
+    }
+
+    /**
+     * Returns digest of written bytes and reset the sink.
+     * @return byte[] digest
+     */
+    public byte[] digest() {
+        byte[] result = new byte[engine.getDigestSize()];
+        engine.doFinal(result, 0);
+        return result;
+    }
+
+    /**
+     * Write digest of written bytes into an array and reset the sink.
+     * @param out    destination array
+     * @param offset start index in destination
+     */
+    public void digest(byte[] out, int offset) {
+        engine.doFinal(out, offset);
+    }
+
+    /**
+     * Discard written bytes.
+     */
+    public void reset() {
+        engine.reset();
+    }
+}
@@ -1,27 +1,43 @@
 package com.dappley.java.core.util;
 
-import com.dappley.java.core.crypto.RipemdDigest;
+import com.dappley.java.core.crypto.DigestEngine;
 import com.dappley.java.core.crypto.Secp256k1;
-import com.dappley.java.core.crypto.Sha3Digest;
-import com.dappley.java.core.crypto.ShaDigest;
 
 import java.math.BigInteger;
+import java.util.Arrays;
 
 /**
  * Provides several methods used in wallet address generate.
+ * <p>Hashes are computed by the digest engines of current thread, intermediate hashes are kept in a buffer of the
+ * thread, so only results are allocated.</p>
  */
 public class HashUtil {
     public static final byte[] VERSION_USER = new byte[]{0x5A};
     public static final byte[] VERSION_CONTRACT = new byte[]{0x58};
+    /**
+     * Length of a public key hash with version
+     */
+    private static final int PUB_KEY_HASH_LENGTH = 21;
+    private static final ThreadLocal<byte[]> HASH_BUFFERS = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[32];
+        }
+    };
 
     /**
-     * Returns public key hash value
+     * Returns public key hash with version head.
+     * <p>RIPEMD-160 of SHA3-256 of public key bytes is written after the version.</p>
+     * @param version        version head
      * @param publicKeyBytes
      * @return byte[] hash bytes
      */
-    private static byte[] getPublicKeyHash(byte[] publicKeyBytes) {
-        byte[] shaBytes = Sha3Digest.sha3256(publicKeyBytes);
-        byte[] pubKeyHash = RipemdDigest.ripemd160(shaBytes);
+    private static byte[] getPublicKeyHash(byte[] version, byte[] publicKeyBytes) {
+        byte[] buffer = HASH_BUFFERS.get();
+        DigestEngine.sha3256().digest(publicKeyBytes, 0, publicKeyBytes.length, buffer, 0);
+        byte[] pubKeyHash = new byte[PUB_KEY_HASH_LENGTH];
+        pubKeyHash[0] = version[0];
+        DigestEngine.ripemd160().digest(buffer, 0, 32, pubKeyHash, 1);
         return pubKeyHash;
     }
 
@@ -44,10 +60,7 @@ public class HashUtil {
      * @return byte[] hash bytes
      */
     public static byte[] getUserPubKeyHash(byte[] publicKeyBytes) {
-        byte[] pubKeyHash = getPublicKeyHash(publicKeyBytes);
-        // add version head to pubKeyHash
-        pubKeyHash = ByteUtil.concat(VERSION_USER, pubKeyHash);
-        return pubKeyHash;
+        return getPublicKeyHash(VERSION_USER, publicKeyBytes);
     }
 
     /**
@@ -76,10 +89,7 @@ public class HashUtil {
      * @return byte[] hash bytes
      */
     public static byte[] getContractPubKeyHash(byte[] publicKeyBytes) {
-        byte[] pubKeyHash = getPublicKeyHash(publicKeyBytes);
-        // add version head to pubKeyHash
-        pubKeyHash = ByteUtil.concat(VERSION_CONTRACT, pubKeyHash);
-        return pubKeyHash;
+        return getPublicKeyHash(VERSION_CONTRACT, publicKeyBytes);
     }
 
     /**
@@ -106,9 +116,46 @@ public class HashUtil {
      * @return byte[] the checksum of versionedPayload
      */
     public static byte[] getPubKeyHashChecksum(byte[] pubKeyHash, int length) {
-        byte[] firstSHA = ShaDigest.sha256(pubKeyHash);
-        byte[] secondSHA = ShaDigest.sha256(firstSHA);
-        return ByteUtil.slice(secondSHA, 0, length);
+        return Arrays.copyOf(doubleSha256(pubKeyHash, 0, pubKeyHash.length), length);
+    }
+
+    /**
+     * Write the checksum of pubKeyHash into an array.
+     * @param pubKeyHash orginal data
+     * @param out        destination array
+     * @param offset     start index in destination
+     * @param length     the checksum's length
+     */
+    public static void writePubKeyHashChecksum(byte[] pubKeyHash, byte[] out, int offset, int length) {
+        System.arraycopy(doubleSha256(pubKeyHash, 0, pubKeyHash.length), 0, out, offset, length);
+    }
+
+    /**
+     * Returns if the tail of payload is the checksum of bytes before it.
+     * @param fullPayload pubKeyHash followed by checksum
+     * @param length      the checksum's length
+     * @return boolean true/false
+     */
+    public static boolean matchesPubKeyHashChecksum(byte[] fullPayload, int length) {
+        int dataLength = fullPayload.length - length;
+        byte[] checksum = doubleSha256(fullPayload, 0, dataLength);
+        for (int i = 0; i < length; i++) {
+            if (checksum[i] != fullPayload[dataLength + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns sha256 of sha256 of data in the hash buffer of current thread, valid until the next hash.
+     */
+    private static byte[] doubleSha256(byte[] data, int offset, int length) {
+        byte[] buffer = HASH_BUFFERS.get();
+        DigestEngine sha256 = DigestEngine.sha256();
+        sha256.digest(data, offset, length, buffer, 0);
+        sha256.digest(buffer, 0, 32, buffer, 0);
+        return buffer;
     }
 
     /**
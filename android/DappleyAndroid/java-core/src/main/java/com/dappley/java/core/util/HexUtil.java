@@ -1,12 +1,14 @@
 package com.dappley.java.core.util;
 
 import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 import org.spongycastle.util.encoders.Hex;
 
 /**
  * Utils of Hex string format.
  */
 public class HexUtil {
+    private static final char[] HEX_CHARS = "0123456789abcdef".toCharArray();
 
     /**
      * Convert byte[] into String in Hex format.
@@ -19,11 +21,19 @@ public class HexUtil {
 
     /**
      * Convert byteString into String in Hex format.
+     * <p>Bytes are read in place without copying to a new array.</p>
      * @param byteString original data
      * @return String hex format string
      */
     public static String toHex(ByteString byteString) {
-        return toHex(byteString.toByteArray());
+        int size = byteString.size();
+        char[] chars = new char[size * 2];
+        for (int i = 0; i < size; i++) {
+            int b = byteString.byteAt(i) & 0xff;
+            chars[i * 2] = HEX_CHARS[b >>> 4];
+            chars[i * 2 + 1] = HEX_CHARS[b & 0x0f];
+        }
+        return new String(chars);
     }
 
     /**
@@ -41,6 +51,7 @@ public class HexUtil {
      * @return ByteString decoded ByteString
      */
     public static ByteString toByteString(String hex) {
-        return ByteString.copyFrom(toBytes(hex));
+        // decoded array is not shared, no need to copy
+        return UnsafeByteOperations.unsafeWrap(toBytes(hex));
     }
 }
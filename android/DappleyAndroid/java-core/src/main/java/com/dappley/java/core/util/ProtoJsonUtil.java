@@ -0,0 +1,372 @@
+package com.dappley.java.core.util;
+
+import com.google.common.primitives.UnsignedInts;
+import com.google.common.primitives.UnsignedLongs;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DynamicMessage;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.MessageOrBuilder;
+import com.google.protobuf.UnsafeByteOperations;
+import org.spongycastle.util.encoders.Base64;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Utils of converting protobuf messages to and from JSON in proto3 JSON format.
+ * <p>Messages are written to and read from gson streams field by field, so a large message is never
+ * buffered as a whole JSON string or tree.</p>
+ * <p>Fields are named in lowerCamelCase, bytes are in base64, 64-bit integers are strings
+ * and enums are names. Fields with default values are omitted. Unknown fields are skipped when reading.</p>
+ * <p>{@code google.protobuf.Any} values are objects with an {@code @type} URL and the fields of the packed message,
+ * whose type has to be registered by {@link #registerTypes(Descriptors.FileDescriptor)} first.</p>
+ */
+public class ProtoJsonUtil {
+    private static final String TYPE_FIELD = "@type";
+    private static final Map<Descriptors.Descriptor, Map<String, Descriptors.FieldDescriptor>> FIELDS = new ConcurrentHashMap<>();
+    private static final Map<String, Descriptors.Descriptor> TYPES = new ConcurrentHashMap<>();
+
+    /**
+     * Register message types of a proto file, so that they can be packed in Any values.
+     * @param file descriptor of proto file, such as RpcProto.getDescriptor()
+     */
+    public static void registerTypes(Descriptors.FileDescriptor file) {
+        for (Descriptors.Descriptor descriptor : file.getMessageTypes()) {
+            registerType(descriptor);
+        }
+    }
+
+    /**
+     * Register a message type and its nested types, so that they can be packed in Any values.
+     * @param descriptor descriptor of message type
+     */
+    public static void registerType(Descriptors.Descriptor descriptor) {
+        TYPES.put(descriptor.getFullName(), descriptor);
+        for (Descriptors.Descriptor nested : descriptor.getNestedTypes()) {
+            registerType(nested);
+        }
+    }
+
+    /**
+     * Write message into JSON stream.
+     * @param writer  JSON stream
+     * @param message original message
+     * @throws IOException
+     */
+    public static void write(JsonWriter writer, MessageOrBuilder message) throws IOException {
+        writer.beginObject();
+        if (message.getDescriptorForType().getFullName().equals(Any.getDescriptor().getFullName())) {
+            writeAny(writer, message);
+        } else {
+            writeFields(writer, message);
+        }
+        writer.endObject();
+    }
+
+    private static void writeFields(JsonWriter writer, MessageOrBuilder message) throws IOException {
+        for (Map.Entry<Descriptors.FieldDescriptor, Object> entry : message.getAllFields().entrySet()) {
+            Descriptors.FieldDescriptor field = entry.getKey();
+            writer.name(field.getJsonName());
+            if (field.isMapField()) {
+                writeMap(writer, field, (List<?>) entry.getValue());
+            } else if (field.isRepeated()) {
+                writer.beginArray();
+                for (Object value : (List<?>) entry.getValue()) {
+                    writeValue(writer, field, value);
+                }
+                writer.endArray();
+            } else {
+                writeValue(writer, field, entry.getValue());
+            }
+        }
+    }
+
+    private static void writeAny(JsonWriter writer, MessageOrBuilder any) throws IOException {
+        Descriptors.Descriptor anyType = any.getDescriptorForType();
+        String typeUrl = (String) any.getField(anyType.findFieldByName("type_url"));
+        ByteString value = (ByteString) any.getField(anyType.findFieldByName("value"));
+        if (typeUrl.isEmpty()) {
+            return;
+        }
+        Descriptors.Descriptor type = findType(typeUrl);
+        writer.name(TYPE_FIELD).value(typeUrl);
+        try {
+            writeFields(writer, DynamicMessage.parseFrom(type, value));
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalStateException("invalid value of " + typeUrl, e);
+        }
+    }
+
+    /**
+     * Read a JSON object from stream and merge its fields into builder.
+     * @param reader  JSON stream positioned at an object
+     * @param builder message builder
+     * @throws IOException           if the stream fails or is not valid JSON
+     * @throws IllegalStateException if a value doesn't match the field type
+     */
+    public static void merge(JsonReader reader, Message.Builder builder) throws IOException {
+        if (builder.getDescriptorForType().getFullName().equals(Any.getDescriptor().getFullName())) {
+            mergeAny(reader, builder);
+            return;
+        }
+        reader.beginObject();
+        mergeFields(reader, builder);
+        reader.endObject();
+    }
+
+    /**
+     * Merge the remaining fields of current JSON object into builder.
+     */
+    private static void mergeFields(JsonReader reader, Message.Builder builder) throws IOException {
+        Map<String, Descriptors.FieldDescriptor> fields = fieldsOf(builder.getDescriptorForType());
+        while (reader.hasNext()) {
+            Descriptors.FieldDescriptor field = fields.get(reader.nextName());
+            if (field == null) {
+                reader.skipValue();
+                continue;
+            }
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            if (field.isMapField()) {
+                mergeMap(reader, builder, field);
+            } else if (field.isRepeated()) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    builder.addRepeatedField(field, readValue(reader, builder, field));
+                }
+                reader.endArray();
+            } else {
+                builder.setField(field, readValue(reader, builder, field));
+            }
+        }
+    }
+
+    private static void mergeAny(JsonReader reader, Message.Builder builder) throws IOException {
+        reader.beginObject();
+        if (!reader.hasNext()) {
+            reader.endObject();
+            return;
+        }
+        String name = reader.nextName();
+        if (TYPE_FIELD.equals(name)) {
+            String typeUrl = reader.nextString();
+            DynamicMessage.Builder value = DynamicMessage.newBuilder(findType(typeUrl));
+            mergeFields(reader, value);
+            reader.endObject();
+            setAny(builder, typeUrl, value.build());
+            return;
+        }
+        // the type is not the first field, which is rare, so the object is buffered to find it
+        JsonObject object = new JsonObject();
+        object.add(name, JsonParser.parseReader(reader));
+        while (reader.hasNext()) {
+            name = reader.nextName();
+            object.add(name, JsonParser.parseReader(reader));
+        }
+        reader.endObject();
+        JsonElement type = object.remove(TYPE_FIELD);
+        if (type == null || !type.isJsonPrimitive()) {
+            throw new IllegalStateException("type of any value is missing");
+        }
+        String typeUrl = type.getAsString();
+        DynamicMessage.Builder value = DynamicMessage.newBuilder(findType(typeUrl));
+        merge(new JsonReader(new StringReader(object.toString())), value);
+        setAny(builder, typeUrl, value.build());
+    }
+
+    private static void setAny(Message.Builder builder, String typeUrl, Message value) {
+        Descriptors.Descriptor anyType = builder.getDescriptorForType();
+        builder.setField(anyType.findFieldByName("type_url"), typeUrl);
+        builder.setField(anyType.findFieldByName("value"), value.toByteString());
+    }
+
+    /**
+     * Returns the registered message type of an Any type URL.
+     */
+    private static Descriptors.Descriptor findType(String typeUrl) {
+        String typeName = typeUrl.substring(typeUrl.lastIndexOf('/') + 1);
+        Descriptors.Descriptor type = TYPES.get(typeName);
+        if (type == null) {
+            throw new IllegalStateException("type " + typeUrl + " of any value is not registered");
+        }
+        return type;
+    }
+
+    private static void writeMap(JsonWriter writer, Descriptors.FieldDescriptor field, List<?> entries) throws IOException {
+        Descriptors.FieldDescriptor keyField = field.getMessageType().findFieldByName("key");
+        Descriptors.FieldDescriptor valueField = field.getMessageType().findFieldByName("value");
+        writer.beginObject();
+        for (Object entry : entries) {
+            Message entryMessage = (Message) entry;
+            writer.name(String.valueOf(entryMessage.getField(keyField)));
+            writeValue(writer, valueField, entryMessage.getField(valueField));
+        }
+        writer.endObject();
+    }
+
+    private static void writeValue(JsonWriter writer, Descriptors.FieldDescriptor field, Object value) throws IOException {
+        switch (field.getType()) {
+            case UINT32:
+            case FIXED32:
+                writer.value(UnsignedInts.toLong((Integer) value));
+                break;
+            case INT32:
+            case SINT32:
+            case SFIXED32:
+                writer.value((Integer) value);
+                break;
+            case UINT64:
+            case FIXED64:
+                writer.value(UnsignedLongs.toString((Long) value));
+                break;
+            case INT64:
+            case SINT64:
+            case SFIXED64:
+                writer.value(String.valueOf(value));
+                break;
+            case FLOAT:
+            case DOUBLE:
+                double number = ((Number) value).doubleValue();
+                if (Double.isNaN(number) || Double.isInfinite(number)) {
+                    writer.value(String.valueOf(number));
+                } else {
+                    writer.value(number);
+                }
+                break;
+            case BOOL:
+                writer.value((Boolean) value);
+                break;
+            case STRING:
+                writer.value((String) value);
+                break;
+            case BYTES:
+                writer.value(Base64.toBase64String(((ByteString) value).toByteArray()));
+                break;
+            case ENUM:
+                writer.value(((Descriptors.EnumValueDescriptor) value).getName());
+                break;
+            default:
+                write(writer, (MessageOrBuilder) value);
+        }
+    }
+
+    private static void mergeMap(JsonReader reader, Message.Builder builder, Descriptors.FieldDescriptor field) throws IOException {
+        Descriptors.FieldDescriptor keyField = field.getMessageType().findFieldByName("key");
+        Descriptors.FieldDescriptor valueField = field.getMessageType().findFieldByName("value");
+        reader.beginObject();
+        while (reader.hasNext()) {
+            Message.Builder entry = builder.newBuilderForField(field);
+            entry.setField(keyField, parseScalar(keyField, reader.nextName()));
+            entry.setField(valueField, readValue(reader, entry, valueField));
+            builder.addRepeatedField(field, entry.build());
+        }
+        reader.endObject();
+    }
+
+    private static Object readValue(JsonReader reader, Message.Builder builder, Descriptors.FieldDescriptor field) throws IOException {
+        switch (field.getType()) {
+            case MESSAGE:
+            case GROUP:
+                Message.Builder child = builder.newBuilderForField(field);
+                merge(reader, child);
+                return child.build();
+            case BOOL:
+                if (reader.peek() == JsonToken.STRING) {
+                    return Boolean.parseBoolean(reader.nextString());
+                }
+                return reader.nextBoolean();
+            case ENUM:
+                Descriptors.EnumDescriptor enumType = field.getEnumType();
+                if (reader.peek() == JsonToken.NUMBER) {
+                    return enumType.findValueByNumberCreatingIfUnknown(reader.nextInt());
+                }
+                String name = reader.nextString();
+                Descriptors.EnumValueDescriptor enumValue = enumType.findValueByName(name);
+                if (enumValue == null) {
+                    throw new IllegalStateException("unknown value " + name + " of enum " + enumType.getFullName());
+                }
+                return enumValue;
+            default:
+                // numbers are accepted both as JSON numbers and strings
+                return parseScalar(field, reader.nextString());
+        }
+    }
+
+    private static Object parseScalar(Descriptors.FieldDescriptor field, String text) {
+        switch (field.getType()) {
+            case UINT32:
+            case FIXED32:
+                return (int) Long.parseLong(text);
+            case INT32:
+            case SINT32:
+            case SFIXED32:
+                return Integer.parseInt(text);
+            case UINT64:
+            case FIXED64:
+                return UnsignedLongs.parseUnsignedLong(text);
+            case INT64:
+            case SINT64:
+            case SFIXED64:
+                return Long.parseLong(text);
+            case FLOAT:
+                return Float.parseFloat(text);
+            case DOUBLE:
+                return Double.parseDouble(text);
+            case BOOL:
+                return Boolean.parseBoolean(text);
+            case STRING:
+                return text;
+            case BYTES:
+                // decoded array is not shared, no need to copy
+                return UnsafeByteOperations.unsafeWrap(Base64.decode(toStandardBase64(text)));
+            default:
+                throw new IllegalStateException("field " + field.getFullName() + " is not a scalar");
+        }
+    }
+
+    /**
+     * Convert URL-safe or unpadded base64, which are also accepted by proto3 JSON format.
+     */
+    private static String toStandardBase64(String text) {
+        String standard = text.replace('-', '+').replace('_', '/');
+        switch (standard.length() % 4) {
+            case 2:
+                return standard + "==";
+            case 3:
+                return standard + "=";
+            default:
+                return standard;
+        }
+    }
+
+    /**
+     * Returns fields of message type by both JSON name and original name.
+     */
+    private static Map<String, Descriptors.FieldDescriptor> fieldsOf(Descriptors.Descriptor descriptor) {
+        Map<String, Descriptors.FieldDescriptor> fields = FIELDS.get(descriptor);
+        if (fields == null) {
+            fields = new HashMap<>();
+            for (Descriptors.FieldDescriptor field : descriptor.getFields()) {
+                fields.put(field.getName(), field);
+                fields.put(field.getJsonName(), field);
+            }
+            FIELDS.put(descriptor, fields);
+        }
+        return fields;
+    }
+}
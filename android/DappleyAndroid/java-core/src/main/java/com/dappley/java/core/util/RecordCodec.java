@@ -0,0 +1,518 @@
+package com.dappley.java.core.util;
+
+import com.dappley.java.core.po.Block;
+import com.dappley.java.core.po.BlockHeader;
+import com.dappley.java.core.po.Transaction;
+import com.dappley.java.core.po.TxInput;
+import com.dappley.java.core.po.TxOutput;
+import com.dappley.java.core.po.Utxo;
+import com.dappley.java.core.po.UtxoIndex;
+import com.google.protobuf.UnsafeByteOperations;
+
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Binary codec of persisted records.
+ * <p>A record starts with a magic byte, the format version and the record type. Integers are written as varints,
+ * 32-byte hashes as raw bytes behind a one byte marker, and other byte arrays and strings with a length prefix.
+ * Fields are written by position, so renaming or adding a POJO field doesn't change saved data;
+ * a new version is needed only when the written fields change.</p>
+ * <p>Records saved by Kryo before this format always start with 0x01, they are still decoded by
+ * {@link SerializeUtil}. Use {@link #isLegacy(byte[])} to find records to be rewritten.</p>
+ */
+public class RecordCodec {
+    /**
+     * first byte of a record, Kryo records start with 0x01 instead
+     */
+    private static final byte MAGIC = (byte) 0xDA;
+    public static final int VERSION = 1;
+
+    private static final byte TYPE_BLOCK = 1;
+    private static final byte TYPE_TRANSACTIONS = 2;
+    private static final byte TYPE_UTXO = 3;
+    private static final byte TYPE_UTXO_INDEXES = 4;
+
+    private static final int HASH_SIZE = 32;
+    private static final int MARK_NULL = 0;
+    private static final int MARK_HASH = 1;
+    private static final int MARK_VARIABLE = 2;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * Returns if the record was saved by Kryo before this format.
+     * @param bytes saved record
+     * @return boolean true/false
+     */
+    public static boolean isLegacy(byte[] bytes) {
+        return bytes != null && bytes.length > 0 && bytes[0] != MAGIC;
+    }
+
+    /**
+     * Serialize block with its transactions.
+     * @param block object
+     * @return byte[] record bytes
+     */
+    public static byte[] encodeBlock(Block block) {
+        Writer writer = new Writer(256, TYPE_BLOCK);
+        BlockHeader header = block.getHeader();
+        writer.writeVarInt(header == null ? 0 : 1);
+        if (header != null) {
+            writer.writeHash(header.getHash());
+            writer.writeHash(header.getPreviousHash());
+            writer.writeVarLong(header.getNonce());
+            writer.writeVarLong(header.getTimestamp());
+            writer.writeBytes(header.getSignature());
+            writer.writeVarLong(header.getHeight());
+        }
+        writer.writeHash(block.getParentHash());
+        writeTransactions(writer, block.getTransactions());
+        return writer.toBytes();
+    }
+
+    /**
+     * Deserialize block, saved by this codec or by Kryo.
+     * @param bytes record bytes
+     * @return Block object
+     */
+    public static Block decodeBlock(byte[] bytes) {
+        if (isLegacy(bytes)) {
+            return SerializeUtil.decode(bytes, Block.class);
+        }
+        Reader reader = new Reader(bytes, TYPE_BLOCK);
+        Block block = new Block();
+        if (reader.readVarInt() != 0) {
+            BlockHeader header = new BlockHeader();
+            header.setHash(reader.readHash());
+            header.setPreviousHash(reader.readHash());
+            header.setNonce(reader.readVarLong());
+            header.setTimestamp(reader.readVarLong());
+            header.setSignature(reader.readBytes());
+            header.setHeight(reader.readVarLong());
+            block.setHeader(header);
+        }
+        block.setParentHash(reader.readHash());
+        block.setTransactions(readTransactions(reader));
+        reader.finish();
+        return block;
+    }
+
+    /**
+     * Serialize transaction list.
+     * @param transactions transaction list
+     * @return byte[] record bytes
+     */
+    public static byte[] encodeTransactions(List<Transaction> transactions) {
+        Writer writer = new Writer(256 * (transactions == null ? 1 : transactions.size() + 1), TYPE_TRANSACTIONS);
+        writeTransactions(writer, transactions);
+        return writer.toBytes();
+    }
+
+    /**
+     * Deserialize transaction list, saved by this codec or by Kryo.
+     * @param bytes record bytes
+     * @return List<Transaction> transaction list
+     */
+    public static List<Transaction> decodeTransactions(byte[] bytes) {
+        if (isLegacy(bytes)) {
+            return SerializeUtil.decodeList(bytes, Transaction.class);
+        }
+        Reader reader = new Reader(bytes, TYPE_TRANSACTIONS);
+        List<Transaction> transactions = readTransactions(reader);
+        reader.finish();
+        return transactions;
+    }
+
+    /**
+     * Serialize utxo.
+     * @param utxo object
+     * @return byte[] record bytes
+     */
+    public static byte[] encodeUtxo(Utxo utxo) {
+        Writer writer = new Writer(96, TYPE_UTXO);
+        writer.writeBigInteger(utxo.getAmount());
+        writer.writeBytes(utxo.getPublicKeyHash());
+        writer.writeHash(utxo.getTxId());
+        writer.writeVarInt(utxo.getVoutIndex());
+        return writer.toBytes();
+    }
+
+    /**
+     * Deserialize utxo, saved by this codec or by Kryo.
+     * @param bytes record bytes
+     * @return Utxo object
+     */
+    public static Utxo decodeUtxo(byte[] bytes) {
+        if (isLegacy(bytes)) {
+            return SerializeUtil.decode(bytes, Utxo.class);
+        }
+        Reader reader = new Reader(bytes, TYPE_UTXO);
+        Utxo utxo = new Utxo();
+        utxo.setAmount(reader.readBigInteger());
+        utxo.setPublicKeyHash(reader.readBytes());
+        utxo.setTxId(reader.readHash());
+        utxo.setVoutIndex(reader.readVarInt());
+        reader.finish();
+        return utxo;
+    }
+
+    /**
+     * Serialize utxo index set.
+     * <p>Transaction id in hex format is saved as raw bytes.</p>
+     * @param utxoIndexSet index set
+     * @return byte[] record bytes
+     */
+    public static byte[] encodeUtxoIndexSet(Set<UtxoIndex> utxoIndexSet) {
+        Writer writer = new Writer(40 * (utxoIndexSet == null ? 1 : utxoIndexSet.size() + 1), TYPE_UTXO_INDEXES);
+        if (utxoIndexSet == null) {
+            writer.writeVarInt(0);
+            return writer.toBytes();
+        }
+        writer.writeVarInt(utxoIndexSet.size() + 1);
+        for (UtxoIndex utxoIndex : utxoIndexSet) {
+            writer.writeHex(utxoIndex.getTxId());
+            writer.writeVarInt(utxoIndex.getVoutIndex());
+        }
+        return writer.toBytes();
+    }
+
+    /**
+     * Deserialize utxo index set, saved by this codec or by Kryo.
+     * @param bytes record bytes
+     * @return HashSet<UtxoIndex> index set
+     */
+    public static HashSet<UtxoIndex> decodeUtxoIndexSet(byte[] bytes) {
+        if (isLegacy(bytes)) {
+            return SerializeUtil.decodeSet(bytes, UtxoIndex.class);
+        }
+        Reader reader = new Reader(bytes, TYPE_UTXO_INDEXES);
+        int count = reader.readCount();
+        if (count < 0) {
+            reader.finish();
+            return null;
+        }
+        HashSet<UtxoIndex> utxoIndexSet = new HashSet<>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; i++) {
+            String txId = reader.readHex();
+            utxoIndexSet.add(new UtxoIndex(txId, reader.readVarInt()));
+        }
+        reader.finish();
+        return utxoIndexSet;
+    }
+
+    private static void writeTransactions(Writer writer, List<Transaction> transactions) {
+        if (transactions == null) {
+            writer.writeVarInt(0);
+            return;
+        }
+        writer.writeVarInt(transactions.size() + 1);
+        for (Transaction transaction : transactions) {
+            writer.writeHash(transaction.getId());
+            List<TxInput> txInputs = transaction.getTxInputs();
+            writer.writeVarInt(txInputs == null ? 0 : txInputs.size() + 1);
+            if (txInputs != null) {
+                for (TxInput txInput : txInputs) {
+                    writer.writeHash(txInput.getTxId());
+                    writer.writeVarInt(txInput.getVout());
+                    writer.writeBytes(txInput.getSignature());
+                    writer.writeBytes(txInput.getPublicKey());
+                }
+            }
+            List<TxOutput> txOutputs = transaction.getTxOutputs();
+            writer.writeVarInt(txOutputs == null ? 0 : txOutputs.size() + 1);
+            if (txOutputs != null) {
+                for (TxOutput txOutput : txOutputs) {
+                    writer.writeBytes(txOutput.getValue());
+                    writer.writeBytes(txOutput.getPublicKeyHash());
+                    writer.writeString(txOutput.getContract());
+                }
+            }
+            writer.writeBigInteger(transaction.getTip());
+            writer.writeBigInteger(transaction.getGasLimit());
+            writer.writeBigInteger(transaction.getGasPrice());
+            writer.writeVarInt(transaction.getType());
+        }
+    }
+
+    private static List<Transaction> readTransactions(Reader reader) {
+        int count = reader.readCount();
+        if (count < 0) {
+            return null;
+        }
+        List<Transaction> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setId(reader.readHash());
+            int inputCount = reader.readCount();
+            if (inputCount >= 0) {
+                List<TxInput> txInputs = new ArrayList<>(inputCount);
+                for (int j = 0; j < inputCount; j++) {
+                    TxInput txInput = new TxInput();
+                    txInput.setTxId(reader.readHash());
+                    txInput.setVout(reader.readVarInt());
+                    txInput.setSignature(reader.readBytes());
+                    txInput.setPublicKey(reader.readBytes());
+                    txInputs.add(txInput);
+                }
+                transaction.setTxInputs(txInputs);
+            }
+            int outputCount = reader.readCount();
+            if (outputCount >= 0) {
+                List<TxOutput> txOutputs = new ArrayList<>(outputCount);
+                for (int j = 0; j < outputCount; j++) {
+                    TxOutput txOutput = new TxOutput();
+                    txOutput.setValue(reader.readBytes());
+                    txOutput.setPublicKeyHash(reader.readBytes());
+                    txOutput.setContract(reader.readString());
+                    txOutputs.add(txOutput);
+                }
+                transaction.setTxOutputs(txOutputs);
+            }
+            transaction.setTip(reader.readBigInteger());
+            transaction.setGasLimit(reader.readBigInteger());
+            transaction.setGasPrice(reader.readBigInteger());
+            transaction.setType(reader.readVarInt());
+            transactions.add(transaction);
+        }
+        return transactions;
+    }
+
+    /**
+     * Growable buffer of a record.
+     */
+    private static class Writer {
+        private byte[] buffer;
+        private int size;
+
+        private Writer(int capacity, byte type) {
+            buffer = new byte[Math.max(capacity, 16)];
+            buffer[0] = MAGIC;
+            buffer[1] = (byte) VERSION;
+            buffer[2] = type;
+            size = 3;
+        }
+
+        private void ensure(int count) {
+            if (size + count > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + count));
+            }
+        }
+
+        /**
+         * Write zigzag varint, so small negative values are short too.
+         */
+        private void writeVarInt(int value) {
+            writeVarLong(value);
+        }
+
+        private void writeVarLong(long value) {
+            long zigzag = (value << 1) ^ (value >> 63);
+            ensure(10);
+            while ((zigzag & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            buffer[size++] = (byte) zigzag;
+        }
+
+        private void writeRaw(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        /**
+         * Write length + 1 and bytes, 0 for null.
+         */
+        private void writeBytes(byte[] bytes) {
+            if (bytes == null) {
+                writeVarInt(0);
+                return;
+            }
+            writeVarInt(bytes.length + 1);
+            writeRaw(bytes);
+        }
+
+        private void writeHash(byte[] hash) {
+            if (hash == null) {
+                writeVarInt(MARK_NULL);
+            } else if (hash.length == HASH_SIZE) {
+                writeVarInt(MARK_HASH);
+                writeRaw(hash);
+            } else {
+                writeVarInt(MARK_VARIABLE);
+                writeBytes(hash);
+            }
+        }
+
+        /**
+         * Write hash in hex format as raw bytes if it can be restored to the same string.
+         */
+        private void writeHex(String hex) {
+            byte[] hash = parseLowerHex(hex);
+            if (hash != null) {
+                writeVarInt(MARK_HASH);
+                writeRaw(hash);
+                return;
+            }
+            if (hex == null) {
+                writeVarInt(MARK_NULL);
+                return;
+            }
+            writeVarInt(MARK_VARIABLE);
+            writeString(hex);
+        }
+
+        /**
+         * Returns bytes of a 32-byte hash in lower case hex, null for other strings.
+         */
+        private static byte[] parseLowerHex(String hex) {
+            if (hex == null || hex.length() != HASH_SIZE * 2) {
+                return null;
+            }
+            byte[] hash = new byte[HASH_SIZE];
+            for (int i = 0; i < HASH_SIZE; i++) {
+                int high = lowerHexDigit(hex.charAt(i * 2));
+                int low = lowerHexDigit(hex.charAt(i * 2 + 1));
+                if (high < 0 || low < 0) {
+                    return null;
+                }
+                hash[i] = (byte) (high << 4 | low);
+            }
+            return hash;
+        }
+
+        private static int lowerHexDigit(char c) {
+            if (c >= '0' && c <= '9') {
+                return c - '0';
+            }
+            if (c >= 'a' && c <= 'f') {
+                return c - 'a' + 10;
+            }
+            return -1;
+        }
+
+        private void writeString(String value) {
+            writeBytes(value == null ? null : value.getBytes(UTF_8));
+        }
+
+        private void writeBigInteger(BigInteger value) {
+            writeBytes(value == null ? null : value.toByteArray());
+        }
+
+        private byte[] toBytes() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    /**
+     * Reader of a record, fails on malformed data.
+     */
+    private static class Reader {
+        private final byte[] bytes;
+        private int position;
+
+        private Reader(byte[] bytes, byte type) {
+            if (bytes == null || bytes.length < 3 || bytes[0] != MAGIC) {
+                throw new IllegalArgumentException("not a record of this codec.");
+            }
+            if (bytes[1] != VERSION) {
+                throw new IllegalArgumentException("unsupported record version " + bytes[1]);
+            }
+            if (bytes[2] != type) {
+                throw new IllegalArgumentException("record type is " + bytes[2] + ", expected " + type);
+            }
+            this.bytes = bytes;
+            this.position = 3;
+        }
+
+        private int readVarInt() {
+            long value = readVarLong();
+            if (value != (int) value) {
+                throw new IllegalArgumentException("varint overflow.");
+            }
+            return (int) value;
+        }
+
+        private long readVarLong() {
+            long zigzag = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                zigzag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return (zigzag >>> 1) ^ -(zigzag & 1);
+                }
+            }
+            throw new IllegalArgumentException("malformed varint.");
+        }
+
+        private byte readByte() {
+            if (position >= bytes.length) {
+                throw new IllegalArgumentException("record is truncated.");
+            }
+            return bytes[position++];
+        }
+
+        private byte[] readRaw(int length) {
+            if (length < 0 || length > bytes.length - position) {
+                throw new IllegalArgumentException("record is truncated.");
+            }
+            byte[] raw = Arrays.copyOfRange(bytes, position, position + length);
+            position += length;
+            return raw;
+        }
+
+        /**
+         * Returns element count, -1 for null.
+         */
+        private int readCount() {
+            int count = readVarInt() - 1;
+            if (count > bytes.length - position) {
+                throw new IllegalArgumentException("record is truncated.");
+            }
+            return count;
+        }
+
+        private byte[] readBytes() {
+            int length = readVarInt() - 1;
+            return length < 0 ? null : readRaw(length);
+        }
+
+        private byte[] readHash() {
+            int mark = readVarInt();
+            if (mark == MARK_NULL) {
+                return null;
+            }
+            return mark == MARK_HASH ? readRaw(HASH_SIZE) : readBytes();
+        }
+
+        private String readHex() {
+            int mark = readVarInt();
+            if (mark == MARK_NULL) {
+                return null;
+            }
+            return mark == MARK_HASH ? HexUtil.toHex(UnsafeByteOperations.unsafeWrap(readRaw(HASH_SIZE))) : readString();
+        }
+
+        private String readString() {
+            byte[] value = readBytes();
+            return value == null ? null : new String(value, UTF_8);
+        }
+
+        private BigInteger readBigInteger() {
+            byte[] value = readBytes();
+            return value == null ? null : new BigInteger(value);
+        }
+
+        private void finish() {
+            if (position != bytes.length) {
+                throw new IllegalArgumentException("unexpected bytes after record.");
+            }
+        }
+    }
+}
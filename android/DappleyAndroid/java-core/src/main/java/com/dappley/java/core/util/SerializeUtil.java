@@ -6,18 +6,40 @@ import com.esotericsoftware.kryo.io.Output;
 import com.esotericsoftware.kryo.serializers.CollectionSerializer;
 import com.esotericsoftware.kryo.serializers.JavaSerializer;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * Object serialize util.
+ * <p>Kryo instances, collection serializers and buffers are created once for each thread and reused by later calls.
+ * Serialized bytes are the same as those of a new Kryo instance, so data saved before can still be read.</p>
+ * <p>For the same reason classes are not registered to Kryo and collection elements keep Java serialization,
+ * both of which would change saved bytes. Records written by {@link RecordCodec} don't pay for them,
+ * and records of this util can be found by {@link RecordCodec#isLegacy(byte[])} to be rewritten.</p>
  */
 public class SerializeUtil {
+    /**
+     * initial size of output buffer
+     */
+    private static final int BUFFER_SIZE = 1024;
+    /**
+     * output buffer grown over this size is released after use
+     */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] EMPTY_BYTES = new byte[0];
+
+    private static final ThreadLocal<Engine> ENGINES = new ThreadLocal<Engine>() {
+        @Override
+        protected Engine initialValue() {
+            return new Engine();
+        }
+    };
 
     /**
      * Serialize object
@@ -25,12 +47,14 @@ public class SerializeUtil {
      * @return byte[] byte array
      */
     public static byte[] encode(Object obj) {
-        Kryo kryo = new Kryo();
-        Output output = new Output(1024);
-        kryo.writeObject(output, obj);
-        byte[] bytes = output.toBytes();
-        output.close();
-        return bytes;
+        Engine engine = acquire();
+        try {
+            Output output = engine.output();
+            engine.kryo.writeObject(output, obj);
+            return output.toBytes();
+        } finally {
+            release(engine);
+        }
     }
 
     /**
@@ -41,11 +65,12 @@ public class SerializeUtil {
      * @return T object
      */
     public static <T> T decode(byte[] bytes, Class<T> clazz) {
-        Kryo kryo = new Kryo();
-        Input input = new Input(bytes);
-        T t = kryo.readObject(input, clazz);
-        input.close();
-        return t;
+        Engine engine = acquire();
+        try {
+            return engine.kryo.readObject(engine.input(bytes), clazz);
+        } finally {
+            release(engine);
+        }
     }
 
     /**
@@ -56,24 +81,7 @@ public class SerializeUtil {
      * @return byte[] byte array
      */
     public static <T> byte[] encodeSet(Set<T> set, Class<T> clazz) {
-        Kryo kryo = new Kryo();
-        CollectionSerializer serializer = new CollectionSerializer();
-        serializer.setElementClass(clazz, new JavaSerializer());
-        kryo.register(clazz, new JavaSerializer());
-        kryo.register(HashSet.class, serializer);
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        Output output = new Output(baos);
-        kryo.writeObject(output, set);
-        output.flush();
-        output.close();
-        byte[] bytes = baos.toByteArray();
-        try {
-            baos.flush();
-            baos.close();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return bytes;
+        return encodeCollection(set, clazz);
     }
 
     /**
@@ -83,16 +91,14 @@ public class SerializeUtil {
      * @param <T>   the type of elements in set
      * @return HashSet<T>
      */
+    @SuppressWarnings("unchecked")
     public static <T> HashSet<T> decodeSet(byte[] bytes, Class<T> clazz) {
-        Kryo kryo = new Kryo();
-        CollectionSerializer serializer = new CollectionSerializer();
-        serializer.setElementClass(clazz, new JavaSerializer());
-        kryo.register(clazz, new JavaSerializer());
-        kryo.register(HashSet.class, serializer);
-        Input input = new Input(bytes);
-        HashSet<T> t = kryo.readObject(input, HashSet.class, serializer);
-        input.close();
-        return t;
+        Engine engine = acquire();
+        try {
+            return engine.kryo.readObject(engine.input(bytes), HashSet.class, engine.collectionSerializer(clazz));
+        } finally {
+            release(engine);
+        }
     }
 
     /**
@@ -103,24 +109,7 @@ public class SerializeUtil {
      * @return byte[] byte array
      */
     public static <T extends Serializable> byte[] encodeList(List<T> list, Class<T> clazz) {
-        Kryo kryo = new Kryo();
-        CollectionSerializer serializer = new CollectionSerializer();
-        serializer.setElementClass(clazz, new JavaSerializer());
-        kryo.register(clazz, new JavaSerializer());
-        kryo.register(ArrayList.class, serializer);
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        Output output = new Output(baos);
-        kryo.writeObject(output, list);
-        output.flush();
-        output.close();
-        byte[] bytes = baos.toByteArray();
-        try {
-            baos.flush();
-            baos.close();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return bytes;
+        return encodeCollection(list, clazz);
     }
 
     /**
@@ -130,15 +119,80 @@ public class SerializeUtil {
      * @param <T>   the type of elements in set
      * @return List<T>
      */
+    @SuppressWarnings("unchecked")
     public static <T extends Serializable> List<T> decodeList(byte[] bytes, Class<T> clazz) {
-        Kryo kryo = new Kryo();
-        CollectionSerializer serializer = new CollectionSerializer();
-        serializer.setElementClass(clazz, new JavaSerializer());
-        kryo.register(clazz, new JavaSerializer());
-        kryo.register(ArrayList.class, serializer);
-        Input input = new Input(bytes);
-        List<T> t = kryo.readObject(input, ArrayList.class, serializer);
-        input.close();
-        return t;
+        Engine engine = acquire();
+        try {
+            return engine.kryo.readObject(engine.input(bytes), ArrayList.class, engine.collectionSerializer(clazz));
+        } finally {
+            release(engine);
+        }
+    }
+
+    private static byte[] encodeCollection(Object collection, Class<?> clazz) {
+        Engine engine = acquire();
+        try {
+            Output output = engine.output();
+            engine.kryo.writeObject(output, collection, engine.collectionSerializer(clazz));
+            return output.toBytes();
+        } finally {
+            release(engine);
+        }
+    }
+
+    /**
+     * Returns the engine of current thread, or a new one if it's being used by an outer call.
+     */
+    private static Engine acquire() {
+        Engine engine = ENGINES.get();
+        if (engine.inUse) {
+            return new Engine();
+        }
+        engine.inUse = true;
+        return engine;
+    }
+
+    private static void release(Engine engine) {
+        engine.inUse = false;
+        engine.input.setBuffer(EMPTY_BYTES);
+        if (engine.output.getBuffer().length > MAX_RETAINED_BUFFER_SIZE) {
+            engine.output = new Output(BUFFER_SIZE, -1);
+        }
+    }
+
+    /**
+     * Kryo instance with its serializers and buffers, used by one thread.
+     */
+    private static class Engine {
+        private final Kryo kryo = new Kryo();
+        /**
+         * elements are serialized by java serialization, as saved data was written in this way.
+         * Element classes are not registered to kryo, which would change the bytes of objects holding them.
+         */
+        private final JavaSerializer elementSerializer = new JavaSerializer();
+        private final Map<Class<?>, CollectionSerializer> collectionSerializers = new HashMap<>();
+        private final Input input = new Input();
+        private Output output = new Output(BUFFER_SIZE, -1);
+        private boolean inUse;
+
+        private Output output() {
+            output.clear();
+            return output;
+        }
+
+        private Input input(byte[] bytes) {
+            input.setBuffer(bytes);
+            return input;
+        }
+
+        private CollectionSerializer collectionSerializer(Class<?> elementClass) {
+            CollectionSerializer serializer = collectionSerializers.get(elementClass);
+            if (serializer == null) {
+                serializer = new CollectionSerializer();
+                serializer.setElementClass(elementClass, elementSerializer);
+                collectionSerializers.put(elementClass, serializer);
+            }
+            return serializer;
+        }
     }
 }
@@ -0,0 +1,100 @@
+package com.dappley.java.core.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shares one running load among all concurrent callers with the same key.
+ * <p>The first caller of a key runs the loader, callers arriving before it finishes wait and get the same result or exception.
+ * Nothing is kept after the load finished, so the next caller runs the loader again.</p>
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong sharedCount = new AtomicLong();
+
+    /**
+     * Returns the value loaded by the running call of this key, or run the loader if there is none.
+     * @param key    key of value
+     * @param loader loads value
+     * @return V value
+     */
+    public V execute(K key, Loader<V> loader) {
+        Flight<V> flight = new Flight<>();
+        Flight<V> running = flights.putIfAbsent(key, flight);
+        if (running != null) {
+            sharedCount.incrementAndGet();
+            return running.await();
+        }
+        loadCount.incrementAndGet();
+        try {
+            flight.value = loader.load();
+        } catch (RuntimeException | Error e) {
+            flight.error = e;
+        } finally {
+            flights.remove(key, flight);
+            flight.latch.countDown();
+        }
+        return flight.get();
+    }
+
+    /**
+     * Returns the number of loader runs.
+     * @return long run count
+     */
+    public long getLoadCount() {
+        return loadCount.get();
+    }
+
+    /**
+     * Returns the number of calls which got the result of another running call.
+     * @return long call count
+     */
+    public long getSharedCount() {
+        return sharedCount.get();
+    }
+
+    /**
+     * Loads the value of a key.
+     * @param <V> value type
+     */
+    public interface Loader<V> {
+        V load();
+    }
+
+    private static class Flight<V> {
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile V value;
+        private volatile Throwable error;
+
+        private V await() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    latch.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return get();
+        }
+
+        private V get() {
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            if (error instanceof Error) {
+                throw (Error) error;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.dappley.java.core.util;
+
+import com.dappley.java.core.po.Transaction;
+import com.dappley.java.core.po.TxInput;
+import com.dappley.java.core.po.TxOutput;
+
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * Serialize transactions in the format hashed for ids and signatures.
+ * <p>Fields are joined without separators, in order: inputs (txid, vout, public key, signature),
+ * outputs (value, public key hash, contract), tip, gas limit, gas price and type if it's not default.
+ * Null fields are skipped.</p>
+ * <p>The exact size is computed first, so the result is written into one array without intermediate ones.
+ * Hashes are computed by writing fields straight into the SHA-256 {@link com.dappley.java.core.crypto.DigestEngine}
+ * of current thread.</p>
+ */
+public class TransactionEncoder {
+    /**
+     * Serialize transaction with signatures.
+     * @param transaction transaction
+     * @return byte[] serialized bytes
+     */
+    public static byte[] serialize(Transaction transaction) {
+        return encode(transaction, true);
+    }
+
+    /**
+     * Serialize transaction without signatures, which is hashed to get the id.
+     * @param transaction transaction
+     * @return byte[] serialized bytes
+     */
+    public static byte[] idBytes(Transaction transaction) {
+        return encode(transaction, false);
+    }
+
+    /**
+     * Returns SHA-256 hash of serialized transaction, without creating the serialized bytes.
+     * @param transaction   transaction
+     * @param withSignature if signatures of inputs are hashed
+     * @return byte[] hash
+     */
+    public static byte[] hash(Transaction transaction, boolean withSignature) {
+        DigestSink sink = DigestSink.sha256();
+        write(transaction, withSignature, sink);
+        return sink.digest();
+    }
+
+    /**
+     * Write transaction into sink.
+     * @param transaction   transaction
+     * @param withSignature if signatures of inputs are written
+     * @param sink          destination
+     */
+    public static void write(Transaction transaction, boolean withSignature, ByteSink sink) {
+        writeInputs(transaction.getTxInputs(), withSignature, sink);
+        List<TxOutput> txOutputs = transaction.getTxOutputs();
+        if (txOutputs != null) {
+            for (TxOutput txOutput : txOutputs) {
+                writeOutput(txOutput, sink);
+            }
+        }
+        writeFees(transaction, sink);
+    }
+
+    /**
+     * Write inputs into sink.
+     * @param txInputs      input list, may be null
+     * @param withSignature if signatures are written
+     * @param sink          destination
+     */
+    public static void writeInputs(List<TxInput> txInputs, boolean withSignature, ByteSink sink) {
+        if (txInputs == null) {
+            return;
+        }
+        for (TxInput txInput : txInputs) {
+            sink.put(txInput.getTxId());
+            sink.putInt(txInput.getVout());
+            sink.put(txInput.getPublicKey());
+            if (withSignature) {
+                sink.put(txInput.getSignature());
+            }
+        }
+    }
+
+    /**
+     * Write value and public key hash of an output into sink.
+     * @param txOutput output
+     * @param sink     destination
+     */
+    public static void writeOutputHead(TxOutput txOutput, ByteSink sink) {
+        sink.put(txOutput.getValue());
+        sink.put(txOutput.getPublicKeyHash());
+    }
+
+    /**
+     * Write an output into sink.
+     * @param txOutput output
+     * @param sink     destination
+     */
+    public static void writeOutput(TxOutput txOutput, ByteSink sink) {
+        writeOutputHead(txOutput, sink);
+        if (txOutput.getContract() != null) {
+            sink.putUtf8(txOutput.getContract());
+        }
+    }
+
+    /**
+     * Write tip, gas limit, gas price and type into sink.
+     * @param transaction transaction
+     * @param sink        destination
+     */
+    public static void writeFees(Transaction transaction, ByteSink sink) {
+        if (transaction.getTip() != null) {
+            sink.putBigInteger(transaction.getTip());
+        }
+        if (transaction.getGasLimit() != null) {
+            sink.putBigInteger(transaction.getGasLimit());
+        }
+        if (transaction.getGasPrice() != null) {
+            sink.putBigInteger(transaction.getGasPrice());
+        }
+        if (transaction.getType() > Transaction.TxTypeDefault) {
+            sink.putInt(transaction.getType());
+        }
+    }
+
+    /**
+     * Returns the number of bytes written by {@link #write(Transaction, boolean, ByteSink)}.
+     * @param transaction   transaction
+     * @param withSignature if signatures of inputs are counted
+     * @return int byte count
+     */
+    public static int size(Transaction transaction, boolean withSignature) {
+        int size = 0;
+        List<TxInput> txInputs = transaction.getTxInputs();
+        if (txInputs != null) {
+            for (TxInput txInput : txInputs) {
+                size += length(txInput.getTxId()) + 4 + length(txInput.getPublicKey());
+                if (withSignature) {
+                    size += length(txInput.getSignature());
+                }
+            }
+        }
+        List<TxOutput> txOutputs = transaction.getTxOutputs();
+        if (txOutputs != null) {
+            for (TxOutput txOutput : txOutputs) {
+                size += length(txOutput.getValue()) + length(txOutput.getPublicKeyHash());
+                if (txOutput.getContract() != null) {
+                    size += ByteSink.utf8Size(txOutput.getContract());
+                }
+            }
+        }
+        size += length(transaction.getTip()) + length(transaction.getGasLimit()) + length(transaction.getGasPrice());
+        if (transaction.getType() > Transaction.TxTypeDefault) {
+            size += 4;
+        }
+        return size;
+    }
+
+    private static byte[] encode(Transaction transaction, boolean withSignature) {
+        ByteArraySink sink = new ByteArraySink(size(transaction, withSignature));
+        write(transaction, withSignature, sink);
+        return sink.toByteArray();
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static int length(BigInteger value) {
+        return value == null ? 0 : ByteSink.bigIntegerSize(value);
+    }
+}
@@ -0,0 +1,123 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.net.ProtocalProvider;
+import com.dappley.java.core.net.ProtocalProviderBuilder;
+import com.dappley.java.core.net.RemoteDataProvider;
+import com.dappley.java.core.po.BatchQueryResult;
+import com.dappley.java.core.po.ServerNode;
+import com.dappley.java.core.po.Utxo;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@Slf4j
+public class BatchQueryTest {
+    private static final int ADDRESS_COUNT = 40;
+    private static final int PARALLELISM = 4;
+    private static final BigInteger BALANCE = SimulatedNode.UTXO_AMOUNT.multiply(BigInteger.valueOf(SimulatedNode.UTXO_COUNT));
+
+    private SimulatedNode node;
+    private ProtocalProvider protocalProvider;
+    private RemoteDataProvider dataProvider;
+
+    @Before
+    public void setUp() throws Exception {
+        node = SimulatedNode.start();
+        node.setLatencyMillis(20);
+        protocalProvider = new ProtocalProviderBuilder()
+                .setType(RemoteDataProvider.RemoteProtocalType.RPC)
+                .setServerNodes(new ServerNode[]{node.getServerNode()})
+                .build();
+        dataProvider = new RemoteDataProvider(protocalProvider);
+        dataProvider.setBatchParallelism(PARALLELISM);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        protocalProvider.close();
+        node.stop();
+    }
+
+    @Test
+    public void boundedParallelism() {
+        List<String> addresses = addresses(ADDRESS_COUNT);
+        BatchQueryResult<BigInteger> result = dataProvider.getBalances(addresses);
+        Assert.assertTrue(result.isComplete());
+        Assert.assertEquals(addresses, new ArrayList<>(result.getValues().keySet()));
+        for (BigInteger balance : result.getValues().values()) {
+            Assert.assertEquals(BALANCE, balance);
+        }
+        Assert.assertEquals(ADDRESS_COUNT, node.getCallCount());
+        Assert.assertTrue(node.getMaxActiveCalls() > 1);
+        Assert.assertTrue(node.getMaxActiveCalls() <= PARALLELISM);
+    }
+
+    @Test
+    public void partialResult() {
+        node.rejectAddress("address3");
+        BatchQueryResult<List<Utxo>> result = dataProvider.getUtxos(addresses(6));
+        Assert.assertFalse(result.isComplete());
+        Assert.assertEquals(5, result.getValues().size());
+        Assert.assertEquals(SimulatedNode.UTXO_COUNT, result.getValues().get("address0").size());
+        Assert.assertFalse(result.getValues().containsKey("address3"));
+        Assert.assertTrue(result.getErrors().get("address3").contains("invalid address"));
+    }
+
+    @Test
+    public void duplicatedAddresses() {
+        BatchQueryResult<BigInteger> result = dataProvider.getBalances(Arrays.asList("address0", "address1", "address0"));
+        Assert.assertEquals(2, result.getValues().size());
+        Assert.assertEquals(2, node.getCallCount());
+        Assert.assertTrue(dataProvider.getBalances(new ArrayList<>()).isComplete());
+    }
+
+    @Test
+    public void sharedThreads() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        // warm up
+        Assert.assertTrue(dataProvider.getBalances(addresses(PARALLELISM * 2)).isComplete());
+        long startedThreads = threadBean.getTotalStartedThreadCount();
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(dataProvider.getBalances(addresses(PARALLELISM * 2)).isComplete());
+        }
+        long newThreads = threadBean.getTotalStartedThreadCount() - startedThreads;
+        log.debug("threads started by 10 batches: " + newThreads);
+        // a pool per batch would start PARALLELISM threads for each one
+        Assert.assertTrue(newThreads < 10 * PARALLELISM);
+    }
+
+    @Test
+    public void benchmark() {
+        TestFixtures.assumeBenchmarks();
+        List<String> addresses = addresses(ADDRESS_COUNT);
+        long start = System.currentTimeMillis();
+        for (String address : addresses) {
+            Assert.assertEquals(BigInteger.valueOf(protocalProvider.getBalance(address)), BALANCE);
+        }
+        long sequential = System.currentTimeMillis() - start;
+
+        dataProvider.setBatchParallelism(8);
+        start = System.currentTimeMillis();
+        Assert.assertTrue(dataProvider.getBalances(addresses).isComplete());
+        long batch = System.currentTimeMillis() - start;
+        log.info(String.format("balances of %d addresses with 20ms latency: sequential %dms, batch %dms",
+                ADDRESS_COUNT, sequential, batch));
+    }
+
+    private static List<String> addresses(int count) {
+        List<String> addresses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            addresses.add("address" + i);
+        }
+        return addresses;
+    }
+}
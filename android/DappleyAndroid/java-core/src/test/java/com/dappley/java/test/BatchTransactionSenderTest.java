@@ -0,0 +1,166 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.net.BatchTransactionSender;
+import com.dappley.java.core.net.RpcAsyncProtocalProvider;
+import com.dappley.java.core.net.RpcProtocalProvider;
+import com.dappley.java.core.po.SendTxResult;
+import com.dappley.java.core.po.ServerNode;
+import com.dappley.java.core.protobuf.TransactionProto;
+import com.dappley.java.core.util.ByteUtil;
+import com.google.protobuf.ByteString;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public class BatchTransactionSenderTest {
+    private SimulatedNode node;
+    private RpcAsyncProtocalProvider provider;
+
+    @Before
+    public void setUp() throws Exception {
+        node = SimulatedNode.start();
+        provider = new RpcAsyncProtocalProvider();
+        provider.init(new ServerNode[]{node.getServerNode()});
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        provider.close();
+        node.stop();
+    }
+
+    @Test
+    public void flushOnSize() throws Exception {
+        BatchTransactionSender sender = new BatchTransactionSender(provider);
+        sender.setMaxBatchSize(10);
+        sender.setLingerMillis(TimeUnit.MINUTES.toMillis(10));
+        List<CompletableFuture<SendTxResult>> futures = sendAll(sender, 0, 25);
+        allOf(futures.subList(0, 20));
+        Assert.assertEquals(Arrays.asList(10, 10), node.getBatchSizes());
+        Assert.assertFalse(futures.get(20).isDone());
+
+        sender.close();
+        allOf(futures);
+        Assert.assertEquals(Arrays.asList(10, 10, 5), node.getBatchSizes());
+        for (CompletableFuture<SendTxResult> future : futures) {
+            Assert.assertEquals(SendTxResult.CODE_SUCCESS, future.get().getCode());
+        }
+        Assert.assertEquals(3, sender.getBatchCount());
+    }
+
+    @Test
+    public void flushOnLinger() throws Exception {
+        BatchTransactionSender sender = new BatchTransactionSender(provider);
+        sender.setLingerMillis(50);
+        List<CompletableFuture<SendTxResult>> futures = sendAll(sender, 0, 3);
+        allOf(futures);
+        Assert.assertEquals(Arrays.asList(3), node.getBatchSizes());
+        sender.close();
+    }
+
+    @Test
+    public void transactionStatus() throws Exception {
+        node.rejectTransaction(txId(2));
+        node.rejectTransaction(txId(5));
+        BatchTransactionSender sender = new BatchTransactionSender(provider);
+        sender.setMaxBatchSize(8);
+        List<CompletableFuture<SendTxResult>> futures = sendAll(sender, 0, 8);
+        allOf(futures);
+        for (int i = 0; i < futures.size(); i++) {
+            SendTxResult result = futures.get(i).get();
+            if (i == 2 || i == 5) {
+                Assert.assertEquals(SendTxResult.CODE_ERROR_REJECTED, result.getCode());
+                Assert.assertTrue(result.getMsg().contains("transaction is invalid"));
+            } else {
+                Assert.assertEquals(SendTxResult.CODE_SUCCESS, result.getCode());
+            }
+        }
+        Assert.assertEquals(6, node.getAcceptedTxCount());
+        sender.close();
+
+        // blocking provider maps the same status
+        RpcProtocalProvider blockingProvider = new RpcProtocalProvider();
+        blockingProvider.init(new ServerNode[]{node.getServerNode()});
+        List<SendTxResult> results = blockingProvider.sendBatchTransaction(Arrays.asList(transaction(1), transaction(2)));
+        blockingProvider.close();
+        Assert.assertEquals(SendTxResult.CODE_SUCCESS, results.get(0).getCode());
+        Assert.assertEquals(SendTxResult.CODE_ERROR_REJECTED, results.get(1).getCode());
+    }
+
+    @Test
+    public void missingResults() throws Exception {
+        RpcAsyncProtocalProvider shortProvider = new RpcAsyncProtocalProvider() {
+            @Override
+            public CompletableFuture<List<SendTxResult>> sendBatchTransaction(List<TransactionProto.Transaction> transactions) {
+                // the last result is lost
+                return super.sendBatchTransaction(transactions).thenApply(results -> results.subList(0, results.size() - 1));
+            }
+        };
+        shortProvider.init(new ServerNode[]{node.getServerNode()});
+        BatchTransactionSender sender = new BatchTransactionSender(shortProvider);
+        sender.setMaxBatchSize(4);
+        List<CompletableFuture<SendTxResult>> futures = sendAll(sender, 0, 4);
+        allOf(futures);
+        for (CompletableFuture<SendTxResult> future : futures) {
+            Assert.assertEquals(SendTxResult.CODE_ERROR_EXCEPTION, future.get().getCode());
+        }
+        sender.close();
+        shortProvider.close();
+    }
+
+    @Test
+    public void benchmark() throws Exception {
+        TestFixtures.assumeBenchmarks();
+        int count = 2000;
+        RpcProtocalProvider blockingProvider = new RpcProtocalProvider();
+        blockingProvider.init(new ServerNode[]{node.getServerNode()});
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(SendTxResult.CODE_SUCCESS, blockingProvider.sendTransaction(transaction(i)).getCode());
+        }
+        double singleRate = count * 1e9 / (System.nanoTime() - start);
+        blockingProvider.close();
+
+        BatchTransactionSender sender = new BatchTransactionSender(provider);
+        start = System.nanoTime();
+        List<CompletableFuture<SendTxResult>> futures = sendAll(sender, count, count);
+        sender.flush();
+        allOf(futures);
+        double batchRate = count * 1e9 / (System.nanoTime() - start);
+        sender.close();
+
+        log.info(String.format("transactions per second: one by one %.0f, batched %.0f in %d batches", singleRate, batchRate, sender.getBatchCount()));
+        Assert.assertEquals(count * 2, node.getAcceptedTxCount());
+    }
+
+    private static List<CompletableFuture<SendTxResult>> sendAll(BatchTransactionSender sender, int from, int count) {
+        List<CompletableFuture<SendTxResult>> futures = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            futures.add(sender.sendTransaction(transaction(i)));
+        }
+        return futures;
+    }
+
+    private static void allOf(List<CompletableFuture<SendTxResult>> futures) throws Exception {
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(15, TimeUnit.SECONDS);
+    }
+
+    private static ByteString txId(int index) {
+        return ByteString.copyFrom(ByteUtil.int2Bytes(index));
+    }
+
+    private static TransactionProto.Transaction transaction(int index) {
+        return TransactionProto.Transaction.newBuilder()
+                .setId(txId(index))
+                .build();
+    }
+}
@@ -0,0 +1,127 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.net.BlockDownloader;
+import com.dappley.java.core.net.ProtocalProvider;
+import com.dappley.java.core.net.ProtocalProviderBuilder;
+import com.dappley.java.core.net.RemoteDataProvider;
+import com.dappley.java.core.po.Block;
+import com.dappley.java.core.po.BlockDownloadMetrics;
+import com.dappley.java.core.po.ServerNode;
+import com.dappley.java.core.util.HexUtil;
+import com.google.protobuf.ByteString;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+public class BlockDownloaderTest {
+    private static final long CHAIN_HEIGHT = 1000;
+
+    private SimulatedNode node;
+    private ProtocalProvider protocalProvider;
+
+    @Before
+    public void setUp() throws Exception {
+        node = SimulatedNode.start();
+        node.setChainHeight(CHAIN_HEIGHT);
+        node.setLatencyMillis(2);
+        protocalProvider = new ProtocalProviderBuilder()
+                .setType(RemoteDataProvider.RemoteProtocalType.RPC)
+                .setServerNodes(new ServerNode[]{node.getServerNode()})
+                .setChannelPoolSize(4)
+                .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        protocalProvider.close();
+        node.stop();
+    }
+
+    @Test
+    public void downloadInOrder() {
+        BlockDownloader downloader = new BlockDownloader(protocalProvider);
+        downloader.setParallelism(8);
+        downloader.setRangeSize(7);
+        List<Block> received = new ArrayList<>();
+        int[] maxBatch = new int[1];
+        BlockDownloadMetrics metrics = downloader.download(1, 300, hex(SimulatedNode.blockHash(0)), blocks -> {
+            received.addAll(blocks);
+            maxBatch[0] = Math.max(maxBatch[0], blocks.size());
+        });
+        Assert.assertTrue(metrics.isComplete());
+        Assert.assertEquals(300, metrics.getBlockCount());
+        Assert.assertEquals(43, metrics.getRangeCount());
+        Assert.assertEquals(7, maxBatch[0]);
+        for (int i = 0; i < received.size(); i++) {
+            Assert.assertEquals(i + 1, received.get(i).getHeader().getHeight());
+        }
+    }
+
+    @Test
+    public void pagedRanges() {
+        BlockDownloader downloader = new BlockDownloader(protocalProvider);
+        downloader.setRangeSize(50);
+        BlockDownloadMetrics metrics = downloader.download(1, 300, hex(SimulatedNode.blockHash(0)), blocks -> {
+        });
+        Assert.assertTrue(metrics.isComplete());
+        // one block by height and one page for each range
+        Assert.assertEquals(12, node.getCallCount());
+    }
+
+    @Test
+    public void cancelBeforeDownload() {
+        BlockDownloader downloader = new BlockDownloader(protocalProvider);
+        downloader.cancel();
+        List<Block> received = new ArrayList<>();
+        BlockDownloadMetrics metrics = downloader.download(1, 300, null, received::addAll);
+        Assert.assertFalse(metrics.isComplete());
+        Assert.assertTrue(received.isEmpty());
+        Assert.assertEquals(0, node.getCallCount());
+    }
+
+    @Test
+    public void stopOnUnlinkedBlock() {
+        BlockDownloader downloader = new BlockDownloader(protocalProvider);
+        List<Block> received = new ArrayList<>();
+        // local tail is not the parent of remote block 1
+        BlockDownloadMetrics metrics = downloader.download(1, 300, hex(SimulatedNode.blockHash(5)), received::addAll);
+        Assert.assertFalse(metrics.isComplete());
+        Assert.assertTrue(received.isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void missingBlock() {
+        BlockDownloader downloader = new BlockDownloader(protocalProvider);
+        downloader.setMaxRetries(0);
+        downloader.download(CHAIN_HEIGHT - 10, CHAIN_HEIGHT + 10, null, blocks -> {
+        });
+    }
+
+    @Test
+    public void benchmark() {
+        TestFixtures.assumeBenchmarks();
+        BlockDownloader sequential = new BlockDownloader(protocalProvider);
+        sequential.setParallelism(1);
+        BlockDownloadMetrics sequentialMetrics = sequential.download(1, CHAIN_HEIGHT, null, blocks -> {
+        });
+
+        BlockDownloader parallel = new BlockDownloader(protocalProvider);
+        parallel.setParallelism(8);
+        BlockDownloadMetrics parallelMetrics = parallel.download(1, CHAIN_HEIGHT, null, blocks -> {
+        });
+        log.info(String.format("blocks per second with 2ms latency: one worker %.0f, 8 workers %.0f",
+                sequentialMetrics.getBlocksPerSecond(), parallelMetrics.getBlocksPerSecond()));
+        Assert.assertTrue(parallelMetrics.isComplete());
+        Assert.assertTrue(parallelMetrics.getBlocksPerSecond() > sequentialMetrics.getBlocksPerSecond() * 2);
+    }
+
+    private static String hex(ByteString byteString) {
+        return HexUtil.toHex(byteString.toByteArray());
+    }
+}
@@ -0,0 +1,151 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.net.BlockSyncStream;
+import com.dappley.java.core.net.RpcAsyncProtocalProvider;
+import com.dappley.java.core.po.BlockSyncMetrics;
+import com.dappley.java.core.po.ServerNode;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+@Slf4j
+public class BlockSyncStreamTest {
+    private static final String TOPIC = BlockSyncStream.DEFAULT_TOPICS.get(0);
+
+    private SimulatedNode node;
+    private RpcAsyncProtocalProvider provider;
+    private ScheduledExecutorService scheduler;
+    private BlockSyncStream syncStream;
+    private final AtomicInteger syncCount = new AtomicInteger();
+    private volatile long syncMillis;
+
+    @Before
+    public void setUp() throws Exception {
+        node = SimulatedNode.start();
+        provider = new RpcAsyncProtocalProvider();
+        provider.init(new ServerNode[]{node.getServerNode()});
+        scheduler = Executors.newScheduledThreadPool(1);
+        syncStream = new BlockSyncStream(provider, () -> {
+            syncCount.incrementAndGet();
+            sleep(syncMillis);
+        }, scheduler);
+        // polling should not disturb push tests
+        syncStream.setPollPeriodMillis(TimeUnit.MINUTES.toMillis(10));
+        syncStream.setReconnectMillis(50, 200);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        syncStream.stop();
+        scheduler.shutdownNow();
+        provider.close();
+        node.stop();
+    }
+
+    @Test
+    public void pushTriggersSync() {
+        syncStream.start();
+        waitFor(() -> node.getSubscriberCount() == 1 && syncCount.get() == 1);
+
+        node.publish(TOPIC, "hash1");
+        waitFor(() -> syncCount.get() == 2);
+        node.publish("other", "hash2");
+        node.publish(TOPIC, "hash3");
+        waitFor(() -> syncCount.get() == 3);
+
+        BlockSyncMetrics metrics = syncStream.getMetrics();
+        log.debug("metrics: " + metrics);
+        Assert.assertTrue(metrics.isConnected());
+        Assert.assertEquals(2, metrics.getEventCount());
+        Assert.assertEquals(3, metrics.getSyncCount());
+        Assert.assertEquals(0, metrics.getPollCount());
+        Assert.assertTrue(metrics.getMaxLagMillis() < 1000);
+    }
+
+    @Test
+    public void mergeRequests() {
+        syncMillis = 100;
+        syncStream.start();
+        waitFor(() -> node.getSubscriberCount() == 1);
+        for (int i = 0; i < 20; i++) {
+            node.publish(TOPIC, "hash" + i);
+        }
+        waitFor(() -> syncStream.getMetrics().getEventCount() == 20);
+        sleep(500);
+        // initial run, the run started by first event and one merged run at most
+        log.debug("sync runs for 20 events: " + syncCount.get());
+        Assert.assertTrue(syncCount.get() <= 3);
+        Assert.assertTrue(syncStream.getMetrics().getLastSyncTime() >= syncStream.getMetrics().getLastEventTime());
+    }
+
+    @Test
+    public void reconnect() {
+        syncStream.start();
+        waitFor(() -> node.getSubscriberCount() == 1 && syncCount.get() == 1);
+
+        node.disconnectSubscribers();
+        // catch up at once and again after reconnected
+        waitFor(() -> syncStream.getMetrics().getReconnectCount() == 1 && node.getSubscriberCount() == 1);
+        waitFor(() -> syncCount.get() >= 3);
+        // connected again by the first message of new stream
+        Assert.assertFalse(syncStream.isConnected());
+
+        int count = syncCount.get();
+        node.publish(TOPIC, "hash");
+        waitFor(() -> syncCount.get() == count + 1);
+        Assert.assertTrue(syncStream.isConnected());
+    }
+
+    @Test
+    public void failedSubscribe() throws Exception {
+        node.stop();
+        syncStream.start();
+        waitFor(() -> syncStream.getMetrics().getReconnectCount() >= 2);
+        Assert.assertFalse(syncStream.isConnected());
+        Assert.assertEquals(0, syncStream.getMetrics().getEventCount());
+    }
+
+    @Test
+    public void pollWhileDisconnected() throws Exception {
+        syncStream.setPollPeriodMillis(100);
+        syncStream.setReconnectMillis(10_000, 10_000);
+        syncStream.start();
+        waitFor(() -> node.getSubscriberCount() == 1);
+        node.publish(TOPIC, "hash");
+        waitFor(syncStream::isConnected);
+
+        node.stop();
+        waitFor(() -> !syncStream.isConnected());
+        waitFor(() -> syncStream.getMetrics().getPollCount() >= 3);
+        Assert.assertEquals(0, syncStream.getMetrics().getReconnectCount());
+    }
+
+    private static void waitFor(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                Assert.fail("condition is not reached in time");
+            }
+            sleep(5);
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
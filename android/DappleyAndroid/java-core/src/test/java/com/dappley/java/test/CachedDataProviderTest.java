@@ -0,0 +1,251 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.net.CacheType;
+import com.dappley.java.core.net.CachedDataProvider;
+import com.dappley.java.core.net.DataProvider;
+import com.dappley.java.core.net.ProtocalProvider;
+import com.dappley.java.core.net.ProtocalProviderBuilder;
+import com.dappley.java.core.net.RemoteDataProvider;
+import com.dappley.java.core.po.BatchQueryResult;
+import com.dappley.java.core.po.Block;
+import com.dappley.java.core.po.BlockChainInfo;
+import com.dappley.java.core.po.CacheStats;
+import com.dappley.java.core.po.ContractQueryResult;
+import com.dappley.java.core.po.ServerNode;
+import com.dappley.java.core.po.Transaction;
+import com.dappley.java.core.po.Utxo;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public class CachedDataProviderTest {
+
+    @Test
+    public void gasPriceTtl() throws Exception {
+        CountingDataProvider counting = new CountingDataProvider();
+        CachedDataProvider provider = new CachedDataProvider(counting);
+        provider.setTtlMillis(CacheType.GAS_PRICE, 100);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(BigInteger.TEN, provider.getGasPrice());
+        }
+        Assert.assertEquals(1, counting.gasPriceCount);
+
+        TimeUnit.MILLISECONDS.sleep(150);
+        provider.getGasPrice();
+        Assert.assertEquals(2, counting.gasPriceCount);
+
+        CacheStats stats = provider.getStats(CacheType.GAS_PRICE);
+        Assert.assertEquals(9, stats.getHitCount());
+        Assert.assertEquals(2, stats.getMissCount());
+        Assert.assertEquals(1, stats.getSize());
+    }
+
+    @Test
+    public void invalidateOnNewBlock() {
+        CountingDataProvider counting = new CountingDataProvider();
+        CachedDataProvider provider = new CachedDataProvider(counting);
+        provider.setTtlMillis(CacheType.BLOCKCHAIN_INFO, 0);
+        Assert.assertEquals("01", provider.getBlockchainInfo().getTailBlockHash());
+        provider.getGasPrice();
+        provider.contractQuery("contract", "key", null);
+        provider.contractQuery("contract", "key", null);
+        Assert.assertEquals(1, counting.gasPriceCount);
+        Assert.assertEquals(1, counting.contractQueryCount);
+
+        // same tail keeps values
+        provider.getBlockchainInfo();
+        provider.getGasPrice();
+        Assert.assertEquals(1, counting.gasPriceCount);
+
+        counting.tailBlockHash = "02";
+        provider.getBlockchainInfo();
+        provider.getGasPrice();
+        provider.contractQuery("contract", "key", null);
+        Assert.assertEquals(2, counting.gasPriceCount);
+        Assert.assertEquals(2, counting.contractQueryCount);
+        Assert.assertEquals(1, provider.getStats(CacheType.CONTRACT_QUERY).getInvalidationCount());
+
+        // notified by block synchronizer
+        provider.onNewBlock("03");
+        provider.getGasPrice();
+        Assert.assertEquals(3, counting.gasPriceCount);
+    }
+
+    @Test
+    public void checkTail() throws Exception {
+        CountingDataProvider counting = new CountingDataProvider();
+        CachedDataProvider provider = new CachedDataProvider(counting);
+        provider.setTtlMillis(CacheType.BLOCKCHAIN_INFO, 100);
+        for (int i = 0; i < 5; i++) {
+            provider.getGasPrice();
+        }
+        Assert.assertEquals(1, counting.gasPriceCount);
+        Assert.assertEquals(1, counting.blockchainInfoCount);
+
+        // a new tail is seen once blockchain info expires, without being read by the caller
+        counting.tailBlockHash = "02";
+        provider.getGasPrice();
+        Assert.assertEquals(1, counting.gasPriceCount);
+        TimeUnit.MILLISECONDS.sleep(150);
+        provider.getGasPrice();
+        Assert.assertEquals(2, counting.gasPriceCount);
+        Assert.assertEquals(2, counting.blockchainInfoCount);
+        Assert.assertEquals(1, provider.getStats(CacheType.GAS_PRICE).getInvalidationCount());
+
+        // no check while the tail is pushed by a block synchronizer
+        provider.setCheckTail(false);
+        counting.tailBlockHash = "03";
+        TimeUnit.MILLISECONDS.sleep(150);
+        provider.getGasPrice();
+        Assert.assertEquals(2, counting.gasPriceCount);
+        Assert.assertEquals(2, counting.blockchainInfoCount);
+    }
+
+    @Test
+    public void contractQueryCopies() {
+        CountingDataProvider counting = new CountingDataProvider();
+        CachedDataProvider provider = new CachedDataProvider(counting);
+        ContractQueryResult first = provider.contractQuery("contract", "key", null);
+        first.setResultValue("changed");
+        ContractQueryResult second = provider.contractQuery("contract", "key", null);
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals("key", second.getResultKey());
+        Assert.assertNull(second.getResultValue());
+        Assert.assertEquals(1, counting.contractQueryCount);
+    }
+
+    @Test
+    public void boundedSize() {
+        CountingDataProvider counting = new CountingDataProvider();
+        CachedDataProvider provider = new CachedDataProvider(counting);
+        provider.setCheckTail(false);
+        provider.setMaxEntries(3);
+        for (int i = 0; i < 5; i++) {
+            provider.contractQuery("contract", "key" + i, null);
+        }
+        CacheStats stats = provider.getStats(CacheType.CONTRACT_QUERY);
+        Assert.assertEquals(3, stats.getSize());
+        Assert.assertEquals(2, stats.getEvictionCount());
+
+        // recently used values are kept
+        provider.contractQuery("contract", "key4", null);
+        Assert.assertEquals(5, counting.contractQueryCount);
+        provider.contractQuery("contract", "key0", null);
+        Assert.assertEquals(6, counting.contractQueryCount);
+    }
+
+    @Test
+    public void estimateGasNotCached() {
+        CountingDataProvider counting = new CountingDataProvider();
+        CachedDataProvider provider = new CachedDataProvider(counting);
+        Transaction transaction = new Transaction();
+        transaction.setTip(BigInteger.ONE);
+        provider.estimateGas(transaction);
+        provider.estimateGas(transaction);
+        Assert.assertEquals(2, counting.estimateGasCount);
+        // no tail check before uncached reads
+        Assert.assertEquals(0, counting.blockchainInfoCount);
+    }
+
+    @Test
+    public void nullNotCached() {
+        CountingDataProvider counting = new CountingDataProvider();
+        counting.tailBlockHash = null;
+        CachedDataProvider provider = new CachedDataProvider(counting);
+        Assert.assertNull(provider.getBlockchainInfo());
+        Assert.assertNull(provider.getBlockchainInfo());
+        Assert.assertEquals(2, counting.blockchainInfoCount);
+    }
+
+    @Test
+    public void remoteProvider() throws Exception {
+        SimulatedNode node = SimulatedNode.start();
+        ProtocalProvider protocalProvider = new ProtocalProviderBuilder()
+                .setType(RemoteDataProvider.RemoteProtocalType.RPC)
+                .setServerNodes(new ServerNode[]{node.getServerNode()})
+                .build();
+        CachedDataProvider provider = new CachedDataProvider(new RemoteDataProvider(protocalProvider));
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(BigInteger.TEN, provider.getGasPrice());
+            Assert.assertEquals(1, provider.getBlockchainInfo().getBlockHeight());
+        }
+        protocalProvider.close();
+        node.stop();
+        Assert.assertEquals(2, node.getCallCount());
+    }
+
+    private static class CountingDataProvider implements DataProvider {
+        private volatile String tailBlockHash = "01";
+        private int gasPriceCount;
+        private int estimateGasCount;
+        private int contractQueryCount;
+        private int blockchainInfoCount;
+
+        @Override
+        public List<Utxo> getUtxos(String address) {
+            return null;
+        }
+
+        @Override
+        public Block getBlockByHash(String hash) {
+            return null;
+        }
+
+        @Override
+        public List<Block> getBlocks(List<String> startHashs, int count) {
+            return null;
+        }
+
+        @Override
+        public BlockChainInfo getBlockchainInfo() {
+            blockchainInfoCount++;
+            if (tailBlockHash == null) {
+                return null;
+            }
+            BlockChainInfo blockChainInfo = new BlockChainInfo();
+            blockChainInfo.setTailBlockHash(tailBlockHash);
+            return blockChainInfo;
+        }
+
+        @Override
+        public BigInteger getBalance(String address) {
+            return BigInteger.ZERO;
+        }
+
+        @Override
+        public BatchQueryResult<List<Utxo>> getUtxos(Collection<String> addresses) {
+            return new BatchQueryResult<>();
+        }
+
+        @Override
+        public BatchQueryResult<BigInteger> getBalances(Collection<String> addresses) {
+            return new BatchQueryResult<>();
+        }
+
+        @Override
+        public BigInteger estimateGas(Transaction transaction) {
+            estimateGasCount++;
+            return BigInteger.ONE;
+        }
+
+        @Override
+        public BigInteger getGasPrice() {
+            gasPriceCount++;
+            return BigInteger.TEN;
+        }
+
+        @Override
+        public ContractQueryResult contractQuery(String contractAddress, String key, String value) {
+            contractQueryCount++;
+            ContractQueryResult result = new ContractQueryResult();
+            result.setResultKey(key);
+            return result;
+        }
+    }
+}
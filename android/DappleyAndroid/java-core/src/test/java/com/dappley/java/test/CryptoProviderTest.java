@@ -0,0 +1,152 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.crypto.CryptoProvider;
+import com.dappley.java.core.crypto.PrecomputedCryptoProvider;
+import com.dappley.java.core.crypto.Secp256k1;
+import com.dappley.java.core.crypto.ShaDigest;
+import com.dappley.java.core.crypto.SpongyCryptoProvider;
+import com.dappley.java.core.util.ByteUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongycastle.crypto.params.ECPublicKeyParameters;
+import org.spongycastle.crypto.signers.ECDSASigner;
+import org.spongycastle.math.ec.ECPoint;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+@Slf4j
+public class CryptoProviderTest {
+    private static final int KEY_COUNT = 4;
+    private static final int MESSAGE_COUNT = 8;
+    private static final int BENCHMARK_SIGNATURES = 200;
+
+    private final CryptoProvider spongy = new SpongyCryptoProvider();
+    private final CryptoProvider precomputed = new PrecomputedCryptoProvider();
+
+    @Test
+    public void sameSignatures() {
+        for (int k = 0; k < KEY_COUNT; k++) {
+            byte[] privateKey = privateKey(k);
+            CryptoProvider.Signer signer = precomputed.newSigner(privateKey);
+            for (int m = 0; m < MESSAGE_COUNT; m++) {
+                byte[] data = message(m);
+                byte[] sign = spongy.sign(data, privateKey);
+                Assert.assertArrayEquals(sign, signer.sign(data));
+                Assert.assertArrayEquals(sign, precomputed.sign(data, privateKey));
+                Assert.assertArrayEquals(sign, Secp256k1.Sign(data, privateKey));
+            }
+        }
+    }
+
+    @Test
+    public void sameVerifications() {
+        ECPoint publicKey = publicKey(0);
+        CryptoProvider.Verifier verifier = precomputed.newVerifier(publicKey);
+        BigInteger n = Secp256k1.CURVE.getN();
+        for (int m = 0; m < MESSAGE_COUNT; m++) {
+            byte[] data = message(m);
+            byte[] sign = spongy.sign(data, privateKey(0));
+            BigInteger r = new BigInteger(1, Arrays.copyOfRange(sign, 0, 32));
+            BigInteger s = new BigInteger(1, Arrays.copyOfRange(sign, 32, 64));
+
+            byte[] tampered = data.clone();
+            tampered[m] ^= 1;
+            assertSameResult(verifier, publicKey, data, sign, true);
+            assertSameResult(verifier, publicKey, tampered, sign, false);
+            assertSameResult(verifier, publicKey, data, withRS(sign, BigInteger.ZERO, s), false);
+            assertSameResult(verifier, publicKey, data, withRS(sign, r.add(n), s), false);
+            assertSameResult(verifier, publicKey, data, withRS(sign, r, s.add(n)), false);
+            // high s is accepted by ECDSA verification
+            assertSameResult(verifier, publicKey, data, withRS(sign, r, n.subtract(s)), true);
+            assertSameResult(precomputed.newVerifier(publicKey(1)), publicKey(1), data, sign, false);
+        }
+    }
+
+    @Test
+    public void benchmark() {
+        TestFixtures.assumeBenchmarks();
+        byte[] privateKey = privateKey(0);
+        ECPoint publicKey = publicKey(0);
+        byte[][] data = new byte[BENCHMARK_SIGNATURES][];
+        byte[][] signs = new byte[BENCHMARK_SIGNATURES][];
+        for (int i = 0; i < BENCHMARK_SIGNATURES; i++) {
+            data[i] = message(i);
+            signs[i] = spongy.sign(data[i], privateKey);
+        }
+        CryptoProvider.Signer signer = precomputed.newSigner(privateKey);
+        CryptoProvider.Verifier verifier = precomputed.newVerifier(publicKey);
+
+        long signRate = measure(() -> {
+            for (byte[] bytes : data) {
+                signer.sign(bytes);
+            }
+        });
+        long oneTimeRate = measure(() -> {
+            for (int i = 0; i < BENCHMARK_SIGNATURES; i++) {
+                Assert.assertTrue(precomputed.verify(data[i], signs[i], publicKey));
+            }
+        });
+        long reusedRate = measure(() -> {
+            for (int i = 0; i < BENCHMARK_SIGNATURES; i++) {
+                Assert.assertTrue(verifier.verify(data[i], signs[i]));
+            }
+        });
+        log.info(String.format("per second: signatures %d, one time verifications %d, verifications by a reused "
+                + "verifier %d", signRate, oneTimeRate, reusedRate));
+        Assert.assertTrue(reusedRate > oneTimeRate);
+    }
+
+    /**
+     * Returns operations per second of one round.
+     */
+    private static long measure(Runnable round) {
+        // warm up
+        round.run();
+        long start = System.nanoTime();
+        round.run();
+        return BENCHMARK_SIGNATURES * 1_000_000_000L / (System.nanoTime() - start);
+    }
+
+    private static void assertSameResult(CryptoProvider.Verifier verifier, ECPoint publicKey, byte[] data, byte[] sign,
+                                         boolean expected) {
+        ECDSASigner signer = new ECDSASigner();
+        signer.init(false, new ECPublicKeyParameters(publicKey, Secp256k1.CURVE));
+        BigInteger r = new BigInteger(1, Arrays.copyOfRange(sign, 0, 32));
+        BigInteger s = new BigInteger(1, Arrays.copyOfRange(sign, 32, 64));
+        Assert.assertEquals(expected, signer.verifySignature(data, r, s));
+        Assert.assertEquals(expected, verifier.verify(data, sign));
+        Assert.assertEquals(expected, Secp256k1.Verify(data, sign, publicKey));
+    }
+
+    /**
+     * Returns signature bytes with r and s replaced, values over 32 bytes keep their low 32 bytes.
+     */
+    private static byte[] withRS(byte[] sign, BigInteger r, BigInteger s) {
+        byte[] result = sign.clone();
+        System.arraycopy(low32(r), 0, result, 0, 32);
+        System.arraycopy(low32(s), 0, result, 32, 32);
+        return result;
+    }
+
+    private static byte[] low32(BigInteger value) {
+        byte[] bytes = ByteUtil.bigInteger2Bytes(value);
+        byte[] result = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, result, 32 - length, length);
+        return result;
+    }
+
+    private static byte[] privateKey(int index) {
+        return ShaDigest.sha256(("key" + index).getBytes());
+    }
+
+    private static ECPoint publicKey(int index) {
+        return Secp256k1.CURVE.getG().multiply(new BigInteger(1, privateKey(index))).normalize();
+    }
+
+    private static byte[] message(int index) {
+        return ShaDigest.sha256(ByteUtil.int2Bytes(index));
+    }
+}
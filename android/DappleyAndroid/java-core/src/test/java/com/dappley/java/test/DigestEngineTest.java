@@ -0,0 +1,152 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.crypto.DigestEngine;
+import com.dappley.java.core.util.AddressUtil;
+import com.dappley.java.core.util.Base58;
+import com.dappley.java.core.util.ByteUtil;
+import com.dappley.java.core.util.HashUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongycastle.jcajce.provider.digest.RIPEMD160;
+import org.spongycastle.jcajce.provider.digest.SHA256;
+import org.spongycastle.jcajce.provider.digest.SHA3;
+import org.spongycastle.util.Memoable;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Slf4j
+public class DigestEngineTest {
+    private static final int BENCHMARK_HASHES = 100_000;
+
+    @Test
+    public void sameDigests() {
+        for (int length : new int[]{0, 1, 31, 32, 55, 56, 64, 135, 136, 137, 1000}) {
+            byte[] data = data(length);
+            Assert.assertArrayEquals(new SHA256.Digest().digest(data), DigestEngine.sha256().digest(data));
+            Assert.assertArrayEquals(new SHA3.Digest256().digest(data), DigestEngine.sha3256().digest(data));
+            Assert.assertArrayEquals(new RIPEMD160.Digest().digest(data), DigestEngine.ripemd160().digest(data));
+        }
+    }
+
+    @Test
+    public void updateInParts() {
+        byte[] data = data(300);
+        byte[] expected = new SHA3.Digest256().digest(data);
+        DigestEngine engine = DigestEngine.sha3256();
+        engine.update(data, 0, 100).update(data, 100, 1).update(Arrays.copyOfRange(data, 101, 300));
+        byte[] out = new byte[40];
+        Assert.assertEquals(32, engine.doFinal(out, 8));
+        Assert.assertArrayEquals(expected, Arrays.copyOfRange(out, 8, 40));
+
+        // the engine is reset by results, and data added before a one time digest is discarded
+        engine.update(data, 0, 10);
+        engine.doFinal(out, 0);
+        engine.update(data, 0, 10);
+        Assert.assertArrayEquals(expected, engine.digest(data));
+        Assert.assertSame(engine, DigestEngine.sha3256());
+    }
+
+    @Test
+    public void restoreState() throws Exception {
+        byte[] data = data(300);
+        byte[] expected = new SHA256.Digest().digest(data);
+        DigestEngine engine = DigestEngine.sha256();
+        Memoable state = engine.update(data, 0, 100).saveState();
+        // data added after saving is discarded by restoring
+        engine.update(data, 0, 50);
+        Assert.assertArrayEquals(expected, finish(engine.restoreState(state), data));
+        Assert.assertArrayEquals(expected, finish(engine.restoreState(state), data));
+
+        // a state saved on one thread is restored on another one
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        byte[] hash = executor.submit(() -> finish(DigestEngine.sha256().restoreState(state), data)).get();
+        executor.shutdown();
+        Assert.assertArrayEquals(expected, hash);
+    }
+
+    @Test
+    public void sameAddresses() {
+        for (int i = 0; i < 16; i++) {
+            byte[] publicKey = data(64 - i % 2);
+            byte[] pubKeyHash = ByteUtil.concat(HashUtil.VERSION_USER,
+                    new RIPEMD160.Digest().digest(new SHA3.Digest256().digest(publicKey)));
+            Assert.assertArrayEquals(pubKeyHash, HashUtil.getUserPubKeyHash(publicKey));
+            pubKeyHash[0] = HashUtil.VERSION_CONTRACT[0];
+            Assert.assertArrayEquals(pubKeyHash, HashUtil.getContractPubKeyHash(publicKey));
+
+            byte[] checksum = Arrays.copyOf(new SHA256.Digest().digest(new SHA256.Digest().digest(pubKeyHash)), 4);
+            Assert.assertArrayEquals(checksum, HashUtil.getPubKeyHashChecksum(pubKeyHash, 4));
+            String address = new String(Base58.encodeBytes(ByteUtil.concat(pubKeyHash, checksum)));
+            Assert.assertEquals(address, AddressUtil.getAddressFromPubKeyHash(pubKeyHash));
+            Assert.assertTrue(AddressUtil.validateContractAddress(address));
+
+            byte[] payload = Base58.decode(address);
+            payload[payload.length - 1] ^= 1;
+            Assert.assertFalse(AddressUtil.validateAddress(new String(Base58.encodeBytes(payload))));
+        }
+    }
+
+    @Test
+    public void benchmark() {
+        TestFixtures.assumeBenchmarks();
+        byte[] data = data(64);
+        byte[] out = new byte[32];
+        DigestEngine engine = DigestEngine.sha3256();
+        Runnable provider = () -> {
+            for (int i = 0; i < BENCHMARK_HASHES; i++) {
+                new SHA3.Digest256().digest(data);
+            }
+        };
+        Runnable reused = () -> {
+            for (int i = 0; i < BENCHMARK_HASHES; i++) {
+                engine.update(data, 0, data.length).doFinal(out, 0);
+            }
+        };
+        Runnable addresses = () -> {
+            for (int i = 0; i < BENCHMARK_HASHES / 10; i++) {
+                AddressUtil.getAddressFromPubKeyHash(HashUtil.getUserPubKeyHash(data));
+            }
+        };
+        long[] providerResult = measure(provider, BENCHMARK_HASHES);
+        long[] reusedResult = measure(reused, BENCHMARK_HASHES);
+        long[] addressResult = measure(addresses, BENCHMARK_HASHES / 10);
+        log.info(String.format("SHA3-256 of 64 bytes per second: new provider digest %d (%d bytes allocated per hash), "
+                        + "reused engine %d (%d bytes allocated per hash); addresses from public keys per second %d "
+                        + "(%d bytes allocated per address)", providerResult[0], providerResult[1], reusedResult[0],
+                reusedResult[1], addressResult[0], addressResult[1]));
+        if (providerResult[1] >= 0) {
+            Assert.assertTrue(reusedResult[1] < providerResult[1]);
+        }
+    }
+
+    /**
+     * Returns operations per second, and allocated bytes per operation or -1 if it's not measurable.
+     */
+    private static long[] measure(Runnable round, int count) {
+        // warm up
+        round.run();
+        long allocatedBefore = TestFixtures.threadAllocatedBytes();
+        long start = System.nanoTime();
+        round.run();
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBefore < 0 ? -1 : TestFixtures.threadAllocatedBytes() - allocatedBefore;
+        return new long[]{count * 1_000_000_000L / elapsed, allocated < 0 ? -1 : allocated / count};
+    }
+
+    private static byte[] finish(DigestEngine engine, byte[] data) {
+        byte[] out = new byte[32];
+        engine.update(data, 100, data.length - 100).doFinal(out, 0);
+        return out;
+    }
+
+    private static byte[] data(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31 + length);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,69 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.chain.TransactionManager;
+import com.dappley.java.core.crypto.Sha3Digest;
+import com.dappley.java.core.crypto.ShaDigest;
+import com.dappley.java.core.po.Transaction;
+import com.dappley.java.core.util.DigestSink;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+@Slf4j
+public class DigestSinkTest {
+    private static final int BLOCK_TRANSACTION_COUNT = 10000;
+
+    @Test
+    public void sameAsDigestOfBytes() {
+        byte[] data = "dappley".getBytes();
+        // expected digests are finished first, sinks share the engines of ShaDigest and Sha3Digest
+        byte[] expectedSha256 = ShaDigest.sha256(data);
+        byte[] expectedSha3256 = Sha3Digest.sha3256(data);
+        DigestSink sha256 = DigestSink.sha256();
+        sha256.put(data, 0, 3);
+        sha256.put(data, 3, data.length - 3);
+        Assert.assertArrayEquals(expectedSha256, sha256.digest());
+        // reset after digest
+        sha256.put(data);
+        Assert.assertArrayEquals(expectedSha256, sha256.digest());
+
+        DigestSink sha3256 = DigestSink.sha3256();
+        sha3256.put(data);
+        Assert.assertArrayEquals(expectedSha3256, sha3256.digest());
+    }
+
+    @Test
+    public void sameTransactionHashes() {
+        for (Transaction transaction : TestFixtures.newBlock(20).getTransactions()) {
+            Assert.assertArrayEquals(ShaDigest.sha256(transaction.serialize()), transaction.hash());
+            Assert.assertArrayEquals(ShaDigest.sha256(transaction.getGenerateIdBytes()), transaction.generateId());
+        }
+    }
+
+    @Test
+    public void sameBlockHash() {
+        List<Transaction> transactions = TestFixtures.newBlock(100).getTransactions();
+        Assert.assertArrayEquals(TestFixtures.legacyHashTransactions(transactions), TransactionManager.hashTransactions(transactions));
+    }
+
+    @Test
+    public void benchmark() {
+        TestFixtures.assumeBenchmarks();
+        List<Transaction> transactions = TestFixtures.newBlock(BLOCK_TRANSACTION_COUNT).getTransactions();
+        // warm up
+        TestFixtures.legacyHashTransactions(transactions.subList(0, 1000));
+        TransactionManager.hashTransactions(transactions.subList(0, 1000));
+
+        long start = System.currentTimeMillis();
+        byte[] expected = TestFixtures.legacyHashTransactions(transactions);
+        long legacyMillis = System.currentTimeMillis() - start;
+        start = System.currentTimeMillis();
+        byte[] hash = TransactionManager.hashTransactions(transactions);
+        long streamingMillis = System.currentTimeMillis() - start;
+        Assert.assertArrayEquals(expected, hash);
+        log.info(String.format("hash of %d transactions: concatenated %dms, streaming %dms",
+                BLOCK_TRANSACTION_COUNT, legacyMillis, streamingMillis));
+    }
+}
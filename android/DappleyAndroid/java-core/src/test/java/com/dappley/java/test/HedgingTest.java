@@ -0,0 +1,177 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.net.HedgingPolicy;
+import com.dappley.java.core.net.LoadBalanceStrategy;
+import com.dappley.java.core.net.ProtocalProvider;
+import com.dappley.java.core.net.ProtocalProviderBuilder;
+import com.dappley.java.core.net.RemoteDataProvider;
+import com.dappley.java.core.net.RpcAsyncProtocalProvider;
+import com.dappley.java.core.net.RpcProtocalProvider;
+import com.dappley.java.core.po.BlockChainInfo;
+import com.dappley.java.core.po.ServerNode;
+import com.dappley.java.core.protobuf.BlockProto;
+import com.google.protobuf.ByteString;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public class HedgingTest {
+    private static final long FAST_LATENCY_MILLIS = 5;
+    private static final long SLOW_LATENCY_MILLIS = 100;
+
+    private SimulatedNode[] nodes;
+    private ServerNode[] serverNodes;
+
+    @Before
+    public void setUp() throws Exception {
+        nodes = new SimulatedNode[3];
+        serverNodes = new ServerNode[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = SimulatedNode.start();
+            nodes[i].setLatencyMillis(i == 2 ? SLOW_LATENCY_MILLIS : FAST_LATENCY_MILLIS);
+            serverNodes[i] = nodes[i].getServerNode();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (SimulatedNode node : nodes) {
+            node.stop();
+        }
+    }
+
+    @Test
+    public void benchmark() throws Exception {
+        TestFixtures.assumeBenchmarks();
+        int count = 150;
+        long[] plain = measure(newProvider(null), count);
+        long[] hedged = measure(newProvider(HedgingPolicy.fixedDelay(20)), count);
+        log.info(String.format("getUtxo latency with a slow node: p50 %dms p99 %dms, hedged after 20ms: p50 %dms p99 %dms",
+                percentile(plain, 50), percentile(plain, 99), percentile(hedged, 50), percentile(hedged, 99)));
+        Assert.assertTrue(percentile(plain, 99) >= SLOW_LATENCY_MILLIS);
+        Assert.assertTrue(percentile(hedged, 99) < SLOW_LATENCY_MILLIS / 2);
+
+        // requests of the slow node lost the race and were cancelled
+        TimeUnit.MILLISECONDS.sleep(SLOW_LATENCY_MILLIS * 2);
+        Assert.assertTrue(nodes[2].getCancelledCount() > 0);
+    }
+
+    @Test
+    public void percentileDelay() throws Exception {
+        RpcAsyncProtocalProvider provider = new RpcAsyncProtocalProvider();
+        provider.init(serverNodes);
+        provider.getChannelPool().setLoadBalanceStrategy(LoadBalanceStrategy.ROUND_ROBIN);
+        provider.getChannelPool().setHealthCheckMillis(0);
+        HedgingPolicy policy = HedgingPolicy.percentile(50, 10);
+        provider.setHedgingPolicy(policy);
+        Assert.assertEquals(-1, policy.getDelayMillis());
+
+        ByteString hash = SimulatedNode.blockHash(1);
+        for (int i = 0; i < 30; i++) {
+            BlockProto.Block block = provider.getBlockByHash(hash).get(5, TimeUnit.SECONDS);
+            Assert.assertEquals(hash, block.getHeader().getHash());
+        }
+        long delayMillis = policy.getDelayMillis();
+        log.debug("hedging delay: " + delayMillis);
+        Assert.assertTrue(delayMillis >= 10 && delayMillis < SLOW_LATENCY_MILLIS);
+
+        for (int i = 0; i < 3; i++) {
+            BlockChainInfo blockChainInfo = provider.getBlockchainInfo().get(5, TimeUnit.SECONDS);
+            Assert.assertEquals(1, blockChainInfo.getBlockHeight());
+        }
+        provider.close();
+    }
+
+    @Test
+    public void hedgeOnNodeFailure() {
+        nodes[0].setFailure(1, Status.UNAVAILABLE);
+        // the hedge is never sent by its delay within the test
+        RpcProtocalProvider provider = newProvider(HedgingPolicy.fixedDelay(TimeUnit.MINUTES.toMillis(1)));
+        for (int i = 0; i < nodes.length; i++) {
+            Assert.assertEquals(SimulatedNode.UTXO_COUNT, provider.getUtxo("address").size());
+        }
+        provider.close();
+        Assert.assertTrue(nodes[0].getFailedCount() > 0);
+    }
+
+    @Test
+    public void onlyReadsHedged() throws Exception {
+        slowDownAll();
+        RpcProtocalProvider provider = newProvider(HedgingPolicy.fixedDelay(0));
+        provider.getGasPrice();
+        Assert.assertEquals(1, callCount());
+        provider.getUtxo("address");
+        provider.close();
+        Assert.assertEquals(3, callCount());
+    }
+
+    @Test
+    public void builderHedging() {
+        slowDownAll();
+        ProtocalProviderBuilder builder = new ProtocalProviderBuilder()
+                .setType(RemoteDataProvider.RemoteProtocalType.RPC)
+                .setServerNodes(serverNodes)
+                .setLoadBalanceStrategy(LoadBalanceStrategy.ROUND_ROBIN)
+                .setHedgingPolicy(HedgingPolicy.fixedDelay(0));
+        ProtocalProvider provider = builder.build();
+        provider.getUtxo("address");
+        provider.close();
+        Assert.assertEquals(2, callCount());
+
+        try {
+            builder.setType(RemoteDataProvider.RemoteProtocalType.HTTP).build();
+            Assert.fail("http protocal should not accept hedging");
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("hedging"));
+        }
+    }
+
+    /**
+     * Slow down all nodes, so that no node replies before a hedge with no delay is sent.
+     */
+    private void slowDownAll() {
+        for (SimulatedNode node : nodes) {
+            node.setLatencyMillis(SLOW_LATENCY_MILLIS);
+        }
+    }
+
+    private RpcProtocalProvider newProvider(HedgingPolicy hedgingPolicy) {
+        RpcProtocalProvider provider = new RpcProtocalProvider();
+        provider.init(serverNodes);
+        provider.getChannelPool().setLoadBalanceStrategy(LoadBalanceStrategy.ROUND_ROBIN);
+        provider.getChannelPool().setHealthCheckMillis(0);
+        provider.setHedgingPolicy(hedgingPolicy);
+        return provider;
+    }
+
+    private static long[] measure(RpcProtocalProvider provider, int count) {
+        long[] latency = new long[count];
+        for (int i = 0; i < count; i++) {
+            long start = System.nanoTime();
+            Assert.assertEquals(SimulatedNode.UTXO_COUNT, provider.getUtxo("address").size());
+            latency[i] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+        provider.close();
+        Arrays.sort(latency);
+        return latency;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[(int) Math.ceil(percentile * sorted.length / 100) - 1];
+    }
+
+    private int callCount() {
+        int count = 0;
+        for (SimulatedNode node : nodes) {
+            count += node.getCallCount();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,273 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.net.HttpProtocalProvider;
+import com.dappley.java.core.net.InMemoryRpcMetricsRegistry;
+import com.dappley.java.core.net.LoadBalanceStrategy;
+import com.dappley.java.core.net.ProtocalProvider;
+import com.dappley.java.core.net.ProtocalProviderBuilder;
+import com.dappley.java.core.net.RemoteDataProvider;
+import com.dappley.java.core.po.SendTxResult;
+import com.dappley.java.core.po.ServerNode;
+import com.dappley.java.core.protobuf.BlockProto;
+import com.dappley.java.core.protobuf.RpcProto;
+import com.dappley.java.core.protobuf.TransactionBaseProto;
+import com.dappley.java.core.protobuf.TransactionProto;
+import com.dappley.java.core.protobuf.UtxoProto;
+import com.dappley.java.core.util.ProtoJsonUtil;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@Slf4j
+public class HttpProtocalProviderTest {
+    private static final int CHAIN_HEIGHT = 500;
+
+    private SimulatedNode node;
+    private SimulatedHttpGateway gateway;
+    private HttpProtocalProvider httpProvider;
+
+    @Before
+    public void setUp() throws Exception {
+        node = SimulatedNode.start();
+        node.setChainHeight(CHAIN_HEIGHT);
+        gateway = SimulatedHttpGateway.start(node);
+        httpProvider = (HttpProtocalProvider) new ProtocalProviderBuilder()
+                .setType(RemoteDataProvider.RemoteProtocalType.HTTP)
+                .setServerNodes(new ServerNode[]{gateway.getServerNode()})
+                .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        httpProvider.close();
+        gateway.stop();
+        node.stop();
+    }
+
+    @Test
+    public void readAndSend() {
+        Assert.assertTrue(httpProvider.getVersion().contains("simulated"));
+        Assert.assertEquals(CHAIN_HEIGHT, httpProvider.getBlockchainInfo().getBlockHeight());
+        Assert.assertEquals(node.getChain().block(7), httpProvider.getBlockByHeight(7));
+        Assert.assertEquals(ByteString.copyFrom(BigInteger.TEN.toByteArray()), httpProvider.getGasPrice());
+
+        List<UtxoProto.Utxo> utxos = httpProvider.getUtxo("address");
+        Assert.assertEquals(SimulatedNode.UTXO_COUNT, utxos.size());
+        Assert.assertEquals(SimulatedNode.UTXO_AMOUNT, new BigInteger(1, utxos.get(1).getAmount().toByteArray()));
+        Assert.assertEquals(1, utxos.get(1).getTxIndex());
+
+        TransactionProto.Transaction accepted = newTransaction(1);
+        TransactionProto.Transaction rejected = newTransaction(2);
+        node.rejectTransaction(rejected.getId());
+        Assert.assertEquals(SendTxResult.CODE_SUCCESS, httpProvider.sendTransaction(accepted).getCode());
+        SendTxResult result = httpProvider.sendTransaction(rejected);
+        Assert.assertEquals(SendTxResult.CODE_ERROR_EXCEPTION, result.getCode());
+        Assert.assertTrue(result.getMsg().contains("transaction is invalid"));
+        Assert.assertEquals(1, node.getAcceptedTxCount());
+    }
+
+    @Test
+    public void partiallyRejectedBatch() {
+        TransactionProto.Transaction accepted = newTransaction(1);
+        TransactionProto.Transaction rejected = newTransaction(2);
+        node.rejectTransaction(rejected.getId());
+        List<SendTxResult> results = httpProvider.sendBatchTransaction(Arrays.asList(accepted, rejected, newTransaction(3)));
+        Assert.assertEquals(SendTxResult.CODE_SUCCESS, results.get(0).getCode());
+        Assert.assertEquals(SendTxResult.CODE_SUCCESS, results.get(2).getCode());
+        Assert.assertEquals(SendTxResult.CODE_ERROR_REJECTED, results.get(1).getCode());
+        Assert.assertTrue(results.get(1).getMsg().contains("transaction is invalid"));
+        Assert.assertEquals(2, node.getAcceptedTxCount());
+    }
+
+    @Test
+    public void unsupportedOptions() {
+        ProtocalProviderBuilder builder = new ProtocalProviderBuilder()
+                .setType(RemoteDataProvider.RemoteProtocalType.HTTP)
+                .setServerNodes(new ServerNode[]{gateway.getServerNode()});
+        try {
+            builder.setLoadBalanceStrategy(LoadBalanceStrategy.ROUND_ROBIN).build();
+            Assert.fail("load balance strategy should be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            builder.setLoadBalanceStrategy(null).setMetricsRegistry(new InMemoryRpcMetricsRegistry()).build();
+            Assert.fail("metrics registry should be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void errorStatus() {
+        try {
+            // contract query is not served by simulated node
+            httpProvider.contractQuery("contract", "key", null);
+            Assert.fail("request should fail");
+        } catch (StatusRuntimeException e) {
+            Assert.assertEquals(Status.Code.UNIMPLEMENTED, e.getStatus().getCode());
+        }
+        node.setFailure(1, Status.UNAVAILABLE);
+        try {
+            httpProvider.getUtxo("address");
+            Assert.fail("request should fail");
+        } catch (StatusRuntimeException e) {
+            Assert.assertEquals(Status.Code.UNAVAILABLE, e.getStatus().getCode());
+        }
+        gateway.stop();
+        try {
+            httpProvider.getUtxo("address");
+            Assert.fail("request should fail");
+        } catch (StatusRuntimeException e) {
+            Assert.assertEquals(Status.Code.UNAVAILABLE, e.getStatus().getCode());
+        }
+    }
+
+    @Test
+    public void jsonRoundTrip() throws Exception {
+        TransactionProto.TransactionNode message = TransactionProto.TransactionNode.newBuilder()
+                .putChildren("first", newTransaction(1))
+                .putChildren("second", newTransaction(2))
+                .setValue(newTransaction(3))
+                .setSize(Long.MIN_VALUE)
+                .build();
+        StringWriter json = new StringWriter();
+        ProtoJsonUtil.write(new JsonWriter(json), message);
+        log.debug("json: " + json);
+        TransactionProto.TransactionNode.Builder builder = TransactionProto.TransactionNode.newBuilder();
+        ProtoJsonUtil.merge(new JsonReader(new StringReader(json.toString())), builder);
+        Assert.assertEquals(message, builder.build());
+
+        // unsigned numbers, original field names and unknown fields
+        BlockProto.BlockHeader.Builder header = BlockProto.BlockHeader.newBuilder();
+        ProtoJsonUtil.merge(new JsonReader(new StringReader(
+                "{\"height\":\"18446744073709551615\",\"previous_hash\":\"AQI\",\"nonce\":3,\"extra\":{\"a\":[1]}}")), header);
+        Assert.assertEquals(-1L, header.getHeight());
+        Assert.assertEquals(ByteString.copyFrom(new byte[]{1, 2}), header.getPreviousHash());
+        Assert.assertEquals(3, header.getNonce());
+
+        // any values with the type first, or anywhere in the object
+        RpcProto.SendTransactionStatus txStatus = RpcProto.SendTransactionStatus.newBuilder()
+                .setTxid(ByteString.copyFrom(new byte[]{1, 2}))
+                .setCode(9)
+                .setMessage("invalid")
+                .build();
+        com.google.rpc.Status status = com.google.rpc.Status.newBuilder()
+                .setCode(2)
+                .addDetails(Any.pack(txStatus))
+                .build();
+        json = new StringWriter();
+        ProtoJsonUtil.write(new JsonWriter(json), status);
+        Assert.assertTrue(json.toString().contains("\"@type\":\"type.googleapis.com/rpcpb.SendTransactionStatus\""));
+        com.google.rpc.Status.Builder statusBuilder = com.google.rpc.Status.newBuilder();
+        ProtoJsonUtil.merge(new JsonReader(new StringReader(json.toString())), statusBuilder);
+        Assert.assertEquals(status, statusBuilder.build());
+
+        Any.Builder any = Any.newBuilder();
+        ProtoJsonUtil.merge(new JsonReader(new StringReader(
+                "{\"code\":9,\"@type\":\"type.googleapis.com/rpcpb.SendTransactionStatus\",\"txid\":\"AQI\",\"message\":\"invalid\"}")), any);
+        Assert.assertEquals(txStatus, any.build().unpack(RpcProto.SendTransactionStatus.class));
+    }
+
+    @Test
+    public void keepAlive() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            httpProvider.getBlockByHeight(i);
+        }
+        Assert.assertEquals(1, gateway.getConnectionCount());
+
+        httpProvider.setMaxConnections(4);
+        readConcurrently(httpProvider, 8, 50);
+        Assert.assertTrue(gateway.getConnectionCount() <= 4);
+    }
+
+    @Test
+    public void benchmark() throws Exception {
+        TestFixtures.assumeBenchmarks();
+        ProtocalProvider rpcProvider = new ProtocalProviderBuilder()
+                .setType(RemoteDataProvider.RemoteProtocalType.RPC)
+                .setServerNodes(new ServerNode[]{node.getServerNode()})
+                .build();
+        httpProvider.setMaxConnections(4);
+        // warm up
+        readSequentially(rpcProvider, 200);
+        readSequentially(httpProvider, 200);
+
+        long rpcSequential = readSequentially(rpcProvider, CHAIN_HEIGHT);
+        long httpSequential = readSequentially(httpProvider, CHAIN_HEIGHT);
+        node.setLatencyMillis(5);
+        long rpcConcurrent = readConcurrently(rpcProvider, 8, 50);
+        long httpConcurrent = readConcurrently(httpProvider, 8, 50);
+        rpcProvider.close();
+
+        log.info(String.format("sequential blocks by height: rpc %d/s, http %d/s",
+                CHAIN_HEIGHT * 1000L / Math.max(1, rpcSequential), CHAIN_HEIGHT * 1000L / Math.max(1, httpSequential)));
+        log.info(String.format("concurrent utxo reads with 5ms latency: rpc %d/s, http %d/s, http connections %d",
+                400 * 1000L / Math.max(1, rpcConcurrent), 400 * 1000L / Math.max(1, httpConcurrent), gateway.getConnectionCount()));
+    }
+
+    /**
+     * Returns elapsed milliseconds.
+     */
+    private static long readSequentially(ProtocalProvider provider, int count) {
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(i, provider.getBlockByHeight(i).getHeader().getHeight());
+        }
+        return System.currentTimeMillis() - start;
+    }
+
+    /**
+     * Returns elapsed milliseconds.
+     */
+    private static long readConcurrently(ProtocalProvider provider, int threads, int countPerThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.currentTimeMillis();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < countPerThread; j++) {
+                    Assert.assertEquals(SimulatedNode.UTXO_COUNT, provider.getUtxo("address").size());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        executor.shutdown();
+        return elapsed;
+    }
+
+    private static TransactionProto.Transaction newTransaction(int id) {
+        return TransactionProto.Transaction.newBuilder()
+                .setId(ByteString.copyFrom(new byte[]{(byte) id, (byte) 0xff}))
+                .addVin(TransactionBaseProto.TXInput.newBuilder()
+                        .setTxid(ByteString.copyFrom(new byte[]{9, 8, 7}))
+                        .setVout(-1)
+                        .setPublicKey(ByteString.copyFrom(new byte[65])))
+                .addVout(TransactionBaseProto.TXOutput.newBuilder()
+                        .setValue(ByteString.copyFrom(BigInteger.valueOf(id).toByteArray()))
+                        .setContract("contract \"" + id + "\""))
+                .setType(id)
+                .build();
+    }
+}
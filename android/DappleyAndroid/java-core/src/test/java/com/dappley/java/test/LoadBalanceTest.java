@@ -0,0 +1,176 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.net.LoadBalanceStrategy;
+import com.dappley.java.core.net.RpcAsyncProtocalProvider;
+import com.dappley.java.core.net.RpcProtocalProvider;
+import com.dappley.java.core.po.ServerNode;
+import com.dappley.java.core.po.ServerNodeStatus;
+import com.dappley.java.core.protobuf.UtxoProto;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public class LoadBalanceTest {
+    private static final long FAST_LATENCY_MILLIS = 5;
+    private static final long SLOW_LATENCY_MILLIS = 60;
+
+    private SimulatedNode[] nodes;
+    private ServerNode[] serverNodes;
+
+    @Before
+    public void setUp() throws Exception {
+        nodes = new SimulatedNode[3];
+        serverNodes = new ServerNode[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = SimulatedNode.start();
+            nodes[i].setLatencyMillis(i == 2 ? SLOW_LATENCY_MILLIS : FAST_LATENCY_MILLIS);
+            serverNodes[i] = nodes[i].getServerNode();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (SimulatedNode node : nodes) {
+            node.stop();
+        }
+    }
+
+    @Test
+    public void pickFirst() throws Exception {
+        RpcProtocalProvider provider = newProvider(LoadBalanceStrategy.PICK_FIRST);
+        for (int i = 0; i < 10; i++) {
+            provider.getUtxo("address");
+        }
+        Assert.assertArrayEquals(new int[]{10, 0, 0}, callCounts());
+
+        // fail over to next node
+        nodes[0].stop();
+        int failures = 0;
+        for (int i = 0; i < 10; i++) {
+            try {
+                provider.getUtxo("address");
+            } catch (RuntimeException e) {
+                failures++;
+            }
+        }
+        provider.close();
+        log.debug("failures after first node stopped: " + failures);
+        Assert.assertTrue(failures <= 1);
+        Assert.assertEquals(10 - failures, nodes[1].getCallCount());
+    }
+
+    @Test
+    public void roundRobin() {
+        RpcProtocalProvider provider = newProvider(LoadBalanceStrategy.ROUND_ROBIN);
+        for (int i = 0; i < 30; i++) {
+            provider.getUtxo("address");
+        }
+        provider.close();
+        Assert.assertArrayEquals(new int[]{10, 10, 10}, callCounts());
+    }
+
+    @Test
+    public void leastOutstanding() throws Exception {
+        int[] counts = runConcurrently(LoadBalanceStrategy.LEAST_OUTSTANDING, 300);
+        log.info("least outstanding distribution: " + Arrays.toString(counts));
+        Assert.assertTrue(counts[2] * 2 < counts[0]);
+        Assert.assertTrue(counts[2] * 2 < counts[1]);
+    }
+
+    @Test
+    public void ewmaLatency() throws Exception {
+        int[] counts = runConcurrently(LoadBalanceStrategy.EWMA_LATENCY, 300);
+        log.info("ewma latency distribution: " + Arrays.toString(counts));
+        Assert.assertTrue(counts[2] * 10 < counts[0] + counts[1]);
+    }
+
+    @Test
+    public void ejectSlowNode() throws Exception {
+        RpcProtocalProvider provider = newProvider(LoadBalanceStrategy.ROUND_ROBIN);
+        provider.getChannelPool().setHealthCheckMillis(100);
+        provider.getChannelPool().setSlowNodeThreshold(3, 20);
+        long deadline = System.currentTimeMillis() + 1000;
+        while (System.currentTimeMillis() < deadline) {
+            provider.getUtxo("address");
+        }
+        List<ServerNodeStatus> statusList = provider.getChannelPool().getNodeStatus();
+        log.debug("node status: " + statusList);
+        Assert.assertFalse(statusList.get(0).isEjected());
+        Assert.assertFalse(statusList.get(1).isEjected());
+        Assert.assertTrue(statusList.get(2).isEjected());
+
+        int[] before = callCounts();
+        for (int i = 0; i < 20; i++) {
+            provider.getUtxo("address");
+        }
+        int[] after = callCounts();
+        provider.close();
+        // only health probes reach the slow node, each probe round reaches all nodes
+        int fastCalls = after[0] - before[0] + after[1] - before[1];
+        Assert.assertTrue(fastCalls >= 20);
+        Assert.assertTrue(after[2] - before[2] <= (fastCalls - 20) / 2 + 1);
+    }
+
+    @Test
+    public void probeNodesInUse() throws Exception {
+        RpcProtocalProvider provider = newProvider(LoadBalanceStrategy.PICK_FIRST);
+        provider.getChannelPool().setHealthCheckMillis(50);
+        provider.getChannelPool().setIdleTimeoutSeconds(1);
+        for (int i = 0; i < 5; i++) {
+            provider.getUtxo("address");
+        }
+        Thread.sleep(300);
+        int[] used = callCounts();
+        // nodes without requests are not connected by probes
+        Assert.assertTrue(used[0] > 5);
+        Assert.assertEquals(0, used[1]);
+        Assert.assertEquals(0, used[2]);
+
+        // probes stop after the idle timeout, so the channel can be released
+        Thread.sleep(1000);
+        int[] idle = callCounts();
+        Thread.sleep(300);
+        Assert.assertArrayEquals(idle, callCounts());
+        provider.close();
+    }
+
+    private RpcProtocalProvider newProvider(LoadBalanceStrategy strategy) {
+        RpcProtocalProvider provider = new RpcProtocalProvider();
+        provider.init(serverNodes);
+        provider.getChannelPool().setLoadBalanceStrategy(strategy);
+        provider.getChannelPool().setHealthCheckMillis(0);
+        return provider;
+    }
+
+    private int[] runConcurrently(LoadBalanceStrategy strategy, int count) throws Exception {
+        RpcAsyncProtocalProvider provider = new RpcAsyncProtocalProvider();
+        provider.init(serverNodes);
+        provider.setMaxInFlightRequests(12);
+        provider.getChannelPool().setLoadBalanceStrategy(strategy);
+        provider.getChannelPool().setHealthCheckMillis(0);
+        List<CompletableFuture<List<UtxoProto.Utxo>>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            futures.add(provider.getUtxo("address" + i));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+        provider.close();
+        return callCounts();
+    }
+
+    private int[] callCounts() {
+        int[] counts = new int[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            counts[i] = nodes[i].getCallCount();
+        }
+        return counts;
+    }
+}
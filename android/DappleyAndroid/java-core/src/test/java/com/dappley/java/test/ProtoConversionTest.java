@@ -0,0 +1,156 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.po.Block;
+import com.dappley.java.core.po.Transaction;
+import com.dappley.java.core.po.TxInput;
+import com.dappley.java.core.po.TxOutput;
+import com.dappley.java.core.protobuf.BlockProto;
+import com.dappley.java.core.protobuf.TransactionBaseProto;
+import com.dappley.java.core.protobuf.TransactionProto;
+import com.dappley.java.core.util.ByteUtil;
+import com.dappley.java.core.util.HexUtil;
+import com.google.protobuf.ByteString;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.function.Consumer;
+
+@Slf4j
+public class ProtoConversionTest {
+    private static final int TRANSACTION_COUNT = 50;
+    private static final int ROUNDS = 200;
+
+    @Test
+    public void lazyTransactions() throws Exception {
+        BlockProto.Block proto = BlockProto.Block.parseFrom(newBlockProto(TRANSACTION_COUNT).toByteArray());
+        Block block = new Block(proto);
+        Assert.assertEquals(TRANSACTION_COUNT, block.getTransactionCount());
+        // undecoded transactions are reused
+        Assert.assertEquals(proto, block.toProto());
+
+        Assert.assertEquals(TRANSACTION_COUNT, block.getTransactions().size());
+        Assert.assertEquals(proto, block.toProto());
+        Assert.assertArrayEquals(proto.getTransactions(3).getId().toByteArray(), block.getTransactions().get(3).getId());
+
+        // serialized with transactions
+        BlockProto.Block small = newBlockProto(1);
+        Block recovered = Block.parseBytes(new Block(small).toByteArray());
+        Assert.assertEquals(1, recovered.getTransactions().size());
+        Assert.assertEquals(small, recovered.toProto());
+
+        block.setTransactions(null);
+        Assert.assertEquals(0, block.getTransactionCount());
+        Assert.assertEquals(0, block.toProto().getTransactionsCount());
+    }
+
+    @Test
+    public void hexWithoutCopy() {
+        byte[] bytes = new byte[256];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        Assert.assertEquals(HexUtil.toHex(bytes), HexUtil.toHex(ByteString.copyFrom(bytes)));
+        Assert.assertEquals("", HexUtil.toHex(ByteString.EMPTY));
+    }
+
+    @Test
+    public void allocationBenchmark() throws Exception {
+        TestFixtures.assumeAllocationBenchmarks();
+        byte[] serialized = newBlockProto(TRANSACTION_COUNT).toByteArray();
+        BlockProto.Block proto = BlockProto.Block.parseFrom(serialized);
+
+        long eager = measure(proto, p -> new Block(p).getTransactions());
+        long lazy = measure(proto, p -> new Block(p).getHeader().getHash());
+        log.info("bytes per block of parsing: eager " + eager + ", header only " + lazy);
+        Assert.assertTrue(lazy < eager / 10);
+
+        Block block = new Block(proto);
+        block.getTransactions();
+        long copying = measure(proto, p -> copyingProto(block));
+        long wrapping = measure(proto, p -> block.toProto());
+        log.info("bytes per block of toProto: copying " + copying + ", wrapping " + wrapping);
+        Assert.assertTrue(wrapping < copying);
+    }
+
+    private static long measure(BlockProto.Block proto, Consumer<BlockProto.Block> conversion) {
+        // warm up
+        for (int i = 0; i < ROUNDS; i++) {
+            conversion.accept(proto);
+        }
+        long start = TestFixtures.threadAllocatedBytes();
+        for (int i = 0; i < ROUNDS; i++) {
+            conversion.accept(proto);
+        }
+        return (TestFixtures.threadAllocatedBytes() - start) / ROUNDS;
+    }
+
+    /**
+     * Conversion copying every byte field, as it was before wrapping.
+     */
+    private static BlockProto.Block copyingProto(Block block) {
+        BlockProto.Block.Builder builder = BlockProto.Block.newBuilder();
+        builder.setHeader(BlockProto.BlockHeader.newBuilder()
+                .setHash(ByteString.copyFrom(block.getHeader().getHash()))
+                .setPreviousHash(ByteString.copyFrom(block.getHeader().getPreviousHash()))
+                .setSignature(ByteString.copyFrom(block.getHeader().getSignature()))
+                .setHeight(block.getHeader().getHeight()));
+        for (Transaction transaction : block.getTransactions()) {
+            TransactionProto.Transaction.Builder txBuilder = TransactionProto.Transaction.newBuilder()
+                    .setId(ByteString.copyFrom(transaction.getId()))
+                    .setTip(ByteString.copyFrom(ByteUtil.bigInteger2Bytes(transaction.getTip())));
+            for (TxInput txInput : transaction.getTxInputs()) {
+                txBuilder.addVin(TransactionBaseProto.TXInput.newBuilder()
+                        .setTxid(ByteString.copyFrom(txInput.getTxId()))
+                        .setVout(txInput.getVout())
+                        .setSignature(ByteString.copyFrom(txInput.getSignature()))
+                        .setPublicKey(ByteString.copyFrom(txInput.getPublicKey())));
+            }
+            for (TxOutput txOutput : transaction.getTxOutputs()) {
+                txBuilder.addVout(TransactionBaseProto.TXOutput.newBuilder()
+                        .setValue(ByteString.copyFrom(txOutput.getValue()))
+                        .setPublicKeyHash(ByteString.copyFrom(txOutput.getPublicKeyHash()))
+                        .setContract(txOutput.getContract()));
+            }
+            builder.addTransactions(txBuilder);
+        }
+        return builder.build();
+    }
+
+    private static BlockProto.Block newBlockProto(int transactionCount) {
+        Random random = new Random(1);
+        BlockProto.Block.Builder builder = BlockProto.Block.newBuilder();
+        builder.setHeader(BlockProto.BlockHeader.newBuilder()
+                .setHash(randomBytes(random, 32))
+                .setPreviousHash(randomBytes(random, 32))
+                .setSignature(randomBytes(random, 65))
+                .setHeight(100));
+        for (int i = 0; i < transactionCount; i++) {
+            TransactionProto.Transaction.Builder txBuilder = TransactionProto.Transaction.newBuilder()
+                    .setId(randomBytes(random, 32))
+                    .setTip(randomBytes(random, 2))
+                    .setType(Transaction.TxTypeNormal);
+            for (int j = 0; j < 2; j++) {
+                txBuilder.addVin(TransactionBaseProto.TXInput.newBuilder()
+                        .setTxid(randomBytes(random, 32))
+                        .setVout(j)
+                        .setSignature(randomBytes(random, 65))
+                        .setPublicKey(randomBytes(random, 65)));
+                txBuilder.addVout(TransactionBaseProto.TXOutput.newBuilder()
+                        .setValue(randomBytes(random, 4))
+                        .setPublicKeyHash(randomBytes(random, 21)));
+            }
+            builder.addTransactions(txBuilder);
+        }
+        return builder.build();
+    }
+
+    private static ByteString randomBytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        // keep leading byte non zero, so numbers are converted back to the same bytes
+        bytes[0] = (byte) (bytes[0] | 1);
+        return ByteString.copyFrom(bytes);
+    }
+}
@@ -0,0 +1,194 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.po.Block;
+import com.dappley.java.core.po.Transaction;
+import com.dappley.java.core.po.TxInput;
+import com.dappley.java.core.po.Utxo;
+import com.dappley.java.core.po.UtxoIndex;
+import com.dappley.java.core.util.HexUtil;
+import com.dappley.java.core.util.RecordCodec;
+import com.dappley.java.core.util.SerializeUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+@Slf4j
+public class RecordCodecTest {
+    private static final int TRANSACTION_COUNT = 50;
+    private static final long WARM_UP_MILLIS = 200;
+    private static final long MEASURE_MILLIS = 200;
+
+    @Test
+    public void roundTrip() {
+        Block block = TestFixtures.newBlock(TRANSACTION_COUNT);
+        Block recovered = Block.parseBytes(block.toByteArray());
+        Assert.assertEquals(block.toProto(), recovered.toProto());
+        Assert.assertEquals(block.getTransactions(), recovered.getTransactions());
+
+        // block saved without transactions, as in BlockDb
+        block.setTransactions(null);
+        block.setParentHash(null);
+        recovered = Block.parseBytes(block.toByteArray());
+        Assert.assertEquals(block.getHeader(), recovered.getHeader());
+        Assert.assertNull(recovered.getTransactions());
+        Assert.assertNull(recovered.getParentHash());
+
+        Transaction coinbase = new Transaction();
+        TxInput txInput = new TxInput();
+        txInput.setVout(-1);
+        coinbase.addTxInput(txInput);
+        coinbase.setTip(BigInteger.ZERO);
+        coinbase.setType(Transaction.TxTypeCoinbase);
+        List<Transaction> transactions = Arrays.asList(coinbase, new Transaction());
+        Assert.assertEquals(transactions, RecordCodec.decodeTransactions(RecordCodec.encodeTransactions(transactions)));
+
+        Utxo utxo = newUtxo();
+        Assert.assertEquals(utxo, Utxo.parseBytes(utxo.toByteArray()));
+
+        Set<UtxoIndex> utxoIndexSet = newUtxoIndexSet();
+        utxoIndexSet.add(new UtxoIndex("not hex", 1));
+        utxoIndexSet.add(new UtxoIndex(HexUtil.toHex(new byte[32]).toUpperCase(), 2));
+        utxoIndexSet.add(new UtxoIndex(null, 3));
+        Assert.assertEquals(utxoIndexSet, RecordCodec.decodeUtxoIndexSet(RecordCodec.encodeUtxoIndexSet(utxoIndexSet)));
+        Assert.assertNull(RecordCodec.decodeUtxoIndexSet(RecordCodec.encodeUtxoIndexSet(null)));
+    }
+
+    @Test
+    public void legacyRecords() {
+        Block block = TestFixtures.newBlock(3);
+        byte[] legacyBlock = SerializeUtil.encode(block);
+        Assert.assertTrue(RecordCodec.isLegacy(legacyBlock));
+        Assert.assertFalse(RecordCodec.isLegacy(block.toByteArray()));
+        Assert.assertEquals(block.toProto(), Block.parseBytes(legacyBlock).toProto());
+
+        byte[] legacyTransactions = SerializeUtil.encodeList(block.getTransactions(), Transaction.class);
+        Assert.assertTrue(RecordCodec.isLegacy(legacyTransactions));
+        Assert.assertEquals(block.getTransactions(), RecordCodec.decodeTransactions(legacyTransactions));
+
+        Utxo utxo = newUtxo();
+        byte[] legacyUtxo = SerializeUtil.encode(utxo);
+        Assert.assertTrue(RecordCodec.isLegacy(legacyUtxo));
+        Assert.assertEquals(utxo, Utxo.parseBytes(legacyUtxo));
+
+        Set<UtxoIndex> utxoIndexSet = newUtxoIndexSet();
+        byte[] legacyIndexes = SerializeUtil.encodeSet(utxoIndexSet, UtxoIndex.class);
+        Assert.assertTrue(RecordCodec.isLegacy(legacyIndexes));
+        Assert.assertEquals(utxoIndexSet, RecordCodec.decodeUtxoIndexSet(legacyIndexes));
+    }
+
+    @Test
+    public void malformedRecords() {
+        byte[] bytes = newUtxo().toByteArray();
+        assertInvalid(Arrays.copyOf(bytes, bytes.length - 1));
+        assertInvalid(Arrays.copyOf(bytes, bytes.length + 1));
+        byte[] newerVersion = bytes.clone();
+        newerVersion[1] = (byte) (RecordCodec.VERSION + 1);
+        assertInvalid(newerVersion);
+        try {
+            // utxo record read as a block
+            Block.parseBytes(bytes);
+            Assert.fail("record should be rejected");
+        } catch (IllegalArgumentException e) {
+            log.debug("rejected: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void smallerThanKryo() {
+        Block block = TestFixtures.newBlock(TRANSACTION_COUNT);
+        Block header = TestFixtures.newBlock(0);
+        header.setTransactions(null);
+        Utxo utxo = newUtxo();
+        Set<UtxoIndex> utxoIndexSet = newUtxoIndexSet();
+        Assert.assertTrue(RecordCodec.encodeTransactions(block.getTransactions()).length
+                < SerializeUtil.encodeList(block.getTransactions(), Transaction.class).length);
+        Assert.assertTrue(header.toByteArray().length < SerializeUtil.encode(header).length);
+        Assert.assertTrue(utxo.toByteArray().length < SerializeUtil.encode(utxo).length);
+        Assert.assertTrue(RecordCodec.encodeUtxoIndexSet(utxoIndexSet).length
+                < SerializeUtil.encodeSet(utxoIndexSet, UtxoIndex.class).length);
+    }
+
+    @Test
+    public void benchmark() {
+        TestFixtures.assumeBenchmarks();
+        Block block = TestFixtures.newBlock(TRANSACTION_COUNT);
+        List<Transaction> transactions = block.getTransactions();
+        Block header = TestFixtures.newBlock(0);
+        header.setTransactions(null);
+        Utxo utxo = newUtxo();
+        Set<UtxoIndex> utxoIndexSet = newUtxoIndexSet();
+
+        report("transaction list of " + TRANSACTION_COUNT,
+                () -> SerializeUtil.encodeList(transactions, Transaction.class),
+                bytes -> SerializeUtil.decodeList(bytes, Transaction.class),
+                () -> RecordCodec.encodeTransactions(transactions),
+                RecordCodec::decodeTransactions);
+        report("block header",
+                () -> SerializeUtil.encode(header),
+                bytes -> SerializeUtil.decode(bytes, Block.class),
+                header::toByteArray,
+                Block::parseBytes);
+        report("utxo",
+                () -> SerializeUtil.encode(utxo),
+                bytes -> SerializeUtil.decode(bytes, Utxo.class),
+                utxo::toByteArray,
+                Utxo::parseBytes);
+        report("utxo index set of " + utxoIndexSet.size(),
+                () -> SerializeUtil.encodeSet(utxoIndexSet, UtxoIndex.class),
+                bytes -> SerializeUtil.decodeSet(bytes, UtxoIndex.class),
+                () -> RecordCodec.encodeUtxoIndexSet(utxoIndexSet),
+                RecordCodec::decodeUtxoIndexSet);
+    }
+
+    private static void report(String record, Supplier<byte[]> kryoEncoder, Function<byte[], ?> kryoDecoder,
+                               Supplier<byte[]> codecEncoder, Function<byte[], ?> codecDecoder) {
+        byte[] kryoBytes = kryoEncoder.get();
+        byte[] codecBytes = codecEncoder.get();
+        long kryoEncode = measure(() -> kryoEncoder.get());
+        long kryoDecode = measure(() -> kryoDecoder.apply(kryoBytes));
+        long codecEncode = measure(() -> codecEncoder.get());
+        long codecDecode = measure(() -> codecDecoder.apply(codecBytes));
+        log.info(String.format("%s: kryo %d bytes, encode %d/s, decode %d/s; codec %d bytes, encode %d/s, decode %d/s",
+                record, kryoBytes.length, kryoEncode, kryoDecode, codecBytes.length, codecEncode, codecDecode));
+    }
+
+    private static long measure(Runnable round) {
+        return TestFixtures.measure(round, WARM_UP_MILLIS, MEASURE_MILLIS);
+    }
+
+    private static void assertInvalid(byte[] bytes) {
+        try {
+            Utxo.parseBytes(bytes);
+            Assert.fail("record should be rejected");
+        } catch (IllegalArgumentException e) {
+            log.debug("rejected: " + e.getMessage());
+        }
+    }
+
+    private static Utxo newUtxo() {
+        Utxo utxo = new Utxo();
+        utxo.setAmount(BigInteger.valueOf(123456789));
+        utxo.setPublicKeyHash(HexUtil.toBytes("5a" + HexUtil.toHex(new byte[20])));
+        utxo.setTxId(HexUtil.toBytes("ab" + HexUtil.toHex(new byte[31])));
+        utxo.setVoutIndex(1);
+        return utxo;
+    }
+
+    private static Set<UtxoIndex> newUtxoIndexSet() {
+        Set<UtxoIndex> utxoIndexSet = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            byte[] txId = new byte[32];
+            txId[0] = (byte) i;
+            utxoIndexSet.add(new UtxoIndex(HexUtil.toHex(txId), i % 3));
+        }
+        return utxoIndexSet;
+    }
+}
@@ -0,0 +1,179 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.net.LoadBalanceStrategy;
+import com.dappley.java.core.net.RetryPolicy;
+import com.dappley.java.core.net.RpcProtocalProvider;
+import com.dappley.java.core.po.ServerNode;
+import com.dappley.java.core.po.ServerNodeStatus;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public class RetryTest {
+    private SimulatedNode[] nodes;
+    private ServerNode[] serverNodes;
+
+    @Before
+    public void setUp() throws Exception {
+        nodes = new SimulatedNode[2];
+        serverNodes = new ServerNode[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = SimulatedNode.start();
+            nodes[i].setLatencyMillis(2);
+            serverNodes[i] = nodes[i].getServerNode();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (SimulatedNode node : nodes) {
+            node.stop();
+        }
+    }
+
+    @Test
+    public void retryTransientFailure() {
+        nodes[0].setFailure(0.3, Status.UNAVAILABLE);
+        RpcProtocalProvider provider = newProvider(new ServerNode[]{serverNodes[0]}, LoadBalanceStrategy.PICK_FIRST);
+        Assert.assertTrue(countFailures(provider, 100) > 0);
+
+        RetryPolicy retryPolicy = RetryPolicy.exponentialBackoff(6, 1, 10);
+        retryPolicy.setRetryBudget(1000, 1);
+        provider.setRetryPolicy(retryPolicy);
+        Assert.assertEquals(0, countFailures(provider, 100));
+        provider.close();
+        log.debug("retries of 100 reads with 30% failure: " + retryPolicy.getRetryCount());
+        Assert.assertTrue(retryPolicy.getRetryCount() > 0);
+    }
+
+    @Test
+    public void retryBudget() {
+        nodes[0].setFailure(1, Status.UNAVAILABLE);
+        RpcProtocalProvider provider = newProvider(new ServerNode[]{serverNodes[0]}, LoadBalanceStrategy.PICK_FIRST);
+        RetryPolicy retryPolicy = RetryPolicy.exponentialBackoff(5, 1, 10);
+        provider.setRetryPolicy(retryPolicy);
+        Assert.assertEquals(20, countFailures(provider, 20));
+        provider.close();
+        // 10 tokens, retries stop when half of them are used
+        log.debug("calls of 20 reads on a failed node: " + nodes[0].getCallCount());
+        Assert.assertEquals(24, nodes[0].getCallCount());
+        Assert.assertEquals(4, retryPolicy.getRetryCount());
+        Assert.assertTrue(retryPolicy.getThrottledCount() > 0);
+    }
+
+    @Test
+    public void notRetryable() {
+        RpcProtocalProvider provider = newProvider(new ServerNode[]{serverNodes[0]}, LoadBalanceStrategy.PICK_FIRST);
+        RetryPolicy retryPolicy = RetryPolicy.exponentialBackoff(5, 1, 10);
+        provider.setRetryPolicy(retryPolicy);
+        try {
+            // contract query is not served by simulated node
+            provider.contractQuery("contract", "key", null);
+            Assert.fail("request should fail");
+        } catch (StatusRuntimeException e) {
+            Assert.assertEquals(Status.Code.UNIMPLEMENTED, e.getStatus().getCode());
+        }
+        provider.close();
+        Assert.assertEquals(0, retryPolicy.getRetryCount());
+    }
+
+    @Test
+    public void openCircuit() {
+        nodes[0].setFailure(1, Status.INTERNAL);
+        RpcProtocalProvider provider = newProvider(serverNodes, LoadBalanceStrategy.PICK_FIRST);
+        provider.getChannelPool().setFailureThreshold(3);
+        int failures = countFailures(provider, 10);
+        List<ServerNodeStatus> statusList = provider.getChannelPool().getNodeStatus();
+        provider.close();
+        log.debug("node status: " + statusList);
+        Assert.assertEquals(3, failures);
+        Assert.assertEquals(3, nodes[0].getCallCount());
+        Assert.assertEquals(7, nodes[1].getCallCount());
+        Assert.assertEquals("OPEN", statusList.get(0).getCircuitState());
+        Assert.assertEquals("CLOSED", statusList.get(1).getCircuitState());
+    }
+
+    @Test
+    public void halfOpenTrial() throws Exception {
+        nodes[0].setFailure(1, Status.INTERNAL);
+        RpcProtocalProvider provider = newProvider(serverNodes, LoadBalanceStrategy.PICK_FIRST);
+        provider.getChannelPool().setFailureThreshold(1);
+        provider.getChannelPool().setEjectMillis(100);
+        Assert.assertEquals(1, countFailures(provider, 1));
+        nodes[0].setFailure(0, Status.INTERNAL);
+        nodes[0].setLatencyMillis(200);
+        TimeUnit.MILLISECONDS.sleep(150);
+
+        // only one of the concurrent requests is a trial of the half open node, the others are sent to the healthy one
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return provider.getUtxo("address");
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        List<ServerNodeStatus> statusList = provider.getChannelPool().getNodeStatus();
+        provider.close();
+        Assert.assertEquals(2, nodes[0].getCallCount());
+        Assert.assertEquals(7, nodes[1].getCallCount());
+        // the successful trial closes the circuit
+        Assert.assertEquals("CLOSED", statusList.get(0).getCircuitState());
+    }
+
+    @Test
+    public void flappingNode() {
+        nodes[0].setFailure(0.5, Status.UNAVAILABLE);
+        RpcProtocalProvider provider = newProvider(serverNodes, LoadBalanceStrategy.ROUND_ROBIN);
+        provider.getChannelPool().setEjectMillis(50);
+        provider.setRetryPolicy(RetryPolicy.exponentialBackoff(3, 1, 10));
+        long start = System.currentTimeMillis();
+        int failures = countFailures(provider, 200);
+        long elapsed = System.currentTimeMillis() - start;
+        provider.close();
+        log.info(String.format("200 reads with a flapping node: %d failures, %.0f reads per second, calls of nodes %d/%d",
+                failures, 200 * 1000.0 / elapsed, nodes[0].getCallCount(), nodes[1].getCallCount()));
+        Assert.assertEquals(0, failures);
+        // the flapping node only gets requests after its circuit half opens
+        Assert.assertTrue(nodes[0].getCallCount() < nodes[1].getCallCount() / 2);
+    }
+
+    private RpcProtocalProvider newProvider(ServerNode[] serverNodes, LoadBalanceStrategy strategy) {
+        RpcProtocalProvider provider = new RpcProtocalProvider();
+        provider.init(serverNodes);
+        provider.getChannelPool().setLoadBalanceStrategy(strategy);
+        provider.getChannelPool().setHealthCheckMillis(0);
+        return provider;
+    }
+
+    private static int countFailures(RpcProtocalProvider provider, int count) {
+        int failures = 0;
+        for (int i = 0; i < count; i++) {
+            try {
+                provider.getUtxo("address");
+            } catch (StatusRuntimeException e) {
+                failures++;
+            }
+        }
+        return failures;
+    }
+}
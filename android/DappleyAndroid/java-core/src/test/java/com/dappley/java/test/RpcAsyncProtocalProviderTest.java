@@ -0,0 +1,131 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.net.AsyncDataProvider;
+import com.dappley.java.core.net.RemoteAsyncDataProvider;
+import com.dappley.java.core.net.RemoteDataProvider;
+import com.dappley.java.core.net.RpcAsyncProtocalProvider;
+import com.dappley.java.core.net.RpcProtocalProvider;
+import com.dappley.java.core.po.ServerNode;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public class RpcAsyncProtocalProviderTest {
+    private static final int ADDRESS_COUNT = 200;
+    private static final int MAX_IN_FLIGHT = 16;
+    private static final long LATENCY_MILLIS = 20;
+    private static final BigInteger BALANCE = SimulatedNode.UTXO_AMOUNT.multiply(BigInteger.valueOf(SimulatedNode.UTXO_COUNT));
+
+    private SimulatedNode node;
+    private RpcAsyncProtocalProvider provider;
+
+    @Before
+    public void setUp() throws Exception {
+        node = SimulatedNode.start();
+        node.setLatencyMillis(LATENCY_MILLIS);
+        provider = new RpcAsyncProtocalProvider();
+        provider.init(new ServerNode[]{node.getServerNode()});
+        provider.setMaxInFlightRequests(MAX_IN_FLIGHT);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        provider.close();
+        node.stop();
+    }
+
+    @Test
+    public void boundedInFlight() throws Exception {
+        AsyncDataProvider dataProvider = new RemoteAsyncDataProvider(provider);
+        List<CompletableFuture<BigInteger>> futures = new ArrayList<>(ADDRESS_COUNT);
+        for (int i = 0; i < ADDRESS_COUNT; i++) {
+            futures.add(dataProvider.getBalance("address" + i));
+        }
+        Assert.assertTrue(provider.getPendingRequests() > 0);
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+        for (CompletableFuture<BigInteger> future : futures) {
+            Assert.assertEquals(BALANCE, future.get());
+        }
+        log.debug("max concurrent calls on node: " + node.getMaxActiveCalls());
+        Assert.assertTrue(node.getMaxActiveCalls() > 1);
+        Assert.assertTrue(node.getMaxActiveCalls() <= MAX_IN_FLIGHT);
+        Assert.assertEquals(0, provider.getPendingRequests());
+        Assert.assertEquals(ADDRESS_COUNT, node.getCallCount());
+    }
+
+    @Test
+    public void cancelQueued() throws Exception {
+        int count = 100000;
+        // no request finishes before all are cancelled
+        node.setLatencyMillis(TimeUnit.SECONDS.toMillis(5));
+        List<CompletableFuture<Long>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            futures.add(provider.getBalance("address" + i));
+        }
+        Assert.assertEquals(count - MAX_IN_FLIGHT, provider.getPendingRequests());
+        // running requests are cancelled last, each release starts the queued cancelled ones
+        for (int i = count - 1; i >= 0; i--) {
+            futures.get(i).cancel(true);
+        }
+        node.setLatencyMillis(LATENCY_MILLIS);
+        Assert.assertEquals(BALANCE.longValue(), provider.getBalance("address").get(15, TimeUnit.SECONDS).longValue());
+        Assert.assertEquals(0, provider.getPendingRequests());
+    }
+
+    @Test
+    public void failure() throws Exception {
+        // irreversible block is not served by simulated node
+        try {
+            provider.getLastIrreversibleBlock().get(15, TimeUnit.SECONDS);
+            Assert.fail("request should fail");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof StatusRuntimeException);
+            Assert.assertEquals(Status.Code.UNIMPLEMENTED, ((StatusRuntimeException) e.getCause()).getStatus().getCode());
+        }
+        // the slot of failed request has been released
+        Assert.assertEquals(BigInteger.TEN, new BigInteger(1, provider.getGasPrice().get(15, TimeUnit.SECONDS).toByteArray()));
+    }
+
+    @Test
+    public void benchmark() throws Exception {
+        TestFixtures.assumeBenchmarks();
+        ServerNode[] serverNodes = new ServerNode[]{node.getServerNode()};
+        int count = 100;
+
+        RpcProtocalProvider blockingProvider = new RpcProtocalProvider();
+        blockingProvider.init(serverNodes);
+        RemoteDataProvider dataProvider = new RemoteDataProvider(blockingProvider);
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(BALANCE, dataProvider.getBalance("address" + i));
+        }
+        long sequentialMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        blockingProvider.close();
+
+        AsyncDataProvider asyncDataProvider = new RemoteAsyncDataProvider(provider);
+        start = System.nanoTime();
+        List<CompletableFuture<BigInteger>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            futures.add(asyncDataProvider.getBalance("address" + i));
+        }
+        for (CompletableFuture<BigInteger> future : futures) {
+            Assert.assertEquals(BALANCE, future.get(30, TimeUnit.SECONDS));
+        }
+        long asyncMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        log.info(String.format("%d balance lookups with %dms latency: sequential %dms, async %dms", count, LATENCY_MILLIS, sequentialMillis, asyncMillis));
+        Assert.assertTrue(asyncMillis < sequentialMillis);
+    }
+}
@@ -0,0 +1,86 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.net.RpcChannelBuilder;
+import com.dappley.java.core.net.RpcProtocalProvider;
+import com.dappley.java.core.po.ServerNode;
+import com.dappley.java.core.protobuf.RpcProto;
+import com.dappley.java.core.protobuf.RpcServiceGrpc;
+import io.grpc.ManagedChannel;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public class RpcChannelPoolTest {
+    private static final int REQUEST_COUNT = 300;
+
+    private SimulatedNode node;
+
+    @Before
+    public void setUp() throws Exception {
+        node = SimulatedNode.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        node.stop();
+    }
+
+    @Test
+    public void reuseChannel() {
+        RpcProtocalProvider provider = new RpcProtocalProvider();
+        provider.init(new ServerNode[]{node.getServerNode()});
+        try {
+            for (int i = 0; i < 10; i++) {
+                Assert.assertEquals(BigInteger.TEN, new BigInteger(1, provider.getGasPrice().toByteArray()));
+            }
+            Assert.assertSame(provider.getChannelPool().getChannel(), provider.getChannelPool().getChannel());
+        } finally {
+            provider.close();
+        }
+        Assert.assertTrue(provider.getChannelPool().isClosed());
+        Assert.assertEquals(10, node.getCallCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void closed() {
+        RpcProtocalProvider provider = new RpcProtocalProvider();
+        provider.init(new ServerNode[]{node.getServerNode()});
+        provider.close();
+        provider.getVersion();
+    }
+
+    @Test
+    public void benchmark() throws InterruptedException {
+        TestFixtures.assumeBenchmarks();
+        ServerNode[] serverNodes = new ServerNode[]{node.getServerNode()};
+        RpcProto.GetVersionRequest request = RpcProto.GetVersionRequest.newBuilder().build();
+
+        // a new channel per request
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            ManagedChannel channel = new RpcChannelBuilder().newChannel(serverNodes).build();
+            RpcServiceGrpc.newBlockingStub(channel).withDeadlineAfter(15, TimeUnit.SECONDS).rpcGetVersion(request);
+            channel.shutdown().awaitTermination(15, TimeUnit.SECONDS);
+        }
+        double perChannelRate = REQUEST_COUNT * 1e9 / (System.nanoTime() - start);
+
+        // pooled channel
+        RpcProtocalProvider provider = new RpcProtocalProvider();
+        provider.init(serverNodes);
+        start = System.nanoTime();
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            provider.getVersion();
+        }
+        double pooledRate = REQUEST_COUNT * 1e9 / (System.nanoTime() - start);
+        provider.close();
+
+        log.info(String.format("getVersion requests per second: new channel per call %.0f, pooled channel %.0f", perChannelRate, pooledRate));
+        Assert.assertEquals(REQUEST_COUNT * 2, node.getCallCount());
+    }
+}
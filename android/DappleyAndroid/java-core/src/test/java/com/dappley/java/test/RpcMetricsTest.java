@@ -0,0 +1,104 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.net.InMemoryRpcMetricsRegistry;
+import com.dappley.java.core.net.ProtocalProviderBuilder;
+import com.dappley.java.core.net.RemoteDataProvider;
+import com.dappley.java.core.net.RpcProtocalProvider;
+import com.dappley.java.core.po.RpcMethodMetrics;
+import com.dappley.java.core.po.ServerNode;
+import com.dappley.java.core.protobuf.RpcProto;
+import com.dappley.java.core.protobuf.RpcServiceGrpc;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+@Slf4j
+public class RpcMetricsTest {
+    private static final String GET_UTXO = RpcServiceGrpc.getRpcGetUTXOMethod().getFullMethodName();
+    private static final String GET_BLOCK_BY_HEIGHT = RpcServiceGrpc.getRpcGetBlockByHeightMethod().getFullMethodName();
+    private static final String CONTRACT_QUERY = RpcServiceGrpc.getRpcContractQueryMethod().getFullMethodName();
+
+    private SimulatedNode node;
+    private InMemoryRpcMetricsRegistry registry;
+    private RpcProtocalProvider protocalProvider;
+
+    @Before
+    public void setUp() throws Exception {
+        node = SimulatedNode.start();
+        node.setChainHeight(10);
+        registry = new InMemoryRpcMetricsRegistry();
+        protocalProvider = (RpcProtocalProvider) new ProtocalProviderBuilder()
+                .setType(RemoteDataProvider.RemoteProtocalType.RPC)
+                .setServerNodes(new ServerNode[]{node.getServerNode()})
+                .setMetricsRegistry(registry)
+                .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        protocalProvider.close();
+        node.stop();
+    }
+
+    @Test
+    public void recordCalls() {
+        node.setLatencyMillis(30);
+        for (int i = 0; i < 5; i++) {
+            protocalProvider.getUtxo("address");
+        }
+        for (int i = 1; i <= 3; i++) {
+            protocalProvider.getBlockByHeight(i);
+        }
+        try {
+            // contract query is not served by simulated node
+            protocalProvider.contractQuery("contract", "key", null);
+            Assert.fail("request should fail");
+        } catch (StatusRuntimeException e) {
+            Assert.assertEquals(Status.Code.UNIMPLEMENTED, e.getStatus().getCode());
+        }
+
+        RpcMethodMetrics utxoMetrics = registry.getMetrics(node.getServerNode(), GET_UTXO);
+        log.info("utxo metrics: " + utxoMetrics);
+        Assert.assertEquals(5, utxoMetrics.getCallCount());
+        Assert.assertEquals(0, utxoMetrics.getErrorCount());
+        Assert.assertEquals(Long.valueOf(5), utxoMetrics.getStatusCounts().get("OK"));
+        Assert.assertTrue(utxoMetrics.getAverageLatencyMillis() >= 30);
+        Assert.assertTrue(utxoMetrics.getLatencyPercentileMillis(50) >= 50);
+        // wire sizes of uncompressed messages are their serialized sizes
+        Assert.assertEquals(5 * RpcProto.GetUTXORequest.newBuilder().setAddress("address").build().getSerializedSize(),
+                utxoMetrics.getRequestBytes());
+        Assert.assertTrue(utxoMetrics.getResponseBytes() > 0);
+        Assert.assertEquals(utxoMetrics.getResponseBytes() / 5, utxoMetrics.getMaxResponseBytes());
+
+        RpcMethodMetrics blockMetrics = registry.getMetrics(node.getServerNode(), GET_BLOCK_BY_HEIGHT);
+        Assert.assertEquals(3, blockMetrics.getCallCount());
+
+        RpcMethodMetrics failedMetrics = registry.getMetrics(node.getServerNode(), CONTRACT_QUERY);
+        Assert.assertEquals(1, failedMetrics.getErrorCount());
+        Assert.assertEquals(Long.valueOf(1), failedMetrics.getStatusCounts().get("UNIMPLEMENTED"));
+        Assert.assertEquals(0, failedMetrics.getResponseBytes());
+
+        Assert.assertEquals(3, registry.getMetrics().size());
+        registry.reset();
+        Assert.assertTrue(registry.getMetrics().isEmpty());
+    }
+
+    @Test
+    public void recordTimeout() {
+        node.setLatencyMillis(1500);
+        protocalProvider.setRequestTimeoutSeconds(1);
+        try {
+            protocalProvider.getUtxo("address");
+            Assert.fail("request should time out");
+        } catch (StatusRuntimeException e) {
+            Assert.assertEquals(Status.Code.DEADLINE_EXCEEDED, e.getStatus().getCode());
+        }
+        RpcMethodMetrics metrics = registry.getMetrics(node.getServerNode(), GET_UTXO);
+        Assert.assertEquals(1, metrics.getTimeoutCount());
+        Assert.assertTrue(metrics.getLatencyPercentileMillis(99) >= 1000);
+    }
+}
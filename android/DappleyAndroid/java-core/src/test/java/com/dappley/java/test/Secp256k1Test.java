@@ -0,0 +1,76 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.crypto.Secp256k1;
+import com.dappley.java.core.crypto.ShaDigest;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.Test;
+import org.spongycastle.crypto.digests.SHA256Digest;
+import org.spongycastle.crypto.params.ECPrivateKeyParameters;
+import org.spongycastle.crypto.signers.ECDSASigner;
+import org.spongycastle.crypto.signers.HMacDSAKCalculator;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+@Slf4j
+public class Secp256k1Test {
+    private static final int KEY_COUNT = 200;
+    private static final long WARM_UP_MILLIS = 300;
+    private static final long MEASURE_MILLIS = 500;
+
+    @Test
+    public void sameAsRecoverySearch() {
+        for (int i = 0; i < KEY_COUNT; i++) {
+            byte[] privateKey = ShaDigest.sha256(("key" + i).getBytes());
+            byte[] data = ShaDigest.sha256(("message" + i).getBytes());
+            byte[] sign = Secp256k1.Sign(data, privateKey);
+            Assert.assertArrayEquals(legacySign(data, privateKey), sign);
+
+            byte[] publicKey = Secp256k1.PublicFromPrivateKey(privateKey);
+            Assert.assertArrayEquals(publicKey, Secp256k1.RecoverPubBytesFromSignature(data, sign));
+            Assert.assertTrue(Secp256k1.Verify(data, sign, publicKey));
+        }
+    }
+
+    @Test
+    public void benchmark() {
+        TestFixtures.assumeBenchmarks();
+        byte[] privateKey = ShaDigest.sha256("key".getBytes());
+        byte[] data = ShaDigest.sha256("message".getBytes());
+        long legacy = TestFixtures.measure(() -> legacySign(data, privateKey), WARM_UP_MILLIS, MEASURE_MILLIS);
+        long direct = TestFixtures.measure(() -> Secp256k1.Sign(data, privateKey), WARM_UP_MILLIS, MEASURE_MILLIS);
+        log.info(String.format("signatures per second: recovery search %d, direct recovery id %d", legacy, direct));
+        Assert.assertTrue(direct > legacy);
+    }
+
+    /**
+     * Signing that finds the recovery id by recovering each candidate public key, as it was before.
+     */
+    private static byte[] legacySign(byte[] data, byte[] privateKey) {
+        ECDSASigner signer = new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()));
+        signer.init(true, new ECPrivateKeyParameters(new BigInteger(1, privateKey), Secp256k1.CURVE));
+        BigInteger[] components = signer.generateSignature(data);
+        Secp256k1.ECDSASignature signature = new Secp256k1.ECDSASignature(components[0], components[1]).toCanonicalised();
+
+        byte[] publicKey = Secp256k1.PublicFromPrivateKey(privateKey);
+        for (int recId = 0; recId < 4; recId++) {
+            byte[] recovered;
+            try {
+                recovered = Secp256k1.RecoverPubBytesFromSignature(data, withRecId(signature, (byte) recId));
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            if (Arrays.equals(publicKey, recovered)) {
+                signature.v = (byte) (recId + 27);
+                return signature.toByteArray();
+            }
+        }
+        throw new IllegalStateException("no recovery id");
+    }
+
+    private static byte[] withRecId(Secp256k1.ECDSASignature signature, byte recId) {
+        signature.v = recId;
+        return signature.toByteArray();
+    }
+}
@@ -0,0 +1,150 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.po.Block;
+import com.dappley.java.core.po.Transaction;
+import com.dappley.java.core.po.UtxoIndex;
+import com.dappley.java.core.util.SerializeUtil;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.CollectionSerializer;
+import com.esotericsoftware.kryo.serializers.JavaSerializer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@Slf4j
+public class SerializeUtilTest {
+    private static final int TRANSACTION_COUNT = 50;
+    private static final int ROUNDS = 500;
+
+    @Test
+    public void sameBytesAsNewKryo() {
+        Block block = TestFixtures.newBlock(3);
+        List<Transaction> transactions = block.getTransactions();
+        Set<UtxoIndex> utxoIndexSet = newUtxoIndexSet();
+
+        byte[] listBytes = SerializeUtil.encodeList(transactions, Transaction.class);
+        Assert.assertArrayEquals(legacyEncodeCollection(transactions, Transaction.class, ArrayList.class), listBytes);
+        Assert.assertEquals(transactions, SerializeUtil.decodeList(listBytes, Transaction.class));
+
+        byte[] setBytes = SerializeUtil.encodeSet(utxoIndexSet, UtxoIndex.class);
+        Assert.assertArrayEquals(legacyEncodeCollection(utxoIndexSet, UtxoIndex.class, HashSet.class), setBytes);
+        Assert.assertEquals(utxoIndexSet, SerializeUtil.decodeSet(setBytes, UtxoIndex.class));
+
+        // collections of transactions encoded before don't change the bytes of a block
+        byte[] blockBytes = SerializeUtil.encode(block);
+        Assert.assertArrayEquals(legacyEncode(block), blockBytes);
+        Assert.assertEquals(block.toProto(), Block.parseBytes(blockBytes).toProto());
+    }
+
+    @Test
+    public void concurrentUse() throws Exception {
+        Block block = TestFixtures.newBlock(TRANSACTION_COUNT);
+        byte[] expected = legacyEncodeCollection(block.getTransactions(), Transaction.class, ArrayList.class);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 50; j++) {
+                    byte[] bytes = SerializeUtil.encodeList(block.getTransactions(), Transaction.class);
+                    Assert.assertArrayEquals(expected, bytes);
+                    Assert.assertEquals(block.getTransactions(), SerializeUtil.decodeList(bytes, Transaction.class));
+                    Assert.assertEquals(block.toProto(), SerializeUtil.decode(SerializeUtil.encode(block), Block.class).toProto());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    public void benchmark() {
+        TestFixtures.assumeAllocationBenchmarks();
+        List<Transaction> transactions = TestFixtures.newBlock(TRANSACTION_COUNT).getTransactions();
+        byte[] bytes = SerializeUtil.encodeList(transactions, Transaction.class);
+        Set<UtxoIndex> utxoIndexSet = newUtxoIndexSet();
+
+        long[] legacy = measure(() -> {
+            legacyEncodeCollection(transactions, Transaction.class, ArrayList.class);
+            legacyDecodeCollection(bytes, Transaction.class, ArrayList.class);
+            legacyEncodeCollection(utxoIndexSet, UtxoIndex.class, HashSet.class);
+        });
+        long[] pooled = measure(() -> {
+            SerializeUtil.encodeList(transactions, Transaction.class);
+            SerializeUtil.decodeList(bytes, Transaction.class);
+            SerializeUtil.encodeSet(utxoIndexSet, UtxoIndex.class);
+        });
+        log.info(String.format("transaction list and utxo index set round: new kryo %d/s %d bytes, pooled kryo %d/s %d bytes",
+                ROUNDS * 1000L / Math.max(1, legacy[0]), legacy[1], ROUNDS * 1000L / Math.max(1, pooled[0]), pooled[1]));
+        Assert.assertTrue(pooled[1] < legacy[1]);
+    }
+
+    /**
+     * Returns elapsed milliseconds and allocated bytes of each round.
+     */
+    private static long[] measure(Runnable round) {
+        // warm up
+        for (int i = 0; i < ROUNDS; i++) {
+            round.run();
+        }
+        long startBytes = TestFixtures.threadAllocatedBytes();
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < ROUNDS; i++) {
+            round.run();
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        return new long[]{elapsed, (TestFixtures.threadAllocatedBytes() - startBytes) / ROUNDS};
+    }
+
+    private static Set<UtxoIndex> newUtxoIndexSet() {
+        Set<UtxoIndex> utxoIndexSet = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            utxoIndexSet.add(new UtxoIndex("tx" + i, i % 3));
+        }
+        return utxoIndexSet;
+    }
+
+    private static Output newOutput() {
+        return new Output(1024, -1);
+    }
+
+    /**
+     * Serialization with a new Kryo instance, as it was before pooling.
+     */
+    private static byte[] legacyEncode(Object obj) {
+        Output output = newOutput();
+        new Kryo().writeObject(output, obj);
+        return output.toBytes();
+    }
+
+    private static byte[] legacyEncodeCollection(Object collection, Class<?> clazz, Class<?> collectionClass) {
+        Kryo kryo = new Kryo();
+        CollectionSerializer serializer = new CollectionSerializer();
+        serializer.setElementClass(clazz, new JavaSerializer());
+        kryo.register(clazz, new JavaSerializer());
+        kryo.register(collectionClass, serializer);
+        Output output = newOutput();
+        kryo.writeObject(output, collection);
+        return output.toBytes();
+    }
+
+    private static Object legacyDecodeCollection(byte[] bytes, Class<?> clazz, Class<?> collectionClass) {
+        Kryo kryo = new Kryo();
+        CollectionSerializer serializer = new CollectionSerializer();
+        serializer.setElementClass(clazz, new JavaSerializer());
+        kryo.register(clazz, new JavaSerializer());
+        kryo.register(collectionClass, serializer);
+        return kryo.readObject(new Input(bytes), collectionClass, serializer);
+    }
+}
@@ -0,0 +1,225 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.protobuf.BlockProto;
+import com.dappley.java.core.protobuf.TransactionBaseProto;
+import com.dappley.java.core.protobuf.TransactionProto;
+import com.google.protobuf.ByteString;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic chain served by a simulated node.
+ * <p>Blocks are generated from their height and branch when requested, so a chain of any height costs no memory.
+ * Chains of the same seed and settings have the same blocks.</p>
+ * <p>A fork switches the chain to a new branch from the fork height. Blocks of old branches are still found by hash,
+ * like orphan blocks kept by a node. Block hash is made of branch id and height, so the hash of main branch
+ * never changes with seed.</p>
+ */
+public class SimulatedChain {
+    private static final long GENESIS_TIMESTAMP = 1_500_000_000L;
+    private static final long BLOCK_INTERVAL_SECONDS = 5;
+    private static final int BRANCH_SHIFT = 48;
+
+    private final long seed;
+    private volatile int transactionsPerBlock;
+    private volatile long height = 1;
+    /**
+     * start height and parent of each branch, branch 0 is the main branch
+     */
+    private final List<long[]> branches = new ArrayList<>();
+    private volatile int currentBranch;
+
+    public SimulatedChain() {
+        this(0);
+    }
+
+    /**
+     * @param seed seed of generated transactions
+     */
+    public SimulatedChain(long seed) {
+        this.seed = seed;
+        branches.add(new long[]{0, 0});
+    }
+
+    /**
+     * Returns hash of the block at height of main branch, which is not forked.
+     * @param height block height
+     * @return ByteString hash
+     */
+    public static ByteString mainBlockHash(long height) {
+        return hash(0, height);
+    }
+
+    /**
+     * Set the number of transactions in each block. Default value is 0.
+     * @param transactionsPerBlock transaction count
+     */
+    public void setTransactionsPerBlock(int transactionsPerBlock) {
+        this.transactionsPerBlock = transactionsPerBlock;
+    }
+
+    /**
+     * Set the height of tail block.
+     * @param height tail height
+     */
+    public void setHeight(long height) {
+        this.height = height;
+    }
+
+    public long getHeight() {
+        return height;
+    }
+
+    /**
+     * Fork the chain at height. Blocks from the height are replaced by blocks of a new branch.
+     * @param forkHeight height of the first replaced block, above 0
+     */
+    public synchronized void fork(long forkHeight) {
+        if (forkHeight <= 0) {
+            throw new IllegalArgumentException("genesis block cannot be forked.");
+        }
+        branches.add(new long[]{forkHeight, currentBranch});
+        currentBranch = branches.size() - 1;
+    }
+
+    /**
+     * Returns hash of block at height of current chain.
+     * @param height block height
+     * @return ByteString hash
+     */
+    public ByteString blockHash(long height) {
+        return hash(branchAt(currentBranch, height), height);
+    }
+
+    /**
+     * Returns block at height of current chain.
+     * @param height block height
+     * @return BlockProto.Block null if it's above the tail
+     */
+    public BlockProto.Block block(long height) {
+        if (height < 0 || height > this.height) {
+            return null;
+        }
+        return generate(branchAt(currentBranch, height), height);
+    }
+
+    /**
+     * Returns block of any branch by hash.
+     * @param hash block hash
+     * @return BlockProto.Block null if there is no such block
+     */
+    public BlockProto.Block blockByHash(ByteString hash) {
+        long[] branchAndHeight = parse(hash);
+        if (branchAndHeight == null) {
+            return null;
+        }
+        int branch = (int) branchAndHeight[0];
+        long blockHeight = branchAndHeight[1];
+        synchronized (this) {
+            if (branch >= branches.size() || blockHeight < branches.get(branch)[0]) {
+                return null;
+            }
+        }
+        if (branch == branchAt(currentBranch, blockHeight) && blockHeight > this.height) {
+            return null;
+        }
+        return generate(branch, blockHeight);
+    }
+
+    /**
+     * Returns if the block is on current chain.
+     * @param hash block hash
+     * @return boolean true/false
+     */
+    public boolean contains(ByteString hash) {
+        long[] branchAndHeight = parse(hash);
+        return branchAndHeight != null && branchAndHeight[1] <= height
+                && branchAndHeight[0] == branchAt(currentBranch, branchAndHeight[1]);
+    }
+
+    /**
+     * Returns height of block of any branch.
+     * @param hash block hash
+     * @return long height, -1 if hash is invalid
+     */
+    public static long heightOf(ByteString hash) {
+        long[] branchAndHeight = parse(hash);
+        return branchAndHeight == null ? -1 : branchAndHeight[1];
+    }
+
+    private synchronized int branchAt(int branch, long height) {
+        while (branch != 0 && height < branches.get(branch)[0]) {
+            branch = (int) branches.get(branch)[1];
+        }
+        return branch;
+    }
+
+    private BlockProto.Block generate(int branch, long height) {
+        ByteString hash = hash(branch, height);
+        BlockProto.BlockHeader.Builder header = BlockProto.BlockHeader.newBuilder()
+                .setHash(hash)
+                .setHeight(height);
+        if (height > 0) {
+            header.setPreviousHash(hash(branchAt(branch, height - 1), height - 1))
+                    .setTimestamp(GENESIS_TIMESTAMP + height * BLOCK_INTERVAL_SECONDS)
+                    .setProducer("producer" + height % 3);
+        }
+        BlockProto.Block.Builder block = BlockProto.Block.newBuilder()
+                .setHeader(header);
+        int transactionCount = height > 0 ? transactionsPerBlock : 0;
+        if (transactionCount > 0) {
+            Random random = new Random(seed * 31 + hash.hashCode());
+            for (int i = 0; i < transactionCount; i++) {
+                block.addTransactions(transaction(random));
+            }
+        }
+        return block.build();
+    }
+
+    private static TransactionProto.Transaction transaction(Random random) {
+        return TransactionProto.Transaction.newBuilder()
+                .setId(randomBytes(random, 32))
+                .addVin(TransactionBaseProto.TXInput.newBuilder()
+                        .setTxid(randomBytes(random, 32))
+                        .setVout(random.nextInt(4))
+                        .setSignature(randomBytes(random, 64))
+                        .setPublicKey(randomBytes(random, 64)))
+                .addVout(TransactionBaseProto.TXOutput.newBuilder()
+                        .setValue(ByteString.copyFrom(BigInteger.valueOf(1 + random.nextInt(1000)).toByteArray()))
+                        .setPublicKeyHash(randomBytes(random, 21)))
+                .addVout(TransactionBaseProto.TXOutput.newBuilder()
+                        .setValue(ByteString.copyFrom(BigInteger.valueOf(1 + random.nextInt(1000)).toByteArray()))
+                        .setPublicKeyHash(randomBytes(random, 21)))
+                .setTip(ByteString.copyFrom(BigInteger.ONE.toByteArray()))
+                .build();
+    }
+
+    private static ByteString randomBytes(Random random, int size) {
+        byte[] bytes = new byte[size];
+        random.nextBytes(bytes);
+        return ByteString.copyFrom(bytes);
+    }
+
+    private static ByteString hash(int branch, long height) {
+        return ByteString.copyFrom(ByteBuffer.allocate(Long.BYTES).putLong((long) branch << BRANCH_SHIFT | (height + 1)).array());
+    }
+
+    /**
+     * Returns branch and height of hash, null if the hash is not generated by chain.
+     */
+    private static long[] parse(ByteString hash) {
+        if (hash.size() != Long.BYTES) {
+            return null;
+        }
+        long value = hash.asReadOnlyByteBuffer().getLong();
+        long height = (value & ((1L << BRANCH_SHIFT) - 1)) - 1;
+        if (height < 0) {
+            return null;
+        }
+        return new long[]{value >>> BRANCH_SHIFT, height};
+    }
+}
@@ -0,0 +1,241 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.po.ServerNode;
+import com.dappley.java.core.util.ProtoJsonUtil;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.google.protobuf.Message;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.protobuf.StatusProto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local stand-in of an HTTP gateway in front of a simulated node, on a random local port.
+ * <p>Rpc methods posted as JSON to {@code /rpcpb.RpcService/<method>} are served by the node in process,
+ * so latency and failures set on the node apply to both protocals.</p>
+ */
+public class SimulatedHttpGateway {
+    private static final String HOST = "127.0.0.1";
+
+    private final ServerServiceDefinition service;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private HttpServer server;
+
+    private SimulatedHttpGateway(SimulatedNode node) {
+        this.service = node.bindService();
+    }
+
+    /**
+     * Start a gateway of the node on a free local port.
+     * @param node simulated node serving requests
+     * @return SimulatedHttpGateway running gateway
+     * @throws IOException
+     */
+    public static SimulatedHttpGateway start(SimulatedNode node) throws IOException {
+        // gateways disable Nagle's algorithm, so that small responses are not delayed
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        SimulatedHttpGateway gateway = new SimulatedHttpGateway(node);
+        gateway.server = HttpServer.create(new InetSocketAddress(HOST, 0), 0);
+        gateway.server.createContext("/", gateway::handle);
+        gateway.server.setExecutor(gateway.executor);
+        gateway.server.start();
+        return gateway;
+    }
+
+    public ServerNode getServerNode() {
+        ServerNode serverNode = new ServerNode();
+        serverNode.setHost(HOST);
+        serverNode.setPort(server.getAddress().getPort());
+        return serverNode;
+    }
+
+    /**
+     * Returns the number of client connections which have sent requests.
+     * @return int connection count
+     */
+    public int getConnectionCount() {
+        return clientPorts.size();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        try {
+            String fullMethodName = exchange.getRequestURI().getPath().substring(1);
+            ServerMethodDefinition<?, ?> method = service.getMethod(fullMethodName);
+            if (!"POST".equals(exchange.getRequestMethod()) || method == null) {
+                drain(exchange.getRequestBody());
+                sendError(exchange, Status.UNIMPLEMENTED.withDescription("unknown method " + fullMethodName), null);
+                return;
+            }
+            serve(exchange, method);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <ReqT, RespT> void serve(HttpExchange exchange, ServerMethodDefinition<ReqT, RespT> method) throws IOException {
+        MethodDescriptor<ReqT, RespT> descriptor = method.getMethodDescriptor();
+        Message prototype = (Message) ((MethodDescriptor.PrototypeMarshaller<ReqT>) descriptor.getRequestMarshaller()).getMessagePrototype();
+        Message.Builder request = prototype.newBuilderForType();
+        try (InputStream in = exchange.getRequestBody()) {
+            ProtoJsonUtil.merge(new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8)), request);
+            drain(in);
+        }
+
+        LocalServerCall<ReqT, RespT> call = new LocalServerCall<>(descriptor);
+        ServerCall.Listener<ReqT> listener = method.getServerCallHandler().startCall(call, new Metadata());
+        listener.onMessage((ReqT) request.build());
+        listener.onHalfClose();
+        Status status;
+        try {
+            status = call.result.get(30, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            status = Status.fromThrowable(e);
+        }
+        if (!status.isOk()) {
+            com.google.rpc.Status statusWithDetails = call.trailers == null ? null : StatusProto.fromStatusAndTrailers(status, call.trailers);
+            sendError(exchange, status, statusWithDetails);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        // chunked response, written while encoding
+        exchange.sendResponseHeaders(200, 0);
+        try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+            ProtoJsonUtil.write(writer, (Message) call.response);
+        }
+    }
+
+    /**
+     * Send status as error body, with details if the service returned a status with details.
+     */
+    private static void sendError(HttpExchange exchange, Status status, com.google.rpc.Status statusWithDetails) throws IOException {
+        com.google.rpc.Status.Builder body = com.google.rpc.Status.newBuilder()
+                .setCode(status.getCode().value());
+        if (status.getDescription() != null) {
+            body.setMessage(status.getDescription());
+        }
+        if (statusWithDetails != null) {
+            body.addAllDetails(statusWithDetails.getDetailsList());
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            ProtoJsonUtil.write(writer, body);
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(toHttpStatus(status.getCode()), out.size());
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            out.writeTo(responseBody);
+        }
+    }
+
+    /**
+     * Map status to HTTP status like grpc-gateway.
+     */
+    private static int toHttpStatus(Status.Code code) {
+        switch (code) {
+            case INVALID_ARGUMENT:
+            case FAILED_PRECONDITION:
+            case OUT_OF_RANGE:
+                return 400;
+            case UNAUTHENTICATED:
+                return 401;
+            case PERMISSION_DENIED:
+                return 403;
+            case NOT_FOUND:
+                return 404;
+            case CANCELLED:
+                return 408;
+            case ALREADY_EXISTS:
+            case ABORTED:
+                return 409;
+            case RESOURCE_EXHAUSTED:
+                return 429;
+            case UNIMPLEMENTED:
+                return 501;
+            case UNAVAILABLE:
+                return 503;
+            case DEADLINE_EXCEEDED:
+                return 504;
+            default:
+                return 500;
+        }
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[256];
+        while (in.read(buffer) != -1) {
+            // discard
+        }
+    }
+
+    /**
+     * Server call of one request, invoking the service in process.
+     */
+    private static class LocalServerCall<ReqT, RespT> extends ServerCall<ReqT, RespT> {
+        private final MethodDescriptor<ReqT, RespT> method;
+        private final CompletableFuture<Status> result = new CompletableFuture<>();
+        private volatile RespT response;
+        private volatile Metadata trailers;
+
+        private LocalServerCall(MethodDescriptor<ReqT, RespT> method) {
+            this.method = method;
+        }
+
+        @Override
+        public void request(int numMessages) {
+        }
+
+        @Override
+        public void sendHeaders(Metadata headers) {
+        }
+
+        @Override
+        public void sendMessage(RespT message) {
+            this.response = message;
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+            this.trailers = trailers;
+            result.complete(status);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public MethodDescriptor<ReqT, RespT> getMethodDescriptor() {
+            return method;
+        }
+    }
+}
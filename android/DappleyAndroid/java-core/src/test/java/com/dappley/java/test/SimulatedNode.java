@@ -0,0 +1,511 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.po.ServerNode;
+import com.dappley.java.core.protobuf.BlockProto;
+import com.dappley.java.core.protobuf.RpcProto;
+import com.dappley.java.core.protobuf.RpcServiceGrpc;
+import com.dappley.java.core.protobuf.TransactionProto;
+import com.dappley.java.core.protobuf.UtxoProto;
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import com.google.rpc.Code;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.protobuf.StatusProto;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in of a dappley node, serving rpc requests on a random local port over Netty, or in process.
+ * <p>Blocks are served from a deterministic {@link SimulatedChain}. Latency and failures of read requests can be injected.</p>
+ */
+public class SimulatedNode extends RpcServiceGrpc.RpcServiceImplBase {
+    private static final String HOST = "127.0.0.1";
+    /**
+     * max number of blocks returned by rpcGetBlocks, same as dappley node
+     */
+    public static final int MAX_GET_BLOCKS_COUNT = 500;
+    private static final AtomicInteger IN_PROCESS_COUNT = new AtomicInteger();
+
+    /**
+     * amount of each utxo returned by rpcGetUTXO
+     */
+    public static final BigInteger UTXO_AMOUNT = BigInteger.TEN;
+    /**
+     * number of utxos returned by rpcGetUTXO
+     */
+    public static final int UTXO_COUNT = 2;
+
+    private final SimulatedChain chain;
+    private Server server;
+    private String inProcessName;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicInteger callCount = new AtomicInteger();
+    private final AtomicInteger activeCalls = new AtomicInteger();
+    private final AtomicInteger maxActiveCalls = new AtomicInteger();
+    private final AtomicInteger cancelledCount = new AtomicInteger();
+    private volatile long latencyMillis;
+    private volatile double failureRate;
+    private volatile Status failureStatus = Status.UNAVAILABLE;
+    private final AtomicInteger failedCount = new AtomicInteger();
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Set<ByteString> rejectedTxIds = ConcurrentHashMap.newKeySet();
+    private final Set<String> rejectedAddresses = ConcurrentHashMap.newKeySet();
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private final AtomicInteger acceptedTxCount = new AtomicInteger();
+
+    private SimulatedNode(SimulatedChain chain) {
+        this.chain = chain;
+    }
+
+    /**
+     * Start a node on a free local port.
+     * @return SimulatedNode running node
+     * @throws IOException
+     */
+    public static SimulatedNode start() throws IOException {
+        return start(new SimulatedChain());
+    }
+
+    /**
+     * Start a node serving the chain on a free local port.
+     * @param chain served chain
+     * @return SimulatedNode running node
+     * @throws IOException
+     */
+    public static SimulatedNode start(SimulatedChain chain) throws IOException {
+        SimulatedNode node = new SimulatedNode(chain);
+        node.server = NettyServerBuilder.forAddress(new InetSocketAddress(HOST, 0))
+                .addService(node)
+                .build()
+                .start();
+        return node;
+    }
+
+    /**
+     * Start a node serving the chain in process, connected by {@link #newInProcessChannel()}.
+     * <p>There is no network or serialization cost, so benchmarks measure the client only.</p>
+     * @param chain served chain
+     * @return SimulatedNode running node
+     * @throws IOException
+     */
+    public static SimulatedNode startInProcess(SimulatedChain chain) throws IOException {
+        SimulatedNode node = new SimulatedNode(chain);
+        node.inProcessName = "simulated-node-" + IN_PROCESS_COUNT.incrementAndGet();
+        node.server = InProcessServerBuilder.forName(node.inProcessName)
+                .addService(node)
+                .build()
+                .start();
+        return node;
+    }
+
+    /**
+     * Returns a new channel to the node started in process.
+     * @return ManagedChannel channel
+     */
+    public ManagedChannel newInProcessChannel() {
+        if (inProcessName == null) {
+            throw new IllegalStateException("node is not started in process.");
+        }
+        return InProcessChannelBuilder.forName(inProcessName)
+                .build();
+    }
+
+    public ServerNode getServerNode() {
+        if (inProcessName != null) {
+            throw new IllegalStateException("node is started in process, use newInProcessChannel instead.");
+        }
+        ServerNode serverNode = new ServerNode();
+        serverNode.setHost(HOST);
+        serverNode.setPort(server.getPort());
+        return serverNode;
+    }
+
+    /**
+     * Returns the total number of served calls.
+     * @return int call count
+     */
+    public int getCallCount() {
+        return callCount.get();
+    }
+
+    /**
+     * Returns the max number of calls served at the same time.
+     * @return int call count
+     */
+    public int getMaxActiveCalls() {
+        return maxActiveCalls.get();
+    }
+
+    /**
+     * Returns the number of delayed calls cancelled by client before reply.
+     * @return int call count
+     */
+    public int getCancelledCount() {
+        return cancelledCount.get();
+    }
+
+    /**
+     * Delay responses of read requests without blocking server threads.
+     * @param latencyMillis delay in milliseconds
+     */
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * Fail read requests at random with the given status, as if the node was flapping.
+     * @param failureRate   ratio of failed requests, between 0 and 1
+     * @param failureStatus status of failed requests
+     */
+    public void setFailure(double failureRate, Status failureStatus) {
+        this.failureStatus = failureStatus;
+        this.failureRate = failureRate;
+    }
+
+    /**
+     * Returns the number of read requests failed by {@link #setFailure(double, Status)}.
+     * @return int call count
+     */
+    public int getFailedCount() {
+        return failedCount.get();
+    }
+
+    public SimulatedChain getChain() {
+        return chain;
+    }
+
+    /**
+     * Set the height of served chain. Block at each height is linked to the one before.
+     * @param chainHeight tail height
+     */
+    public void setChainHeight(long chainHeight) {
+        chain.setHeight(chainHeight);
+    }
+
+    /**
+     * Returns hash of the block at height, if the served chain is not forked.
+     * @param height block height
+     * @return ByteString hash
+     */
+    public static ByteString blockHash(long height) {
+        return SimulatedChain.mainBlockHash(height);
+    }
+
+    /**
+     * Reject the transaction when it is sent.
+     * @param txId transaction id
+     */
+    public void rejectTransaction(ByteString txId) {
+        rejectedTxIds.add(txId);
+    }
+
+    /**
+     * Reject utxo and balance requests of the address as invalid.
+     * @param address wallet address
+     */
+    public void rejectAddress(String address) {
+        rejectedAddresses.add(address);
+    }
+
+    /**
+     * Returns the number of accepted transactions.
+     * @return int transaction count
+     */
+    public int getAcceptedTxCount() {
+        return acceptedTxCount.get();
+    }
+
+    /**
+     * Returns the size of each received batch.
+     * @return List<Integer> batch sizes
+     */
+    public List<Integer> getBatchSizes() {
+        return batchSizes;
+    }
+
+    /**
+     * Returns the number of connected subscribe streams.
+     * @return int stream count
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Send message to all subscribe streams of the topic.
+     * @param topic
+     * @param data  message data
+     */
+    public void publish(String topic, String data) {
+        RpcProto.SubscribeResponse response = RpcProto.SubscribeResponse.newBuilder()
+                .setData(data)
+                .build();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.topics.contains(topic)) {
+                synchronized (subscriber) {
+                    subscriber.observer.onNext(response);
+                }
+            }
+        }
+    }
+
+    /**
+     * Break all subscribe streams as if the connection was lost.
+     */
+    public void disconnectSubscribers() {
+        for (Subscriber subscriber : subscribers) {
+            subscribers.remove(subscriber);
+            synchronized (subscriber) {
+                subscriber.observer.onError(Status.UNAVAILABLE.withDescription("simulated disconnection").asRuntimeException());
+            }
+        }
+    }
+
+    public void stop() throws InterruptedException {
+        scheduler.shutdownNow();
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void rpcGetVersion(RpcProto.GetVersionRequest request, StreamObserver<RpcProto.GetVersionResponse> responseObserver) {
+        callCount.incrementAndGet();
+        reply(responseObserver, RpcProto.GetVersionResponse.newBuilder()
+                .setProtoVersion("1.0.0")
+                .setServerVersion("simulated")
+                .build());
+    }
+
+    /**
+     * Returns gas of a simple transfer plus gas of each input and output.
+     */
+    @Override
+    public void rpcEstimateGas(RpcProto.EstimateGasRequest request, StreamObserver<RpcProto.EstimateGasResponse> responseObserver) {
+        callCount.incrementAndGet();
+        TransactionProto.Transaction transaction = request.getTransaction();
+        long gas = 20000 + 1000L * (transaction.getVinCount() + transaction.getVoutCount());
+        reply(responseObserver, RpcProto.EstimateGasResponse.newBuilder()
+                .setGasCount(ByteString.copyFrom(BigInteger.valueOf(gas).toByteArray()))
+                .build());
+    }
+
+    @Override
+    public void rpcGasPrice(RpcProto.GasPriceRequest request, StreamObserver<RpcProto.GasPriceResponse> responseObserver) {
+        callCount.incrementAndGet();
+        responseObserver.onNext(RpcProto.GasPriceResponse.newBuilder()
+                .setGasPrice(ByteString.copyFrom(BigInteger.TEN.toByteArray()))
+                .build());
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void rpcGetUTXO(RpcProto.GetUTXORequest request, StreamObserver<RpcProto.GetUTXOResponse> responseObserver) {
+        callCount.incrementAndGet();
+        if (rejectedAddresses.contains(request.getAddress())) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription("invalid address").asRuntimeException());
+            return;
+        }
+        int active = activeCalls.incrementAndGet();
+        maxActiveCalls.accumulateAndGet(active, Math::max);
+        RpcProto.GetUTXOResponse.Builder builder = RpcProto.GetUTXOResponse.newBuilder();
+        for (int i = 0; i < UTXO_COUNT; i++) {
+            builder.addUtxos(UtxoProto.Utxo.newBuilder()
+                    .setAmount(ByteString.copyFrom(UTXO_AMOUNT.toByteArray()))
+                    .setTxIndex(i)
+                    .build());
+        }
+        RpcProto.GetUTXOResponse response = builder.build();
+        reply(responseObserver, response, activeCalls::decrementAndGet);
+    }
+
+    @Override
+    public void rpcGetBalance(RpcProto.GetBalanceRequest request, StreamObserver<RpcProto.GetBalanceResponse> responseObserver) {
+        callCount.incrementAndGet();
+        if (rejectedAddresses.contains(request.getAddress())) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription("invalid address").asRuntimeException());
+            return;
+        }
+        int active = activeCalls.incrementAndGet();
+        maxActiveCalls.accumulateAndGet(active, Math::max);
+        RpcProto.GetBalanceResponse response = RpcProto.GetBalanceResponse.newBuilder()
+                .setAmount(UTXO_AMOUNT.longValue() * UTXO_COUNT)
+                .build();
+        reply(responseObserver, response, activeCalls::decrementAndGet);
+    }
+
+    @Override
+    public void rpcGetBlockchainInfo(RpcProto.GetBlockchainInfoRequest request, StreamObserver<RpcProto.GetBlockchainInfoResponse> responseObserver) {
+        callCount.incrementAndGet();
+        long height = chain.getHeight();
+        reply(responseObserver, RpcProto.GetBlockchainInfoResponse.newBuilder()
+                .setTailBlockHash(chain.blockHash(height))
+                .setBlockHeight(height)
+                .build());
+    }
+
+    @Override
+    public void rpcGetBlockByHash(RpcProto.GetBlockByHashRequest request, StreamObserver<RpcProto.GetBlockByHashResponse> responseObserver) {
+        callCount.incrementAndGet();
+        BlockProto.Block block = chain.blockByHash(request.getHash());
+        if (block == null) {
+            responseObserver.onError(Status.NOT_FOUND.withDescription("block is not found").asRuntimeException());
+            return;
+        }
+        reply(responseObserver, RpcProto.GetBlockByHashResponse.newBuilder()
+                .setBlock(block)
+                .build());
+    }
+
+    /**
+     * Returns blocks after the first start hash found on current chain, like dappley node.
+     */
+    @Override
+    public void rpcGetBlocks(RpcProto.GetBlocksRequest request, StreamObserver<RpcProto.GetBlocksResponse> responseObserver) {
+        callCount.incrementAndGet();
+        long startHeight = -1;
+        for (ByteString hash : request.getStartBlockHashesList()) {
+            if (chain.contains(hash)) {
+                startHeight = SimulatedChain.heightOf(hash);
+                break;
+            }
+        }
+        if (startHeight < 0) {
+            responseObserver.onError(Status.NOT_FOUND.withDescription("start blocks are not found").asRuntimeException());
+            return;
+        }
+        int count = Math.min(request.getMaxCount(), MAX_GET_BLOCKS_COUNT);
+        RpcProto.GetBlocksResponse.Builder builder = RpcProto.GetBlocksResponse.newBuilder();
+        for (long height = startHeight + 1; height <= startHeight + count; height++) {
+            BlockProto.Block block = chain.block(height);
+            if (block == null) {
+                break;
+            }
+            builder.addBlocks(block);
+        }
+        reply(responseObserver, builder.build());
+    }
+
+    @Override
+    public void rpcGetBlockByHeight(RpcProto.GetBlockByHeightRequest request, StreamObserver<RpcProto.GetBlockByHeightResponse> responseObserver) {
+        callCount.incrementAndGet();
+        RpcProto.GetBlockByHeightResponse.Builder builder = RpcProto.GetBlockByHeightResponse.newBuilder();
+        BlockProto.Block block = chain.block(request.getHeight());
+        if (block != null) {
+            builder.setBlock(block);
+        }
+        reply(responseObserver, builder.build());
+    }
+
+    private <T> void reply(StreamObserver<T> responseObserver, T response) {
+        reply(responseObserver, response, null);
+    }
+
+    /**
+     * Send response after latency without blocking server threads, or fail at once if failure is injected.
+     */
+    private <T> void reply(StreamObserver<T> responseObserver, T response, Runnable beforeReply) {
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            if (beforeReply != null) {
+                beforeReply.run();
+            }
+            failedCount.incrementAndGet();
+            responseObserver.onError(failureStatus.withDescription("simulated failure").asRuntimeException());
+            return;
+        }
+        Runnable reply = () -> {
+            if (beforeReply != null) {
+                beforeReply.run();
+            }
+            if (((ServerCallStreamObserver<T>) responseObserver).isCancelled()) {
+                cancelledCount.incrementAndGet();
+                return;
+            }
+            responseObserver.onNext(response);
+            responseObserver.onCompleted();
+        };
+        if (latencyMillis > 0) {
+            scheduler.schedule(reply, latencyMillis, TimeUnit.MILLISECONDS);
+        } else {
+            reply.run();
+        }
+    }
+
+    @Override
+    public void rpcSubscribe(RpcProto.SubscribeRequest request, StreamObserver<RpcProto.SubscribeResponse> responseObserver) {
+        callCount.incrementAndGet();
+        Subscriber subscriber = new Subscriber(request.getTopicsList(), responseObserver);
+        ((ServerCallStreamObserver<RpcProto.SubscribeResponse>) responseObserver).setOnCancelHandler(() -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+    }
+
+    @Override
+    public void rpcSendTransaction(RpcProto.SendTransactionRequest request, StreamObserver<RpcProto.SendTransactionResponse> responseObserver) {
+        callCount.incrementAndGet();
+        if (rejectedTxIds.contains(request.getTransaction().getId())) {
+            responseObserver.onError(Status.FAILED_PRECONDITION.withDescription("transaction is invalid").asRuntimeException());
+            return;
+        }
+        acceptedTxCount.incrementAndGet();
+        responseObserver.onNext(RpcProto.SendTransactionResponse.newBuilder().build());
+        responseObserver.onCompleted();
+    }
+
+    /**
+     * Accepts valid transactions of the batch. If any transaction is invalid,
+     * returns an error status with a SendTransactionStatus detail for each transaction like dappley node.
+     */
+    @Override
+    public void rpcSendBatchTransaction(RpcProto.SendBatchTransactionRequest request, StreamObserver<RpcProto.SendBatchTransactionResponse> responseObserver) {
+        callCount.incrementAndGet();
+        batchSizes.add(request.getTransactionsCount());
+        com.google.rpc.Status.Builder status = com.google.rpc.Status.newBuilder()
+                .setCode(Code.UNKNOWN_VALUE)
+                .setMessage("one or more transactions are invalid");
+        boolean failed = false;
+        for (TransactionProto.Transaction transaction : request.getTransactionsList()) {
+            RpcProto.SendTransactionStatus.Builder txStatus = RpcProto.SendTransactionStatus.newBuilder()
+                    .setTxid(transaction.getId());
+            if (rejectedTxIds.contains(transaction.getId())) {
+                failed = true;
+                txStatus.setCode(Status.Code.FAILED_PRECONDITION.value()).setMessage("transaction is invalid");
+            } else {
+                acceptedTxCount.incrementAndGet();
+                txStatus.setCode(Status.Code.OK.value());
+            }
+            status.addDetails(Any.pack(txStatus.build()));
+        }
+        if (failed) {
+            responseObserver.onError(StatusProto.toStatusRuntimeException(status.build()));
+            return;
+        }
+        responseObserver.onNext(RpcProto.SendBatchTransactionResponse.newBuilder().build());
+        responseObserver.onCompleted();
+    }
+
+    private static class Subscriber {
+        private final List<String> topics;
+        private final StreamObserver<RpcProto.SubscribeResponse> observer;
+
+        private Subscriber(List<String> topics, StreamObserver<RpcProto.SubscribeResponse> observer) {
+            this.topics = topics;
+            this.observer = observer;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.protobuf.BlockProto;
+import com.dappley.java.core.protobuf.RpcProto;
+import com.dappley.java.core.protobuf.RpcServiceGrpc;
+import com.dappley.java.core.protobuf.TransactionProto;
+import com.google.protobuf.ByteString;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+
+@Slf4j
+public class SimulatedNodeTest {
+
+    @Test
+    public void deterministicChain() {
+        SimulatedChain chain = newChain(7);
+        SimulatedChain same = newChain(7);
+        SimulatedChain other = newChain(8);
+        for (long height = 0; height <= chain.getHeight(); height++) {
+            Assert.assertEquals(chain.block(height), same.block(height));
+        }
+        BlockProto.Block block = chain.block(10);
+        Assert.assertEquals(20, block.getTransactionsCount());
+        Assert.assertEquals(chain.blockHash(9), block.getHeader().getPreviousHash());
+        Assert.assertEquals(SimulatedNode.blockHash(10), block.getHeader().getHash());
+        Assert.assertNotEquals(block, other.block(10));
+        Assert.assertEquals(0, chain.block(0).getTransactionsCount());
+        Assert.assertNull(chain.block(chain.getHeight() + 1));
+    }
+
+    @Test
+    public void fork() {
+        SimulatedChain chain = newChain(1);
+        ByteString oldTail = chain.blockHash(100);
+        chain.fork(60);
+        Assert.assertEquals(SimulatedNode.blockHash(59), chain.blockHash(59));
+        Assert.assertNotEquals(SimulatedNode.blockHash(60), chain.blockHash(60));
+        Assert.assertEquals(chain.blockHash(59), chain.block(60).getHeader().getPreviousHash());
+        Assert.assertFalse(chain.contains(oldTail));
+        // blocks of old branch are still found by hash
+        Assert.assertEquals(oldTail, chain.blockByHash(oldTail).getHeader().getHash());
+
+        ByteString forkedHash = chain.blockHash(60);
+        chain.fork(80);
+        Assert.assertEquals(forkedHash, chain.blockHash(60));
+        Assert.assertEquals(chain.blockHash(79), chain.block(80).getHeader().getPreviousHash());
+        Assert.assertNotEquals(SimulatedNode.blockHash(79), chain.blockHash(79));
+    }
+
+    @Test
+    public void getBlocksAfterFork() throws Exception {
+        SimulatedNode node = SimulatedNode.startInProcess(newChain(1));
+        ManagedChannel channel = node.newInProcessChannel();
+        RpcServiceGrpc.RpcServiceBlockingStub stub = RpcServiceGrpc.newBlockingStub(channel);
+
+        List<BlockProto.Block> blocks = stub.rpcGetBlocks(RpcProto.GetBlocksRequest.newBuilder()
+                .addStartBlockHashes(SimulatedNode.blockHash(10))
+                .setMaxCount(5)
+                .build()).getBlocksList();
+        Assert.assertEquals(5, blocks.size());
+        Assert.assertEquals(11, blocks.get(0).getHeader().getHeight());
+
+        // client on the old branch finds the common block, as in dappley synchronization
+        node.getChain().fork(50);
+        blocks = stub.rpcGetBlocks(RpcProto.GetBlocksRequest.newBuilder()
+                .addAllStartBlockHashes(Arrays.asList(SimulatedNode.blockHash(70), SimulatedNode.blockHash(40)))
+                .setMaxCount(1000)
+                .build()).getBlocksList();
+        Assert.assertEquals(160, blocks.size());
+        Assert.assertEquals(node.getChain().blockHash(50), blocks.get(9).getHeader().getHash());
+
+        try {
+            stub.rpcGetBlocks(RpcProto.GetBlocksRequest.newBuilder()
+                    .addStartBlockHashes(ByteString.copyFromUtf8("unknown"))
+                    .setMaxCount(10)
+                    .build());
+            Assert.fail("request should fail");
+        } catch (StatusRuntimeException e) {
+            Assert.assertEquals(Status.Code.NOT_FOUND, e.getStatus().getCode());
+        }
+        channel.shutdownNow();
+        node.stop();
+    }
+
+    @Test
+    public void estimateGas() throws Exception {
+        SimulatedNode node = SimulatedNode.startInProcess(new SimulatedChain());
+        ManagedChannel channel = node.newInProcessChannel();
+        TransactionProto.Transaction transaction = newChain(1).block(1).getTransactions(0);
+        RpcProto.EstimateGasResponse response = RpcServiceGrpc.newBlockingStub(channel)
+                .rpcEstimateGas(RpcProto.EstimateGasRequest.newBuilder()
+                        .setTransaction(transaction)
+                        .build());
+        Assert.assertEquals(BigInteger.valueOf(23000), new BigInteger(1, response.getGasCount().toByteArray()));
+        channel.shutdownNow();
+        node.stop();
+    }
+
+    @Test
+    public void benchmark() throws Exception {
+        TestFixtures.assumeBenchmarks();
+        SimulatedNode inProcessNode = SimulatedNode.startInProcess(newChain(1));
+        SimulatedNode nettyNode = SimulatedNode.start(newChain(1));
+        ManagedChannel inProcessChannel = inProcessNode.newInProcessChannel();
+        ManagedChannel nettyChannel = ManagedChannelBuilder
+                .forAddress(nettyNode.getServerNode().getHost(), nettyNode.getServerNode().getPort())
+                .usePlaintext()
+                .build();
+        readBlocks(inProcessChannel);
+        readBlocks(nettyChannel);
+        long inProcessMillis = readBlocks(inProcessChannel);
+        long nettyMillis = readBlocks(nettyChannel);
+        inProcessChannel.shutdownNow();
+        nettyChannel.shutdownNow();
+        inProcessNode.stop();
+        nettyNode.stop();
+        log.info(String.format("blocks of 20 transactions by height: in process %d/s, netty %d/s",
+                200 * 1000L / Math.max(1, inProcessMillis), 200 * 1000L / Math.max(1, nettyMillis)));
+    }
+
+    /**
+     * Returns elapsed milliseconds of reading 200 blocks.
+     */
+    private static long readBlocks(ManagedChannel channel) {
+        RpcServiceGrpc.RpcServiceBlockingStub stub = RpcServiceGrpc.newBlockingStub(channel);
+        long start = System.currentTimeMillis();
+        for (long height = 1; height <= 200; height++) {
+            BlockProto.Block block = stub.rpcGetBlockByHeight(RpcProto.GetBlockByHeightRequest.newBuilder()
+                    .setHeight(height)
+                    .build()).getBlock();
+            Assert.assertEquals(height, block.getHeader().getHeight());
+        }
+        return System.currentTimeMillis() - start;
+    }
+
+    private static SimulatedChain newChain(long seed) {
+        SimulatedChain chain = new SimulatedChain(seed);
+        chain.setHeight(200);
+        chain.setTransactionsPerBlock(20);
+        return chain;
+    }
+}
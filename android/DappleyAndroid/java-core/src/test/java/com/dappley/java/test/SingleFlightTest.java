@@ -0,0 +1,172 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.net.ProtocalProvider;
+import com.dappley.java.core.net.ProtocalProviderBuilder;
+import com.dappley.java.core.net.RemoteDataProvider;
+import com.dappley.java.core.net.SingleFlightDataProvider;
+import com.dappley.java.core.po.BatchQueryResult;
+import com.dappley.java.core.po.ServerNode;
+import com.dappley.java.core.po.Utxo;
+import com.dappley.java.core.util.SingleFlight;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+public class SingleFlightTest {
+    private static final int THREAD_COUNT = 16;
+
+    private SimulatedNode node;
+    private ProtocalProvider protocalProvider;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        node = SimulatedNode.start();
+        node.setLatencyMillis(200);
+        protocalProvider = new ProtocalProviderBuilder()
+                .setType(RemoteDataProvider.RemoteProtocalType.RPC)
+                .setServerNodes(new ServerNode[]{node.getServerNode()})
+                .build();
+        executor = Executors.newFixedThreadPool(THREAD_COUNT);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        protocalProvider.close();
+        node.stop();
+    }
+
+    @Test
+    public void collapseConcurrentReads() throws Exception {
+        SingleFlightDataProvider provider = new SingleFlightDataProvider(new RemoteDataProvider(protocalProvider));
+        List<List<Utxo>> results = runConcurrently(() -> provider.getUtxos("address"));
+        log.debug("rpcGetUTXO calls of " + THREAD_COUNT + " concurrent reads: " + node.getCallCount());
+        Assert.assertEquals(1, node.getCallCount());
+        Assert.assertEquals(THREAD_COUNT - 1, provider.getSharedCount());
+        for (List<Utxo> utxos : results) {
+            Assert.assertEquals(SimulatedNode.UTXO_COUNT, utxos.size());
+        }
+        // each caller gets its own list
+        Assert.assertNotSame(results.get(0), results.get(1));
+
+        // balance is read through getUtxo, and is shared separately
+        List<BigInteger> balances = runConcurrently(() -> provider.getBalance("address"));
+        Assert.assertEquals(2, node.getCallCount());
+        for (BigInteger balance : balances) {
+            Assert.assertEquals(SimulatedNode.UTXO_AMOUNT.multiply(BigInteger.valueOf(SimulatedNode.UTXO_COUNT)), balance);
+        }
+
+        // later reads are sent again
+        provider.getUtxos("address");
+        Assert.assertEquals(3, node.getCallCount());
+    }
+
+    @Test
+    public void collapseBatchReads() throws Exception {
+        SingleFlightDataProvider provider = new SingleFlightDataProvider(new RemoteDataProvider(protocalProvider));
+        node.rejectAddress("address2");
+        List<String> addresses = Arrays.asList("address0", "address1", "address2");
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<BatchQueryResult<List<Utxo>>>> batches = new ArrayList<>();
+        List<Future<List<Utxo>>> singles = new ArrayList<>();
+        // batches and single reads of the same addresses share requests
+        for (int i = 0; i < 4; i++) {
+            batches.add(executor.submit(() -> {
+                start.await();
+                return provider.getUtxos(addresses);
+            }));
+            singles.add(executor.submit(() -> {
+                start.await();
+                return provider.getUtxos("address1");
+            }));
+        }
+        start.countDown();
+        List<BatchQueryResult<List<Utxo>>> results = new ArrayList<>();
+        for (Future<BatchQueryResult<List<Utxo>>> batch : batches) {
+            results.add(batch.get(10, TimeUnit.SECONDS));
+        }
+        for (Future<List<Utxo>> single : singles) {
+            Assert.assertEquals(SimulatedNode.UTXO_COUNT, single.get(10, TimeUnit.SECONDS).size());
+        }
+        Assert.assertEquals(3, node.getCallCount());
+        for (BatchQueryResult<List<Utxo>> result : results) {
+            Assert.assertEquals(SimulatedNode.UTXO_COUNT, result.getValues().get("address0").size());
+            Assert.assertEquals(SimulatedNode.UTXO_COUNT, result.getValues().get("address1").size());
+            Assert.assertTrue(result.getErrors().get("address2").contains("invalid address"));
+        }
+        Assert.assertNotSame(results.get(0).getValues().get("address0"), results.get(1).getValues().get("address0"));
+    }
+
+    @Test
+    public void differentKeys() throws Exception {
+        SingleFlightDataProvider provider = new SingleFlightDataProvider(new RemoteDataProvider(protocalProvider));
+        AtomicInteger index = new AtomicInteger();
+        runConcurrently(() -> provider.getUtxos("address" + index.getAndIncrement() % 4));
+        Assert.assertEquals(4, node.getCallCount());
+    }
+
+    @Test
+    public void shareError() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("load failed");
+        }));
+        loading.await(5, TimeUnit.SECONDS);
+        Future<String> follower = executor.submit(() -> singleFlight.execute("key", () -> "unexpected"));
+        while (singleFlight.getSharedCount() == 0) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        release.countDown();
+        for (Future<String> future : Arrays.asList(leader, follower)) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                Assert.fail("error should be shared");
+            } catch (ExecutionException e) {
+                Assert.assertEquals("load failed", e.getCause().getMessage());
+            }
+        }
+        Assert.assertEquals(1, singleFlight.getLoadCount());
+    }
+
+    private <T> List<T> runConcurrently(Callable<T> task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>(THREAD_COUNT);
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+        List<T> results = new ArrayList<>(THREAD_COUNT);
+        for (Future<T> future : futures) {
+            results.add(future.get(10, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+}
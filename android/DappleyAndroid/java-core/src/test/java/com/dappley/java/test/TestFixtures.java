@@ -0,0 +1,109 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.crypto.ShaDigest;
+import com.dappley.java.core.po.Block;
+import com.dappley.java.core.po.Transaction;
+import com.dappley.java.core.util.ByteUtil;
+import org.junit.Assume;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+/**
+ * Helpers shared by tests.
+ */
+public final class TestFixtures {
+    /**
+     * System property which enables wall-clock benchmarks, e.g. -Ddappley.benchmark=true
+     */
+    public static final String BENCHMARK_PROPERTY = "dappley.benchmark";
+
+    private TestFixtures() {
+    }
+
+    /**
+     * Skip the calling test unless benchmarks are enabled.
+     * <p>Benchmarks measure time on the running machine, so they are left out of the unit test run.</p>
+     */
+    public static void assumeBenchmarks() {
+        Assume.assumeTrue("benchmarks are disabled, set -D" + BENCHMARK_PROPERTY + "=true to run them",
+                Boolean.getBoolean(BENCHMARK_PROPERTY));
+    }
+
+    /**
+     * Skip the calling test unless benchmarks are enabled and the JVM counts bytes allocated by threads.
+     */
+    public static void assumeAllocationBenchmarks() {
+        assumeBenchmarks();
+        Assume.assumeTrue("allocated bytes of threads are not counted by this JVM", threadAllocatedBytes() >= 0);
+    }
+
+    /**
+     * Returns bytes allocated by the current thread so far.
+     * @return long -1 if the JVM doesn't count them
+     */
+    public static long threadAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) bean;
+        if (!allocations.isThreadAllocatedMemorySupported() || !allocations.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        return allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Returns a block of a simulated chain, with its transactions decoded.
+     * @param transactionCount transaction count of the block
+     * @return Block
+     */
+    public static Block newBlock(int transactionCount) {
+        SimulatedChain chain = new SimulatedChain(1);
+        chain.setHeight(10);
+        chain.setTransactionsPerBlock(transactionCount);
+        Block block = new Block(chain.block(5));
+        block.getTransactions();
+        return block;
+    }
+
+    /**
+     * Hash of transactions in a block, computed from serialized transactions and their concatenation,
+     * as it was before streaming.
+     * @param transactions transactions of a block
+     * @return byte[] hash
+     */
+    public static byte[] legacyHashTransactions(List<Transaction> transactions) {
+        byte[] txHash = new byte[0];
+        for (Transaction transaction : transactions) {
+            txHash = ByteUtil.concat(txHash, ShaDigest.sha256(transaction.serialize()));
+        }
+        return ShaDigest.sha256(txHash);
+    }
+
+    /**
+     * Run a round repeatedly, first to warm up, then to count rounds.
+     * @param round         the measured work
+     * @param warmUpMillis  time to warm up in milliseconds
+     * @param measureMillis time to count rounds in milliseconds
+     * @return long rounds per second
+     */
+    public static long measure(Runnable round, long warmUpMillis, long measureMillis) {
+        long end = System.currentTimeMillis() + warmUpMillis;
+        while (System.currentTimeMillis() < end) {
+            round.run();
+        }
+        long count = 0;
+        long start = System.nanoTime();
+        end = start + measureMillis * 1_000_000L;
+        long now;
+        do {
+            round.run();
+            count++;
+            now = System.nanoTime();
+        } while (now < end);
+        return count * 1_000_000_000L / (now - start);
+    }
+}
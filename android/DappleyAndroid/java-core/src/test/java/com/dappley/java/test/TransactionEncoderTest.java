@@ -0,0 +1,164 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.po.Transaction;
+import com.dappley.java.core.po.TxInput;
+import com.dappley.java.core.po.TxOutput;
+import com.dappley.java.core.util.ByteArraySink;
+import com.dappley.java.core.util.ByteUtil;
+import com.dappley.java.core.util.TransactionEncoder;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Consumer;
+
+@Slf4j
+public class TransactionEncoderTest {
+    private static final int ROUNDS = 2000;
+
+    @Test
+    public void sameAsJoinedFields() {
+        for (Transaction transaction : newTransactions()) {
+            assertSameBytes(transaction);
+        }
+        Transaction transaction = newTransaction();
+        transaction.getTxOutputs().get(0).setContract("{\"function\":\"record\",\"args\":[\"温度\",\"😀\",\"\uD83D\"]}");
+        transaction.setTip(BigInteger.ZERO);
+        transaction.setGasLimit(BigInteger.valueOf(-129));
+        transaction.setGasPrice(BigInteger.ONE.shiftLeft(100).add(BigInteger.TEN));
+        assertSameBytes(transaction);
+
+        transaction.setTip(null);
+        transaction.setGasLimit(null);
+        transaction.setGasPrice(null);
+        transaction.setType(Transaction.TxTypeDefault);
+        transaction.getTxInputs().get(0).setTxId(null);
+        transaction.getTxOutputs().get(0).setContract(null);
+        assertSameBytes(transaction);
+
+        Transaction empty = new Transaction();
+        Assert.assertEquals(0, empty.serialize().length);
+    }
+
+    @Test
+    public void growingSink() {
+        ByteArraySink sink = new ByteArraySink(2);
+        sink.putInt(0x01020304);
+        sink.put((byte) 5);
+        Assert.assertArrayEquals(new byte[]{1, 2, 3, 4, 5}, sink.toByteArray());
+
+        sink = new ByteArraySink(4);
+        sink.putInt(7);
+        byte[] full = sink.toByteArray();
+        // returned buffer is not changed by later writes
+        sink.reset();
+        sink.putInt(8);
+        Assert.assertArrayEquals(ByteUtil.int2Bytes(7), full);
+        Assert.assertArrayEquals(ByteUtil.int2Bytes(8), sink.toByteArray());
+    }
+
+    @Test
+    public void allocationBenchmark() {
+        TestFixtures.assumeAllocationBenchmarks();
+        Transaction transaction = newTransaction();
+        long joined = measure(transaction, TransactionEncoderTest::legacySerialize);
+        long encoded = measure(transaction, Transaction::serialize);
+        log.info(String.format("bytes per serialization of %d bytes transaction: joined fields %d, encoder %d",
+                transaction.serialize().length, joined, encoded));
+        Assert.assertTrue(encoded < joined);
+    }
+
+    private static long measure(Transaction transaction, Consumer<Transaction> serialization) {
+        // warm up
+        for (int i = 0; i < ROUNDS; i++) {
+            serialization.accept(transaction);
+        }
+        long start = TestFixtures.threadAllocatedBytes();
+        for (int i = 0; i < ROUNDS; i++) {
+            serialization.accept(transaction);
+        }
+        return (TestFixtures.threadAllocatedBytes() - start) / ROUNDS;
+    }
+
+    private static void assertSameBytes(Transaction transaction) {
+        Assert.assertArrayEquals(legacySerialize(transaction), transaction.serialize());
+        Assert.assertArrayEquals(legacySerialize(transaction.trimedCopy()), transaction.trimedCopy().serialize());
+        Assert.assertEquals(transaction.serialize().length, TransactionEncoder.size(transaction, true));
+        Assert.assertEquals(transaction.getGenerateIdBytes().length, TransactionEncoder.size(transaction, false));
+    }
+
+    private static List<Transaction> newTransactions() {
+        SimulatedChain chain = new SimulatedChain(3);
+        chain.setTransactionsPerBlock(5);
+        List<Transaction> transactions = new LinkedList<>();
+        for (int i = 0; i < 5; i++) {
+            transactions.add(new Transaction(chain.block(1).getTransactions(i)));
+        }
+        transactions.add(newTransaction());
+        return transactions;
+    }
+
+    private static Transaction newTransaction() {
+        Transaction transaction = new Transaction();
+        for (int i = 0; i < 3; i++) {
+            TxInput txInput = new TxInput();
+            txInput.setTxId(new byte[32]);
+            txInput.setVout(i);
+            txInput.setPublicKey(new byte[65]);
+            txInput.setSignature(new byte[65]);
+            transaction.addTxInput(txInput);
+        }
+        TxOutput contractOutput = new TxOutput();
+        contractOutput.setValue(ByteUtil.bigInteger2Bytes(BigInteger.ZERO));
+        contractOutput.setPublicKeyHash(new byte[21]);
+        contractOutput.setContract("{\"function\":\"record\",\"args\":[\"dappley\",\"42\"]}");
+        transaction.addTxOutput(contractOutput);
+        TxOutput txOutput = new TxOutput();
+        txOutput.setValue(ByteUtil.bigInteger2Bytes(BigInteger.valueOf(1000)));
+        txOutput.setPublicKeyHash(new byte[21]);
+        transaction.addTxOutput(txOutput);
+        transaction.setTip(BigInteger.valueOf(100));
+        transaction.setGasLimit(BigInteger.valueOf(30000));
+        transaction.setGasPrice(BigInteger.ONE);
+        transaction.setType(Transaction.TxTypeContract);
+        return transaction;
+    }
+
+    /**
+     * Serialization joining an array of each field, as it was before the encoder.
+     */
+    private static byte[] legacySerialize(Transaction transaction) {
+        List<byte[]> bytesList = new LinkedList<>();
+        if (transaction.getTxInputs() != null) {
+            for (TxInput txInput : transaction.getTxInputs()) {
+                bytesList.add(txInput.getTxId());
+                bytesList.add(ByteUtil.int2Bytes(txInput.getVout()));
+                bytesList.add(txInput.getPublicKey());
+                bytesList.add(txInput.getSignature());
+            }
+        }
+        if (transaction.getTxOutputs() != null) {
+            for (TxOutput txOutput : transaction.getTxOutputs()) {
+                bytesList.add(txOutput.getValue());
+                bytesList.add(txOutput.getPublicKeyHash());
+                bytesList.add(txOutput.getContract() == null ? null : ByteUtil.string2Bytes(txOutput.getContract()));
+            }
+        }
+        if (transaction.getTip() != null) {
+            bytesList.add(ByteUtil.bigInteger2Bytes(transaction.getTip()));
+        }
+        if (transaction.getGasLimit() != null) {
+            bytesList.add(ByteUtil.bigInteger2Bytes(transaction.getGasLimit()));
+        }
+        if (transaction.getGasPrice() != null) {
+            bytesList.add(ByteUtil.bigInteger2Bytes(transaction.getGasPrice()));
+        }
+        if (transaction.getType() > Transaction.TxTypeDefault) {
+            bytesList.add(ByteUtil.int2Bytes(transaction.getType()));
+        }
+        return ByteUtil.joinBytes(bytesList);
+    }
+}
@@ -0,0 +1,146 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.chain.TransactionManager;
+import com.dappley.java.core.crypto.ShaDigest;
+import com.dappley.java.core.po.Transaction;
+import com.dappley.java.core.po.TxInput;
+import com.dappley.java.core.po.TxOutput;
+import com.dappley.java.core.util.ByteUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@Slf4j
+public class TransactionHashTest {
+    private static final int THREAD_COUNT = 8;
+    private static final int BLOCK_TRANSACTION_COUNT = 2000;
+
+    @Test
+    public void invalidatedByChanges() {
+        Transaction transaction = TestFixtures.newBlock(1).getTransactions().get(0);
+        assertFresh(transaction);
+
+        transaction.getTxInputs().get(0).setSignature(new byte[]{1, 2, 3});
+        assertFresh(transaction);
+        transaction.getTxInputs().get(0).setVout(7);
+        assertFresh(transaction);
+        transaction.getTxOutputs().get(0).setValue(ByteUtil.bigInteger2Bytes(BigInteger.valueOf(42)));
+        assertFresh(transaction);
+        transaction.getTxOutputs().get(0).setContract("contract");
+        assertFresh(transaction);
+        transaction.setTip(BigInteger.TEN);
+        assertFresh(transaction);
+        transaction.setType(Transaction.TxTypeContract);
+        assertFresh(transaction);
+
+        // changes of lists, not only of their elements
+        TxOutput txOutput = new TxOutput();
+        txOutput.setValue(ByteUtil.bigInteger2Bytes(BigInteger.ONE));
+        txOutput.setPublicKeyHash(new byte[21]);
+        transaction.addTxOutput(txOutput);
+        assertFresh(transaction);
+        transaction.getTxOutputs().remove(txOutput);
+        assertFresh(transaction);
+        TxInput txInput = new TxInput();
+        txInput.setTxId(new byte[32]);
+        txInput.setVout(1);
+        transaction.getTxInputs().set(0, txInput);
+        assertFresh(transaction);
+        transaction.setTxInputs(new ArrayList<>(transaction.getTxInputs()));
+        assertFresh(transaction);
+
+        // id is not hashed, returned arrays are copies
+        byte[] hash = transaction.hash();
+        transaction.createId();
+        hash[0]++;
+        transaction.getId()[0]++;
+        assertFresh(transaction);
+    }
+
+    @Test
+    public void notPartOfEquality() {
+        Transaction transaction = TestFixtures.newBlock(1).getTransactions().get(0);
+        Transaction copy = transaction.deepClone();
+        transaction.hash();
+        transaction.generateId();
+        Assert.assertEquals(copy, transaction);
+        Assert.assertEquals(copy.hashCode(), transaction.hashCode());
+        Assert.assertEquals(copy.toString(), transaction.toString());
+    }
+
+    @Test
+    public void concurrentHashing() throws Exception {
+        List<Transaction> transactions = TestFixtures.newBlock(BLOCK_TRANSACTION_COUNT).getTransactions();
+        byte[] expected = TestFixtures.legacyHashTransactions(transactions);
+        List<byte[]> expectedIds = new ArrayList<>();
+        for (Transaction transaction : transactions) {
+            expectedIds.add(ShaDigest.sha256(transaction.getGenerateIdBytes()));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            futures.add(executor.submit(() -> {
+                startLatch.await();
+                for (int round = 0; round < 5; round++) {
+                    Assert.assertArrayEquals(expected, TransactionManager.hashTransactions(transactions));
+                    for (int j = 0; j < transactions.size(); j++) {
+                        Assert.assertArrayEquals(expectedIds.get(j), transactions.get(j).generateId());
+                    }
+                }
+                return null;
+            }));
+        }
+        startLatch.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // a change after concurrent use is seen by the next hash
+        transactions.get(BLOCK_TRANSACTION_COUNT / 2).getTxInputs().get(0).setSignature(new byte[65]);
+        Assert.assertArrayEquals(TestFixtures.legacyHashTransactions(transactions), TransactionManager.hashTransactions(transactions));
+    }
+
+    @Test
+    public void benchmark() {
+        TestFixtures.assumeBenchmarks();
+        List<Transaction> transactions = TestFixtures.newBlock(BLOCK_TRANSACTION_COUNT).getTransactions();
+        // warm up
+        for (int i = 0; i < 5; i++) {
+            TestFixtures.legacyHashTransactions(transactions);
+            TransactionManager.hashTransactions(transactions);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            TestFixtures.legacyHashTransactions(transactions);
+        }
+        long hashing = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            TransactionManager.hashTransactions(transactions);
+        }
+        long memoized = System.nanoTime() - start;
+        log.info(String.format("10 hashes of %d transactions: rehashing %dms, memoized %dms",
+                BLOCK_TRANSACTION_COUNT, hashing / 1_000_000, memoized / 1_000_000));
+        Assert.assertTrue(memoized < hashing);
+    }
+
+    private static void assertFresh(Transaction transaction) {
+        // twice, to check the memoized value as well
+        for (int i = 0; i < 2; i++) {
+            Assert.assertArrayEquals(ShaDigest.sha256(transaction.serialize()), transaction.hash());
+            Assert.assertArrayEquals(ShaDigest.sha256(transaction.getGenerateIdBytes()), transaction.generateId());
+        }
+    }
+
+}
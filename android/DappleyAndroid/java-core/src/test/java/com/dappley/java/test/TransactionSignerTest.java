@@ -0,0 +1,256 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.chain.SignatureHashes;
+import com.dappley.java.core.chain.TransactionManager;
+import com.dappley.java.core.chain.TransactionSigner;
+import com.dappley.java.core.crypto.ShaDigest;
+import com.dappley.java.core.po.DeviceInput;
+import com.dappley.java.core.po.DeviceResult;
+import com.dappley.java.core.po.Transaction;
+import com.dappley.java.core.po.TxInput;
+import com.dappley.java.core.po.Utxo;
+import com.dappley.java.core.service.DeviceService;
+import com.dappley.java.core.service.DeviceWalletService;
+import com.dappley.java.core.util.AddressUtil;
+import com.dappley.java.core.util.ByteUtil;
+import com.dappley.java.core.util.HashUtil;
+import com.dappley.java.core.util.HexUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.web3j.crypto.ECKeyPair;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Slf4j
+public class TransactionSignerTest {
+    private static final BigInteger PRIVATE_KEY = new BigInteger("300c0338c4b0d49edc66113e3584e04c6b907f9ded711d396d522aae6a79be1a", 16);
+    private static final int LARGE_INPUT_COUNT = 500;
+    private static final int PARALLELISM = 4;
+
+    private final ECKeyPair keyPair = ECKeyPair.create(PRIVATE_KEY);
+    private ExecutorService executor;
+
+    @After
+    public void tearDown() {
+        TransactionManager.setSigner(new TransactionSigner());
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void sameAsSigningEachTrimmedCopy() {
+        List<Utxo> utxos = newUtxos(20);
+        Transaction transaction = TransactionManager.newTransaction(utxos, AddressUtil.getUserAddress(keyPair),
+                BigInteger.valueOf(100), keyPair, BigInteger.ONE, null, null, null);
+        assertSameSignatures(transaction, utxos);
+
+        Transaction contract = TransactionManager.newTransaction(utxos, AddressUtil.getUserAddress(keyPair),
+                BigInteger.valueOf(100), keyPair, BigInteger.ONE, BigInteger.valueOf(30000), BigInteger.ONE,
+                "{\"function\":\"record\",\"args\":[\"温度\",\"42\"]}");
+        assertSameSignatures(contract, utxos);
+
+        executor = Executors.newFixedThreadPool(PARALLELISM);
+        TransactionManager.setSigner(new TransactionSigner(executor, PARALLELISM));
+        Transaction parallel = TransactionManager.newTransaction(utxos, AddressUtil.getUserAddress(keyPair),
+                BigInteger.valueOf(100), keyPair, BigInteger.ONE, null, null, null);
+        Assert.assertEquals(transaction, parallel);
+    }
+
+    @Test
+    public void busyExecutor() throws Exception {
+        // the only thread of executor is blocked, inputs are signed by the calling thread
+        executor = Executors.newSingleThreadExecutor();
+        Object lock = new Object();
+        synchronized (lock) {
+            executor.execute(() -> {
+                synchronized (lock) {
+                    log.debug("executor released");
+                }
+            });
+            List<Utxo> utxos = newUtxos(10);
+            Transaction transaction = newUnsignedTransaction(utxos);
+            new TransactionSigner(executor, PARALLELISM).sign(transaction, HashUtil.fromECDSAPrivateKey(PRIVATE_KEY),
+                    TransactionManager.getPrevUtxos(utxos));
+            assertSameSignatures(transaction, utxos);
+        }
+    }
+
+    @Test
+    public void missingUtxo() {
+        List<Utxo> utxos = newUtxos(3);
+        Transaction transaction = newUnsignedTransaction(utxos);
+        try {
+            new TransactionSigner().sign(transaction, HashUtil.fromECDSAPrivateKey(PRIVATE_KEY),
+                    TransactionManager.getPrevUtxos(utxos.subList(0, 2)));
+            Assert.fail("input without utxo should be rejected");
+        } catch (IllegalArgumentException e) {
+            log.debug("rejected: " + e.getMessage());
+        }
+        for (TxInput txInput : transaction.getTxInputs()) {
+            Assert.assertNull(txInput.getSignature());
+        }
+    }
+
+    @Test
+    public void deviceSigning() {
+        List<Utxo> utxos = newUtxos(5);
+        DeviceWalletService walletService = new DeviceWalletService(new KeyDeviceService());
+        Transaction transaction = walletService.newTransaction(utxos, AddressUtil.getUserAddress(keyPair),
+                BigInteger.valueOf(10), BigInteger.ONE, null, null, null);
+        assertSameSignatures(transaction, utxos);
+
+        // first input signs device data, the others sign the contract filled with it
+        Transaction deviceData = walletService.newDeviceDataTransaction(utxos, AddressUtil.getUserAddress(keyPair),
+                BigInteger.valueOf(10), BigInteger.ONE, BigInteger.valueOf(30000), BigInteger.ONE,
+                "{\"function\":\"record\",\"args\":[\"{}\"]}");
+        Assert.assertEquals("{\"function\":\"record\",\"args\":[\"42\"]}", deviceData.getTxOutputs().get(0).getContract());
+        List<byte[]> expected = legacySignatures(deviceData, utxos);
+        for (int i = 1; i < utxos.size(); i++) {
+            Assert.assertArrayEquals(expected.get(i), deviceData.getTxInputs().get(i).getSignature());
+        }
+    }
+
+    @Test
+    public void largeInputBenchmark() {
+        TestFixtures.assumeBenchmarks();
+        List<Utxo> utxos = newUtxos(LARGE_INPUT_COUNT);
+        Transaction transaction = newUnsignedTransaction(utxos);
+        byte[] privKeyBytes = HashUtil.fromECDSAPrivateKey(PRIVATE_KEY);
+        Map<String, Utxo> utxoMap = TransactionManager.getPrevUtxos(utxos);
+        executor = Executors.newFixedThreadPool(PARALLELISM);
+        TransactionSigner parallelSigner = new TransactionSigner(executor, PARALLELISM);
+        // warm up
+        legacySignatures(transaction, utxos);
+        new TransactionSigner().sign(transaction, privKeyBytes, utxoMap);
+        parallelSigner.sign(transaction, privKeyBytes, utxoMap);
+
+        long start = System.nanoTime();
+        List<byte[]> expected = legacySignatures(transaction, utxos);
+        long legacy = System.nanoTime() - start;
+        start = System.nanoTime();
+        new TransactionSigner().sign(transaction, privKeyBytes, utxoMap);
+        long sequential = System.nanoTime() - start;
+        start = System.nanoTime();
+        parallelSigner.sign(transaction, privKeyBytes, utxoMap);
+        long parallel = System.nanoTime() - start;
+        for (int i = 0; i < LARGE_INPUT_COUNT; i++) {
+            Assert.assertArrayEquals(expected.get(i), transaction.getTxInputs().get(i).getSignature());
+        }
+
+        start = System.nanoTime();
+        for (int round = 0; round < 5; round++) {
+            legacyHashes(transaction, utxos);
+        }
+        long legacyHashing = (System.nanoTime() - start) / 5;
+        start = System.nanoTime();
+        for (int round = 0; round < 5; round++) {
+            SignatureHashes signatureHashes = new SignatureHashes(transaction);
+            for (int i = 0; i < LARGE_INPUT_COUNT; i++) {
+                signatureHashes.hash(i, utxos.get(i).getPublicKeyHash());
+            }
+        }
+        long hashing = (System.nanoTime() - start) / 5;
+        log.info(String.format("signing %d inputs: each trimmed copy %dms, signer %dms, signer with %d workers %dms; "
+                        + "hashing inputs: each trimmed copy %dms, signature hashes %dms",
+                LARGE_INPUT_COUNT, legacy / 1_000_000, sequential / 1_000_000, PARALLELISM, parallel / 1_000_000,
+                legacyHashing / 1_000_000, hashing / 1_000_000));
+        Assert.assertTrue(hashing < legacyHashing);
+    }
+
+    private void assertSameSignatures(Transaction transaction, List<Utxo> utxos) {
+        List<byte[]> expected = legacySignatures(transaction, utxos);
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertArrayEquals(expected.get(i), transaction.getTxInputs().get(i).getSignature());
+        }
+    }
+
+    /**
+     * Signatures of inputs hashing the trimmed copy with each input's public key hash, as it was before the signer.
+     */
+    private static List<byte[]> legacySignatures(Transaction transaction, List<Utxo> utxos) {
+        byte[] privKeyBytes = HashUtil.fromECDSAPrivateKey(PRIVATE_KEY);
+        List<byte[]> signatures = new ArrayList<>();
+        for (byte[] hash : legacyHashes(transaction, utxos)) {
+            signatures.add(HashUtil.secp256k1Sign(hash, privKeyBytes));
+        }
+        return signatures;
+    }
+
+    private static List<byte[]> legacyHashes(Transaction transaction, List<Utxo> utxos) {
+        Map<String, Utxo> utxoMap = TransactionManager.getPrevUtxos(utxos);
+        Transaction transactionCopy = transaction.trimedCopy();
+        List<byte[]> hashes = new ArrayList<>();
+        for (TxInput txCopyInput : transactionCopy.getTxInputs()) {
+            Utxo utxo = utxoMap.get(HexUtil.toHex(txCopyInput.getTxId()) + "-" + txCopyInput.getVout());
+            byte[] oldPubKey = txCopyInput.getPublicKey();
+            txCopyInput.setPublicKey(utxo.getPublicKeyHash());
+            hashes.add(ShaDigest.sha256(transactionCopy.serialize()));
+            txCopyInput.setPublicKey(oldPubKey);
+        }
+        return hashes;
+    }
+
+    private Transaction newUnsignedTransaction(List<Utxo> utxos) {
+        Transaction transaction = TransactionManager.newTransaction(utxos, AddressUtil.getUserAddress(keyPair),
+                BigInteger.ONE, keyPair, BigInteger.ONE, null, null, null);
+        for (TxInput txInput : transaction.getTxInputs()) {
+            txInput.setSignature(null);
+        }
+        return transaction;
+    }
+
+    private List<Utxo> newUtxos(int count) {
+        byte[] publicKeyHash = HashUtil.getUserPubKeyHash(keyPair.getPublicKey());
+        List<Utxo> utxos = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Utxo utxo = new Utxo();
+            utxo.setTxId(ShaDigest.sha256(ByteUtil.int2Bytes(i)));
+            utxo.setVoutIndex(i % 3);
+            utxo.setAmount(BigInteger.valueOf(1000));
+            utxo.setPublicKeyHash(publicKeyHash);
+            utxos.add(utxo);
+        }
+        return utxos;
+    }
+
+    /**
+     * Device signing with the test key, returning "42" for each device data placeholder.
+     */
+    private static class KeyDeviceService implements DeviceService {
+        private final ECKeyPair keyPair = ECKeyPair.create(PRIVATE_KEY);
+
+        @Override
+        public byte[] getPublicKey() {
+            return HashUtil.getPubKeyBytes(keyPair.getPublicKey());
+        }
+
+        @Override
+        public DeviceResult signBytes(byte[] data) {
+            DeviceResult deviceResult = new DeviceResult();
+            deviceResult.setSignature(HashUtil.secp256k1Sign(data, HashUtil.fromECDSAPrivateKey(PRIVATE_KEY)));
+            return deviceResult;
+        }
+
+        @Override
+        public DeviceResult signBytesWithDeviceData(List<DeviceInput> inputs) {
+            DeviceResult deviceResult = new DeviceResult();
+            List<byte[]> deviceData = new ArrayList<>();
+            for (DeviceInput input : inputs) {
+                if (input.getInputDataType() == DeviceInput.INPUT_DATA_DEVICE) {
+                    deviceData.add("42".getBytes());
+                }
+            }
+            deviceResult.setDeviceData(deviceData);
+            deviceResult.setSignature(new byte[65]);
+            return deviceResult;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.dappley.java.test;
+
+import com.dappley.java.core.chain.TransactionManager;
+import com.dappley.java.core.chain.TransactionVerifier;
+import com.dappley.java.core.crypto.ShaDigest;
+import com.dappley.java.core.po.Block;
+import com.dappley.java.core.po.Transaction;
+import com.dappley.java.core.po.TxInput;
+import com.dappley.java.core.po.TxOutput;
+import com.dappley.java.core.po.Utxo;
+import com.dappley.java.core.util.AddressUtil;
+import com.dappley.java.core.util.ByteUtil;
+import com.dappley.java.core.util.HashUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.web3j.crypto.ECKeyPair;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Slf4j
+public class TransactionVerifierTest {
+    private static final int PARALLELISM = 4;
+    private static final int KEY_COUNT = 4;
+    private static final int INPUTS_PER_TRANSACTION = 10;
+    private static final int BENCHMARK_TRANSACTIONS = 40;
+
+    private ExecutorService executor;
+
+    @After
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void signedTransactions() {
+        TransactionVerifier verifier = new TransactionVerifier();
+        ECKeyPair keyPair = newKeyPair(0);
+        List<Utxo> utxos = newUtxos(keyPair, 0, INPUTS_PER_TRANSACTION);
+        Transaction transaction = newTransaction(keyPair, utxos);
+        Assert.assertTrue(verifier.verify(transaction));
+        Assert.assertTrue(verifier.verify(transaction, TransactionManager.getPrevUtxos(utxos)));
+        Assert.assertFalse(verifier.verify(transaction, TransactionManager.getPrevUtxos(utxos.subList(1, utxos.size()))));
+
+        // changed output
+        Transaction changed = transaction.deepClone();
+        changed.getTxOutputs().get(0).setValue(ByteUtil.bigInteger2Bytes(BigInteger.valueOf(99)));
+        Assert.assertFalse(verifier.verify(changed));
+
+        // signature of another input
+        Transaction swapped = transaction.deepClone();
+        swapped.getTxInputs().get(0).setSignature(transaction.getTxInputs().get(1).getSignature());
+        Assert.assertFalse(verifier.verify(swapped));
+
+        // public key of another key pair
+        Transaction otherKey = transaction.deepClone();
+        for (TxInput txInput : otherKey.getTxInputs()) {
+            txInput.setPublicKey(HashUtil.getPubKeyBytes(newKeyPair(1).getPublicKey()));
+        }
+        Assert.assertFalse(verifier.verify(otherKey));
+
+        // not a point of the curve, or no signature
+        Transaction invalidKey = transaction.deepClone();
+        invalidKey.getTxInputs().get(0).setPublicKey(new byte[64]);
+        Assert.assertFalse(verifier.verify(invalidKey));
+        Transaction unsigned = transaction.deepClone();
+        unsigned.getTxInputs().get(0).setSignature(null);
+        Assert.assertFalse(verifier.verify(unsigned));
+    }
+
+    @Test
+    public void blockTransactions() {
+        executor = Executors.newFixedThreadPool(PARALLELISM);
+        TransactionVerifier verifier = new TransactionVerifier(executor, PARALLELISM);
+        List<Transaction> transactions = newTransactions(8);
+        Block block = new Block();
+        block.setTransactions(new ArrayList<>(transactions));
+        block.getTransactions().add(newCoinbase());
+        Assert.assertTrue(verifier.verify(block));
+
+        Transaction changed = transactions.get(5);
+        changed.setTip(BigInteger.TEN);
+        Assert.assertFalse(verifier.verify(block));
+        Assert.assertEquals(Collections.singletonList(changed), verifier.verifyTransactions(block.getTransactions(), null));
+        Assert.assertEquals(Collections.singletonList(changed),
+                new TransactionVerifier().verifyTransactions(block.getTransactions(), null));
+    }
+
+    @Test
+    public void boundedKeyCache() {
+        // transactions of KEY_COUNT keys, alternating, with fewer cached verifiers than keys
+        List<Transaction> transactions = newTransactions(KEY_COUNT * 2);
+        TransactionVerifier verifier = new TransactionVerifier();
+        verifier.setMaxCachedKeys(KEY_COUNT - 1);
+        Assert.assertTrue(verifier.verifyTransactions(transactions, null).isEmpty());
+        verifier.setMaxCachedKeys(1);
+        Assert.assertTrue(verifier.verifyTransactions(transactions, null).isEmpty());
+        transactions.get(3).setTip(BigInteger.TEN);
+        Assert.assertEquals(Collections.singletonList(transactions.get(3)), verifier.verifyTransactions(transactions, null));
+    }
+
+    @Test
+    public void benchmark() {
+        TestFixtures.assumeBenchmarks();
+        List<Transaction> transactions = newTransactions(BENCHMARK_TRANSACTIONS);
+        int inputCount = BENCHMARK_TRANSACTIONS * INPUTS_PER_TRANSACTION;
+        executor = Executors.newFixedThreadPool(PARALLELISM);
+        TransactionVerifier uncached = new TransactionVerifier();
+        uncached.setMaxCachedKeys(0);
+        TransactionVerifier sequential = new TransactionVerifier();
+        TransactionVerifier parallel = new TransactionVerifier(executor, PARALLELISM);
+
+        long uncachedRate = measure(uncached, transactions, inputCount);
+        long sequentialRate = measure(sequential, transactions, inputCount);
+        long parallelRate = measure(parallel, transactions, inputCount);
+        log.info(String.format("verified signatures per second of %d inputs by %d keys: uncached keys %d, "
+                        + "cached keys %d, cached keys with %d workers %d",
+                inputCount, KEY_COUNT, uncachedRate, sequentialRate, PARALLELISM, parallelRate));
+        Assert.assertTrue(sequentialRate > uncachedRate);
+    }
+
+    /**
+     * Returns verified signatures per second.
+     */
+    private static long measure(TransactionVerifier verifier, List<Transaction> transactions, int inputCount) {
+        // warm up
+        Assert.assertTrue(verifier.verifyTransactions(transactions, null).isEmpty());
+        long start = System.nanoTime();
+        for (int round = 0; round < 2; round++) {
+            Assert.assertTrue(verifier.verifyTransactions(transactions, null).isEmpty());
+        }
+        return 2L * inputCount * 1_000_000_000L / (System.nanoTime() - start);
+    }
+
+    private static List<Transaction> newTransactions(int count) {
+        List<Transaction> transactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ECKeyPair keyPair = newKeyPair(i % KEY_COUNT);
+            transactions.add(newTransaction(keyPair, newUtxos(keyPair, i * INPUTS_PER_TRANSACTION, INPUTS_PER_TRANSACTION)));
+        }
+        return transactions;
+    }
+
+    private static Transaction newTransaction(ECKeyPair keyPair, List<Utxo> utxos) {
+        return TransactionManager.newTransaction(utxos, AddressUtil.getUserAddress(newKeyPair(KEY_COUNT)),
+                BigInteger.valueOf(100), keyPair, BigInteger.ONE, null, null, null);
+    }
+
+    private static Transaction newCoinbase() {
+        Transaction coinbase = new Transaction();
+        TxInput txInput = new TxInput();
+        txInput.setVout(-1);
+        coinbase.addTxInput(txInput);
+        TxOutput txOutput = new TxOutput();
+        txOutput.setValue(ByteUtil.bigInteger2Bytes(BigInteger.TEN));
+        txOutput.setPublicKeyHash(HashUtil.getUserPubKeyHash(newKeyPair(0).getPublicKey()));
+        coinbase.addTxOutput(txOutput);
+        coinbase.setType(Transaction.TxTypeCoinbase);
+        coinbase.createId();
+        return coinbase;
+    }
+
+    private static ECKeyPair newKeyPair(int index) {
+        return ECKeyPair.create(new BigInteger(1, ShaDigest.sha256(("key" + index).getBytes())));
+    }
+
+    private static List<Utxo> newUtxos(ECKeyPair keyPair, int first, int count) {
+        byte[] publicKeyHash = HashUtil.getUserPubKeyHash(keyPair.getPublicKey());
+        List<Utxo> utxos = new ArrayList<>(count);
+        for (int i = first; i < first + count; i++) {
+            Utxo utxo = new Utxo();
+            utxo.setTxId(ShaDigest.sha256(ByteUtil.int2Bytes(i)));
+            utxo.setVoutIndex(0);
+            utxo.setAmount(BigInteger.valueOf(1000));
+            utxo.setPublicKeyHash(Arrays.copyOf(publicKeyHash, publicKeyHash.length));
+            utxos.add(utxo);
+        }
+        return utxos;
+    }
+}
@@ -12,11 +12,15 @@ import com.dappley.android.sdk.service.LocalBlockService;
 import com.dappley.android.sdk.util.Asserts;
 import com.dappley.java.core.chain.TransactionManager;
 import com.dappley.java.core.chain.WalletManager;
+import com.dappley.java.core.net.CachedDataProvider;
 import com.dappley.java.core.net.DataProvider;
 import com.dappley.java.core.net.ProtocalProvider;
 import com.dappley.java.core.net.ProtocalProviderBuilder;
 import com.dappley.java.core.net.RemoteDataProvider;
+import com.dappley.java.core.net.RetryPolicy;
+import com.dappley.java.core.net.SingleFlightDataProvider;
 import com.dappley.java.core.net.TransactionSender;
+import com.dappley.java.core.po.BatchQueryResult;
 import com.dappley.java.core.po.ContractQueryResult;
 import com.dappley.java.core.po.SendTxResult;
 import com.dappley.java.core.po.ServerNode;
@@ -32,6 +36,7 @@ import com.dappley.java.core.util.MnemonicLanguage;
 import com.dappley.java.core.util.ObjectUtils;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -43,10 +48,20 @@ import java.util.List;
  *    DataMode.LOCAL_STORAGE: use local storage with database frame MMKV.
  *    DataMode.REMOTE_ONLINE: use real data from neighbor chain node. This may cause info delay while the node's data is not accurate.
  * </p>
+ * <p>
+ *    In DataMode.REMOTE_ONLINE, gas price and contract queries are cached by default until a new tail block is seen.
+ *    Before each of these reads, the tail is checked by a blockchain info read which is cached for 1 second, so it
+ *    costs at most one extra request per second. A new block is seen with that delay at most.
+ *    Gas estimations, utxos, balances and blocks are not cached.
+ * </p>
  */
 public class Dappley {
     private static final String TAG = "Dappley";
+    private static final int READ_MAX_ATTEMPTS = 3;
+    private static final long READ_INITIAL_BACKOFF_MILLIS = 200;
+    private static final long READ_MAX_BACKOFF_MILLIS = 2000;
     private static Context context;
+    private static ProtocalProvider protocalProvider;
     private static DataProvider dataProvider;
     private static TransactionSender transactionSender;
 
@@ -59,7 +74,11 @@ public class Dappley {
         Dappley.context = context;
         ServerNode[] serverNodes = Configuration.getInstance(context).getServerNodes();
         try {
-            ProtocalProvider protocalProvider = null;
+            if (protocalProvider != null) {
+                // release connections of previous initialization
+                protocalProvider.close();
+                protocalProvider = null;
+            }
             if (dataMode == DataMode.LOCAL_STORAGE) {
                 dataProvider = new LocalDataProvider(context);
 
@@ -68,10 +87,14 @@ public class Dappley {
                 context.startService(intent);
             } else if (dataMode == DataMode.REMOTE_ONLINE) {
                 ProtocalProviderBuilder providerBuilder = new ProtocalProviderBuilder();
+                // transient node failures of reads are retried on another node
                 providerBuilder.setType(RemoteDataProvider.RemoteProtocalType.RPC)
-                        .setServerNodes(serverNodes);
+                        .setServerNodes(serverNodes)
+                        .setRetryPolicy(RetryPolicy.exponentialBackoff(READ_MAX_ATTEMPTS, READ_INITIAL_BACKOFF_MILLIS, READ_MAX_BACKOFF_MILLIS));
                 protocalProvider = providerBuilder.build();
-                dataProvider = new RemoteDataProvider(protocalProvider);
+                // gas price and contract queries are reused until a new tail block is seen
+                // by the cached blockchain info read, concurrent identical reads share one request
+                dataProvider = new CachedDataProvider(new SingleFlightDataProvider(new RemoteDataProvider(protocalProvider)));
             }
             transactionSender = new TransactionSender(protocalProvider);
         } catch (Exception e) {
@@ -144,15 +167,24 @@ public class Dappley {
 
     /**
      * Returns all balances in wallet list.
+     * <p>Balances are queried at the same time. If the balance of a wallet cannot be read, it's not changed.</p>
      * @param wallets wallet list
      * @return List<Wallet> wallet list with balance inside
      */
     public static List<Wallet> getWalletBalances(List<Wallet> wallets) {
         Asserts.init(context);
-        BigInteger balance;
+        List<String> addresses = new ArrayList<>(wallets.size());
         for (Wallet wallet : wallets) {
-            balance = dataProvider.getBalance(wallet.getAddress());
-            wallet.setBalance(balance);
+            addresses.add(wallet.getAddress());
+        }
+        BatchQueryResult<BigInteger> result = dataProvider.getBalances(addresses);
+        for (Wallet wallet : wallets) {
+            if (result.getValues().containsKey(wallet.getAddress())) {
+                wallet.setBalance(result.getValues().get(wallet.getAddress()));
+            }
+        }
+        if (!result.isComplete()) {
+            Log.w(TAG, "getWalletBalances: failed addresses " + result.getErrors());
         }
         return wallets;
     }
@@ -5,6 +5,7 @@ import android.content.Context;
 import com.dappley.java.core.po.Block;
 import com.dappley.java.core.po.Transaction;
 import com.dappley.java.core.util.HexUtil;
+import com.dappley.java.core.util.RecordCodec;
 import com.tencent.mmkv.MMKV;
 
 import java.util.List;
@@ -70,7 +71,12 @@ public class BlockDb {
             if (bytes == null || bytes.length == 0) {
                 return null;
             }
-            return Block.parseBytes(bytes);
+            Block block = Block.parseBytes(bytes);
+            if (RecordCodec.isLegacy(bytes)) {
+                // rewrite record saved by kryo in current format
+                mmkv.encode(blockHash, block.toByteArray());
+            }
+            return block;
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -4,7 +4,7 @@ import android.content.Context;
 
 import com.dappley.java.core.po.Transaction;
 import com.dappley.java.core.util.HexUtil;
-import com.dappley.java.core.util.SerializeUtil;
+import com.dappley.java.core.util.RecordCodec;
 import com.tencent.mmkv.MMKV;
 
 import java.util.List;
@@ -47,7 +47,7 @@ public class TransactionDb {
     public boolean save(String blockHash, List<Transaction> transactions) {
         boolean success = false;
         try {
-            mmkv.encode(blockHash, SerializeUtil.encodeList(transactions, Transaction.class));
+            mmkv.encode(blockHash, RecordCodec.encodeTransactions(transactions));
             success = true;
         } catch (Exception e) {
             e.printStackTrace();
@@ -75,7 +75,12 @@ public class TransactionDb {
             if (bytes == null || bytes.length == 0) {
                 return null;
             }
-            return SerializeUtil.decodeList(bytes, Transaction.class);
+            List<Transaction> transactions = RecordCodec.decodeTransactions(bytes);
+            if (RecordCodec.isLegacy(bytes)) {
+                // rewrite record saved by kryo in current format
+                mmkv.encode(blockHash, RecordCodec.encodeTransactions(transactions));
+            }
+            return transactions;
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -4,6 +4,7 @@ import android.content.Context;
 
 import com.dappley.java.core.po.Utxo;
 import com.dappley.java.core.util.HexUtil;
+import com.dappley.java.core.util.RecordCodec;
 import com.tencent.mmkv.MMKV;
 
 /**
@@ -77,7 +78,12 @@ public class UtxoDb {
             if (bytes == null || bytes.length == 0) {
                 return null;
             }
-            return Utxo.parseBytes(bytes);
+            Utxo utxo = Utxo.parseBytes(bytes);
+            if (RecordCodec.isLegacy(bytes)) {
+                // rewrite record saved by kryo in current format
+                mmkv.encode(utxoIndex, utxo.toByteArray());
+            }
+            return utxo;
         } catch (Exception e) {
             e.printStackTrace();
         }
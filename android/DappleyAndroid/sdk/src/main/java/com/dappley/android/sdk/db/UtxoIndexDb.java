@@ -4,7 +4,7 @@ import android.content.Context;
 
 import com.dappley.java.core.po.UtxoIndex;
 import com.dappley.java.core.util.HexUtil;
-import com.dappley.java.core.util.SerializeUtil;
+import com.dappley.java.core.util.RecordCodec;
 import com.tencent.mmkv.MMKV;
 
 import java.util.HashSet;
@@ -40,7 +40,12 @@ public class UtxoIndexDb {
             if (bytes == null || bytes.length == 0) {
                 return null;
             }
-            return SerializeUtil.decodeSet(bytes, UtxoIndex.class);
+            Set<UtxoIndex> utxoIndexSet = RecordCodec.decodeUtxoIndexSet(bytes);
+            if (RecordCodec.isLegacy(bytes)) {
+                // rewrite record saved by kryo in current format
+                mmkv.encode(address, RecordCodec.encodeUtxoIndexSet(utxoIndexSet));
+            }
+            return utxoIndexSet;
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -53,7 +58,7 @@ public class UtxoIndexDb {
      * @param utxoIndexSet index set
      */
     public void save(String address, Set<UtxoIndex> utxoIndexSet) {
-        byte[] bytes = SerializeUtil.encodeSet(utxoIndexSet, UtxoIndex.class);
+        byte[] bytes = RecordCodec.encodeUtxoIndexSet(utxoIndexSet);
         mmkv.encode(address, bytes);
     }
 
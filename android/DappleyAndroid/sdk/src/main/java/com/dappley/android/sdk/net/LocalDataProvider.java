@@ -3,11 +3,14 @@ package com.dappley.android.sdk.net;
 import android.content.Context;
 
 import com.dappley.android.sdk.chain.BlockChainManager;
+import com.dappley.android.sdk.db.BlockChainDb;
 import com.dappley.android.sdk.db.BlockDb;
 import com.dappley.android.sdk.db.UtxoDb;
 import com.dappley.android.sdk.db.UtxoIndexDb;
 import com.dappley.java.core.net.DataProvider;
+import com.dappley.java.core.po.BatchQueryResult;
 import com.dappley.java.core.po.Block;
+import com.dappley.java.core.po.BlockChainInfo;
 import com.dappley.java.core.po.ContractQueryResult;
 import com.dappley.java.core.po.Transaction;
 import com.dappley.java.core.po.Utxo;
@@ -17,6 +20,7 @@ import com.tencent.mmkv.MMKV;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -72,6 +76,22 @@ public class LocalDataProvider implements DataProvider {
         throw new IllegalStateException("local data mode do not support get blocks method.");
     }
 
+    @Override
+    public BlockChainInfo getBlockchainInfo() {
+        BlockChainDb blockChainDb = new BlockChainDb(context);
+        String currentHash = blockChainDb.getCurrentHash();
+        if (ObjectUtils.isEmpty(currentHash)) {
+            return null;
+        }
+        BlockChainInfo blockChainInfo = new BlockChainInfo();
+        blockChainInfo.setTailBlockHash(currentHash);
+        Block block = getBlockByHash(currentHash);
+        if (block != null && block.getHeader() != null) {
+            blockChainInfo.setBlockHeight(block.getHeader().getHeight());
+        }
+        return blockChainInfo;
+    }
+
     @Override
     public BigInteger getBalance(String address) {
         BigInteger balance = BigInteger.ZERO;
@@ -92,6 +112,44 @@ public class LocalDataProvider implements DataProvider {
         return balance;
     }
 
+    /**
+     * Returns utxo lists of several addresses, read one by one from local storage.
+     * @param addresses wallet addresses
+     * @return BatchQueryResult<List<Utxo>> utxo list of each address
+     */
+    @Override
+    public BatchQueryResult<List<Utxo>> getUtxos(Collection<String> addresses) {
+        BatchQueryResult<List<Utxo>> result = new BatchQueryResult<>();
+        if (addresses == null) {
+            return result;
+        }
+        for (String address : addresses) {
+            if (!result.getValues().containsKey(address)) {
+                result.getValues().put(address, getUtxos(address));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns balances of several addresses, read one by one from local storage.
+     * @param addresses wallet addresses
+     * @return BatchQueryResult<BigInteger> balance of each address
+     */
+    @Override
+    public BatchQueryResult<BigInteger> getBalances(Collection<String> addresses) {
+        BatchQueryResult<BigInteger> result = new BatchQueryResult<>();
+        if (addresses == null) {
+            return result;
+        }
+        for (String address : addresses) {
+            if (!result.getValues().containsKey(address)) {
+                result.getValues().put(address, getBalance(address));
+            }
+        }
+        return result;
+    }
+
     @Override
     public BigInteger estimateGas(Transaction transaction) {
         return null;
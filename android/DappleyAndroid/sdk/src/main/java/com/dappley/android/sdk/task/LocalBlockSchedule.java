@@ -1,6 +1,16 @@
 package com.dappley.android.sdk.task;
 
+import android.annotation.TargetApi;
 import android.content.Context;
+import android.os.Build;
+
+import com.dappley.android.sdk.config.Configuration;
+import com.dappley.java.core.net.AsyncProtocalProvider;
+import com.dappley.java.core.net.BlockSyncStream;
+import com.dappley.java.core.net.ProtocalProviderBuilder;
+import com.dappley.java.core.net.RemoteDataProvider;
+import com.dappley.java.core.po.BlockDownloadMetrics;
+import com.dappley.java.core.po.BlockSyncMetrics;
 
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -9,6 +19,11 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * Block scheduled task.
+ * <p>Since Android N, new blocks are synchronized as soon as the node pushes a message through subscribed stream.
+ * Polling in TASK_PERIOD is used while the stream is broken.
+ * On older versions, blocks are synchronized by polling only.</p>
+ * <p>All synchronize runs are executed on one scheduler thread. Resources are released on that thread as well, after
+ * a running synchronize finished.</p>
  */
 public class LocalBlockSchedule {
     private static final int TASK_INIT_DELAY = 0;
@@ -16,6 +31,9 @@ public class LocalBlockSchedule {
 
     private static ScheduledExecutorService schedule;
     private static ScheduledFuture future;
+    private static LocalBlockThread blockThread;
+    private static AsyncProtocalProvider syncProvider;
+    private static BlockSyncStream syncStream;
 
     /**
      * start task
@@ -25,16 +43,88 @@ public class LocalBlockSchedule {
         if (schedule == null) {
             schedule = Executors.newScheduledThreadPool(1);
         }
-        future = schedule.scheduleAtFixedRate(new LocalBlockThread(context), TASK_INIT_DELAY, TASK_PERIOD, TimeUnit.SECONDS);
+        blockThread = new LocalBlockThread(context);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            startStream(context);
+        } else {
+            future = schedule.scheduleAtFixedRate(blockThread, TASK_INIT_DELAY, TASK_PERIOD, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Start push based synchronization
+     * @param context
+     */
+    @TargetApi(Build.VERSION_CODES.N)
+    private static void startStream(Context context) {
+        ProtocalProviderBuilder providerBuilder = new ProtocalProviderBuilder();
+        providerBuilder.setType(RemoteDataProvider.RemoteProtocalType.RPC)
+                .setServerNodes(Configuration.getInstance(context).getServerNodes());
+        syncProvider = providerBuilder.buildAsync();
+        syncStream = new BlockSyncStream(syncProvider, blockThread, schedule);
+        syncStream.setPollPeriodMillis(TimeUnit.SECONDS.toMillis(TASK_PERIOD));
+        syncStream.start();
+    }
+
+    /**
+     * Returns metrics of push based synchronization.
+     * @return BlockSyncMetrics null if polling is used
+     */
+    public static BlockSyncMetrics getSyncMetrics() {
+        if (syncStream == null) {
+            return null;
+        }
+        return syncStream.getMetrics();
+    }
+
+    /**
+     * Returns metrics of the last parallel download when catching up with the chain.
+     * @return BlockDownloadMetrics null if there is no parallel download
+     */
+    public static BlockDownloadMetrics getDownloadMetrics() {
+        if (blockThread == null) {
+            return null;
+        }
+        return blockThread.getDownloadMetrics();
     }
 
     /**
      * stop scheduled task
+     * <p>A running parallel download is cancelled at once. Connections are closed on the scheduler thread, after a
+     * running synchronize finished.</p>
      */
     public static void stop() {
         if (future != null && !future.isCancelled()) {
             future.cancel(false);
         }
+        if (syncStream != null) {
+            // no more synchronize is triggered by the stream
+            syncStream.stop();
+            syncStream = null;
+        }
+        final AsyncProtocalProvider stoppedProvider = syncProvider;
+        final LocalBlockThread stoppedThread = blockThread;
+        syncProvider = null;
+        blockThread = null;
+        if (stoppedProvider == null && stoppedThread == null) {
+            return;
+        }
+        if (stoppedThread != null) {
+            stoppedThread.cancel();
+        }
+        Runnable release = new Runnable() {
+            @Override
+            public void run() {
+                if (stoppedProvider != null) {
+                    stoppedProvider.close();
+                }
+                if (stoppedThread != null) {
+                    stoppedThread.release();
+                }
+            }
+        };
+        // queued after the running synchronize on the single scheduler thread, without blocking the caller
+        schedule.execute(release);
     }
 
 }
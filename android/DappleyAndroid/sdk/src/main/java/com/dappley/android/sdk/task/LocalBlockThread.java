@@ -11,11 +11,15 @@ import com.dappley.android.sdk.db.BlockIndexDb;
 import com.dappley.android.sdk.db.TransactionDb;
 import com.dappley.android.sdk.db.UtxoDb;
 import com.dappley.android.sdk.db.UtxoIndexDb;
+import com.dappley.java.core.net.BlockDownloader;
 import com.dappley.java.core.net.DataProvider;
+import com.dappley.java.core.net.LoadBalanceStrategy;
 import com.dappley.java.core.net.ProtocalProvider;
 import com.dappley.java.core.net.ProtocalProviderBuilder;
 import com.dappley.java.core.net.RemoteDataProvider;
 import com.dappley.java.core.po.Block;
+import com.dappley.java.core.po.BlockChainInfo;
+import com.dappley.java.core.po.BlockDownloadMetrics;
 import com.dappley.java.core.po.ServerNode;
 import com.dappley.java.core.po.Transaction;
 import com.dappley.java.core.po.TxInput;
@@ -29,8 +33,7 @@ import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
-
-import lombok.Synchronized;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Synchronize block datas from online node
@@ -39,13 +42,25 @@ public class LocalBlockThread implements Runnable {
     private static final String TAG = "LocalBlockThread";
     private static final int PREV_COUNT = 7;
     private static final int ONCE_COUNT = 200;
+    /**
+     * parallel download is used when local chain is behind the remote tip by more than this count
+     */
+    private static final int CATCH_UP_THRESHOLD = ONCE_COUNT;
+    private static final int DOWNLOAD_PARALLELISM = 4;
     /**
      * sysn process tag
      */
-    private static boolean isSync;
+    private static final AtomicBoolean isSync = new AtomicBoolean();
 
     private Context context;
+    private ProtocalProvider protocalProvider;
     private DataProvider dataProvider;
+    private BlockDownloader blockDownloader;
+    private volatile BlockDownloadMetrics downloadMetrics;
+    /**
+     * if the remote tip should be checked for a parallel download on next run
+     */
+    private volatile boolean catchUpNeeded = true;
     private BlockDb blockDb;
     private BlockIndexDb blockIndexDb;
     private TransactionDb transactionDb;
@@ -66,9 +81,13 @@ public class LocalBlockThread implements Runnable {
         utxoIndexDb = new UtxoIndexDb(context);
         ProtocalProviderBuilder providerBuilder = new ProtocalProviderBuilder();
         providerBuilder.setType(RemoteDataProvider.RemoteProtocalType.RPC)
-                .setServerNodes(serverNodes);
-        ProtocalProvider protocalProvider = providerBuilder.build();
+                .setServerNodes(serverNodes)
+                .setChannelPoolSize(DOWNLOAD_PARALLELISM)
+                .setLoadBalanceStrategy(LoadBalanceStrategy.LEAST_OUTSTANDING);
+        protocalProvider = providerBuilder.build();
         dataProvider = new RemoteDataProvider(protocalProvider);
+        blockDownloader = new BlockDownloader(protocalProvider);
+        blockDownloader.setParallelism(DOWNLOAD_PARALLELISM);
 
         genesisHash = BlockChainManager.getGenesisHash(context);
 
@@ -77,50 +96,100 @@ public class LocalBlockThread implements Runnable {
 
     /**
      * Thread run once. When the previous process is not finised, current process will be terminated.
+     * <p>It's triggered by polling or by messages of block stream.</p>
+     * <p>The remote tip is only checked for a parallel download on the first run, or after a run got a full page of
+     * blocks, which means the local chain is still behind.</p>
      */
     @Override
     public void run() {
-        if (isIsSync()) {
+        // set sysn tag true
+        if (!isSync.compareAndSet(false, true)) {
             // give up synchronize
             return;
         }
-
-        Log.i(TAG, "run at time " + System.currentTimeMillis());
-
-        List<String> startHashes = getStartHashes();
-        if (ObjectUtils.isEmpty(startHashes)) {
-            return;
-        }
         try {
-            // set sysn tag true
-            setIsSync(true);
+            Log.i(TAG, "run at time " + System.currentTimeMillis());
 
+            List<String> startHashes = getStartHashes();
+            if (ObjectUtils.isEmpty(startHashes)) {
+                return;
+            }
+            if (catchUpNeeded) {
+                boolean saved = catchUp(startHashes.get(0));
+                catchUpNeeded = false;
+                if (saved) {
+                    startHashes = getStartHashes();
+                }
+            }
             List<Block> blocks = dataProvider.getBlocks(startHashes, ONCE_COUNT);
+            if (blocks != null && blocks.size() >= ONCE_COUNT) {
+                // there is a gap to the remote tip
+                catchUpNeeded = true;
+            }
             // save blocks to db
             saveSynchronizedBlocks(blocks, startHashes);
-
-            // set sysn tag false
-            setIsSync(false);
         } catch (Exception e) {
             Log.e(TAG, "run: ", e);
+        } finally {
+            // set sysn tag false
+            isSync.set(false);
         }
     }
 
     /**
-     * Returns if there is a synchronize process.
-     * @return
+     * Stop a running parallel download, and all later ones of this thread.
      */
-    private static boolean isIsSync() {
-        return isSync;
+    public void cancel() {
+        blockDownloader.cancel();
     }
 
     /**
-     * Set synchronize tag.
-     * @param isSync true/false
+     * Release connections held by this thread's provider.
+     * <p>It should be called when no synchronize is running.</p>
      */
-    @Synchronized
-    private static void setIsSync(boolean isSync) {
-        LocalBlockThread.isSync = isSync;
+    public void release() {
+        blockDownloader.cancel();
+        protocalProvider.close();
+    }
+
+    /**
+     * Returns metrics of the last parallel download.
+     * @return BlockDownloadMetrics null if there is no parallel download
+     */
+    public BlockDownloadMetrics getDownloadMetrics() {
+        return downloadMetrics;
+    }
+
+    /**
+     * Download blocks in parallel by height when local chain is far behind the remote tip.
+     * <p>The last PREV_COUNT blocks are left to normal synchronization, which handles forked blocks.</p>
+     * @param currentHash local tail hash
+     * @return boolean true if some blocks are saved
+     */
+    private boolean catchUp(String currentHash) {
+        Block current = blockDb.get(currentHash);
+        if (current == null) {
+            return false;
+        }
+        BlockChainInfo blockChainInfo = dataProvider.getBlockchainInfo();
+        if (blockChainInfo == null) {
+            return false;
+        }
+        long localHeight = current.getHeader().getHeight();
+        long targetHeight = blockChainInfo.getBlockHeight() - PREV_COUNT;
+        if (targetHeight - localHeight <= CATCH_UP_THRESHOLD) {
+            return false;
+        }
+        Log.i(TAG, "catch up from height " + localHeight + " to " + targetHeight);
+        BlockDownloadMetrics metrics = blockDownloader.download(localHeight + 1, targetHeight, currentHash, new BlockDownloader.BlockHandler() {
+            @Override
+            public void onBlocks(List<Block> blocks) {
+                saveBlocks(blocks);
+            }
+        });
+        downloadMetrics = metrics;
+        Log.i(TAG, String.format("catch up saved %d blocks, %.1f blocks per second", metrics.getBlockCount(), metrics.getBlocksPerSecond()));
+        return metrics.getBlockCount() > 0;
     }
 
     /**
@@ -188,7 +257,14 @@ public class LocalBlockThread implements Runnable {
             removeForkedBlocks(newParentHash, startHashs);
         }
 
-        // save new datas
+        saveBlocks(blocks);
+    }
+
+    /**
+     * Save blocks linked to current tail block, and update current hash value.
+     * @param blocks new tail blocks in increase mode
+     */
+    private void saveBlocks(List<Block> blocks) {
         String currentHash = null;
         for (Block block : blocks) {
             currentHash = HexUtil.toHex(block.getHeader().getHash());